@@ -0,0 +1,256 @@
+package com.intuit.graphql.orchestrator;
+
+import static com.intuit.graphql.orchestrator.utils.FederationConstants.REPRESENTATIONS_VAR_NAME;
+
+import com.intuit.graphql.orchestrator.ServiceProvider.ServiceType;
+import com.intuit.graphql.orchestrator.batch.QueryExecutor;
+import com.intuit.graphql.orchestrator.schema.RuntimeGraph;
+import com.intuit.graphql.orchestrator.stitching.SchemaStitcher;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQLContext;
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.OperationDefinition;
+import graphql.language.StringValue;
+import graphql.parser.Parser;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * In-memory service providers shared by the benchmarks. They are built from the schemas of the test services and
+ * answer from precomputed data, so the benchmarks measure the orchestrator rather than the fixtures.
+ */
+public final class BenchmarkFixtures {
+
+  private BenchmarkFixtures() {
+  }
+
+  public static GraphQLOrchestrator orchestrator(List<ServiceProvider> serviceProviders) {
+    RuntimeGraph runtimeGraph = SchemaStitcher.newBuilder()
+        .services(serviceProviders)
+        .build()
+        .stitchGraph();
+    return GraphQLOrchestrator.newOrchestrator()
+        .runtimeGraph(runtimeGraph)
+        .build();
+  }
+
+  public static ExecutionResult execute(GraphQLOrchestrator orchestrator, String query) {
+    ExecutionResult executionResult = orchestrator.execute(ExecutionInput.newExecutionInput()
+        .query(query)
+        .context(GraphQLContext.newContext().build())
+        .build()).join();
+    if (!executionResult.getErrors().isEmpty()) {
+      throw new IllegalStateException("Benchmark query failed: " + executionResult.getErrors());
+    }
+    return executionResult;
+  }
+
+  public static ServiceProvider provider(String namespace, ServiceType serviceType, Map<String, String> sdlFiles,
+      QueryExecutor queryExecutor) {
+    return new InMemoryServiceProvider(namespace, serviceType, sdlFiles, queryExecutor);
+  }
+
+  /**
+   * The books service with {@code bookCount} books. Every author links to one of three pets with {@code @resolver},
+   * so a query for the pets of all authors batches {@code bookCount} aliased fields into one pets request.
+   */
+  public static ServiceProvider booksService(int bookCount) {
+    List<Map<String, Object>> books = new ArrayList<>();
+    for (int i = 0; i < bookCount; i++) {
+      Map<String, Object> author = new HashMap<>();
+      author.put("id", "author-" + i);
+      author.put("lastName", "Author" + i);
+      author.put("petId", "pet-" + (i % 3 + 1));
+
+      Map<String, Object> book = new HashMap<>();
+      book.put("id", "book-" + i);
+      book.put("name", "Book " + i);
+      book.put("pageCount", 100 + i);
+      book.put("author", author);
+      books.add(book);
+    }
+
+    Map<String, Object> response = data(Collections.singletonMap("books", books));
+    return provider("BOOKS", ServiceType.GRAPHQL,
+        TestHelper.getFileMapFromList("top_level/books-and-pets/schema-books.graphqls",
+            "top_level/books-and-pets/pet-author-link.graphqls"),
+        (executionInput, context) -> CompletableFuture.completedFuture(response));
+  }
+
+  /**
+   * The pets service answering every top level field, aliased or not, with the pet of its {@code id} argument.
+   */
+  public static ServiceProvider petsService() {
+    Map<String, Object> pets = new HashMap<>();
+    for (int i = 1; i <= 3; i++) {
+      Map<String, Object> pet = new HashMap<>();
+      pet.put("id", "pet-" + i);
+      pet.put("name", "Pet " + i);
+      pet.put("age", i);
+      pet.put("purebred", i % 2 == 0);
+      pets.put("pet-" + i, pet);
+    }
+
+    return provider("PETS", ServiceType.GRAPHQL,
+        TestHelper.getFileMapFromList("top_level/books-and-pets/schema-pets.graphqls"),
+        (executionInput, context) -> {
+          Map<String, Object> data = new HashMap<>();
+          for (Field field : topLevelFields(executionInput)) {
+            String id = field.getArguments().stream()
+                .filter(argument -> argument.getValue() instanceof StringValue)
+                .map(argument -> ((StringValue) argument.getValue()).getValue())
+                .findFirst()
+                .orElse("pet-1");
+            data.put(field.getAlias() != null ? field.getAlias() : field.getName(),
+                "pets".equals(field.getName()) ? new ArrayList<>(pets.values()) : pets.get(id));
+          }
+          return CompletableFuture.completedFuture(data(data));
+        });
+  }
+
+  /**
+   * A federation subgraph owning {@code Employee}, based on the employee schema of the federation specs, with a
+   * list field returning {@code employeeCount} employees.
+   */
+  public static ServiceProvider employeeSubgraph(int employeeCount) {
+    List<Map<String, Object>> employees = new ArrayList<>();
+    for (int i = 0; i < employeeCount; i++) {
+      Map<String, Object> employee = new HashMap<>();
+      employee.put("id", "employee-" + i);
+      employee.put("username", "user" + i);
+      employee.put("password", "secret");
+      employees.add(employee);
+    }
+
+    Map<String, Object> response = data(Collections.singletonMap("employees", employees));
+    return provider("Employee", ServiceType.FEDERATION_SUBGRAPH,
+        Collections.singletonMap("employee.graphqls", "type Query {\n"
+            + "  employees: [Employee]\n"
+            + "  employeeById(id: ID!): Employee\n"
+            + "}\n"
+            + "type Employee @key(fields: \"id\") {\n"
+            + "  id: ID!\n"
+            + "  username: String!\n"
+            + "  password: String!\n"
+            + "}\n"),
+        (executionInput, context) -> CompletableFuture.completedFuture(response));
+  }
+
+  /**
+   * The review subgraph of the federation specs, extending {@code Employee} only. Every entity request is answered
+   * with one review per representation.
+   */
+  public static ServiceProvider reviewSubgraph() {
+    return provider("Review", ServiceType.FEDERATION_SUBGRAPH,
+        Collections.singletonMap("review.graphqls", "extend type Employee @key(fields: \"id\") {\n"
+            + "  id: ID! @external\n"
+            + "  review: Review\n"
+            + "}\n"
+            + "type Review {\n"
+            + "  reviewId: ID!\n"
+            + "  rating: Int!\n"
+            + "  comments: String\n"
+            + "}\n"),
+        (executionInput, context) -> {
+          List<?> representations = (List<?>) executionInput.getVariables().get(REPRESENTATIONS_VAR_NAME);
+          List<Map<String, Object>> entities = new ArrayList<>(representations.size());
+          for (int i = 0; i < representations.size(); i++) {
+            Map<String, Object> review = new HashMap<>();
+            review.put("reviewId", "review-" + i);
+            review.put("rating", i % 5);
+            review.put("comments", "Comment " + i);
+
+            Map<String, Object> entity = new HashMap<>();
+            entity.put("__typename", "Employee");
+            entity.put("review", review);
+            entities.add(entity);
+          }
+          return CompletableFuture.completedFuture(data(Collections.singletonMap("_entities", entities)));
+        });
+  }
+
+  /**
+   * Providers with their own top level field and a field on a shared nested type, so stitching both adds types and
+   * merges them.
+   */
+  public static List<ServiceProvider> syntheticProviders(int providerCount) {
+    List<ServiceProvider> serviceProviders = new ArrayList<>(providerCount);
+    for (int i = 0; i < providerCount; i++) {
+      String sdl = String.format("type Query {\n"
+          + "  svc%1$d(id: ID!): Svc%1$dType\n"
+          + "  shared: Shared\n"
+          + "}\n"
+          + "type Shared {\n"
+          + "  svc%1$d: Svc%1$dType\n"
+          + "}\n"
+          + "type Svc%1$dType {\n"
+          + "  id: ID!\n"
+          + "  name: String\n"
+          + "  status: Svc%1$dStatus\n"
+          + "  items(first: Int = 10): [Svc%1$dItem]\n"
+          + "}\n"
+          + "type Svc%1$dItem {\n"
+          + "  id: ID!\n"
+          + "  value: Float\n"
+          + "}\n"
+          + "enum Svc%1$dStatus { ACTIVE INACTIVE }\n", i);
+      serviceProviders.add(provider("SVC" + i, ServiceType.GRAPHQL,
+          Collections.singletonMap("svc" + i + ".graphqls", sdl),
+          (executionInput, context) -> CompletableFuture.completedFuture(data(Collections.emptyMap()))));
+    }
+    return serviceProviders;
+  }
+
+  public static Map<String, Object> data(Object data) {
+    return Collections.singletonMap("data", data);
+  }
+
+  private static List<Field> topLevelFields(ExecutionInput executionInput) {
+    Document document = executionInput.getRoot() instanceof Document
+        ? (Document) executionInput.getRoot() : Parser.parse(executionInput.getQuery());
+    return document.getDefinitionsOfType(OperationDefinition.class).get(0)
+        .getSelectionSet().getSelectionsOfType(Field.class);
+  }
+
+  private static final class InMemoryServiceProvider implements ServiceProvider {
+
+    private final String namespace;
+    private final ServiceType serviceType;
+    private final Map<String, String> sdlFiles;
+    private final QueryExecutor queryExecutor;
+
+    private InMemoryServiceProvider(String namespace, ServiceType serviceType, Map<String, String> sdlFiles,
+        QueryExecutor queryExecutor) {
+      this.namespace = namespace;
+      this.serviceType = serviceType;
+      this.sdlFiles = sdlFiles;
+      this.queryExecutor = queryExecutor;
+    }
+
+    @Override
+    public String getNameSpace() {
+      return namespace;
+    }
+
+    @Override
+    public Map<String, String> sdlFiles() {
+      return sdlFiles;
+    }
+
+    @Override
+    public ServiceType getSeviceType() {
+      return serviceType;
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> query(ExecutionInput executionInput, GraphQLContext context) {
+      return queryExecutor.query(executionInput, context);
+    }
+  }
+}
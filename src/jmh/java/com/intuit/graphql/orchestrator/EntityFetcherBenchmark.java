@@ -0,0 +1,48 @@
+package com.intuit.graphql.orchestrator;
+
+import graphql.ExecutionResult;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a federated query whose extension field is fetched by {@code EntityFetcherBatchLoader}: the review of
+ * every employee is requested from the review subgraph with {@code batchSize} representations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityFetcherBenchmark {
+
+  private static final String QUERY = "query { employees { id username review { reviewId rating comments } } }";
+
+  @Param({"1", "10", "100", "1000"})
+  public int batchSize;
+
+  private GraphQLOrchestrator orchestrator;
+
+  @Setup
+  public void setup() {
+    orchestrator = BenchmarkFixtures.orchestrator(Arrays.asList(BenchmarkFixtures.employeeSubgraph(batchSize),
+        BenchmarkFixtures.reviewSubgraph()));
+    BenchmarkFixtures.execute(orchestrator, QUERY);
+  }
+
+  @Benchmark
+  public ExecutionResult fetchEntities() {
+    return BenchmarkFixtures.execute(orchestrator, QUERY);
+  }
+}
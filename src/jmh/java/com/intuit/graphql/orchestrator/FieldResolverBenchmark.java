@@ -0,0 +1,48 @@
+package com.intuit.graphql.orchestrator;
+
+import graphql.ExecutionResult;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a query whose {@code @resolver} field is batched by {@code FieldResolverBatchLoader}: every book author
+ * resolves its pet, so each request sends {@code batchSize} aliased fields to the pets service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FieldResolverBenchmark {
+
+  private static final String QUERY = "query { books { id author { id pet { id name age } } } }";
+
+  @Param({"1", "10", "100", "1000"})
+  public int batchSize;
+
+  private GraphQLOrchestrator orchestrator;
+
+  @Setup
+  public void setup() {
+    orchestrator = BenchmarkFixtures.orchestrator(Arrays.asList(BenchmarkFixtures.booksService(batchSize),
+        BenchmarkFixtures.petsService()));
+    BenchmarkFixtures.execute(orchestrator, QUERY);
+  }
+
+  @Benchmark
+  public ExecutionResult resolvePets() {
+    return BenchmarkFixtures.execute(orchestrator, QUERY);
+  }
+}
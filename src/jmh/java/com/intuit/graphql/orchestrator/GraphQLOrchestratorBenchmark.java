@@ -0,0 +1,62 @@
+package com.intuit.graphql.orchestrator;
+
+import graphql.ExecutionResult;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link GraphQLOrchestrator#execute} end to end, from parsing the query to the merged result, against
+ * in-memory providers built from the test services.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphQLOrchestratorBenchmark {
+
+  @Param({"books-and-pets", "starwars", "federation"})
+  public String fixture;
+
+  private GraphQLOrchestrator orchestrator;
+  private String query;
+
+  @Setup
+  public void setup() {
+    switch (fixture) {
+      case "books-and-pets":
+        orchestrator = BenchmarkFixtures.orchestrator(Arrays.asList(new BooksService(), BenchmarkFixtures.petsService()));
+        query = "query { books { id name pageCount author { id lastName pet { id name age } } } }";
+        break;
+      case "starwars":
+        orchestrator = BenchmarkFixtures.orchestrator(Arrays.asList(new StarWarsService()));
+        query = "query { hero { id name appearsIn ... on Droid { primaryFunction } } characters { id name appearsIn } }";
+        break;
+      case "federation":
+        orchestrator = BenchmarkFixtures.orchestrator(Arrays.asList(BenchmarkFixtures.employeeSubgraph(10),
+            BenchmarkFixtures.reviewSubgraph()));
+        query = "query { employees { id username review { reviewId rating comments } } }";
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown fixture " + fixture);
+    }
+    BenchmarkFixtures.execute(orchestrator, query);
+  }
+
+  @Benchmark
+  public ExecutionResult execute() {
+    return BenchmarkFixtures.execute(orchestrator, query);
+  }
+}
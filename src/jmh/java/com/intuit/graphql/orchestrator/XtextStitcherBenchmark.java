@@ -0,0 +1,47 @@
+package com.intuit.graphql.orchestrator;
+
+import com.intuit.graphql.orchestrator.schema.RuntimeGraph;
+import com.intuit.graphql.orchestrator.stitching.SchemaStitcher;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures stitching {@code providerCount} providers that each add their own types and merge a shared nested type.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class XtextStitcherBenchmark {
+
+  @Param({"10", "50", "100", "200"})
+  public int providerCount;
+
+  private List<ServiceProvider> serviceProviders;
+
+  @Setup
+  public void setup() {
+    serviceProviders = BenchmarkFixtures.syntheticProviders(providerCount);
+  }
+
+  @Benchmark
+  public RuntimeGraph stitch() {
+    return SchemaStitcher.newBuilder()
+        .services(serviceProviders)
+        .build()
+        .stitchGraph();
+  }
+}
@@ -0,0 +1,128 @@
+package com.intuit.graphql.orchestrator.batch;
+
+import static graphql.schema.DataFetchingEnvironmentImpl.newDataFetchingEnvironment;
+
+import com.intuit.graphql.orchestrator.BenchmarkFixtures;
+import com.intuit.graphql.orchestrator.ServiceProvider;
+import com.intuit.graphql.orchestrator.ServiceProvider.ServiceType;
+import com.intuit.graphql.orchestrator.TestHelper;
+import com.intuit.graphql.orchestrator.schema.RuntimeGraph;
+import com.intuit.graphql.orchestrator.stitching.SchemaStitcher;
+import graphql.GraphQLContext;
+import graphql.execution.DataFetcherResult;
+import graphql.execution.ExecutionStepInfo;
+import graphql.execution.MergedField;
+import graphql.execution.ResultPath;
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.OperationDefinition;
+import graphql.parser.Parser;
+import graphql.parser.ParserOptions;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLObjectType;
+import graphql.schema.GraphQLSchema;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link GraphQLServiceBatchLoader#load} for a batch of {@code batchSize} aliased top level fields of the
+ * books schema, from building the downstream query to splitting the response per key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphQLServiceBatchLoaderBenchmark {
+
+  @Param({"1", "10", "100", "1000"})
+  public int batchSize;
+
+  private GraphQLServiceBatchLoader batchLoader;
+  private List<DataFetchingEnvironment> keys;
+
+  @Setup
+  public void setup() {
+    StringBuilder query = new StringBuilder("query Books {");
+    Map<String, Object> data = new HashMap<>();
+    for (int i = 0; i < batchSize; i++) {
+      query.append(String.format(" b%1$d: bookById(id: \"book-%1$d\") { id name pageCount author { id lastName } }", i));
+
+      Map<String, Object> book = new HashMap<>();
+      book.put("id", "book-" + i);
+      book.put("name", "Book " + i);
+      book.put("pageCount", i);
+      book.put("author", Collections.singletonMap("id", "author-" + i));
+      data.put("b" + i, book);
+    }
+    Map<String, Object> response = BenchmarkFixtures.data(data);
+
+    ServiceProvider booksService = BenchmarkFixtures.provider("BOOKS", ServiceType.GRAPHQL,
+        TestHelper.getFileMapFromList("top_level/books-and-pets/schema-books.graphqls"),
+        (executionInput, context) -> CompletableFuture.completedFuture(response));
+    RuntimeGraph runtimeGraph = SchemaStitcher.newBuilder()
+        .service(booksService)
+        .build()
+        .stitchGraph();
+    batchLoader = (GraphQLServiceBatchLoader) runtimeGraph.getBatchLoaderMap().get("BOOKS");
+
+    GraphQLSchema graphQLSchema = runtimeGraph.getExecutableSchema();
+    GraphQLObjectType queryType = graphQLSchema.getQueryType();
+    GraphQLFieldDefinition bookById = queryType.getFieldDefinition("bookById");
+    // large batches exceed the default token limit of the parser
+    Document document = new Parser().parseDocument(query.append(" }").toString(),
+        ParserOptions.newParserOptions().maxTokens(Integer.MAX_VALUE).build());
+    OperationDefinition operationDefinition = document.getDefinitionsOfType(OperationDefinition.class).get(0);
+    GraphQLContext context = GraphQLContext.newContext().build();
+    ExecutionStepInfo root = ExecutionStepInfo.newExecutionStepInfo()
+        .type(queryType)
+        .path(ResultPath.rootPath())
+        .build();
+
+    keys = new ArrayList<>(batchSize);
+    for (Field field : operationDefinition.getSelectionSet().getSelectionsOfType(Field.class)) {
+      MergedField mergedField = MergedField.newMergedField(field).build();
+      keys.add(newDataFetchingEnvironment()
+          .context(context)
+          .graphQLSchema(graphQLSchema)
+          .document(document)
+          .operationDefinition(operationDefinition)
+          .fragmentsByName(Collections.emptyMap())
+          .variables(Collections.emptyMap())
+          .parentType(queryType)
+          .fieldDefinition(bookById)
+          .mergedField(mergedField)
+          .executionStepInfo(ExecutionStepInfo.newExecutionStepInfo()
+              .parentInfo(root)
+              .type(bookById.getType())
+              .fieldDefinition(bookById)
+              .field(mergedField)
+              .path(ResultPath.rootPath().segment(field.getAlias()))
+              .build())
+          .build());
+    }
+  }
+
+  @Benchmark
+  public List<DataFetcherResult<Object>> load() {
+    return batchLoader.load(keys).toCompletableFuture().join();
+  }
+}
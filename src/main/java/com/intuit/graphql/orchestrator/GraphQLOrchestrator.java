@@ -2,6 +2,7 @@ package com.intuit.graphql.orchestrator;
 
 import static java.util.Objects.requireNonNull;
 
+import com.intuit.graphql.orchestrator.batch.DownstreamQueryDeduplicator;
 import com.intuit.graphql.orchestrator.schema.RuntimeGraph;
 import graphql.ExecutionInput;
 import graphql.ExecutionResult;
@@ -14,18 +15,14 @@ import graphql.execution.instrumentation.ChainedInstrumentation;
 import graphql.execution.instrumentation.Instrumentation;
 import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentation;
 import graphql.schema.GraphQLSchema;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
-import java.util.function.Function;
 import java.util.function.UnaryOperator;
-import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
-import org.dataloader.BatchLoader;
-import org.dataloader.DataLoader;
 import org.dataloader.DataLoaderRegistry;
 
 @Slf4j
@@ -34,46 +31,44 @@ public class GraphQLOrchestrator {
   public static final String DATA_LOADER_REGISTRY_CONTEXT_KEY = DataLoaderRegistry.class.getName() + ".context.key";
 
   private final RuntimeGraph runtimeGraph;
-  private final List<Instrumentation> instrumentations;
-  private final ExecutionIdProvider executionIdProvider;
-  private final ExecutionStrategy queryExecutionStrategy;
-  private final ExecutionStrategy mutationExecutionStrategy;
+  private final PreparsedDocumentCache preparsedDocumentCache;
+  private final boolean deduplicateDownstreamQueries;
+  private final GraphQL graphQL;
 
   private GraphQLOrchestrator(final RuntimeGraph runtimeGraph, final List<Instrumentation> instrumentations,
       final ExecutionIdProvider executionIdProvider, final ExecutionStrategy queryExecutionStrategy,
-      final ExecutionStrategy mutationExecutionStrategy) {
-    this.runtimeGraph = runtimeGraph;
-    this.instrumentations = instrumentations;
-    this.executionIdProvider = executionIdProvider;
-    this.queryExecutionStrategy = queryExecutionStrategy;
-    this.mutationExecutionStrategy = mutationExecutionStrategy;
+      final ExecutionStrategy mutationExecutionStrategy, final PreparsedDocumentCache preparsedDocumentCache,
+      final boolean deduplicateDownstreamQueries) {
+    this.runtimeGraph = requireNonNull(runtimeGraph, "runtimeGraph is required");
+    this.preparsedDocumentCache = preparsedDocumentCache;
+    this.deduplicateDownstreamQueries = deduplicateDownstreamQueries;
+    this.graphQL = buildGraphQL(instrumentations, executionIdProvider, queryExecutionStrategy,
+        mutationExecutionStrategy);
   }
 
   public static GraphQLOrchestrator.Builder newOrchestrator() {
     return new Builder();
   }
 
-  @SuppressWarnings("unchecked")
   private DataLoaderRegistry buildNewDataLoaderRegistry() {
-    final DataLoaderRegistry dataLoaderRegistry = new DataLoaderRegistry();
-
-    // Important to make sure that the same instance of dataloader, (not batchloader)
-    // is used for batching queries belonging to same provider. Also very very important
-    // to create a new DataLoader per request. Else it will use the cache which is shared
-    // across request.
-    final Map<BatchLoader, DataLoader> temporaryMap = this.runtimeGraph.getBatchLoaderMap().values().stream().distinct()
-        .collect(Collectors.toMap(Function.identity(), DataLoader::new));
-
-    this.runtimeGraph.getBatchLoaderMap()
-        .forEach((key, batchLoader) ->
-            dataLoaderRegistry.register(key, temporaryMap.getOrDefault(batchLoader, new DataLoader(batchLoader))));
-    return dataLoaderRegistry;
+    // Very very important to create a new registry per request. Else it will use the DataLoader cache which is
+    // shared across requests. The registry makes sure that the same instance of dataloader, (not batchloader) is
+    // used for batching queries belonging to same provider, and only creates the DataLoaders a query asks for.
+    return new LazyDataLoaderRegistry(this.runtimeGraph.getBatchLoaderMap());
   }
 
-  public CompletableFuture<ExecutionResult> execute(ExecutionInput executionInput) {
+  /**
+   * The GraphQL instance is built once per orchestrator since the schema, instrumentations and execution strategies
+   * do not change between requests. Anything request scoped (e.g. the DataLoaderRegistry) is passed through the
+   * ExecutionInput.
+   */
+  private GraphQL buildGraphQL(final List<Instrumentation> instrumentations,
+      final ExecutionIdProvider executionIdProvider, final ExecutionStrategy queryExecutionStrategy,
+      final ExecutionStrategy mutationExecutionStrategy) {
+    final GraphQLSchema graphQLSchema = runtimeGraph.getExecutableSchema();
 
-    final GraphQL.Builder graphqlBuilder = GraphQL.newGraphQL(runtimeGraph.getExecutableSchema())
-        .instrumentation(new ChainedInstrumentation(instrumentations))
+    final GraphQL.Builder graphqlBuilder = GraphQL.newGraphQL(graphQLSchema)
+        .instrumentation(new ChainedInstrumentation(new ArrayList<>(instrumentations)))
         .executionIdProvider(executionIdProvider)
         .queryExecutionStrategy(queryExecutionStrategy);
 
@@ -81,7 +76,21 @@ public class GraphQLOrchestrator {
       graphqlBuilder.mutationExecutionStrategy(mutationExecutionStrategy);
     }
 
-    final GraphQL graphQL = graphqlBuilder.build();
+    // graphql-java adds a DataLoaderDispatcherInstrumentation unless told otherwise, which would dispatch the
+    // DataLoaders held back by the LevelDispatchInstrumentation
+    if (instrumentations.stream().anyMatch(LevelDispatchInstrumentation.class::isInstance)) {
+      graphqlBuilder.doNotAddDefaultInstrumentations();
+    }
+
+    if (Objects.nonNull(preparsedDocumentCache)) {
+      graphqlBuilder.preparsedDocumentProvider((executionInput, parseAndValidateFunction) ->
+          preparsedDocumentCache.getDocument(graphQLSchema, executionInput, parseAndValidateFunction));
+    }
+
+    return graphqlBuilder.build();
+  }
+
+  public CompletableFuture<ExecutionResult> execute(ExecutionInput executionInput) {
 
     final ExecutionInput newExecutionInput = executionInput
         .transform(builder -> builder.dataLoaderRegistry(buildNewDataLoaderRegistry()));
@@ -89,6 +98,10 @@ public class GraphQLOrchestrator {
     if (newExecutionInput.getContext() instanceof GraphQLContext) {
       ((GraphQLContext) executionInput.getContext())
           .put(DATA_LOADER_REGISTRY_CONTEXT_KEY, newExecutionInput.getDataLoaderRegistry());
+      if (deduplicateDownstreamQueries) {
+        ((GraphQLContext) executionInput.getContext())
+            .put(DownstreamQueryDeduplicator.CONTEXT_KEY, new DownstreamQueryDeduplicator());
+      }
     }
     return graphQL.executeAsync(newExecutionInput);
   }
@@ -97,6 +110,16 @@ public class GraphQLOrchestrator {
     return runtimeGraph.getExecutableSchema();
   }
 
+  /**
+   * Returns the cache of parsed and validated documents used by this orchestrator, which exposes hit, miss and
+   * eviction counts.
+   *
+   * @return the preparsed document cache, or null if none was configured
+   */
+  public PreparsedDocumentCache getPreparsedDocumentCache() {
+    return preparsedDocumentCache;
+  }
+
   public CompletableFuture<ExecutionResult> execute(UnaryOperator<ExecutionInput.Builder> unaryOperator) {
     return execute(unaryOperator.apply(ExecutionInput.newExecutionInput()));
   }
@@ -113,6 +136,8 @@ public class GraphQLOrchestrator {
     private ExecutionStrategy mutationExecutionStrategy = null;
     private List<Instrumentation> instrumentations = new LinkedList<>(
         Arrays.asList(new DataLoaderDispatcherInstrumentation()));
+    private PreparsedDocumentCache preparsedDocumentCache = null;
+    private boolean deduplicateDownstreamQueries = true;
 
     private Builder() {
     }
@@ -137,6 +162,21 @@ public class GraphQLOrchestrator {
       return this;
     }
 
+    /**
+     * Dispatches DataLoaders level by level with the given instrumentation instead of the
+     * DataLoaderDispatcherInstrumentation installed by default. The {@link LevelDispatcher} of a request, which counts
+     * its dispatches, is available from its GraphQLContext.
+     *
+     * @param levelDispatchInstrumentation the instrumentation that replaces DataLoaderDispatcherInstrumentation
+     * @return the builder
+     */
+    public Builder levelDispatchInstrumentation(final LevelDispatchInstrumentation levelDispatchInstrumentation) {
+      requireNonNull(levelDispatchInstrumentation);
+      this.instrumentations.removeIf(instrumentation -> instrumentation instanceof DataLoaderDispatcherInstrumentation);
+      this.instrumentations.add(0, levelDispatchInstrumentation);
+      return this;
+    }
+
     public Builder executionIdProvider(final ExecutionIdProvider executionIdProvider) {
       this.executionIdProvider = requireNonNull(executionIdProvider);
       return this;
@@ -152,9 +192,33 @@ public class GraphQLOrchestrator {
       return this;
     }
 
+    /**
+     * Caches parsed and validated documents so that repeated queries skip parsing and validation.
+     *
+     * @param preparsedDocumentCache the cache, which may be shared across orchestrators
+     * @return the builder
+     */
+    public Builder preparsedDocumentCache(final PreparsedDocumentCache preparsedDocumentCache) {
+      this.preparsedDocumentCache = requireNonNull(preparsedDocumentCache);
+      return this;
+    }
+
+    /**
+     * Shares identical downstream query executions within a request, see {@link DownstreamQueryDeduplicator}. The
+     * number of shared executions of a request is available from the deduplicator in its GraphQLContext. Enabled by
+     * default.
+     *
+     * @param deduplicateDownstreamQueries true to send identical downstream queries of a request once
+     * @return the builder
+     */
+    public Builder deduplicateDownstreamQueries(final boolean deduplicateDownstreamQueries) {
+      this.deduplicateDownstreamQueries = deduplicateDownstreamQueries;
+      return this;
+    }
+
     public GraphQLOrchestrator build() {
       return new GraphQLOrchestrator(runtimeGraph, instrumentations, executionIdProvider, queryExecutionStrategy,
-          mutationExecutionStrategy);
+          mutationExecutionStrategy, preparsedDocumentCache, deduplicateDownstreamQueries);
     }
   }
 }
@@ -0,0 +1,49 @@
+package com.intuit.graphql.orchestrator;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import org.dataloader.BatchLoader;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+
+/**
+ * A DataLoaderRegistry of one request that creates the DataLoader of a key the first time it is asked for, instead of
+ * creating a DataLoader for every provider and every resolver and entity field up front. Keys that share a
+ * BatchLoader share one DataLoader, so their keys are batched together.
+ *
+ * <p>{@link #getKeys()} and {@link #getDataLoaders()} only return the DataLoaders created so far, which are the only
+ * ones that can have keys to dispatch.
+ */
+public class LazyDataLoaderRegistry extends DataLoaderRegistry {
+
+  private final Map<String, BatchLoader> batchLoaderMap;
+  private final Map<BatchLoader, DataLoader<?, ?>> dataLoadersByBatchLoader = new ConcurrentHashMap<>();
+
+  /**
+   * @param batchLoaderMap the BatchLoaders by DataLoader key, e.g. those of
+   *     {@link com.intuit.graphql.orchestrator.schema.RuntimeGraph#getBatchLoaderMap()}
+   */
+  public LazyDataLoaderRegistry(Map<String, BatchLoader> batchLoaderMap) {
+    this.batchLoaderMap = requireNonNull(batchLoaderMap);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <K, V> DataLoader<K, V> getDataLoader(String key) {
+    DataLoader<K, V> dataLoader = super.getDataLoader(key);
+    if (Objects.nonNull(dataLoader)) {
+      return dataLoader;
+    }
+
+    BatchLoader batchLoader = batchLoaderMap.get(key);
+    if (Objects.isNull(batchLoader)) {
+      return null;
+    }
+    // a new DataLoader per request, so that its cache is not shared across requests
+    return computeIfAbsent(key,
+        k -> dataLoadersByBatchLoader.computeIfAbsent(batchLoader, DataLoader::new));
+  }
+}
@@ -0,0 +1,150 @@
+package com.intuit.graphql.orchestrator;
+
+import static java.util.Objects.requireNonNull;
+
+import graphql.ExecutionResult;
+import graphql.GraphQLContext;
+import graphql.execution.AsyncExecutionStrategy;
+import graphql.execution.ExecutionContext;
+import graphql.execution.FieldValueInfo;
+import graphql.execution.instrumentation.ExecutionStrategyInstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionStrategyParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetcher;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Dispatches the DataLoaders of a request level by level, see {@link LevelDispatcher}. It replaces graphql-java's
+ * DataLoaderDispatcherInstrumentation with {@link GraphQLOrchestrator.Builder#levelDispatchInstrumentation}.
+ *
+ * <p>Compared to DataLoaderDispatcherInstrumentation, a DataLoader is only dispatched when it has keys, data
+ * fetchers can hold back the DataLoader of a deferred load instead of forcing extra dispatches, and an optional
+ * dispatch window coalesces the keys loaded shortly after a level is ready. The number of dispatches of a request is
+ * available from its {@link LevelDispatcher}.
+ */
+public class LevelDispatchInstrumentation extends SimpleInstrumentation {
+
+  private static final ExecutionStrategyInstrumentationContext NO_OP_STRATEGY_CONTEXT =
+      new ExecutionStrategyInstrumentationContext() {
+        @Override
+        public void onDispatched(CompletableFuture<ExecutionResult> result) {
+        }
+
+        @Override
+        public void onCompleted(ExecutionResult result, Throwable t) {
+        }
+
+        @Override
+        public void onFieldValuesInfo(List<FieldValueInfo> fieldValueInfos) {
+        }
+      };
+
+  private final Duration dispatchWindow;
+  private final ScheduledExecutorService scheduler;
+
+  private LevelDispatchInstrumentation(Builder builder) {
+    this.dispatchWindow = builder.dispatchWindow;
+    this.scheduler = builder.scheduler;
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  @Override
+  public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+    LevelDispatcher levelDispatcher = new LevelDispatcher(parameters.getExecutionInput().getDataLoaderRegistry(),
+        dispatchWindow, scheduler);
+    if (parameters.getExecutionInput().getContext() instanceof GraphQLContext) {
+      ((GraphQLContext) parameters.getExecutionInput().getContext())
+          .put(LevelDispatcher.CONTEXT_KEY, levelDispatcher);
+    }
+    return levelDispatcher;
+  }
+
+  @Override
+  public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+      InstrumentationExecuteOperationParameters parameters) {
+    LevelDispatcher levelDispatcher = parameters.getInstrumentationState();
+    ExecutionContext executionContext = parameters.getExecutionContext();
+    levelDispatcher.setDataLoaderRegistry(executionContext.getDataLoaderRegistry());
+    // fields executed serially, e.g. those of mutations, are dispatched as soon as they are fetched
+    levelDispatcher.setAggressivelyBatching(executionContext
+        .getStrategy(executionContext.getOperationDefinition().getOperation()) instanceof AsyncExecutionStrategy);
+    return SimpleInstrumentationContext.noOp();
+  }
+
+  @Override
+  public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher,
+      InstrumentationFieldFetchParameters parameters) {
+    LevelDispatcher levelDispatcher = parameters.getInstrumentationState();
+    if (levelDispatcher.isAggressivelyBatching() || levelDispatcher.hasNoDataLoaders()) {
+      return dataFetcher;
+    }
+    return environment -> {
+      Object value = dataFetcher.get(environment);
+      levelDispatcher.dispatchLevel();
+      return value;
+    };
+  }
+
+  @Override
+  public ExecutionStrategyInstrumentationContext beginExecutionStrategy(
+      InstrumentationExecutionStrategyParameters parameters) {
+    LevelDispatcher levelDispatcher = parameters.getInstrumentationState();
+    if (levelDispatcher.hasNoDataLoaders()) {
+      return NO_OP_STRATEGY_CONTEXT;
+    }
+    return levelDispatcher.beginExecutionStrategy(parameters);
+  }
+
+  @Override
+  public InstrumentationContext<Object> beginFieldFetch(InstrumentationFieldFetchParameters parameters) {
+    LevelDispatcher levelDispatcher = parameters.getInstrumentationState();
+    if (levelDispatcher.hasNoDataLoaders()) {
+      return SimpleInstrumentationContext.noOp();
+    }
+    return levelDispatcher.beginFieldFetch(parameters);
+  }
+
+  public static final class Builder {
+
+    private Duration dispatchWindow = Duration.ZERO;
+    private ScheduledExecutorService scheduler = null;
+
+    private Builder() {
+    }
+
+    /**
+     * Waits for the given window after a level is ready before its DataLoaders are dispatched, so that keys loaded
+     * by sibling subtrees in the meantime are sent in the same batch. Keep the window small, it adds to the latency
+     * of every level.
+     *
+     * @param dispatchWindow the window, zero to dispatch as soon as a level is ready
+     * @param scheduler the scheduler that performs the delayed dispatches
+     * @return the builder
+     */
+    public Builder dispatchWindow(Duration dispatchWindow, ScheduledExecutorService scheduler) {
+      requireNonNull(dispatchWindow);
+      if (dispatchWindow.isNegative()) {
+        throw new IllegalArgumentException("dispatchWindow must not be negative");
+      }
+      this.dispatchWindow = dispatchWindow;
+      this.scheduler = requireNonNull(scheduler);
+      return this;
+    }
+
+    public LevelDispatchInstrumentation build() {
+      return new LevelDispatchInstrumentation(this);
+    }
+  }
+}
@@ -0,0 +1,321 @@
+package com.intuit.graphql.orchestrator;
+
+import static graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentationState.EMPTY_DATALOADER_REGISTRY;
+
+import graphql.ExecutionResult;
+import graphql.execution.FieldValueInfo;
+import graphql.execution.FieldValueInfo.CompleteValueType;
+import graphql.execution.instrumentation.ExecutionStrategyInstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionStrategyParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+
+/**
+ * Dispatches the DataLoaders of one request for a {@link LevelDispatchInstrumentation}.
+ *
+ * <p>The fields of each execution level are counted as they are fetched. Once every field of a level has been
+ * fetched and every object of the level above has been completed, no more keys can arrive for the level and its
+ * DataLoaders are dispatched. A DataLoader with deferred loads, i.e. keys that a data fetcher will only load after its
+ * own asynchronous work, is held back until those keys are loaded, so they are sent in the same batch as the keys of
+ * the level.
+ *
+ * <p>The dispatcher of a request is available from its GraphQLContext with {@link #CONTEXT_KEY}.
+ */
+public class LevelDispatcher implements InstrumentationState {
+
+  public static final String CONTEXT_KEY = LevelDispatcher.class.getName() + ".context.key";
+
+  private final Duration dispatchWindow;
+  private final ScheduledExecutorService scheduler;
+
+  private volatile DataLoaderRegistry dataLoaderRegistry;
+  private volatile boolean aggressivelyBatching = true;
+
+  private final Map<Integer, Integer> expectedFetchCounts = new HashMap<>();
+  private final Map<Integer, Integer> fetchCounts = new HashMap<>();
+  private final Map<Integer, Integer> expectedStrategyCalls = new HashMap<>();
+  private final Map<Integer, Integer> strategyCalls = new HashMap<>();
+  private final Map<Integer, Integer> fieldValuesCalls = new HashMap<>();
+  private final Set<Integer> dispatchedLevels = new HashSet<>();
+
+  private final Map<DataLoader<?, ?>, Integer> deferredLoadCounts = new IdentityHashMap<>();
+  private final Set<DataLoader<?, ?>> heldDataLoaders = Collections.newSetFromMap(new IdentityHashMap<>());
+  private final Set<DataLoader<?, ?>> scheduledDataLoaders = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  private final AtomicInteger dispatchCount = new AtomicInteger();
+  private final AtomicInteger dispatchedKeyCount = new AtomicInteger();
+
+  LevelDispatcher(DataLoaderRegistry dataLoaderRegistry, Duration dispatchWindow,
+      ScheduledExecutorService scheduler) {
+    this.dataLoaderRegistry = dataLoaderRegistry;
+    this.dispatchWindow = dispatchWindow;
+    this.scheduler = scheduler;
+    expectedStrategyCalls.put(1, 1);
+  }
+
+  /**
+   * Holds back the DataLoader until {@link #endDeferredLoad(String)} is called, e.g. by a data fetcher that returns
+   * before it loads its key. Must be called while the field is fetched.
+   *
+   * @param dataLoaderKey the key of the DataLoader in the DataLoaderRegistry
+   */
+  public void beginDeferredLoad(String dataLoaderKey) {
+    DataLoader<?, ?> dataLoader = getDataLoader(dataLoaderKey);
+    if (Objects.isNull(dataLoader)) {
+      return;
+    }
+    synchronized (this) {
+      deferredLoadCounts.merge(dataLoader, 1, Integer::sum);
+    }
+  }
+
+  /**
+   * Releases a DataLoader held back by {@link #beginDeferredLoad(String)} once the key has been loaded. The DataLoader
+   * is dispatched when no more deferred loads are outstanding and its level was ready in the meantime.
+   *
+   * @param dataLoaderKey the key of the DataLoader in the DataLoaderRegistry
+   */
+  public void endDeferredLoad(String dataLoaderKey) {
+    DataLoader<?, ?> dataLoader = getDataLoader(dataLoaderKey);
+    if (Objects.isNull(dataLoader)) {
+      return;
+    }
+    boolean dispatchNeeded = false;
+    synchronized (this) {
+      Integer count = deferredLoadCounts.get(dataLoader);
+      if (Objects.isNull(count)) {
+        return;
+      }
+      if (count > 1) {
+        deferredLoadCounts.put(dataLoader, count - 1);
+      } else {
+        deferredLoadCounts.remove(dataLoader);
+        dispatchNeeded = heldDataLoaders.remove(dataLoader);
+      }
+    }
+    if (dispatchNeeded) {
+      dispatch(Collections.singletonList(dataLoader));
+    }
+  }
+
+  /**
+   * @return the number of DataLoader dispatches of the request that sent keys to a batch loader
+   */
+  public int getDispatchCount() {
+    return dispatchCount.get();
+  }
+
+  /**
+   * @return the number of keys sent to batch loaders by the dispatches of the request
+   */
+  public int getDispatchedKeyCount() {
+    return dispatchedKeyCount.get();
+  }
+
+  void setDataLoaderRegistry(DataLoaderRegistry dataLoaderRegistry) {
+    this.dataLoaderRegistry = dataLoaderRegistry;
+  }
+
+  boolean hasNoDataLoaders() {
+    // a LazyDataLoaderRegistry has no keys until its DataLoaders are asked for
+    return Objects.isNull(dataLoaderRegistry) || dataLoaderRegistry == EMPTY_DATALOADER_REGISTRY;
+  }
+
+  boolean isAggressivelyBatching() {
+    return aggressivelyBatching;
+  }
+
+  void setAggressivelyBatching(boolean aggressivelyBatching) {
+    this.aggressivelyBatching = aggressivelyBatching;
+  }
+
+  ExecutionStrategyInstrumentationContext beginExecutionStrategy(InstrumentationExecutionStrategyParameters parameters) {
+    int level = parameters.getExecutionStrategyParameters().getExecutionStepInfo().getPath().getLevel() + 1;
+    int fieldCount = parameters.getExecutionStrategyParameters().getFields().size();
+    synchronized (this) {
+      increment(expectedFetchCounts, level, fieldCount);
+      increment(strategyCalls, level, 1);
+    }
+
+    return new ExecutionStrategyInstrumentationContext() {
+      @Override
+      public void onDispatched(CompletableFuture<ExecutionResult> result) {
+      }
+
+      @Override
+      public void onCompleted(ExecutionResult result, Throwable t) {
+      }
+
+      @Override
+      public void onFieldValuesInfo(List<FieldValueInfo> fieldValueInfos) {
+        boolean dispatchNeeded;
+        synchronized (LevelDispatcher.this) {
+          increment(fieldValuesCalls, level, 1);
+          increment(expectedStrategyCalls, level + 1, countObjects(fieldValueInfos));
+          dispatchNeeded = dispatchIfNotDispatchedBefore(level + 1);
+        }
+        if (dispatchNeeded) {
+          dispatchLevel();
+        }
+      }
+
+      @Override
+      public void onFieldValuesException() {
+        synchronized (LevelDispatcher.this) {
+          increment(fieldValuesCalls, level, 1);
+        }
+      }
+    };
+  }
+
+  InstrumentationContext<Object> beginFieldFetch(InstrumentationFieldFetchParameters parameters) {
+    int level = parameters.getExecutionStepInfo().getPath().getLevel();
+    return new InstrumentationContext<Object>() {
+      @Override
+      public void onDispatched(CompletableFuture<Object> result) {
+        boolean dispatchNeeded;
+        synchronized (LevelDispatcher.this) {
+          increment(fetchCounts, level, 1);
+          dispatchNeeded = dispatchIfNotDispatchedBefore(level);
+        }
+        if (dispatchNeeded) {
+          dispatchLevel();
+        }
+      }
+
+      @Override
+      public void onCompleted(Object result, Throwable t) {
+      }
+    };
+  }
+
+  /**
+   * Dispatches every DataLoader that is not held back by deferred loads.
+   */
+  void dispatchLevel() {
+    List<DataLoader<?, ?>> dataLoaders = new ArrayList<>();
+    synchronized (this) {
+      for (DataLoader<?, ?> dataLoader : getDistinctDataLoaders()) {
+        if (deferredLoadCounts.containsKey(dataLoader)) {
+          heldDataLoaders.add(dataLoader);
+        } else {
+          dataLoaders.add(dataLoader);
+        }
+      }
+    }
+    dispatch(dataLoaders);
+  }
+
+  private void dispatch(Collection<DataLoader<?, ?>> dataLoaders) {
+    if (dispatchWindow.isZero()) {
+      dataLoaders.forEach(this::dispatchNow);
+      return;
+    }
+
+    // keys loaded during the window, e.g. by sibling subtrees, are sent in the same batch
+    boolean scheduleNeeded;
+    synchronized (this) {
+      boolean scheduled = !scheduledDataLoaders.isEmpty();
+      scheduledDataLoaders.addAll(dataLoaders);
+      scheduleNeeded = !scheduled && !scheduledDataLoaders.isEmpty();
+    }
+    if (scheduleNeeded) {
+      scheduler.schedule(this::dispatchScheduled, dispatchWindow.toNanos(), TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private void dispatchScheduled() {
+    List<DataLoader<?, ?>> dataLoaders = new ArrayList<>();
+    synchronized (this) {
+      for (DataLoader<?, ?> dataLoader : scheduledDataLoaders) {
+        if (deferredLoadCounts.containsKey(dataLoader)) {
+          heldDataLoaders.add(dataLoader);
+        } else {
+          dataLoaders.add(dataLoader);
+        }
+      }
+      scheduledDataLoaders.clear();
+    }
+    dataLoaders.forEach(this::dispatchNow);
+  }
+
+  private void dispatchNow(DataLoader<?, ?> dataLoader) {
+    // counted before the dispatch, which may complete the request before it returns
+    int keyCount = dataLoader.dispatchDepth();
+    if (keyCount > 0) {
+      dispatchCount.incrementAndGet();
+      dispatchedKeyCount.addAndGet(keyCount);
+      dataLoader.dispatch();
+    }
+  }
+
+  private Collection<DataLoader<?, ?>> getDistinctDataLoaders() {
+    if (Objects.isNull(dataLoaderRegistry)) {
+      return Collections.emptyList();
+    }
+    // the same DataLoader is registered under the keys of every field of a provider
+    Set<DataLoader<?, ?>> dataLoaders = Collections.newSetFromMap(new IdentityHashMap<>());
+    dataLoaders.addAll(dataLoaderRegistry.getDataLoaders());
+    return dataLoaders;
+  }
+
+  private DataLoader<?, ?> getDataLoader(String dataLoaderKey) {
+    return Objects.isNull(dataLoaderRegistry) ? null : dataLoaderRegistry.getDataLoader(dataLoaderKey);
+  }
+
+  private boolean dispatchIfNotDispatchedBefore(int level) {
+    return isLevelReady(level) && dispatchedLevels.add(level);
+  }
+
+  private boolean isLevelReady(int level) {
+    if (level == 1) {
+      return allFetchesHappened(1);
+    }
+    return isLevelReady(level - 1)
+        && get(fieldValuesCalls, level - 1) == get(expectedStrategyCalls, level - 1)
+        && get(strategyCalls, level) == get(expectedStrategyCalls, level)
+        && allFetchesHappened(level);
+  }
+
+  private boolean allFetchesHappened(int level) {
+    return get(fetchCounts, level) == get(expectedFetchCounts, level);
+  }
+
+  private static int countObjects(List<FieldValueInfo> fieldValueInfos) {
+    int count = 0;
+    for (FieldValueInfo fieldValueInfo : fieldValueInfos) {
+      if (fieldValueInfo.getCompleteValueType() == CompleteValueType.OBJECT) {
+        count++;
+      } else if (fieldValueInfo.getCompleteValueType() == CompleteValueType.LIST) {
+        count += countObjects(fieldValueInfo.getFieldValueInfos());
+      }
+    }
+    return count;
+  }
+
+  private static void increment(Map<Integer, Integer> counts, int level, int by) {
+    counts.merge(level, by, Integer::sum);
+  }
+
+  private static int get(Map<Integer, Integer> counts, int level) {
+    return counts.getOrDefault(level, 0);
+  }
+}
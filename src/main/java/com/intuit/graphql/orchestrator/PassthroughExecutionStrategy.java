@@ -0,0 +1,224 @@
+package com.intuit.graphql.orchestrator;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.intuit.graphql.orchestrator.datafetcher.AliasablePropertyDataFetcher;
+import graphql.ExecutionResultImpl;
+import graphql.execution.AsyncExecutionStrategy;
+import graphql.execution.DataFetcherExceptionHandler;
+import graphql.execution.ExecutionContext;
+import graphql.execution.ExecutionStrategyParameters;
+import graphql.execution.FieldCollectorParameters;
+import graphql.execution.FieldValueInfo;
+import graphql.execution.FieldValueInfo.CompleteValueType;
+import graphql.execution.MergedField;
+import graphql.execution.MergedSelectionSet;
+import graphql.introspection.Introspection;
+import graphql.schema.CoercingSerializeException;
+import graphql.schema.GraphQLCodeRegistry;
+import graphql.schema.GraphQLEnumType;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLNamedType;
+import graphql.schema.GraphQLNonNull;
+import graphql.schema.GraphQLObjectType;
+import graphql.schema.GraphQLOutputType;
+import graphql.schema.GraphQLScalarType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeUtil;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * An {@link AsyncExecutionStrategy} that completes the subtrees returned by a single provider in bulk.
+ *
+ * <p>A type is passthrough if none of the fields reachable from it are orchestrated, i.e. all of them are resolved
+ * from their parent by the {@link AliasablePropertyDataFetcher} rather than by a service, {@code @resolver} or entity
+ * data fetcher, and no abstract types are reachable from it. The value of a field of a passthrough type is completed
+ * in one walk over the response of the provider with only scalar coercion and null checks, instead of executing every
+ * nested field with its own data fetcher.
+ *
+ * <p>If a subtree cannot be completed in bulk, e.g. because a non-null field is null or a scalar cannot be coerced,
+ * it is completed field by field as by {@link AsyncExecutionStrategy}, which reports the errors. Fields completed in
+ * bulk are not passed to field level instrumentations.
+ *
+ * <pre>{@code
+ * GraphQLOrchestrator.newOrchestrator()
+ *     .runtimeGraph(runtimeGraph)
+ *     .queryExecutionStrategy(new PassthroughExecutionStrategy())
+ *     .build();
+ * }</pre>
+ */
+public class PassthroughExecutionStrategy extends AsyncExecutionStrategy {
+
+  private static final Object INCOMPLETE = new Object();
+
+  private final LoadingCache<GraphQLSchema, Set<String>> passthroughTypeNamesBySchema = CacheBuilder.newBuilder()
+      .weakKeys()
+      .build(CacheLoader.from(PassthroughExecutionStrategy::findPassthroughTypeNames));
+
+  public PassthroughExecutionStrategy() {
+    super();
+  }
+
+  public PassthroughExecutionStrategy(DataFetcherExceptionHandler exceptionHandler) {
+    super(exceptionHandler);
+  }
+
+  @Override
+  protected FieldValueInfo completeValue(ExecutionContext executionContext, ExecutionStrategyParameters parameters) {
+    Object source = parameters.getSource();
+    GraphQLOutputType fieldType = parameters.getExecutionStepInfo().getType();
+
+    if (source != null && isPassthrough(executionContext.getGraphQLSchema(), fieldType)) {
+      Object completedValue = completeInBulk(executionContext, fieldType, source, parameters.getField(),
+          new IdentityHashMap<>());
+      if (completedValue != INCOMPLETE) {
+        // the value is complete, so it is reported like a scalar and no nested fields are expected to be fetched
+        return FieldValueInfo.newFieldValueInfo(CompleteValueType.SCALAR)
+            .fieldValue(CompletableFuture.completedFuture(
+                new ExecutionResultImpl(completedValue, Collections.emptyList())))
+            .build();
+      }
+    }
+    return super.completeValue(executionContext, parameters);
+  }
+
+  private boolean isPassthrough(GraphQLSchema graphQLSchema, GraphQLType type) {
+    GraphQLNamedType namedType = (GraphQLNamedType) GraphQLTypeUtil.unwrapAll(type);
+    return namedType instanceof GraphQLObjectType
+        && passthroughTypeNamesBySchema.getUnchecked(graphQLSchema).contains(namedType.getName());
+  }
+
+  private Object completeInBulk(ExecutionContext executionContext, GraphQLType type, Object value,
+      MergedField field, Map<MergedField, MergedSelectionSet> selectionSets) {
+    if (type instanceof GraphQLNonNull) {
+      Object completedValue = completeInBulk(executionContext, ((GraphQLNonNull) type).getWrappedType(), value, field,
+          selectionSets);
+      return completedValue == null ? INCOMPLETE : completedValue;
+    }
+    if (value == null) {
+      return null;
+    }
+    if (type instanceof GraphQLList) {
+      if (!(value instanceof Collection)) {
+        return INCOMPLETE;
+      }
+      GraphQLType wrappedType = ((GraphQLList) type).getWrappedType();
+      List<Object> completedValues = new ArrayList<>(((Collection<?>) value).size());
+      for (Object item : (Collection<?>) value) {
+        Object completedValue = completeInBulk(executionContext, wrappedType, item, field, selectionSets);
+        if (completedValue == INCOMPLETE) {
+          return INCOMPLETE;
+        }
+        completedValues.add(completedValue);
+      }
+      return completedValues;
+    }
+    if (type instanceof GraphQLScalarType) {
+      try {
+        return ((GraphQLScalarType) type).getCoercing().serialize(value);
+      } catch (CoercingSerializeException e) {
+        return INCOMPLETE;
+      }
+    }
+    if (type instanceof GraphQLEnumType) {
+      try {
+        return ((GraphQLEnumType) type).serialize(value);
+      } catch (CoercingSerializeException e) {
+        return INCOMPLETE;
+      }
+    }
+    if (type instanceof GraphQLObjectType && value instanceof Map) {
+      return completeObjectInBulk(executionContext, (GraphQLObjectType) type, (Map<?, ?>) value, field,
+          selectionSets);
+    }
+    return INCOMPLETE;
+  }
+
+  private Object completeObjectInBulk(ExecutionContext executionContext, GraphQLObjectType objectType,
+      Map<?, ?> source, MergedField field, Map<MergedField, MergedSelectionSet> selectionSets) {
+    // the fields are collected once per field, not once per item of a list
+    MergedSelectionSet selectionSet = selectionSets.computeIfAbsent(field, f -> fieldCollector.collectFields(
+        FieldCollectorParameters.newParameters()
+            .schema(executionContext.getGraphQLSchema())
+            .objectType(objectType)
+            .fragments(executionContext.getFragmentsByName())
+            .variables(executionContext.getVariables())
+            .build(), f));
+
+    Map<String, Object> completedObject = new LinkedHashMap<>(selectionSet.size());
+    for (Map.Entry<String, MergedField> subField : selectionSet.getSubFields().entrySet()) {
+      String fieldName = subField.getValue().getName();
+      if (Introspection.TypeNameMetaFieldDef.getName().equals(fieldName)) {
+        completedObject.put(subField.getKey(), objectType.getName());
+        continue;
+      }
+
+      GraphQLFieldDefinition fieldDefinition = objectType.getFieldDefinition(fieldName);
+      Object completedValue = completeInBulk(executionContext, fieldDefinition.getType(),
+          getValue(source, subField.getValue()), subField.getValue(), selectionSets);
+      if (completedValue == INCOMPLETE) {
+        return INCOMPLETE;
+      }
+      completedObject.put(subField.getKey(), completedValue);
+    }
+    return completedObject;
+  }
+
+  /*
+   * Same lookup as AliasablePropertyDataFetcher: the value of an aliased field is found by its alias if the
+   * provider returned it that way.
+   */
+  private static Object getValue(Map<?, ?> source, MergedField field) {
+    String alias = field.getSingleField().getAlias();
+    if (StringUtils.isNotEmpty(alias) && source.containsKey(alias)) {
+      return source.get(alias);
+    }
+    return source.get(field.getName());
+  }
+
+  private static Set<String> findPassthroughTypeNames(GraphQLSchema graphQLSchema) {
+    Set<String> passthroughTypeNames = graphQLSchema.getAllTypesAsList().stream()
+        .filter(type -> type instanceof GraphQLObjectType)
+        .map(GraphQLNamedType::getName)
+        .filter(name -> !name.startsWith("__"))
+        .collect(Collectors.toSet());
+
+    // types are removed until only those left whose fields are all passthrough, which also settles recursive types
+    boolean removed = true;
+    while (removed) {
+      removed = passthroughTypeNames.removeIf(name -> !hasPassthroughFields(graphQLSchema.getObjectType(name),
+          passthroughTypeNames, graphQLSchema.getCodeRegistry()));
+    }
+    return Collections.unmodifiableSet(passthroughTypeNames);
+  }
+
+  private static boolean hasPassthroughFields(GraphQLObjectType objectType, Set<String> passthroughTypeNames,
+      GraphQLCodeRegistry codeRegistry) {
+    for (GraphQLFieldDefinition fieldDefinition : objectType.getFieldDefinitions()) {
+      if (!(codeRegistry.getDataFetcher(objectType, fieldDefinition) instanceof AliasablePropertyDataFetcher)) {
+        return false;
+      }
+      GraphQLNamedType fieldType = (GraphQLNamedType) GraphQLTypeUtil.unwrapAll(fieldDefinition.getType());
+      boolean passthrough = fieldType instanceof GraphQLObjectType
+          ? passthroughTypeNames.contains(fieldType.getName())
+          : fieldType instanceof GraphQLScalarType || fieldType instanceof GraphQLEnumType;
+      if (!passthrough) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
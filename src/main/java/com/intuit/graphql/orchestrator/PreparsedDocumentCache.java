@@ -0,0 +1,159 @@
+package com.intuit.graphql.orchestrator;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.schema.GraphQLSchema;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A bounded cache of parsed and validated documents keyed by query text and the identity of the schema they were
+ * validated against. The same instance may be shared by several {@link GraphQLOrchestrator}s, for example across a
+ * schema reload, without serving a document validated against a different schema.
+ *
+ * <p>Keys hold an id given to the schema while it is in use rather than the schema itself, so a retired schema, with
+ * the data fetchers and batch loaders of its code registry, is not kept in memory by the cache. Its entries are
+ * dropped after it is garbage collected.
+ *
+ * <p>The cache is bounded by the total length of the cached query strings, so a few very large queries cannot
+ * crowd out the rest of the cache.
+ */
+public class PreparsedDocumentCache {
+
+  public static final long DEFAULT_MAXIMUM_WEIGHT = 10L * 1024 * 1024;
+
+  private final Cache<DocumentKey, PreparsedDocumentEntry> cache;
+
+  private final Cache<GraphQLSchema, Long> schemaIdsBySchema;
+
+  private final AtomicLong nextSchemaId = new AtomicLong();
+
+  private PreparsedDocumentCache(Builder builder) {
+    this.cache = CacheBuilder.newBuilder()
+        .maximumWeight(builder.maximumWeight)
+        .weigher((DocumentKey key, PreparsedDocumentEntry entry) -> key.query.length())
+        .recordStats()
+        .build();
+    this.schemaIdsBySchema = CacheBuilder.newBuilder()
+        .weakKeys()
+        .removalListener((RemovalNotification<GraphQLSchema, Long> notification) -> {
+          if (notification.wasEvicted()) {
+            long schemaId = notification.getValue();
+            cache.asMap().keySet().removeIf(key -> key.schemaId == schemaId);
+          }
+        })
+        .build();
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns the cached document for the query of the given execution input, or parses and validates it using {@code
+   * parseAndValidateFunction} and caches the result.
+   *
+   * @param graphQLSchema the schema the document is validated against
+   * @param executionInput the execution input holding the query
+   * @param parseAndValidateFunction the function graphql-java uses to parse and validate the query
+   * @return the parsed and validated document, possibly holding validation errors
+   */
+  public PreparsedDocumentEntry getDocument(GraphQLSchema graphQLSchema, ExecutionInput executionInput,
+      Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+    DocumentKey key = new DocumentKey(getSchemaId(graphQLSchema), executionInput.getQuery());
+    try {
+      return cache.get(key, () -> parseAndValidateFunction.apply(executionInput));
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Failed to parse and validate document", e.getCause());
+    }
+  }
+
+  private long getSchemaId(GraphQLSchema graphQLSchema) {
+    try {
+      return schemaIdsBySchema.get(requireNonNull(graphQLSchema), nextSchemaId::incrementAndGet);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Failed to assign schema id", e.getCause());
+    }
+  }
+
+  public long getHitCount() {
+    return cache.stats().hitCount();
+  }
+
+  public long getMissCount() {
+    return cache.stats().missCount();
+  }
+
+  public long getEvictionCount() {
+    return cache.stats().evictionCount();
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  private static class DocumentKey {
+
+    private final long schemaId;
+    private final String query;
+
+    private DocumentKey(long schemaId, String query) {
+      this.schemaId = schemaId;
+      this.query = requireNonNull(query);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof DocumentKey)) {
+        return false;
+      }
+      DocumentKey that = (DocumentKey) o;
+      return schemaId == that.schemaId && query.equals(that.query);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(schemaId, query);
+    }
+  }
+
+  public static final class Builder {
+
+    private long maximumWeight = DEFAULT_MAXIMUM_WEIGHT;
+
+    private Builder() {
+    }
+
+    /**
+     * Maximum total length, in characters, of the query strings held in the cache.
+     *
+     * @param maximumWeight the maximum weight
+     * @return the builder
+     */
+    public Builder maximumWeight(long maximumWeight) {
+      if (maximumWeight < 0) {
+        throw new IllegalArgumentException("maximumWeight must not be negative");
+      }
+      this.maximumWeight = maximumWeight;
+      return this;
+    }
+
+    public PreparsedDocumentCache build() {
+      return new PreparsedDocumentCache(this);
+    }
+  }
+}
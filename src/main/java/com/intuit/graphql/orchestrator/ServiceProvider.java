@@ -1,5 +1,6 @@
 package com.intuit.graphql.orchestrator;
 
+import com.intuit.graphql.orchestrator.batch.BatchLoaderOptions;
 import com.intuit.graphql.orchestrator.batch.QueryExecutor;
 import java.util.Collections;
 import java.util.Map;
@@ -36,6 +37,16 @@ public interface ServiceProvider extends QueryExecutor {
 
   default boolean isFederationProvider() { return getSeviceType() == ServiceType.FEDERATION_SUBGRAPH; }
 
+  /**
+   * Limits on the batched requests sent to this provider, such as the maximum number of keys or the maximum query
+   * length per request.
+   *
+   * @return the batch loader options for this provider.
+   */
+  default BatchLoaderOptions batchLoaderOptions() {
+    return BatchLoaderOptions.DEFAULT;
+  }
+
   enum ServiceType {
     FEDERATION_SUBGRAPH,
     GRAPHQL,
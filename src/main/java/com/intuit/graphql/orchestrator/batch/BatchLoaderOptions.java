@@ -0,0 +1,213 @@
+package com.intuit.graphql.orchestrator.batch;
+
+import graphql.GraphQLContext;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Limits on the requests a batch loader sends to a downstream service. Batches exceeding a limit are split into
+ * several requests whose results are reassembled in key order.
+ */
+public class BatchLoaderOptions {
+
+  public static final BatchLoaderOptions DEFAULT = newBuilder().build();
+
+  private final int maxBatchSize;
+  private final int maxDocumentSize;
+  private final boolean parallelDispatch;
+  private final boolean deduplicateArguments;
+  private final boolean argumentsAsVariables;
+  private final Function<GraphQLContext, Object> singleFlightPartitionKey;
+  private final DownstreamResponseCache responseCache;
+  private final Map<String, EntityCacheOptions> entityCacheOptionsByTypeName;
+
+  private BatchLoaderOptions(Builder builder) {
+    this.maxBatchSize = builder.maxBatchSize;
+    this.maxDocumentSize = builder.maxDocumentSize;
+    this.parallelDispatch = builder.parallelDispatch;
+    this.deduplicateArguments = builder.deduplicateArguments;
+    this.argumentsAsVariables = builder.argumentsAsVariables;
+    this.singleFlightPartitionKey = builder.singleFlightPartitionKey;
+    this.responseCache = builder.responseCache;
+    this.entityCacheOptionsByTypeName = Collections.unmodifiableMap(new HashMap<>(builder.entityCacheOptionsByTypeName));
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * @return the maximum number of keys per downstream request, or 0 if unbounded
+   */
+  public int getMaxBatchSize() {
+    return maxBatchSize;
+  }
+
+  /**
+   * @return the maximum length, in characters, of a downstream query document, or 0 if unbounded
+   */
+  public int getMaxDocumentSize() {
+    return maxDocumentSize;
+  }
+
+  /**
+   * @return true if the requests of a split batch are sent at once, false if they are sent one after the other
+   */
+  public boolean isParallelDispatch() {
+    return parallelDispatch;
+  }
+
+  /**
+   * @return true if keys of a field resolver batch with identical arguments share one downstream field
+   */
+  public boolean isDeduplicateArguments() {
+    return deduplicateArguments;
+  }
+
+  /**
+   * @return true if field resolver arguments are sent as operation variables instead of inline literals
+   */
+  public boolean isArgumentsAsVariables() {
+    return argumentsAsVariables;
+  }
+
+  /**
+   * @return the partition key of a request for coalescing identical in-flight queries across requests, or null if
+   * queries are not coalesced
+   */
+  public Function<GraphQLContext, Object> getSingleFlightPartitionKey() {
+    return singleFlightPartitionKey;
+  }
+
+  /**
+   * @return the cache of the responses of the service, or null if responses are not cached
+   */
+  public DownstreamResponseCache getResponseCache() {
+    return responseCache;
+  }
+
+  /**
+   * @param entityTypeName the name of an entity type extended by the service
+   * @return how the entities fetched from the service are cached, or null if they are not cached
+   */
+  public EntityCacheOptions getEntityCacheOptions(String entityTypeName) {
+    return entityCacheOptionsByTypeName.get(entityTypeName);
+  }
+
+  boolean exceedsMaxDocumentSize(String query) {
+    return maxDocumentSize > 0 && query.length() > maxDocumentSize;
+  }
+
+  public static final class Builder {
+
+    private int maxBatchSize = 0;
+    private int maxDocumentSize = 0;
+    private boolean parallelDispatch = true;
+    private boolean deduplicateArguments = false;
+    private boolean argumentsAsVariables = false;
+    private Function<GraphQLContext, Object> singleFlightPartitionKey = null;
+    private DownstreamResponseCache responseCache = null;
+    private final Map<String, EntityCacheOptions> entityCacheOptionsByTypeName = new HashMap<>();
+
+    private Builder() {
+    }
+
+    public Builder maxBatchSize(int maxBatchSize) {
+      if (maxBatchSize < 0) {
+        throw new IllegalArgumentException("maxBatchSize must not be negative");
+      }
+      this.maxBatchSize = maxBatchSize;
+      return this;
+    }
+
+    /**
+     * Batches whose downstream query is longer than {@code maxDocumentSize} are split in halves until each query fits
+     * or holds a single key. Only applies to batch loaders whose query grows with the number of keys.
+     *
+     * @param maxDocumentSize the maximum length of the downstream query in characters
+     * @return the builder
+     */
+    public Builder maxDocumentSize(int maxDocumentSize) {
+      if (maxDocumentSize < 0) {
+        throw new IllegalArgumentException("maxDocumentSize must not be negative");
+      }
+      this.maxDocumentSize = maxDocumentSize;
+      return this;
+    }
+
+    public Builder parallelDispatch(boolean parallelDispatch) {
+      this.parallelDispatch = parallelDispatch;
+      return this;
+    }
+
+    /**
+     * Keys of a {@code @resolver} batch whose resolved arguments and selections are identical are queried with a
+     * single aliased field, whose result is given to each of them.
+     *
+     * @param deduplicateArguments true to query keys with identical arguments once
+     * @return the builder
+     */
+    public Builder deduplicateArguments(boolean deduplicateArguments) {
+      this.deduplicateArguments = deduplicateArguments;
+      return this;
+    }
+
+    /**
+     * The resolved arguments of a {@code @resolver} batch are declared as variables of the downstream operation, so
+     * batches of the same shape send the same query text and only the variables change.
+     *
+     * @param argumentsAsVariables true to send arguments as variables
+     * @return the builder
+     */
+    public Builder argumentsAsVariables(boolean argumentsAsVariables) {
+      this.argumentsAsVariables = argumentsAsVariables;
+      return this;
+    }
+
+    /**
+     * Identical queries in flight at the same time, from any request, share one downstream call. Queries are only
+     * shared between requests with equal partition keys, e.g. the tenant or auth scope of the request, since the call
+     * is sent with the context of the first request. Mutations are never shared.
+     *
+     * @param singleFlightPartitionKey the partition key of a request, derived from its GraphQLContext
+     * @return the builder
+     */
+    public Builder singleFlight(Function<GraphQLContext, Object> singleFlightPartitionKey) {
+      this.singleFlightPartitionKey = singleFlightPartitionKey;
+      return this;
+    }
+
+    /**
+     * Responses of queries whose root fields the service declares cacheable with {@code @cacheControl(maxAge: Int)}
+     * are cached for their max age. The cache may be shared by several services.
+     *
+     * @param responseCache the cache of the responses of the service
+     * @return the builder
+     */
+    public Builder responseCache(DownstreamResponseCache responseCache) {
+      this.responseCache = responseCache;
+      return this;
+    }
+
+    /**
+     * The extension fields the service provides for entities of type {@code entityTypeName} are cached per entity, so
+     * that {@code _entities} queries only ask for entities that are not cached.
+     *
+     * @param entityTypeName the name of the entity type
+     * @param entityCacheOptions the time to live and maximum size of the cache of the entity type
+     * @return the builder
+     */
+    public Builder entityCache(String entityTypeName, EntityCacheOptions entityCacheOptions) {
+      this.entityCacheOptionsByTypeName.put(Objects.requireNonNull(entityTypeName),
+          Objects.requireNonNull(entityCacheOptions));
+      return this;
+    }
+
+    public BatchLoaderOptions build() {
+      return new BatchLoaderOptions(this);
+    }
+  }
+}
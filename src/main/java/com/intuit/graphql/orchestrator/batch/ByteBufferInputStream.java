@@ -0,0 +1,39 @@
+package com.intuit.graphql.orchestrator.batch;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the remaining bytes of a direct or read-only buffer.
+ */
+class ByteBufferInputStream extends InputStream {
+
+  private final ByteBuffer buffer;
+
+  ByteBufferInputStream(ByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  @Override
+  public int read() {
+    return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+  }
+
+  @Override
+  public int read(byte[] bytes, int offset, int length) {
+    if (length == 0) {
+      return 0;
+    }
+    if (!buffer.hasRemaining()) {
+      return -1;
+    }
+    int count = Math.min(length, buffer.remaining());
+    buffer.get(bytes, offset, count);
+    return count;
+  }
+
+  @Override
+  public int available() {
+    return buffer.remaining();
+  }
+}
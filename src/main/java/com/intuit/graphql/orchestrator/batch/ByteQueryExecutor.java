@@ -0,0 +1,48 @@
+package com.intuit.graphql.orchestrator.batch;
+
+import graphql.ExecutionInput;
+import graphql.GraphQLContext;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link QueryExecutor} that returns the raw JSON response of the downstream service instead of a parsed map.
+ *
+ * <p>{@link GraphQLServiceBatchLoader} parses the response as it is read and only materializes the fields on the
+ * paths of the batched keys, so the raw bytes, an intermediate JSON tree and the result maps never have to be held at
+ * the same time. Service providers opt in by implementing this interface next to {@code ServiceProvider}.
+ */
+@FunctionalInterface
+public interface ByteQueryExecutor extends QueryExecutor {
+
+  /**
+   * Executes the downstream query.
+   *
+   * @param executionInput the downstream query
+   * @param context the graphql context of the request
+   * @return the UTF-8 encoded JSON response, which the orchestrator closes after reading it
+   */
+  CompletableFuture<InputStream> queryBytes(ExecutionInput executionInput, GraphQLContext context);
+
+  @Override
+  default CompletableFuture<Map<String, Object>> query(ExecutionInput executionInput, GraphQLContext context) {
+    return queryBytes(executionInput, context).thenApply(StreamingResponseParser::parse);
+  }
+
+  /**
+   * Adapts a response held in a byte buffer, e.g. by a non-blocking HTTP client, without copying it.
+   *
+   * @param response the UTF-8 encoded JSON response
+   * @return a stream reading the remaining bytes of the buffer
+   */
+  static InputStream toInputStream(ByteBuffer response) {
+    if (response.hasArray()) {
+      return new ByteArrayInputStream(response.array(), response.arrayOffset() + response.position(),
+          response.remaining());
+    }
+    return new ByteBufferInputStream(response.duplicate());
+  }
+}
@@ -1,8 +1,11 @@
 package com.intuit.graphql.orchestrator.batch;
 
+import com.intuit.graphql.orchestrator.federation.metadata.FederationMetadata.EntityExtensionMetadata;
 import com.intuit.graphql.orchestrator.schema.transform.FieldResolverContext;
 import org.apache.commons.lang3.StringUtils;
 
+import static com.intuit.graphql.orchestrator.utils.FederationConstants._ENTITIES_FIELD_NAME;
+
 public class DataLoaderKeyUtil {
 
   public static final String DELIMITER = ":";
@@ -20,4 +23,10 @@ public class DataLoaderKeyUtil {
     return createDataLoaderKey(serviceNamespace, parentTypename, fieldName);
   }
 
+  public static String createDataLoaderKeyFrom(EntityExtensionMetadata entityExtensionMetadata) {
+    String serviceNamespace = entityExtensionMetadata.getServiceProvider().getNameSpace();
+    String entityTypename = entityExtensionMetadata.getTypeName();
+    return createDataLoaderKey(serviceNamespace, entityTypename, _ENTITIES_FIELD_NAME);
+  }
+
 }
@@ -0,0 +1,117 @@
+package com.intuit.graphql.orchestrator.batch;
+
+import graphql.ExecutionInput;
+import graphql.GraphQLContext;
+import graphql.language.Document;
+import graphql.language.OperationDefinition;
+import graphql.language.OperationDefinition.Operation;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Shares downstream executions within a request. Identical executions, i.e. the same document, operation name and
+ * variables sent to the same service, are sent once and every caller receives the same {@link CompletableFuture}.
+ * This happens for example when resolver argument queries, entity fetches or field resolver batches at different
+ * levels of a query send the same request.
+ *
+ * <p>An instance is created per request by {@link com.intuit.graphql.orchestrator.GraphQLOrchestrator} and passed
+ * along through the GraphQLContext with key {@link #CONTEXT_KEY}. Mutations are never shared.
+ */
+public class DownstreamQueryDeduplicator {
+
+  public static final String CONTEXT_KEY = DownstreamQueryDeduplicator.class.getName() + ".context.key";
+
+  private final Map<List<Object>, CompletableFuture<Map<String, Object>>> executions = new ConcurrentHashMap<>();
+  private final AtomicInteger deduplicatedCount = new AtomicInteger();
+
+  /**
+   * Returns the deduplicator of a request.
+   *
+   * @param context the GraphQLContext of the request
+   * @return the deduplicator, or null if downstream executions of the request are not shared
+   */
+  public static DownstreamQueryDeduplicator from(GraphQLContext context) {
+    return Objects.isNull(context) ? null : context.get(CONTEXT_KEY);
+  }
+
+  /**
+   * Executes the query with the deduplicator of the request, or directly if the request has none.
+   *
+   * @param namespace the namespace of the downstream service
+   * @param queryExecutor the executor of the downstream service
+   * @param executionInput the downstream execution
+   * @param context the GraphQLContext of the request
+   * @return the response of the downstream service
+   */
+  public static CompletableFuture<Map<String, Object>> query(String namespace, QueryExecutor queryExecutor,
+      ExecutionInput executionInput, GraphQLContext context) {
+    DownstreamQueryDeduplicator deduplicator = from(context);
+    if (Objects.isNull(deduplicator)) {
+      return queryExecutor.query(executionInput, context);
+    }
+    return deduplicator.execute(namespace, queryExecutor, executionInput, context);
+  }
+
+  public CompletableFuture<Map<String, Object>> execute(String namespace, QueryExecutor queryExecutor,
+      ExecutionInput executionInput, GraphQLContext context) {
+    if (isMutation(executionInput)) {
+      return queryExecutor.query(executionInput, context);
+    }
+
+    List<Object> executionKey = Arrays.asList(namespace, executionInput.getQuery(), executionInput.getOperationName(),
+        executionInput.getVariables());
+
+    CompletableFuture<Map<String, Object>> execution = executions.get(executionKey);
+    if (Objects.nonNull(execution)) {
+      deduplicatedCount.incrementAndGet();
+      return execution;
+    }
+
+    CompletableFuture<Map<String, Object>> newExecution = new CompletableFuture<>();
+    execution = executions.putIfAbsent(executionKey, newExecution);
+    if (Objects.nonNull(execution)) {
+      deduplicatedCount.incrementAndGet();
+      return execution;
+    }
+
+    CompletableFuture<Map<String, Object>> response;
+    try {
+      response = queryExecutor.query(executionInput, context);
+    } catch (RuntimeException e) {
+      // fail the callers that are already waiting, but let the next one try again
+      executions.remove(executionKey, newExecution);
+      newExecution.completeExceptionally(e);
+      throw e;
+    }
+
+    response.whenComplete((result, throwable) -> {
+      if (Objects.nonNull(throwable)) {
+        newExecution.completeExceptionally(throwable);
+      } else {
+        newExecution.complete(result);
+      }
+    });
+    return newExecution;
+  }
+
+  /**
+   * @return the number of downstream executions of the request that were shared instead of sent
+   */
+  public int getDeduplicatedCount() {
+    return deduplicatedCount.get();
+  }
+
+  static boolean isMutation(ExecutionInput executionInput) {
+    if (executionInput.getRoot() instanceof Document) {
+      return ((Document) executionInput.getRoot()).getDefinitionsOfType(OperationDefinition.class).stream()
+          .anyMatch(operationDefinition -> operationDefinition.getOperation() == Operation.MUTATION);
+    }
+    return StringUtils.startsWith(StringUtils.stripStart(executionInput.getQuery(), null), "mutation");
+  }
+}
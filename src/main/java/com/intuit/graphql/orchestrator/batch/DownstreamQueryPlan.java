@@ -0,0 +1,57 @@
+package com.intuit.graphql.orchestrator.batch;
+
+import graphql.language.Document;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import lombok.Getter;
+import org.apache.commons.collections4.MapUtils;
+
+/**
+ * The result of transforming a batch of fields into a query for a downstream provider. A plan only depends on the
+ * operation, the batched execution paths and the values of variables used by {@code @skip} and {@code @include}, so
+ * it can be reused by {@link GraphQLServiceBatchLoader} for batches of the same shape.
+ */
+@Getter
+public class DownstreamQueryPlan {
+
+  private final Document document;
+  private final String query;
+  private final String operationName;
+  private final boolean emptySelectionSet;
+
+  /**
+   * Names of variables the downstream query uses, or null if all variables of the original query are forwarded.
+   */
+  private final List<String> variablesToKeep;
+
+  public DownstreamQueryPlan(Document document, String query, String operationName, boolean emptySelectionSet,
+      List<String> variablesToKeep) {
+    this.document = Objects.requireNonNull(document);
+    this.query = Objects.requireNonNull(query);
+    this.operationName = operationName;
+    this.emptySelectionSet = emptySelectionSet;
+    this.variablesToKeep = variablesToKeep;
+  }
+
+  /**
+   * Selects the variables this plan forwards to the downstream provider.
+   *
+   * @param mergedVariables the variables of all batched keys
+   * @return the variables for the downstream query
+   */
+  public Map<String, Object> filterVariables(Map<String, Object> mergedVariables) {
+    if (Objects.isNull(variablesToKeep) || MapUtils.isEmpty(mergedVariables)) {
+      return mergedVariables;
+    }
+
+    Map<String, Object> output = new HashMap<>();
+    variablesToKeep.forEach(variableName -> {
+      if (mergedVariables.containsKey(variableName)) {
+        output.put(variableName, mergedVariables.get(variableName));
+      }
+    });
+    return output;
+  }
+}
@@ -0,0 +1,282 @@
+package com.intuit.graphql.orchestrator.batch;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.intuit.graphql.orchestrator.utils.CompactAstPrinter;
+import graphql.language.Argument;
+import graphql.language.Directive;
+import graphql.language.Document;
+import graphql.language.Node;
+import graphql.language.NodeTraverser;
+import graphql.language.NodeVisitorStub;
+import graphql.language.VariableReference;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLSchema;
+import graphql.util.TraversalControl;
+import graphql.util.TraverserContext;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * A bounded cache of {@link DownstreamQueryPlan}s used by {@link GraphQLServiceBatchLoader} to skip transforming and
+ * printing the downstream query for batches it has seen before.
+ *
+ * <p>Plans are keyed by the schema, a hash of the text of the operation document, the operation name, the set of
+ * batched execution paths, the service namespace and the values of variables referenced by {@code @skip} and
+ * {@code @include}, since those decide which variable definitions survive the transforms. Keys hold no documents, so
+ * requests sending the same query share plans whether or not the orchestrator reuses parsed documents. The hash is
+ * computed once per document while the document is in use.
+ *
+ * <p>The same instance may be shared by all batch loaders, and by the schemas of successive stitches. Each schema is
+ * given an id while it is in use, so a plan built for a schema is never used with a schema stitched later, and the
+ * plans of a schema are dropped once the schema is garbage collected.
+ */
+public class DownstreamQueryPlanCache {
+
+  public static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+
+  private static final Set<String> CONDITIONAL_DIRECTIVES = new HashSet<>(Arrays.asList("skip", "include"));
+
+  private final Cache<PlanKey, DownstreamQueryPlan> cache;
+
+  private final Cache<Document, DocumentKey> documentKeysByDocument;
+
+  private final Cache<GraphQLSchema, Long> schemaIdsBySchema;
+
+  private final AtomicLong nextSchemaId = new AtomicLong();
+
+  private DownstreamQueryPlanCache(Builder builder) {
+    this.cache = CacheBuilder.newBuilder()
+        .maximumSize(builder.maximumSize)
+        .recordStats()
+        .build();
+    this.documentKeysByDocument = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build();
+    this.schemaIdsBySchema = CacheBuilder.newBuilder()
+        .weakKeys()
+        .removalListener((RemovalNotification<GraphQLSchema, Long> notification) -> {
+          if (notification.wasEvicted()) {
+            long schemaId = notification.getValue();
+            cache.asMap().keySet().removeIf(key -> key.schemaId == schemaId);
+          }
+        })
+        .build();
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns the cached plan for the given batch, or creates one using {@code planSupplier} and caches it. Batches
+   * whose environments don't expose the schema or the operation document are never cached.
+   *
+   * @param namespace the namespace of the downstream service
+   * @param operationName the name of the downstream operation
+   * @param keys the batched data fetching environments
+   * @param mergedVariables the variables of all batched keys
+   * @param planSupplier creates the plan on a cache miss
+   * @return the downstream query plan
+   */
+  DownstreamQueryPlan get(String namespace, String operationName, List<DataFetchingEnvironment> keys,
+      Map<String, Object> mergedVariables, Supplier<DownstreamQueryPlan> planSupplier) {
+    GraphQLSchema graphQLSchema = keys.get(0).getGraphQLSchema();
+    Document document = keys.get(0).getDocument();
+    if (Objects.isNull(graphQLSchema) || Objects.isNull(document)) {
+      return planSupplier.get();
+    }
+
+    DocumentKey documentKey = getDocumentKey(document);
+    PlanKey key = new PlanKey(getSchemaId(graphQLSchema), namespace, documentKey.textHash, operationName,
+        keys.stream().map(environment -> environment.getExecutionStepInfo().getPath().toString())
+            .collect(Collectors.toSet()),
+        conditionalVariables(documentKey.conditionalVariableNames, mergedVariables));
+    try {
+      return cache.get(key, planSupplier::get);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Failed to create downstream query plan", e.getCause());
+    }
+  }
+
+  private long getSchemaId(GraphQLSchema graphQLSchema) {
+    try {
+      return schemaIdsBySchema.get(graphQLSchema, nextSchemaId::incrementAndGet);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Failed to assign schema id", e.getCause());
+    }
+  }
+
+  private DocumentKey getDocumentKey(Document document) {
+    try {
+      return documentKeysByDocument.get(document,
+          () -> new DocumentKey(hashText(document), collectConditionalVariables(document)));
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Failed to collect conditional variables", e.getCause());
+    }
+  }
+
+  private static HashCode hashText(Document document) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    try {
+      CompactAstPrinter.print(document, Funnels.asOutputStream(hasher));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return hasher.hash();
+  }
+
+  private static Map<String, Object> conditionalVariables(Set<String> variableNames,
+      Map<String, Object> mergedVariables) {
+    if (variableNames.isEmpty()) {
+      return Collections.emptyMap();
+    }
+
+    Map<String, Object> values = new HashMap<>();
+    variableNames.forEach(variableName -> values.put(variableName, mergedVariables.get(variableName)));
+    return values;
+  }
+
+  /**
+   * {@link graphql.analysis.QueryTraverser} evaluates {@code @skip} and {@code @include} against the variables, so the
+   * values of these variables must be part of the key.
+   */
+  private static Set<String> collectConditionalVariables(Document document) {
+    Set<String> variableNames = new HashSet<>();
+    new NodeTraverser().depthFirst(new NodeVisitorStub() {
+      @Override
+      public TraversalControl visitDirective(Directive node, TraverserContext<Node> context) {
+        if (CONDITIONAL_DIRECTIVES.contains(node.getName())) {
+          for (Argument argument : node.getArguments()) {
+            if (argument.getValue() instanceof VariableReference) {
+              variableNames.add(((VariableReference) argument.getValue()).getName());
+            }
+          }
+        }
+        return TraversalControl.CONTINUE;
+      }
+    }, document);
+    return variableNames;
+  }
+
+  public long getHitCount() {
+    return cache.stats().hitCount();
+  }
+
+  public long getMissCount() {
+    return cache.stats().missCount();
+  }
+
+  public long getEvictionCount() {
+    return cache.stats().evictionCount();
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /**
+   * What the key of a plan needs from an operation document.
+   */
+  private static class DocumentKey {
+
+    private final HashCode textHash;
+    private final Set<String> conditionalVariableNames;
+
+    private DocumentKey(HashCode textHash, Set<String> conditionalVariableNames) {
+      this.textHash = textHash;
+      this.conditionalVariableNames = conditionalVariableNames;
+    }
+  }
+
+  private static class PlanKey {
+
+    private final long schemaId;
+    private final String namespace;
+    private final HashCode documentTextHash;
+    private final String operationName;
+    private final Set<String> paths;
+    private final Map<String, Object> conditionalVariables;
+
+    private PlanKey(long schemaId, String namespace, HashCode documentTextHash, String operationName,
+        Set<String> paths, Map<String, Object> conditionalVariables) {
+      this.schemaId = schemaId;
+      this.namespace = requireNonNull(namespace);
+      this.documentTextHash = requireNonNull(documentTextHash);
+      this.operationName = operationName;
+      this.paths = requireNonNull(paths);
+      this.conditionalVariables = requireNonNull(conditionalVariables);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof PlanKey)) {
+        return false;
+      }
+      PlanKey that = (PlanKey) o;
+      return schemaId == that.schemaId
+          && documentTextHash.equals(that.documentTextHash)
+          && namespace.equals(that.namespace)
+          && Objects.equals(operationName, that.operationName)
+          && paths.equals(that.paths)
+          && conditionalVariables.equals(that.conditionalVariables);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(schemaId, documentTextHash, namespace, operationName, paths, conditionalVariables);
+    }
+  }
+
+  public static final class Builder {
+
+    private long maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+    private Builder() {
+    }
+
+    /**
+     * Maximum number of plans held in the cache.
+     *
+     * @param maximumSize the maximum size
+     * @return the builder
+     */
+    public Builder maximumSize(long maximumSize) {
+      if (maximumSize < 0) {
+        throw new IllegalArgumentException("maximumSize must not be negative");
+      }
+      this.maximumSize = maximumSize;
+      return this;
+    }
+
+    public DownstreamQueryPlanCache build() {
+      return new DownstreamQueryPlanCache(this);
+    }
+  }
+}
@@ -0,0 +1,533 @@
+package com.intuit.graphql.orchestrator.batch;
+
+import static com.intuit.graphql.orchestrator.resolverdirective.FieldResolverDirectiveUtil.hasResolverDirective;
+import static com.intuit.graphql.orchestrator.schema.transform.DomainTypesTransformer.DELIMITER;
+import static com.intuit.graphql.orchestrator.utils.GraphQLUtil.isInterfaceOrUnionType;
+import static com.intuit.graphql.orchestrator.utils.RenameDirectiveUtil.convertGraphqlFieldWithOriginalName;
+import static graphql.introspection.Introspection.TypeNameMetaFieldDef;
+import static java.util.Objects.requireNonNull;
+
+import com.intuit.graphql.orchestrator.schema.FieldCapabilityIndex;
+import com.intuit.graphql.orchestrator.schema.FieldCapabilityIndex.FieldCapabilities;
+import com.intuit.graphql.orchestrator.schema.FieldCapabilityIndex.TypeCapabilities;
+import com.intuit.graphql.orchestrator.schema.ServiceMetadata;
+import graphql.execution.ConditionalNodes;
+import graphql.execution.ResultPath;
+import graphql.language.Argument;
+import graphql.language.ArrayValue;
+import graphql.language.Directive;
+import graphql.language.Field;
+import graphql.language.FragmentDefinition;
+import graphql.language.FragmentSpread;
+import graphql.language.InlineFragment;
+import graphql.language.ObjectField;
+import graphql.language.ObjectValue;
+import graphql.language.Selection;
+import graphql.language.SelectionSet;
+import graphql.language.TypeName;
+import graphql.language.Value;
+import graphql.language.VariableReference;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLFieldsContainer;
+import graphql.schema.GraphQLNamedType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeUtil;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Rewrites the fields and fragment definitions of a downstream query in a single walk over each selection set. It
+ * replaces running {@link MergedFieldModifier}, {@link DownstreamQueryModifier}, {@link VariableDefinitionFilter} and
+ * {@link QueryOperationModifier} one after the other. While walking, it
+ *
+ * <ul>
+ *   <li>only keeps the selections on the execution path of a batched field,</li>
+ *   <li>removes fields the provider does not own, adds the fields required by {@code @resolver} fields,
+ *   {@code @requires} fields and entity keys, and renames fields back to their names in the provider,</li>
+ *   <li>adds {@code __typename} to the interface and union fields of the operation, and</li>
+ *   <li>records the variables and fragments the rewritten selections use.</li>
+ * </ul>
+ *
+ * <p>A rewriter holds the state of one downstream query and is not thread safe. Fragment definitions shared by the
+ * batched fields are only rewritten once.
+ */
+public class DownstreamQueryRewriter {
+
+  private static final String TYPENAME_FIELD_NAME = TypeNameMetaFieldDef.getName();
+
+  private final GraphQLSchema graphQLSchema;
+  private final ServiceMetadata serviceMetadata;
+  private final FieldCapabilityIndex fieldCapabilityIndex;
+  private final boolean modifyDownStreamQuery;
+  private final Map<String, Object> variables;
+  private final ConditionalNodes conditionalNodes = new ConditionalNodes();
+
+  private final Usage operationUsage = new Usage();
+  private final Map<FragmentDefinition, Usage> usageByFragmentDefinition = new IdentityHashMap<>();
+  private final Map<FragmentDefinition, FragmentDefinition> rewrittenFragmentDefinitions = new IdentityHashMap<>();
+  private final Set<String> usedFragmentVariableReferences = new HashSet<>();
+
+  /**
+   * @param graphQLSchema the schema of the orchestrator
+   * @param serviceMetadata the metadata of the provider the query is sent to
+   * @param variables the variables of the original query, used to evaluate {@code @skip} and {@code @include}
+   */
+  public DownstreamQueryRewriter(GraphQLSchema graphQLSchema, ServiceMetadata serviceMetadata,
+      Map<String, Object> variables) {
+    this.graphQLSchema = requireNonNull(graphQLSchema);
+    this.serviceMetadata = requireNonNull(serviceMetadata);
+    FieldCapabilityIndex index = serviceMetadata.getFieldCapabilityIndex();
+    this.fieldCapabilityIndex = Objects.isNull(index) ? FieldCapabilityIndex.EMPTY : index;
+    this.modifyDownStreamQuery = serviceMetadata.shouldModifyDownStreamQuery();
+    this.variables = Objects.isNull(variables) ? Collections.emptyMap() : variables;
+  }
+
+  /**
+   * Rewrites a root field of the downstream operation.
+   *
+   * @param field the root field
+   * @param fieldType the type of the root field, only needed to modify fields or inject {@code __typename}
+   * @param fragmentsByName the fragment definitions of the original query
+   * @param modifyFields whether to remove, add and rename fields for the provider
+   * @param injectTypename whether to add {@code __typename} to interface and union fields
+   * @return the rewritten field
+   */
+  public Field rewriteField(Field field, GraphQLType fieldType, Map<String, FragmentDefinition> fragmentsByName,
+      boolean modifyFields, boolean injectTypename) {
+    return new Walk(fragmentsByName, modifyFields, injectTypename, null, null, operationUsage)
+        .rewriteRootField(field, fieldType);
+  }
+
+  /**
+   * Rewrites a root field of the downstream operation, keeping only the selections on the execution path of a batched
+   * field. The fragment definitions spread on the path are filtered the same way.
+   *
+   * @param field the root field
+   * @param fieldType the type of the root field, only needed to modify fields or inject {@code __typename}
+   * @param fragmentsByName the fragment definitions of the original query
+   * @param modifyFields whether to remove, add and rename fields for the provider
+   * @param injectTypename whether to add {@code __typename} to interface and union fields
+   * @param path the execution path of the batched field
+   * @param filteredFragmentDefinitions receives the filtered fragment definitions by name
+   * @return the rewritten field, or null if the field is not on the path
+   */
+  public Field rewriteField(Field field, GraphQLType fieldType, Map<String, FragmentDefinition> fragmentsByName,
+      boolean modifyFields, boolean injectTypename, ResultPath path,
+      Map<String, FragmentDefinition> filteredFragmentDefinitions) {
+    return new Walk(fragmentsByName, modifyFields, injectTypename, path.toString(),
+        requireNonNull(filteredFragmentDefinitions), operationUsage)
+        .rewriteRootField(field, fieldType);
+  }
+
+  /**
+   * Removes, adds and renames the fields of a fragment definition for the provider, and removes the domain prefix of
+   * its type condition. A fragment definition is rewritten once per rewriter.
+   *
+   * @param fragmentDefinition the fragment definition of the original query
+   * @param fragmentsByName the fragment definitions of the original query
+   * @return the rewritten fragment definition
+   */
+  public FragmentDefinition rewriteFragmentDefinition(FragmentDefinition fragmentDefinition,
+      Map<String, FragmentDefinition> fragmentsByName) {
+    FragmentDefinition rewrittenFragmentDefinition = rewrittenFragmentDefinitions.get(fragmentDefinition);
+    if (Objects.nonNull(rewrittenFragmentDefinition)) {
+      return rewrittenFragmentDefinition;
+    }
+
+    GraphQLType typeCondition = requireNonNull(
+        graphQLSchema.getType(fragmentDefinition.getTypeCondition().getName()),
+        "Failed to get type condition of fragment " + fragmentDefinition.getName());
+    Walk walk = new Walk(fragmentsByName, true, false, null, null, new Usage());
+    SelectionSet selectionSet = walk.rewriteSelectionSet(fragmentDefinition.getSelectionSet(), typeCondition, null,
+        true);
+
+    rewrittenFragmentDefinition = removeDomainPrefix(selectionSet == fragmentDefinition.getSelectionSet()
+        ? fragmentDefinition : fragmentDefinition.transform(builder -> builder.selectionSet(selectionSet)));
+    rewrittenFragmentDefinitions.put(fragmentDefinition, rewrittenFragmentDefinition);
+    usageByFragmentDefinition.put(rewrittenFragmentDefinition, walk.usage);
+    return rewrittenFragmentDefinition;
+  }
+
+  /**
+   * Selects the fragment definitions the rewritten fields spread, directly or through other fragments. Definitions
+   * that were not produced by this rewriter are walked once to find the variables and fragments they use.
+   *
+   * @param fragmentDefinitions the fragment definitions of the downstream query
+   * @return the used fragment definitions, in the given order
+   */
+  public List<FragmentDefinition> getUsedFragmentDefinitions(Collection<FragmentDefinition> fragmentDefinitions) {
+    Map<String, FragmentDefinition> fragmentDefinitionsByName = new HashMap<>();
+    fragmentDefinitions.forEach(fragmentDefinition ->
+        fragmentDefinitionsByName.put(fragmentDefinition.getName(), fragmentDefinition));
+
+    Set<String> usedFragmentNames = new HashSet<>();
+    Deque<String> fragmentNames = new ArrayDeque<>(operationUsage.fragmentSpreads);
+    while (!fragmentNames.isEmpty()) {
+      String fragmentName = fragmentNames.pop();
+      FragmentDefinition fragmentDefinition = fragmentDefinitionsByName.get(fragmentName);
+      if (Objects.isNull(fragmentDefinition) || !usedFragmentNames.add(fragmentName)) {
+        continue;
+      }
+
+      Usage usage = usageByFragmentDefinition.computeIfAbsent(fragmentDefinition, this::collectUsage);
+      collectDirectiveVariableReferences(fragmentDefinition.getDirectives(), usedFragmentVariableReferences);
+      usedFragmentVariableReferences.addAll(usage.variableReferences);
+      fragmentNames.addAll(usage.fragmentSpreads);
+    }
+
+    return fragmentDefinitions.stream()
+        .filter(fragmentDefinition -> usedFragmentNames.contains(fragmentDefinition.getName()))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Gets the names of the variables used by the rewritten fields, by the fragment definitions selected by
+   * {@link #getUsedFragmentDefinitions(Collection)} and by the operation directives. Variables in selections excluded
+   * by {@code @skip} or {@code @include} are used as well, since the selections stay in the downstream query.
+   *
+   * @param operationDirectives the directives of the operation
+   * @return the variable names, without the '$' prefix
+   */
+  public Set<String> getVariableReferences(List<Directive> operationDirectives) {
+    Set<String> variableReferences = new HashSet<>(operationUsage.variableReferences);
+    variableReferences.addAll(usedFragmentVariableReferences);
+    collectDirectiveVariableReferences(operationDirectives, variableReferences);
+    return variableReferences;
+  }
+
+  private Usage collectUsage(FragmentDefinition fragmentDefinition) {
+    Walk walk = new Walk(Collections.emptyMap(), false, false, null, null, new Usage());
+    walk.rewriteSelectionSet(fragmentDefinition.getSelectionSet(), null, null, true);
+    return walk.usage;
+  }
+
+  private FragmentDefinition removeDomainPrefix(FragmentDefinition fragmentDefinition) {
+    TypeName typeCondition = fragmentDefinition.getTypeCondition();
+    String typeConditionName = typeCondition.getName();
+    String domainPrefix = serviceMetadata.getServiceProvider().getNameSpace() + DELIMITER;
+    if (StringUtils.startsWith(typeConditionName, domainPrefix)) {
+      return fragmentDefinition.transform(builder -> builder.typeCondition(
+          typeCondition.transform(typeNameBuilder -> typeNameBuilder.name(
+              StringUtils.removeStart(typeConditionName, domainPrefix)))));
+    }
+    return fragmentDefinition;
+  }
+
+  private static void collectDirectiveVariableReferences(List<Directive> directives, Set<String> variableReferences) {
+    for (Directive directive : directives) {
+      collectVariableReferences(directive.getArguments(), variableReferences);
+    }
+  }
+
+  private static void collectVariableReferences(List<Argument> arguments, Set<String> variableReferences) {
+    for (Argument argument : arguments) {
+      collectVariableReferences(argument.getValue(), variableReferences);
+    }
+  }
+
+  private static void collectVariableReferences(Value<?> value, Set<String> variableReferences) {
+    if (value instanceof VariableReference) {
+      variableReferences.add(((VariableReference) value).getName());
+    } else if (value instanceof ArrayValue) {
+      for (Value<?> element : ((ArrayValue) value).getValues()) {
+        collectVariableReferences(element, variableReferences);
+      }
+    } else if (value instanceof ObjectValue) {
+      for (ObjectField objectField : ((ObjectValue) value).getObjectFields()) {
+        collectVariableReferences(objectField.getValue(), variableReferences);
+      }
+    }
+  }
+
+  private static String getResponseKey(Field field) {
+    return Objects.isNull(field.getAlias()) ? field.getName() : field.getAlias();
+  }
+
+  /**
+   * The variables and fragments used by a rewritten operation or fragment definition.
+   */
+  private static class Usage {
+
+    private final Set<String> variableReferences = new HashSet<>();
+    private final Set<String> fragmentSpreads = new LinkedHashSet<>();
+  }
+
+  /**
+   * One walk over a field or fragment definition. Paths are the response keys joined by '/', as in
+   * {@link ResultPath#toString()}; a null path means that all selections are kept.
+   */
+  private class Walk {
+
+    private final Map<String, FragmentDefinition> fragmentsByName;
+    private final boolean modifyFields;
+    private final boolean injectTypename;
+    private final String expectedPath;
+    private final Map<String, FragmentDefinition> filteredFragmentDefinitions;
+    private final Usage usage;
+
+    private Walk(Map<String, FragmentDefinition> fragmentsByName, boolean modifyFields, boolean injectTypename,
+        String expectedPath, Map<String, FragmentDefinition> filteredFragmentDefinitions, Usage usage) {
+      this.fragmentsByName = requireNonNull(fragmentsByName);
+      this.modifyFields = modifyFields;
+      this.injectTypename = injectTypename;
+      this.expectedPath = expectedPath;
+      this.filteredFragmentDefinitions = filteredFragmentDefinitions;
+      this.usage = usage;
+    }
+
+    private Field rewriteRootField(Field field, GraphQLType fieldType) {
+      String fieldPath = getFieldPath(field, Objects.isNull(expectedPath) ? null : "");
+      if (Objects.nonNull(expectedPath) && Objects.isNull(fieldPath) && !isExpectedField(field, "")) {
+        return null;
+      }
+
+      String originalName = modifyFields ? fieldCapabilityIndex.getOriginalOperationFieldName(field.getName()) : null;
+      GraphQLType type = Objects.isNull(fieldType) ? null : GraphQLTypeUtil.unwrapAll(fieldType);
+      return rewriteField(field, originalName, type, fieldPath, true);
+    }
+
+    private Field rewriteNestedField(Field field, GraphQLType parentType, TypeCapabilities typeCapabilities,
+        String path, boolean included) {
+      String fieldPath = getFieldPath(field, path);
+      if (Objects.nonNull(path) && Objects.isNull(fieldPath) && !isExpectedField(field, path)) {
+        return null;
+      }
+      if (!modifyFields && !injectTypename) {
+        return rewriteField(field, null, null, fieldPath, included);
+      }
+
+      String fieldName = field.getName();
+      GraphQLFieldDefinition fieldDefinition = getFieldDefinition(fieldName, parentType);
+      String originalName = null;
+      if (modifyFields) {
+        FieldCapabilities fieldCapabilities = typeCapabilities.getFieldCapabilities(fieldName);
+        if (modifyDownStreamQuery && (hasResolverDirective(fieldDefinition) || fieldCapabilities.isExternal())) {
+          return null;
+        }
+        originalName = fieldCapabilities.getOriginalName();
+      }
+      return rewriteField(field, originalName, GraphQLTypeUtil.unwrapAll(fieldDefinition.getType()), fieldPath,
+          included);
+    }
+
+    private Field rewriteField(Field field, String originalName, GraphQLType type, String fieldPath,
+        boolean included) {
+      boolean fieldIncluded = included && isIncluded(field.getDirectives());
+
+      SelectionSet selectionSet = field.getSelectionSet();
+      if (Objects.nonNull(selectionSet)) {
+        selectionSet = rewriteSelectionSet(selectionSet, type, fieldPath, fieldIncluded);
+        if (Objects.isNull(selectionSet)) {
+          return null;
+        }
+        if (injectTypename && fieldIncluded && isInterfaceOrUnionType(type) && isMissingTypename(selectionSet)) {
+          selectionSet = selectionSet.transform(builder -> builder.selection(new Field(TYPENAME_FIELD_NAME)));
+        }
+      } else if (Objects.nonNull(fieldPath)) {
+        return null;
+      }
+      collectVariableReferences(field.getArguments(), usage.variableReferences);
+      collectDirectiveVariableReferences(field.getDirectives(), usage.variableReferences);
+
+      SelectionSet rewrittenSelectionSet = selectionSet;
+      Field rewrittenField = rewrittenSelectionSet == field.getSelectionSet()
+          ? field : field.transform(builder -> builder.selectionSet(rewrittenSelectionSet));
+      return Objects.isNull(originalName)
+          ? rewrittenField : convertGraphqlFieldWithOriginalName(rewrittenField, originalName);
+    }
+
+    /*
+     * Returns the given selection set if nothing changed, or null if a path is given and no selection is on it.
+     */
+    private SelectionSet rewriteSelectionSet(SelectionSet selectionSet, GraphQLType parentType, String path,
+        boolean included) {
+      List<Selection> selections = selectionSet.getSelections();
+      TypeCapabilities typeCapabilities = modifyFields && parentType instanceof GraphQLNamedType
+          ? fieldCapabilityIndex.getTypeCapabilities(((GraphQLNamedType) parentType).getName())
+          : TypeCapabilities.NONE;
+      // collected before the walk, so that required fields are only added for the selections on the path
+      Set<Field> requiredFields = modifyFields && parentType instanceof GraphQLFieldsContainer
+          ? getRequiredFields(selections, typeCapabilities, path) : Collections.emptySet();
+
+      List<Selection> rewrittenSelections = null;
+      for (int i = 0; i < selections.size(); i++) {
+        Selection selection = selections.get(i);
+        Selection rewrittenSelection = rewriteSelection(selection, parentType, typeCapabilities, path, included);
+        if (rewrittenSelection != selection && Objects.isNull(rewrittenSelections)) {
+          rewrittenSelections = new ArrayList<>(selections.subList(0, i));
+        }
+        if (Objects.nonNull(rewrittenSelections) && Objects.nonNull(rewrittenSelection)) {
+          rewrittenSelections.add(rewrittenSelection);
+        }
+      }
+
+      if (Objects.nonNull(path) && Objects.nonNull(rewrittenSelections) && rewrittenSelections.isEmpty()) {
+        return null;
+      }
+      for (Field requiredField : requiredFields) {
+        Selection rewrittenSelection = rewriteSelection(requiredField, parentType, typeCapabilities, null, included);
+        if (Objects.nonNull(rewrittenSelection)) {
+          if (Objects.isNull(rewrittenSelections)) {
+            rewrittenSelections = new ArrayList<>(selections);
+          }
+          rewrittenSelections.add(rewrittenSelection);
+        }
+      }
+
+      List<Selection> finalSelections = rewrittenSelections;
+      return Objects.isNull(finalSelections)
+          ? selectionSet : selectionSet.transform(builder -> builder.selections(finalSelections));
+    }
+
+    private Selection rewriteSelection(Selection selection, GraphQLType parentType, TypeCapabilities typeCapabilities,
+        String path, boolean included) {
+      if (selection instanceof Field) {
+        return rewriteNestedField((Field) selection, parentType, typeCapabilities, path, included);
+      } else if (selection instanceof InlineFragment) {
+        return rewriteInlineFragment((InlineFragment) selection, parentType, path, included);
+      } else {
+        return rewriteFragmentSpread((FragmentSpread) selection, path);
+      }
+    }
+
+    private InlineFragment rewriteInlineFragment(InlineFragment inlineFragment, GraphQLType parentType, String path,
+        boolean included) {
+      GraphQLType type = parentType;
+      if ((modifyFields || injectTypename) && Objects.nonNull(inlineFragment.getTypeCondition())) {
+        type = graphQLSchema.getType(inlineFragment.getTypeCondition().getName());
+      }
+      SelectionSet selectionSet = rewriteSelectionSet(inlineFragment.getSelectionSet(), type, path,
+          included && isIncluded(inlineFragment.getDirectives()));
+      if (Objects.isNull(selectionSet)) {
+        return null;
+      }
+      collectDirectiveVariableReferences(inlineFragment.getDirectives(), usage.variableReferences);
+      return selectionSet == inlineFragment.getSelectionSet()
+          ? inlineFragment : inlineFragment.transform(builder -> builder.selectionSet(selectionSet));
+    }
+
+    private FragmentSpread rewriteFragmentSpread(FragmentSpread fragmentSpread, String path) {
+      String fragmentName = fragmentSpread.getName();
+      if (Objects.nonNull(path)) {
+        FragmentDefinition fragmentDefinition = requireNonNull(fragmentsByName.get(fragmentName));
+        Walk filterWalk = new Walk(fragmentsByName, false, false, expectedPath, filteredFragmentDefinitions,
+            new Usage());
+        SelectionSet selectionSet = filterWalk.rewriteSelectionSet(fragmentDefinition.getSelectionSet(), null, path,
+            true);
+        if (Objects.isNull(selectionSet)) {
+          return null;
+        }
+
+        FragmentDefinition filteredFragmentDefinition = fragmentDefinition
+            .transform(builder -> builder.selectionSet(selectionSet));
+        filteredFragmentDefinitions.put(fragmentName, filteredFragmentDefinition);
+        usageByFragmentDefinition.put(filteredFragmentDefinition, filterWalk.usage);
+      }
+      collectDirectiveVariableReferences(fragmentSpread.getDirectives(), usage.variableReferences);
+      usage.fragmentSpreads.add(fragmentName);
+      return fragmentSpread;
+    }
+
+    /*
+     * Returns the path of the field if its selections need to be filtered, or null if the field is not on the path or
+     * is the batched field itself.
+     */
+    private String getFieldPath(Field field, String path) {
+      if (Objects.isNull(path)) {
+        return null;
+      }
+      String fieldPath = path + "/" + getResponseKey(field);
+      return expectedPath.startsWith(fieldPath) && !expectedPath.equals(fieldPath) ? fieldPath : null;
+    }
+
+    private boolean isExpectedField(Field field, String path) {
+      return expectedPath.equals(path + "/" + getResponseKey(field));
+    }
+
+    private boolean isOnPath(Field field, String path) {
+      return Objects.isNull(path) || expectedPath.startsWith(path + "/" + getResponseKey(field));
+    }
+
+    private boolean isIncluded(List<Directive> directives) {
+      return !injectTypename || directives.isEmpty() || conditionalNodes.shouldInclude(variables, directives);
+    }
+
+    private boolean isMissingTypename(SelectionSet selectionSet) {
+      return selectionSet.getSelectionsOfType(Field.class).stream()
+          .noneMatch(field -> field.getName().equals(TYPENAME_FIELD_NAME));
+    }
+
+    private GraphQLFieldDefinition getFieldDefinition(String name, GraphQLType parentType) {
+      if (TYPENAME_FIELD_NAME.equals(name)) {
+        return TypeNameMetaFieldDef;
+      }
+      GraphQLFieldDefinition fieldDefinition = parentType instanceof GraphQLFieldsContainer
+          ? ((GraphQLFieldsContainer) parentType).getFieldDefinition(name) : null;
+      return requireNonNull(fieldDefinition, "Failed to get Field Definition for " + name);
+    }
+
+    /*
+     * The key fields of an entity, and the fields needed by the @resolver fields and the @requires of the external
+     * fields on the path, that are not selected already.
+     */
+    private Set<Field> getRequiredFields(List<Selection> selections, TypeCapabilities typeCapabilities,
+        String path) {
+      Map<String, Field> selectedFields = collectFields(selections, path, new LinkedHashMap<>());
+
+      Set<Field> requiredFields = new LinkedHashSet<>();
+      typeCapabilities.getKeyFields().stream()
+          .filter(field -> !selectedFields.containsKey(field.getName()))
+          .forEach(requiredFields::add);
+      for (String fieldName : selectedFields.keySet()) {
+        FieldCapabilities fieldCapabilities = typeCapabilities.getFieldCapabilities(fieldName);
+        fieldCapabilities.getRequiredFields().stream()
+            .filter(field -> !selectedFields.containsKey(field.getName()))
+            .forEach(requiredFields::add);
+        fieldCapabilities.getResolverRequiredFields().stream()
+            .filter(field -> !selectedFields.containsKey(field.getName()))
+            .forEach(requiredFields::add);
+      }
+      return requiredFields;
+    }
+
+    /*
+     * Collects the fields selected on the path, including those of inline fragments and fragment spreads. Like
+     * SelectionCollector, all fields of a spread fragment are collected.
+     */
+    private Map<String, Field> collectFields(List<Selection> selections, String path, Map<String, Field> fields) {
+      for (Selection selection : selections) {
+        if (selection instanceof Field) {
+          Field field = (Field) selection;
+          if (isOnPath(field, path)) {
+            fields.putIfAbsent(field.getName(), field);
+          }
+        } else if (selection instanceof InlineFragment) {
+          collectFields(((InlineFragment) selection).getSelectionSet().getSelections(), path, fields);
+        } else if (selection instanceof FragmentSpread) {
+          FragmentDefinition fragmentDefinition = requireNonNull(
+              fragmentsByName.get(((FragmentSpread) selection).getName()));
+          List<Selection> fragmentSelections = fragmentDefinition.getSelectionSet().getSelections();
+          if (Objects.isNull(path) || !collectFields(fragmentSelections, path, new HashMap<>()).isEmpty()) {
+            collectFields(fragmentSelections, null, fields);
+          }
+        }
+      }
+      return fields;
+    }
+  }
+}
@@ -0,0 +1,305 @@
+package com.intuit.graphql.orchestrator.batch;
+
+import static java.util.Objects.requireNonNull;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.intuit.graphql.orchestrator.metadata.CacheHintMetadata;
+import graphql.ExecutionInput;
+import graphql.GraphQLContext;
+import graphql.language.Document;
+import graphql.parser.Parser;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * A bounded in-process cache of downstream responses. A query is cached for the max age its service declares for the
+ * fields the query selects with {@code @cacheControl(maxAge: Int)}, see {@link CacheHintMetadata#getMaxAge(Document)}.
+ * Queries without cache hints, mutations and responses with errors are never cached.
+ *
+ * <p>Responses are keyed by namespace, scope, operation name, query text and canonical variables. The scope is derived
+ * from the GraphQLContext of the request and must separate requests the service may answer differently, e.g. by
+ * tenant or auth scope; without a scope key responses are shared by all requests.
+ *
+ * <p>With stale-while-revalidate, an expired response is still returned for the given duration while a single
+ * background query refreshes it. An external {@link ResponseCacheStore} may back the in-process cache.
+ *
+ * <p>A cache is configured per service with {@link BatchLoaderOptions.Builder#responseCache(DownstreamResponseCache)}
+ * and applies to the queries of its {@link GraphQLServiceBatchLoader}, {@link FieldResolverBatchLoader} and {@link
+ * EntityFetcherBatchLoader}.
+ */
+@Slf4j
+public class DownstreamResponseCache {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final String KEY_SEPARATOR = "\u0000";
+
+  private final Cache<String, CachedResponse> responses;
+  private final Function<GraphQLContext, Object> scopeKey;
+  private final Duration staleWhileRevalidate;
+  private final ResponseCacheStore store;
+  private final Clock clock;
+
+  private final Set<String> revalidatingKeys = ConcurrentHashMap.newKeySet();
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong staleHitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+
+  private DownstreamResponseCache(Builder builder) {
+    this.responses = CacheBuilder.newBuilder().maximumSize(builder.maximumSize).build();
+    this.scopeKey = builder.scopeKey;
+    this.staleWhileRevalidate = builder.staleWhileRevalidate;
+    this.store = builder.store;
+    this.clock = builder.clock;
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns the cached response of the query if it is fresh, or queries the service and caches the response for the
+   * max age of the query.
+   *
+   * @param namespace the namespace of the downstream service
+   * @param cacheHintMetadata the cache hints of the downstream service, may be null
+   * @param queryExecutor the executor of the downstream service
+   * @param executionInput the downstream execution
+   * @param context the GraphQLContext of the request
+   * @return the response of the downstream service
+   */
+  public CompletableFuture<Map<String, Object>> query(String namespace, CacheHintMetadata cacheHintMetadata,
+      QueryExecutor queryExecutor, ExecutionInput executionInput, GraphQLContext context) {
+    long maxAgeMillis = getMaxAgeMillis(cacheHintMetadata, executionInput);
+    if (maxAgeMillis <= 0) {
+      return queryExecutor.query(executionInput, context);
+    }
+
+    String key = createKey(namespace, executionInput, context);
+    if (Objects.isNull(key)) {
+      return queryExecutor.query(executionInput, context);
+    }
+
+    CachedResponse cachedResponse = getCachedResponse(key);
+    long now = clock.millis();
+    if (Objects.nonNull(cachedResponse) && now < cachedResponse.getExpiresAt()) {
+      hitCount.incrementAndGet();
+      return CompletableFuture.completedFuture(cachedResponse.getResponse());
+    }
+    if (Objects.nonNull(cachedResponse) && now < cachedResponse.getStaleUntil()) {
+      staleHitCount.incrementAndGet();
+      if (revalidatingKeys.add(key)) {
+        revalidate(key, maxAgeMillis, queryExecutor, executionInput, context);
+      }
+      return CompletableFuture.completedFuture(cachedResponse.getResponse());
+    }
+
+    missCount.incrementAndGet();
+    return queryAndCache(key, maxAgeMillis, queryExecutor, executionInput, context);
+  }
+
+  /**
+   * @return the number of queries answered with a fresh cached response
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * @return the number of queries answered with an expired response while it was revalidated
+   */
+  public long getStaleHitCount() {
+    return staleHitCount.get();
+  }
+
+  /**
+   * @return the number of cacheable queries sent to the service
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * @return the number of responses in the in-process cache
+   */
+  public long size() {
+    return responses.size();
+  }
+
+  private CompletableFuture<Map<String, Object>> queryAndCache(String key, long maxAgeMillis,
+      QueryExecutor queryExecutor, ExecutionInput executionInput, GraphQLContext context) {
+    return queryExecutor.query(executionInput, context).thenApply(response -> {
+      if (isCacheable(response)) {
+        long expiresAt = clock.millis() + maxAgeMillis;
+        CachedResponse cachedResponse = new CachedResponse(response, expiresAt,
+            expiresAt + staleWhileRevalidate.toMillis());
+        responses.put(key, cachedResponse);
+        if (Objects.nonNull(store)) {
+          store.put(key, cachedResponse);
+        }
+      }
+      return response;
+    });
+  }
+
+  private void revalidate(String key, long maxAgeMillis, QueryExecutor queryExecutor, ExecutionInput executionInput,
+      GraphQLContext context) {
+    try {
+      queryAndCache(key, maxAgeMillis, queryExecutor, executionInput, context)
+          .whenComplete((response, throwable) -> {
+            revalidatingKeys.remove(key);
+            if (Objects.nonNull(throwable)) {
+              log.warn("Failed to revalidate cached response of {}", executionInput.getOperationName(), throwable);
+            }
+          });
+    } catch (RuntimeException e) {
+      // the stale response is still returned, the next query tries again
+      revalidatingKeys.remove(key);
+      log.warn("Failed to revalidate cached response of {}", executionInput.getOperationName(), e);
+    }
+  }
+
+  private CachedResponse getCachedResponse(String key) {
+    CachedResponse cachedResponse = responses.getIfPresent(key);
+    if (Objects.isNull(cachedResponse) && Objects.nonNull(store)) {
+      cachedResponse = store.get(key);
+      if (Objects.nonNull(cachedResponse)) {
+        responses.put(key, cachedResponse);
+      }
+    }
+    return cachedResponse;
+  }
+
+  private long getMaxAgeMillis(CacheHintMetadata cacheHintMetadata, ExecutionInput executionInput) {
+    if (Objects.isNull(cacheHintMetadata) || !cacheHintMetadata.hasCacheHints()
+        || DownstreamQueryDeduplicator.isMutation(executionInput)) {
+      return 0;
+    }
+    Document document = executionInput.getRoot() instanceof Document
+        ? (Document) executionInput.getRoot()
+        : Parser.parse(executionInput.getQuery());
+    return Duration.ofSeconds(cacheHintMetadata.getMaxAge(document)).toMillis();
+  }
+
+  private String createKey(String namespace, ExecutionInput executionInput, GraphQLContext context) {
+    String variables;
+    try {
+      variables = OBJECT_MAPPER.writeValueAsString(SingleFlightQueryExecutor.canonicalize(executionInput.getVariables()));
+    } catch (JsonProcessingException e) {
+      // variables that cannot be written as JSON cannot be compared, so the query is not cached
+      return null;
+    }
+    Object scope = Objects.isNull(scopeKey) ? null : scopeKey.apply(context);
+    return StringUtils.joinWith(KEY_SEPARATOR, namespace, scope, executionInput.getOperationName(),
+        executionInput.getQuery(), variables);
+  }
+
+  private static boolean isCacheable(Map<String, Object> response) {
+    if (Objects.isNull(response) || Objects.isNull(response.get("data"))) {
+      return false;
+    }
+    Object errors = response.get("errors");
+    return Objects.isNull(errors) || (errors instanceof Collection && ((Collection<?>) errors).isEmpty());
+  }
+
+  /**
+   * A cached response with the time it expires and the time until which it may be returned while it is revalidated,
+   * in epoch milliseconds.
+   */
+  public static final class CachedResponse {
+
+    private final Map<String, Object> response;
+    private final long expiresAt;
+    private final long staleUntil;
+
+    public CachedResponse(Map<String, Object> response, long expiresAt, long staleUntil) {
+      this.response = requireNonNull(response);
+      this.expiresAt = expiresAt;
+      this.staleUntil = Math.max(expiresAt, staleUntil);
+    }
+
+    public Map<String, Object> getResponse() {
+      return response;
+    }
+
+    public long getExpiresAt() {
+      return expiresAt;
+    }
+
+    public long getStaleUntil() {
+      return staleUntil;
+    }
+  }
+
+  public static final class Builder {
+
+    private long maximumSize = 10_000;
+    private Function<GraphQLContext, Object> scopeKey = null;
+    private Duration staleWhileRevalidate = Duration.ZERO;
+    private ResponseCacheStore store = null;
+    private Clock clock = Clock.systemUTC();
+
+    private Builder() {
+    }
+
+    /**
+     * @param maximumSize the maximum number of responses kept in process, the least recently used are evicted first
+     * @return the builder
+     */
+    public Builder maximumSize(long maximumSize) {
+      if (maximumSize < 0) {
+        throw new IllegalArgumentException("maximumSize must not be negative");
+      }
+      this.maximumSize = maximumSize;
+      return this;
+    }
+
+    /**
+     * @param scopeKey the scope of a request, derived from its GraphQLContext
+     * @return the builder
+     */
+    public Builder scopeKey(Function<GraphQLContext, Object> scopeKey) {
+      this.scopeKey = requireNonNull(scopeKey);
+      return this;
+    }
+
+    /**
+     * @param staleWhileRevalidate how long an expired response is still returned while it is refreshed
+     * @return the builder
+     */
+    public Builder staleWhileRevalidate(Duration staleWhileRevalidate) {
+      requireNonNull(staleWhileRevalidate);
+      if (staleWhileRevalidate.isNegative()) {
+        throw new IllegalArgumentException("staleWhileRevalidate must not be negative");
+      }
+      this.staleWhileRevalidate = staleWhileRevalidate;
+      return this;
+    }
+
+    public Builder store(ResponseCacheStore store) {
+      this.store = requireNonNull(store);
+      return this;
+    }
+
+    public Builder clock(Clock clock) {
+      this.clock = requireNonNull(clock);
+      return this;
+    }
+
+    public DownstreamResponseCache build() {
+      return new DownstreamResponseCache(this);
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package com.intuit.graphql.orchestrator.batch;
+
+import static java.util.Objects.requireNonNull;
+
+import graphql.GraphQLContext;
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * How the extension fields of an entity type fetched with {@code _entities} are cached across requests. An entity is
+ * cached by its representation, i.e. its key fields and {@code @requires} fields, together with the selection of the
+ * extension fields and the scope of the request.
+ */
+public class EntityCacheOptions {
+
+  private final Duration timeToLive;
+  private final long maximumSize;
+  private final Function<GraphQLContext, Object> scopeKey;
+
+  private EntityCacheOptions(Builder builder) {
+    this.timeToLive = builder.timeToLive;
+    this.maximumSize = builder.maximumSize;
+    this.scopeKey = builder.scopeKey;
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * @return how long an entity is cached after it was fetched
+   */
+  public Duration getTimeToLive() {
+    return timeToLive;
+  }
+
+  /**
+   * @return the maximum number of entities cached for the entity type
+   */
+  public long getMaximumSize() {
+    return maximumSize;
+  }
+
+  /**
+   * @return the scope of a request, or null if entities are shared by all requests
+   */
+  public Function<GraphQLContext, Object> getScopeKey() {
+    return scopeKey;
+  }
+
+  public static final class Builder {
+
+    private Duration timeToLive = Duration.ofMinutes(1);
+    private long maximumSize = 10_000;
+    private Function<GraphQLContext, Object> scopeKey = null;
+
+    private Builder() {
+    }
+
+    public Builder timeToLive(Duration timeToLive) {
+      requireNonNull(timeToLive);
+      if (timeToLive.isNegative() || timeToLive.isZero()) {
+        throw new IllegalArgumentException("timeToLive must be positive");
+      }
+      this.timeToLive = timeToLive;
+      return this;
+    }
+
+    public Builder maximumSize(long maximumSize) {
+      if (maximumSize < 0) {
+        throw new IllegalArgumentException("maximumSize must not be negative");
+      }
+      this.maximumSize = maximumSize;
+      return this;
+    }
+
+    /**
+     * Entities are only shared between requests with equal scopes, e.g. the tenant or auth scope of the request.
+     *
+     * @param scopeKey the scope of a request, derived from its GraphQLContext
+     * @return the builder
+     */
+    public Builder scopeKey(Function<GraphQLContext, Object> scopeKey) {
+      this.scopeKey = requireNonNull(scopeKey);
+      return this;
+    }
+
+    public EntityCacheOptions build() {
+      return new EntityCacheOptions(this);
+    }
+  }
+}
@@ -1,73 +1,333 @@
 package com.intuit.graphql.orchestrator.batch;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.intuit.graphql.orchestrator.ServiceProvider;
 import com.intuit.graphql.orchestrator.federation.EntityFetchingException;
 import com.intuit.graphql.orchestrator.federation.EntityQuery;
 import com.intuit.graphql.orchestrator.federation.metadata.FederationMetadata;
 import com.intuit.graphql.orchestrator.federation.metadata.KeyDirectiveMetadata;
+import com.intuit.graphql.orchestrator.metadata.CacheHintMetadata;
+import graphql.ExecutionInput;
 import graphql.GraphQLContext;
+import graphql.GraphQLError;
 import graphql.execution.DataFetcherResult;
 import graphql.introspection.Introspection;
+import graphql.language.AstPrinter;
 import graphql.language.Field;
 import graphql.language.InlineFragment;
 import graphql.language.SelectionSet;
 import graphql.language.TypeName;
 import graphql.schema.DataFetchingEnvironment;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.MapUtils;
 import org.dataloader.BatchLoader;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static com.intuit.graphql.orchestrator.utils.FederationConstants._ENTITIES_FIELD_NAME;
 import static com.intuit.graphql.orchestrator.utils.IntrospectionUtil.__typenameField;
 
+/**
+ * Fetches extension fields of an entity from the subgraph extending it with {@code _entities} queries.
+ *
+ * <p>A batch loader may fetch several extension fields of the entity. The keys of the batch are grouped by the
+ * extension fields requested for their parent, and every group is fetched with a single {@code _entities} query
+ * selecting all of its fields. Its representations hold the key fields and the {@code @requires} fields of all the
+ * fields, so parents requesting different fields do not share a query.
+ *
+ * <p>With {@link EntityCacheOptions} for the entity type, entities are cached by representation and selection, and
+ * only the representations missing from the cache are sent to the subgraph.
+ */
 public class EntityFetcherBatchLoader implements BatchLoader<DataFetchingEnvironment, DataFetcherResult<Object>> {
 
     private final QueryResponseModifier queryResponseModifier = new DefaultQueryResponseModifier();
-    private final BatchResultTransformer batchResultTransformer;
+    private final EntityFetcherBatchResultTransformer batchResultTransformer;
     private final String entityTypeName;
+    private final List<String> fieldNames;
     private final List<String> representationFieldTemplate;
+    private final List<String> keyFieldTemplate;
+    private final Map<String, Set<Field>> requiredFieldsByFieldName;
     private final ServiceProvider entityServiceProvider;
+    private final BatchLoaderOptions batchLoaderOptions;
+    private final CacheHintMetadata cacheHintMetadata;
+    private final Cache<List<Object>, Map<String, Object>> entityCache;
+    private final Function<GraphQLContext, Object> entityCacheScopeKey;
 
     public EntityFetcherBatchLoader(FederationMetadata.EntityExtensionMetadata metadata, String fieldName) {
+        this(metadata, fieldName, BatchLoaderOptions.DEFAULT);
+    }
+
+    public EntityFetcherBatchLoader(FederationMetadata.EntityExtensionMetadata metadata, String fieldName,
+                                    BatchLoaderOptions batchLoaderOptions) {
+        this(metadata, Collections.singletonList(fieldName), batchLoaderOptions, null);
+    }
+
+    /**
+     * Creates a batch loader for all the extension fields of the entity, so that the fields requested for a parent
+     * are fetched together.
+     *
+     * @param metadata the extension of the entity by its subgraph
+     * @param batchLoaderOptions the options of the subgraph
+     */
+    public EntityFetcherBatchLoader(FederationMetadata.EntityExtensionMetadata metadata,
+                                    BatchLoaderOptions batchLoaderOptions) {
+        this(metadata, batchLoaderOptions, null);
+    }
+
+    /**
+     * Creates a batch loader for all the extension fields of the entity whose responses may be cached with the
+     * {@link BatchLoaderOptions#getResponseCache() response cache} of the subgraph.
+     *
+     * @param metadata the extension of the entity by its subgraph
+     * @param batchLoaderOptions the options of the subgraph
+     * @param cacheHintMetadata the cache hints of the subgraph, may be null
+     */
+    public EntityFetcherBatchLoader(FederationMetadata.EntityExtensionMetadata metadata,
+                                    BatchLoaderOptions batchLoaderOptions, CacheHintMetadata cacheHintMetadata) {
+        this(metadata, new ArrayList<>(metadata.getRequiredFieldsByFieldName().keySet()), batchLoaderOptions,
+            cacheHintMetadata);
+    }
+
+    private EntityFetcherBatchLoader(FederationMetadata.EntityExtensionMetadata metadata, List<String> fieldNames,
+                                     BatchLoaderOptions batchLoaderOptions, CacheHintMetadata cacheHintMetadata) {
+        this.batchLoaderOptions = Objects.requireNonNull(batchLoaderOptions);
+        this.cacheHintMetadata = cacheHintMetadata;
         this.entityServiceProvider = metadata.getServiceProvider();
         this.entityTypeName = metadata.getTypeName();
-        this.representationFieldTemplate = generateRepresentationTemplate(metadata, fieldName);
-        this.batchResultTransformer = new EntityFetcherBatchResultTransformer(metadata.getServiceProvider().getNameSpace(), metadata.getTypeName(), fieldName);
+        this.fieldNames = fieldNames;
+        this.keyFieldTemplate = generateKeyFieldTemplate(metadata, String.join(",", fieldNames));
+        this.requiredFieldsByFieldName = new HashMap<>();
+        fieldNames.forEach(fieldName -> requiredFieldsByFieldName.put(fieldName, metadata.getRequiredFields(fieldName)));
+        this.representationFieldTemplate = generateRepresentationTemplate(fieldNames);
+        this.batchResultTransformer = createBatchResultTransformer(fieldNames);
+
+        EntityCacheOptions entityCacheOptions = batchLoaderOptions.getEntityCacheOptions(entityTypeName);
+        this.entityCache = Objects.isNull(entityCacheOptions) ? null : CacheBuilder.newBuilder()
+            .expireAfterWrite(entityCacheOptions.getTimeToLive().toMillis(), TimeUnit.MILLISECONDS)
+            .maximumSize(entityCacheOptions.getMaximumSize())
+            .build();
+        this.entityCacheScopeKey = Objects.isNull(entityCacheOptions) ? null : entityCacheOptions.getScopeKey();
     }
 
     @Override
     public CompletionStage<List<DataFetcherResult<Object>>> load(List<DataFetchingEnvironment> dataFetchingEnvironments) {
-        DataFetchingEnvironment dfeTemplate = dataFetchingEnvironments.get(0);
-        GraphQLContext graphQLContext = dfeTemplate.getContext();
+        GraphQLContext graphQLContext = dataFetchingEnvironments.get(0).getContext();
+
+        // the extension fields requested for every parent
+        Map<Object, Set<String>> fieldNamesBySource = new IdentityHashMap<>();
+        dataFetchingEnvironments.forEach(dfe -> fieldNamesBySource
+            .computeIfAbsent(dfe.getSource(), source -> new HashSet<>())
+            .add(dfe.getField().getName()));
+
+        Map<Set<String>, List<Integer>> keyIndexesByFieldNames = new LinkedHashMap<>();
+        for (int i = 0; i < dataFetchingEnvironments.size(); i++) {
+            keyIndexesByFieldNames
+                .computeIfAbsent(fieldNamesBySource.get(dataFetchingEnvironments.get(i).getSource()),
+                    requestedFieldNames -> new ArrayList<>())
+                .add(i);
+        }
 
-        List<Map<String, Object>> representations = dataFetchingEnvironments.stream()
-            .map(DataFetchingEnvironment::getSource)
-            .map(source -> createRepresentation((Map<String, Object>) source))
+        if (keyIndexesByFieldNames.size() == 1) {
+            Set<String> requestedFieldNames = keyIndexesByFieldNames.keySet().iterator().next();
+            return loadEntities(graphQLContext, dataFetchingEnvironments, requestedFieldNames);
+        }
+
+        List<Integer> keyIndexes = new ArrayList<>(dataFetchingEnvironments.size());
+        List<CompletableFuture<List<DataFetcherResult<Object>>>> entityResults = new ArrayList<>();
+        keyIndexesByFieldNames.forEach((requestedFieldNames, groupKeyIndexes) -> {
+            List<DataFetchingEnvironment> groupKeys = new ArrayList<>(groupKeyIndexes.size());
+            groupKeyIndexes.forEach(keyIndex -> groupKeys.add(dataFetchingEnvironments.get(keyIndex)));
+            keyIndexes.addAll(groupKeyIndexes);
+            entityResults.add(loadEntities(graphQLContext, groupKeys, requestedFieldNames));
+        });
+
+        return CompletableFuture.allOf(entityResults.toArray(new CompletableFuture[0]))
+            .thenApply(ignored -> {
+                DataFetcherResult<Object>[] results = new DataFetcherResult[dataFetchingEnvironments.size()];
+                Iterator<Integer> keyIndex = keyIndexes.iterator();
+                entityResults.forEach(groupResults -> groupResults.join()
+                    .forEach(result -> results[keyIndex.next()] = result));
+                return Arrays.asList(results);
+            });
+    }
+
+    /**
+     * Fetches the requested extension fields for keys whose parents all request the same fields.
+     */
+    private CompletableFuture<List<DataFetcherResult<Object>>> loadEntities(GraphQLContext graphQLContext,
+            List<DataFetchingEnvironment> dataFetchingEnvironments, Set<String> requestedFieldNames) {
+        boolean allFields = requestedFieldNames.containsAll(fieldNames);
+        List<String> orderedFieldNames = allFields ? fieldNames : fieldNames.stream()
+            .filter(requestedFieldNames::contains)
             .collect(Collectors.toList());
+        List<String> representationTemplate = allFields
+            ? representationFieldTemplate : generateRepresentationTemplate(orderedFieldNames);
+        EntityFetcherBatchResultTransformer resultTransformer = allFields
+            ? batchResultTransformer : createBatchResultTransformer(orderedFieldNames);
+
+        // keys pointing to the same entity share one representation; entityIndexes maps every key to it
+        Map<Map<String, Object>, Integer> representationIndexes = new HashMap<>();
+        List<Map<String, Object>> representations = new ArrayList<>();
+        List<Integer> entityIndexes = new ArrayList<>(dataFetchingEnvironments.size());
+        List<String> keyFieldNames = new ArrayList<>(dataFetchingEnvironments.size());
+        dataFetchingEnvironments.forEach(dfe -> {
+            Map<String, Object> representation = createRepresentation((Map<String, Object>) dfe.getSource(),
+                representationTemplate);
+            entityIndexes.add(representationIndexes.computeIfAbsent(representation, newRepresentation -> {
+                representations.add(newRepresentation);
+                return representations.size() - 1;
+            }));
+            keyFieldNames.add(dfe.getField().getName());
+        });
 
         List<InlineFragment> inlineFragments = new ArrayList<>();
-        inlineFragments.add(createEntityRequestInlineFragment(dfeTemplate));
+        inlineFragments.add(createEntityRequestInlineFragment(dataFetchingEnvironments, orderedFieldNames));
 
+        if (Objects.isNull(entityCache)) {
+            return fetchEntities(graphQLContext, inlineFragments, representations)
+                .thenApply(result -> resultTransformer.toBatchResult(result, dataFetchingEnvironments, entityIndexes,
+                    keyFieldNames));
+        }
+
+        // only the entities missing from the cache are fetched
+        Object scope = Objects.isNull(entityCacheScopeKey) ? null : entityCacheScopeKey.apply(graphQLContext);
+        String selection = AstPrinter.printAstCompact(inlineFragments.get(0));
+        List<Map<String, Object>> cachedEntities = new ArrayList<>(representations.size());
+        List<Map<String, Object>> missingRepresentations = new ArrayList<>();
+        List<List<Object>> missingEntityKeys = new ArrayList<>();
+        representations.forEach(representation -> {
+            List<Object> entityKey = Arrays.asList(scope, selection,
+                SingleFlightQueryExecutor.canonicalize(representation));
+            Map<String, Object> cachedEntity = entityCache.getIfPresent(entityKey);
+            cachedEntities.add(cachedEntity);
+            if (Objects.isNull(cachedEntity)) {
+                missingRepresentations.add(representation);
+                missingEntityKeys.add(entityKey);
+            }
+        });
+
+        if (missingRepresentations.isEmpty()) {
+            return CompletableFuture.completedFuture(resultTransformer.toBatchResult(null, dataFetchingEnvironments,
+                entityIndexes, keyFieldNames, cachedEntities));
+        }
+
+        return fetchEntities(graphQLContext, inlineFragments, missingRepresentations)
+            .thenApply(result -> {
+                cacheEntities(result, missingEntityKeys);
+                return resultTransformer.toBatchResult(result, dataFetchingEnvironments, entityIndexes,
+                    keyFieldNames, cachedEntities);
+            });
+    }
+
+    private CompletableFuture<DataFetcherResult<Map<String, Object>>> fetchEntities(GraphQLContext graphQLContext,
+            List<InlineFragment> inlineFragments, List<Map<String, Object>> representations) {
+        // the query does not grow with the number of representations, so only maxBatchSize splits the request
+        List<List<Map<String, Object>>> representationPartitions =
+            PartitionedDispatch.partition(representations, batchLoaderOptions.getMaxBatchSize());
+
+        return PartitionedDispatch.dispatch(representationPartitions,
+                partition -> queryEntities(graphQLContext, inlineFragments, partition),
+                batchLoaderOptions.isParallelDispatch())
+            .thenApply(entityResults -> toEntitiesResult(entityResults, representationPartitions.size()));
+    }
+
+    /**
+     * Caches the fetched entities, unless the service answered with errors.
+     */
+    private void cacheEntities(DataFetcherResult<Map<String, Object>> result, List<List<Object>> entityKeys) {
+        Object entities = MapUtils.isEmpty(result.getData()) ? null : result.getData().get(_ENTITIES_FIELD_NAME);
+        if (result.hasErrors() || !(entities instanceof List) || ((List<?>) entities).size() != entityKeys.size()) {
+            return;
+        }
+        Iterator<List<Object>> entityKey = entityKeys.iterator();
+        ((List<?>) entities).forEach(entity -> {
+            List<Object> key = entityKey.next();
+            if (entity instanceof Map) {
+                entityCache.put(key, (Map<String, Object>) entity);
+            }
+        });
+    }
+
+    private CompletableFuture<List<DataFetcherResult<Map<String, Object>>>> queryEntities(
+            GraphQLContext graphQLContext, List<InlineFragment> inlineFragments,
+            List<Map<String, Object>> representations) {
         EntityQuery entityQuery = EntityQuery.builder()
             .graphQLContext(graphQLContext)
             .inlineFragments(inlineFragments)
             .variables(representations)
             .build();
 
-    return this.entityServiceProvider
-        .query(entityQuery.createExecutionInput(), graphQLContext)
-        .thenApply(queryResponseModifier::modify)
-        .thenApply(result -> batchResultTransformer.toBatchResult(result, dataFetchingEnvironments));
+        return query(entityQuery.createExecutionInput(), graphQLContext)
+            .thenApply(queryResponseModifier::modify)
+            .thenApply(Collections::singletonList);
+    }
+
+    private CompletableFuture<Map<String, Object>> query(ExecutionInput executionInput, GraphQLContext graphQLContext) {
+        String namespace = entityServiceProvider.getNameSpace();
+        DownstreamResponseCache responseCache = batchLoaderOptions.getResponseCache();
+        if (Objects.isNull(responseCache)) {
+            return DownstreamQueryDeduplicator.query(namespace, entityServiceProvider, executionInput, graphQLContext);
+        }
+        return responseCache.query(namespace, cacheHintMetadata,
+            (input, context) -> DownstreamQueryDeduplicator.query(namespace, entityServiceProvider, input, context),
+            executionInput, graphQLContext);
+    }
+
+    /**
+     * Concatenates the {@code _entities} of every partition in order. If any partition is missing its
+     * {@code _entities}, none are returned so the whole batch fails as a single request would.
+     */
+    private DataFetcherResult<Map<String, Object>> toEntitiesResult(
+            List<DataFetcherResult<Map<String, Object>>> partitionResults, int partitionCount) {
+        if (partitionCount == 1) {
+            return partitionResults.get(0);
+        }
+
+        List<GraphQLError> errors = new ArrayList<>();
+        List<Object> entities = new ArrayList<>();
+        boolean missingEntities = false;
+        for (DataFetcherResult<Map<String, Object>> partitionResult : partitionResults) {
+            errors.addAll(partitionResult.getErrors());
+            Map<String, Object> data = partitionResult.getData();
+            Object partitionEntities = (data == null) ? null : data.get(_ENTITIES_FIELD_NAME);
+            if (partitionEntities instanceof List) {
+                entities.addAll((List<?>) partitionEntities);
+            } else {
+                missingEntities = true;
+            }
+        }
+
+        return DataFetcherResult.<Map<String, Object>>newResult()
+            .data(missingEntities ? Collections.emptyMap() : Collections.singletonMap(_ENTITIES_FIELD_NAME, entities))
+            .errors(errors)
+            .build();
+    }
+
+    private EntityFetcherBatchResultTransformer createBatchResultTransformer(List<String> fieldNames) {
+        return new EntityFetcherBatchResultTransformer(entityServiceProvider.getNameSpace(), entityTypeName,
+            String.join(",", fieldNames));
     }
 
-    private List<String> generateRepresentationTemplate(FederationMetadata.EntityExtensionMetadata metadata, String fieldName) {
-        List<String> representationFields = new ArrayList<>();
+    private List<String> generateKeyFieldTemplate(FederationMetadata.EntityExtensionMetadata metadata, String fieldName) {
+        List<String> keyFields = new ArrayList<>();
 
         if(CollectionUtils.isNotEmpty(metadata.getKeyDirectives())) {
             metadata.getKeyDirectives()
@@ -75,7 +335,7 @@ public class EntityFetcherBatchLoader implements BatchLoader<DataFetchingEnviron
                     .map(KeyDirectiveMetadata::getFieldSet)
                     .flatMap(Collection::stream)
                     .map(Field::getName)
-                    .forEach(representationFields::add);
+                    .forEach(keyFields::add);
         } else {
             throw EntityFetchingException.builder()
                     .serviceNameSpace(metadata.getServiceProvider().getNameSpace())
@@ -85,47 +345,69 @@ public class EntityFetcherBatchLoader implements BatchLoader<DataFetchingEnviron
                     .build();
         }
 
-        if(CollectionUtils.isNotEmpty(metadata.getRequiredFields(fieldName))) {
-            metadata.getRequiredFields(fieldName)
-                .stream()
-                .map(Field::getName)
-                .filter(reqFieldName -> !representationFields.contains(reqFieldName))
-                .forEach(representationFields::add);
-        }
+        return keyFields;
+    }
+
+    /**
+     * The key fields followed by the {@code @requires} fields of the extension fields, in order.
+     */
+    private List<String> generateRepresentationTemplate(List<String> fieldNames) {
+        List<String> representationFields = new ArrayList<>(keyFieldTemplate);
+
+        fieldNames.stream()
+            .map(requiredFieldsByFieldName::get)
+            .filter(CollectionUtils::isNotEmpty)
+            .flatMap(Collection::stream)
+            .map(Field::getName)
+            .forEach(reqFieldName -> {
+                if (!representationFields.contains(reqFieldName)) {
+                    representationFields.add(reqFieldName);
+                }
+            });
 
         return representationFields;
     }
 
-    private InlineFragment createEntityRequestInlineFragment(DataFetchingEnvironment dfe) {
-        Field originalField = dfe.getField();
+    /**
+     * One inline fragment on the entity selecting every requested extension field, with the selection set of its
+     * first key.
+     */
+    private InlineFragment createEntityRequestInlineFragment(List<DataFetchingEnvironment> dfes,
+                                                             List<String> requestedFieldNames) {
+        Map<String, Field> originalFields = new HashMap<>();
+        for (DataFetchingEnvironment dfe : dfes) {
+            originalFields.putIfAbsent(dfe.getField().getName(), dfe.getField());
+        }
 
-        SelectionSet fieldSelectionSet = dfe.getField().getSelectionSet();
-        if (fieldSelectionSet != null) {
-            // is an object
-            fieldSelectionSet =
-                    fieldSelectionSet.transform(builder -> builder.selection(__typenameField));
+        SelectionSet.Builder selectionSetBuilder = SelectionSet.newSelectionSet();
+        for (String fieldName : requestedFieldNames) {
+            SelectionSet fieldSelectionSet = originalFields.get(fieldName).getSelectionSet();
+            if (fieldSelectionSet != null) {
+                // is an object
+                fieldSelectionSet =
+                        fieldSelectionSet.transform(builder -> builder.selection(__typenameField));
+            }
+            selectionSetBuilder.selection(
+                    Field.newField()
+                            .selectionSet(fieldSelectionSet)
+                            .name(fieldName)
+                            .build());
         }
 
         InlineFragment.Builder inlineFragmentBuilder = InlineFragment.newInlineFragment();
         inlineFragmentBuilder.typeCondition(TypeName.newTypeName().name(this.entityTypeName).build());
-        inlineFragmentBuilder.selectionSet(
-                SelectionSet.newSelectionSet()
-                        .selection(
-                                Field.newField()
-                                        .selectionSet(fieldSelectionSet)
-                                        .name(originalField.getName())
-                                        .build())
-                        .build());
+        inlineFragmentBuilder.selectionSet(selectionSetBuilder.build());
         return inlineFragmentBuilder.build();
     }
 
     private Map<String, Object> createRepresentation(
-            Map<String, Object> dataSource
+            Map<String, Object> dataSource,
+            List<String> representationTemplate
     ){
         Map<String, Object> entityRepresentation = new HashMap<>();
         entityRepresentation.put(Introspection.TypeNameMetaFieldDef.getName(), this.entityTypeName);
 
-        this.representationFieldTemplate
+        representationTemplate
                 .forEach(fieldName -> entityRepresentation.put(fieldName, dataSource.get(fieldName)));
 
         return entityRepresentation;
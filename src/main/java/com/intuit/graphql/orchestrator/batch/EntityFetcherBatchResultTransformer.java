@@ -10,6 +10,7 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -31,6 +32,105 @@ public class EntityFetcherBatchResultTransformer  implements BatchResultTransfor
     @Override
     public List<DataFetcherResult<Object>> toBatchResult(DataFetcherResult<Map<String, Object>> dataFetcherResult,
                                                          List<DataFetchingEnvironment> dataFetchingEnvironments) {
+        List<Map<String, Object>> _entities = getEntities(dataFetcherResult);
+
+        List<DataFetcherResult<Object>> dataFetcherResults = new ArrayList<>();
+        _entities.forEach(entityResult -> dataFetcherResults.add(toFieldResult(entityResult)));
+        return dataFetcherResults;
+    }
+
+    /**
+     * Transforms the result of a query whose representations were deduplicated. Every key receives the entity of the
+     * representation it was mapped to, so keys that share a representation share the same entity data.
+     *
+     * @param dataFetcherResult the response of the entity service
+     * @param dataFetchingEnvironments the keys of the batch
+     * @param entityIndexes for every key, the index of its representation in the {@code _entities} query
+     * @return a result for every key, in key order
+     */
+    public List<DataFetcherResult<Object>> toBatchResult(DataFetcherResult<Map<String, Object>> dataFetcherResult,
+                                                         List<DataFetchingEnvironment> dataFetchingEnvironments,
+                                                         List<Integer> entityIndexes) {
+        return toBatchResult(dataFetcherResult, dataFetchingEnvironments, entityIndexes,
+            Collections.nCopies(entityIndexes.size(), this.extFieldName));
+    }
+
+    /**
+     * Transforms the result of a query that fetched several extension fields of the entity at once. Every key
+     * receives the extension field it requested from the entity of its representation.
+     *
+     * @param dataFetcherResult the response of the entity service
+     * @param dataFetchingEnvironments the keys of the batch
+     * @param entityIndexes for every key, the index of its representation in the {@code _entities} query
+     * @param fieldNames for every key, the name of the extension field it requested
+     * @return a result for every key, in key order
+     */
+    public List<DataFetcherResult<Object>> toBatchResult(DataFetcherResult<Map<String, Object>> dataFetcherResult,
+                                                         List<DataFetchingEnvironment> dataFetchingEnvironments,
+                                                         List<Integer> entityIndexes,
+                                                         List<String> fieldNames) {
+        return toBatchResult(getEntities(dataFetcherResult), entityIndexes, fieldNames);
+    }
+
+    /**
+     * Transforms the result of a query that only fetched the entities missing from the entity cache. The fetched
+     * entities fill the gaps of {@code cachedEntities} in order.
+     *
+     * @param dataFetcherResult the response of the entity service, or null if every entity was cached
+     * @param dataFetchingEnvironments the keys of the batch
+     * @param entityIndexes for every key, the index of its representation
+     * @param fieldNames for every key, the name of the extension field it requested
+     * @param cachedEntities for every representation, the cached entity or null if it was fetched
+     * @return a result for every key, in key order
+     */
+    public List<DataFetcherResult<Object>> toBatchResult(DataFetcherResult<Map<String, Object>> dataFetcherResult,
+                                                         List<DataFetchingEnvironment> dataFetchingEnvironments,
+                                                         List<Integer> entityIndexes,
+                                                         List<String> fieldNames,
+                                                         List<Map<String, Object>> cachedEntities) {
+        if (!cachedEntities.contains(null)) {
+            return toBatchResult(cachedEntities, entityIndexes, fieldNames);
+        }
+
+        Iterator<Map<String, Object>> fetchedEntities = getEntities(dataFetcherResult).iterator();
+        List<Map<String, Object>> _entities = new ArrayList<>(cachedEntities.size());
+        for (Map<String, Object> cachedEntity : cachedEntities) {
+            if (cachedEntity != null) {
+                _entities.add(cachedEntity);
+            } else if (fetchedEntities.hasNext()) {
+                _entities.add(fetchedEntities.next());
+            } else {
+                _entities.add(null);
+            }
+        }
+        return toBatchResult(_entities, entityIndexes, fieldNames);
+    }
+
+    private List<DataFetcherResult<Object>> toBatchResult(List<Map<String, Object>> _entities,
+                                                          List<Integer> entityIndexes,
+                                                          List<String> fieldNames) {
+        List<DataFetcherResult<Object>> dataFetcherResults = new ArrayList<>(entityIndexes.size());
+        for (int i = 0; i < entityIndexes.size(); i++) {
+            int entityIndex = entityIndexes.get(i);
+            Map<String, Object> entityResult = (entityIndex < _entities.size()) ? _entities.get(entityIndex) : null;
+            dataFetcherResults.add(toFieldResult(entityResult, fieldNames.get(i)));
+        }
+        return dataFetcherResults;
+    }
+
+    private DataFetcherResult<Object> toFieldResult(Map<String, Object> entityResult) {
+        return toFieldResult(entityResult, this.extFieldName);
+    }
+
+    private DataFetcherResult<Object> toFieldResult(Map<String, Object> entityResult, String fieldName) {
+        Object fieldData = (entityResult != null) ? entityResult.get(fieldName) : null;
+
+        return DataFetcherResult.newResult()
+                .data(fieldData)
+                .build();
+    }
+
+    private List<Map<String, Object>> getEntities(DataFetcherResult<Map<String, Object>> dataFetcherResult) {
         if(dataFetcherResult.hasErrors()) {
             throw EntityFetchingException.builder()
                     .serviceNameSpace(providerNamespace)
@@ -44,18 +144,8 @@ public class EntityFetcherBatchResultTransformer  implements BatchResultTransfor
                     .build();
         }
 
-        List<DataFetcherResult<Object>> dataFetcherResults = new ArrayList<>();
         List<Map<String, Object>> _entities = (MapUtils.isEmpty(dataFetcherResult.getData())) ? Collections.emptyList() : (List<Map<String, Object>>) dataFetcherResult.getData().get(_ENTITIES_FIELD_NAME);
-        if(CollectionUtils.isNotEmpty(_entities)) {
-            _entities.forEach(entityResult -> {
-                Object fieldData = (entityResult != null) ? entityResult.get(this.extFieldName) : null;
-
-                dataFetcherResults.add(DataFetcherResult.newResult()
-                        .data(fieldData)
-                        .build()
-                );
-            });
-        } else {
+        if(CollectionUtils.isEmpty(_entities)) {
             throw EntityFetchingException.builder()
                     .serviceNameSpace(providerNamespace)
                     .parentTypeName(entityName)
@@ -63,7 +153,6 @@ public class EntityFetcherBatchResultTransformer  implements BatchResultTransfor
                     .additionalInfo(NO_ENTITY_FIELD)
                     .build();
         }
-
-        return dataFetcherResults;
+        return _entities;
     }
 }
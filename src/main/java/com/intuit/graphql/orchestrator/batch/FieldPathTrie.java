@@ -0,0 +1,151 @@
+package com.intuit.graphql.orchestrator.batch;
+
+import graphql.execution.ExecutionStepInfo;
+import graphql.language.Field;
+import graphql.schema.DataFetchingEnvironment;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The result paths of a batch of fields, from the operation root down to each batched field, merged into a trie.
+ * Segments are response keys, i.e. aliases when present and field names otherwise, or list indexes when a field is
+ * nested in a list, so a single walk over a downstream response finds the data and the errors of every key.
+ */
+final class FieldPathTrie {
+
+  private final Map<Object, FieldPathTrie> children = new HashMap<>();
+  private final List<Integer> keyIndexes = new ArrayList<>(1);
+  private boolean hasListChildren;
+
+  // the smallest index of the keys at or below this node
+  private int firstKeyIndex = Integer.MAX_VALUE;
+
+  private FieldPathTrie() {
+  }
+
+  static FieldPathTrie of(List<DataFetchingEnvironment> keys) {
+    FieldPathTrie root = new FieldPathTrie();
+    for (int i = 0; i < keys.size(); i++) {
+      FieldPathTrie node = root;
+      node.firstKeyIndex = Math.min(node.firstKeyIndex, i);
+      for (Object segment : pathOf(keys.get(i).getExecutionStepInfo())) {
+        node.hasListChildren |= segment instanceof Integer;
+        node = node.children.computeIfAbsent(segment, ignored -> new FieldPathTrie());
+        node.firstKeyIndex = Math.min(node.firstKeyIndex, i);
+      }
+      node.keyIndexes.add(i);
+    }
+    return root;
+  }
+
+  /**
+   * The result path of the field of the given step, without the operation root.
+   *
+   * @param leafInfo the execution step of the field
+   * @return response keys and list indexes, root first
+   */
+  static List<Object> pathOf(ExecutionStepInfo leafInfo) {
+    List<Object> path = new ArrayList<>();
+
+    ExecutionStepInfo curr = leafInfo;
+
+    //ignore Query/Mutation
+    while (curr != null && curr.getPath().getLevel() != 0) {
+      if (curr.getPath().isListSegment()) {
+        path.add(curr.getPath().getSegmentIndex());
+      } else {
+        final Field field = curr.getField().getSingleField();
+        path.add(field.getAlias() != null ? field.getAlias() : field.getName());
+      }
+      curr = curr.getParent();
+    }
+
+    Collections.reverse(path);
+    return path;
+  }
+
+  /**
+   * @param segment a response key or list index below this node
+   * @return the node of the segment, or null if no batched field is at or below it
+   */
+  FieldPathTrie child(Object segment) {
+    return children.get(segment);
+  }
+
+  /**
+   * @return true if a batched field ends at this node, in which case its whole value is needed
+   */
+  boolean isLeaf() {
+    return !keyIndexes.isEmpty();
+  }
+
+  /**
+   * @return true if the paths below this node select elements of a list by index
+   */
+  boolean hasListChildren() {
+    return hasListChildren;
+  }
+
+  /**
+   * Walks the response once and stores the value at the path of every key at the index of the key. Values on missing
+   * paths are left null.
+   *
+   * @param data the data of the downstream response
+   * @param partitions receives the value of every key
+   */
+  void partition(Object data, Object[] partitions) {
+    if (data == null) {
+      return;
+    }
+
+    for (Integer keyIndex : keyIndexes) {
+      partitions[keyIndex] = data;
+    }
+
+    if (data instanceof Map) {
+      Map<?, ?> object = (Map<?, ?>) data;
+      children.forEach((segment, child) -> {
+        if (segment instanceof String) {
+          child.partition(object.get(segment), partitions);
+        }
+      });
+    } else if (data instanceof List) {
+      List<?> list = (List<?>) data;
+      children.forEach((segment, child) -> {
+        if (segment instanceof Integer && (Integer) segment < list.size()) {
+          child.partition(list.get((Integer) segment), partitions);
+        }
+      });
+    }
+  }
+
+  /**
+   * Finds the key an error belongs to: the key whose field contains the error path, or for an error on a parent of
+   * several batched fields, the first of them.
+   *
+   * @param errorPath the path of the error, possibly null
+   * @return the index of the key, or -1 if the path does not lead to any key
+   */
+  int keyIndexOf(List<Object> errorPath) {
+    if (Objects.isNull(errorPath) || errorPath.isEmpty()) {
+      return -1;
+    }
+
+    FieldPathTrie node = this;
+    for (Object segment : errorPath) {
+      FieldPathTrie child = node.children.get(segment instanceof Number ? ((Number) segment).intValue() : segment);
+      if (child == null) {
+        break;
+      }
+      node = child;
+      if (node.isLeaf()) {
+        return node.keyIndexes.get(0);
+      }
+    }
+    return node == this ? -1 : node.firstKeyIndex;
+  }
+}
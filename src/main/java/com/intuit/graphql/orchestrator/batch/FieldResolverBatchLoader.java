@@ -7,6 +7,7 @@ import com.intuit.graphql.orchestrator.resolverdirective.ResolverDirectiveDefini
 import com.intuit.graphql.orchestrator.schema.GraphQLObjects;
 import com.intuit.graphql.orchestrator.schema.ServiceMetadata;
 import com.intuit.graphql.orchestrator.schema.transform.FieldResolverContext;
+import com.intuit.graphql.orchestrator.utils.CompactAstPrinter;
 import graphql.ExecutionInput;
 import graphql.GraphQLContext;
 import graphql.execution.DataFetcherResult;
@@ -33,27 +34,26 @@ import java.util.stream.Collectors;
 import static com.intuit.graphql.orchestrator.GraphQLOrchestrator.DATA_LOADER_REGISTRY_CONTEXT_KEY;
 import static com.intuit.graphql.orchestrator.resolverdirective.FieldResolverDirectiveUtil.FQN_FIELD_SEPARATOR;
 import static com.intuit.graphql.orchestrator.resolverdirective.FieldResolverDirectiveUtil.createFieldResolverOperationName;
-import static graphql.language.AstPrinter.printAstCompact;
 
 public class FieldResolverBatchLoader implements BatchLoader<DataFetchingEnvironment, DataFetcherResult<Object>> {
 
-  private final QueryOperationModifier queryOperationModifier = new QueryOperationModifier();
-
   private final QueryResponseModifier queryResponseModifier = new DefaultQueryResponseModifier();
 
   private final String[] resolverSelectedFields;
 
   private final FieldResolverContext fieldResolverContext;
 
-  private final BatchResultTransformer batchResultTransformer;
+  private final FieldResolverBatchResultTransformer batchResultTransformer;
 
   private final ServiceMetadata serviceMetadata;
 
   private final QueryOperationFactory queryOperationFactory = new QueryOperationFactory();
 
+  private final BatchLoaderOptions batchLoaderOptions;
 
   @Builder
-  public FieldResolverBatchLoader(FieldResolverContext fieldResolverContext, ServiceMetadata serviceMetadata) {
+  public FieldResolverBatchLoader(FieldResolverContext fieldResolverContext, ServiceMetadata serviceMetadata,
+      BatchLoaderOptions batchLoaderOptions) {
     Objects.requireNonNull(fieldResolverContext, "fieldResolverContext is required");
     Objects.requireNonNull(fieldResolverContext.getResolverDirectiveDefinition(),
         "resolverDirectiveDefinition is required");
@@ -62,6 +62,7 @@ public class FieldResolverBatchLoader implements BatchLoader<DataFetchingEnviron
 
     this.serviceMetadata = serviceMetadata;
     this.fieldResolverContext = fieldResolverContext;
+    this.batchLoaderOptions = Objects.isNull(batchLoaderOptions) ? BatchLoaderOptions.DEFAULT : batchLoaderOptions;
     ResolverDirectiveDefinition resolverDirectiveDefinition = fieldResolverContext.getResolverDirectiveDefinition();
 
     this.resolverSelectedFields = StringUtils.split(resolverDirectiveDefinition.getField(), FQN_FIELD_SEPARATOR);
@@ -70,33 +71,48 @@ public class FieldResolverBatchLoader implements BatchLoader<DataFetchingEnviron
 
   @Override
   public CompletionStage<List<DataFetcherResult<Object>>> load(final List<DataFetchingEnvironment> dataFetchingEnvironments) {
+    return PartitionedDispatch.dispatch(
+        PartitionedDispatch.partition(dataFetchingEnvironments, batchLoaderOptions.getMaxBatchSize()),
+        this::loadPartition, batchLoaderOptions.isParallelDispatch());
+  }
+
+  private CompletableFuture<List<DataFetcherResult<Object>>> loadPartition(
+      final List<DataFetchingEnvironment> dataFetchingEnvironments) {
 
     String originalOperationName = dataFetchingEnvironments.get(0).getOperationDefinition().getName();
     String downstreamQueryOpName = createFieldResolverOperationName(originalOperationName);
 
     FieldResolverBatchSelectionSetSupplier fieldResolverBatchSelectionSetSupplier =
             new FieldResolverBatchSelectionSetSupplier(resolverSelectedFields,
-                dataFetchingEnvironments, fieldResolverContext, serviceMetadata);
+                dataFetchingEnvironments, fieldResolverContext, serviceMetadata, batchLoaderOptions);
 
     SelectionSet selectionSet = fieldResolverBatchSelectionSetSupplier.get();
-    OperationDefinition downstreamQueryOpDef = queryOperationFactory.create(downstreamQueryOpName, selectionSet);
-
-    if (this.fieldResolverContext.isRequiresTypeNameInjection()) {
-      downstreamQueryOpDef = queryOperationModifier.modifyQuery(
-          dataFetchingEnvironments.get(0).getGraphQLSchema(),
-          downstreamQueryOpDef,
-          // each DFE have identical fragmentsByName since this is a batch call for same field
-          // Arguments on the field with @resolver now allowed, set variables empty
-          dataFetchingEnvironments.get(0).getFragmentsByName(), Collections.emptyMap());
-    }
+    Map<String, Object> variables = fieldResolverBatchSelectionSetSupplier.getVariables();
+    OperationDefinition downstreamQueryOpDef = queryOperationFactory.create(downstreamQueryOpName, selectionSet,
+        fieldResolverBatchSelectionSetSupplier.getVariableDefinitions());
 
     List<Definition<FragmentDefinition>> downstreamQueryFragmentDefinitions =
         createResolverQueryFragmentDefinitions(dataFetchingEnvironments.get(0));
 
+    Document resolverQueryDoc = Document.newDocument()
+        .definitions(downstreamQueryFragmentDefinitions.stream()
+            .map(GraphQLObjects::<Definition<FragmentDefinition>>cast)
+            .collect(Collectors.toList()))
+        .definition(downstreamQueryOpDef)
+        .build();
+    String resolverQuery = CompactAstPrinter.print(resolverQueryDoc);
+
+    if (dataFetchingEnvironments.size() > 1 && batchLoaderOptions.exceedsMaxDocumentSize(resolverQuery)) {
+      return PartitionedDispatch.dispatch(PartitionedDispatch.halves(dataFetchingEnvironments),
+          this::loadPartition, batchLoaderOptions.isParallelDispatch());
+    }
+
     ServiceProvider serviceProvider = serviceMetadata.getServiceProvider();
-    return execute(dataFetchingEnvironments.get(0), downstreamQueryOpDef, downstreamQueryFragmentDefinitions, serviceProvider)
+    int[] aliasIndexes = fieldResolverBatchSelectionSetSupplier.getAliasIndexes();
+    return execute(dataFetchingEnvironments.get(0), resolverQueryDoc, resolverQuery, downstreamQueryOpDef.getName(),
+        variables, serviceProvider)
         .thenApply(queryResponseModifier::modify)
-        .thenApply(result -> batchResultTransformer.toBatchResult(result, dataFetchingEnvironments));
+        .thenApply(result -> batchResultTransformer.toBatchResult(result, dataFetchingEnvironments, aliasIndexes));
   }
 
   private List<Definition<FragmentDefinition>> createResolverQueryFragmentDefinitions(DataFetchingEnvironment dataFetchingEnvironment) {
@@ -114,27 +130,27 @@ public class FieldResolverBatchLoader implements BatchLoader<DataFetchingEnviron
   }
 
   private CompletableFuture<Map<String, Object>> execute(DataFetchingEnvironment dataFetchingEnvironment,
-      OperationDefinition resolverQueryOpDef,
-      List<Definition<FragmentDefinition>> resolverQueryFragmentDefs,
-      ServiceProvider serviceProvider
-  ) {
+      Document resolverQueryDoc, String resolverQuery, String operationName, Map<String, Object> variables,
+      ServiceProvider serviceProvider) {
     GraphQLContext context = dataFetchingEnvironment.getContext();
 
-    Document resolverQueryDoc = Document.newDocument()
-        .definitions(resolverQueryFragmentDefs.stream().map(GraphQLObjects::<Definition<FragmentDefinition>>cast)
-            .collect(Collectors.toList()))
-        .definition(resolverQueryOpDef)
-        .build();
-
     ExecutionInput resolverQueryExecutionInput = ExecutionInput.newExecutionInput()
         .dataLoaderRegistry(context.get(DATA_LOADER_REGISTRY_CONTEXT_KEY))
         .context(context)
         .root(resolverQueryDoc)
-        .query(printAstCompact(resolverQueryDoc))
-        .operationName(resolverQueryOpDef.getName())
+        .query(resolverQuery)
+        .operationName(operationName)
+        .variables(variables)
         .build();
 
-    return serviceProvider.query(resolverQueryExecutionInput, dataFetchingEnvironment.getContext());
+    DownstreamResponseCache responseCache = batchLoaderOptions.getResponseCache();
+    if (Objects.isNull(responseCache)) {
+      return DownstreamQueryDeduplicator.query(serviceProvider.getNameSpace(), serviceProvider,
+          resolverQueryExecutionInput, context);
+    }
+    return responseCache.query(serviceProvider.getNameSpace(), serviceMetadata.getCacheHintMetadata(),
+        (input, inputContext) -> DownstreamQueryDeduplicator.query(serviceProvider.getNameSpace(), serviceProvider,
+            input, inputContext), resolverQueryExecutionInput, context);
   }
 
-}
\ No newline at end of file
+}
@@ -18,6 +18,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import static com.intuit.graphql.orchestrator.resolverdirective.FieldResolverDirectiveUtil.createAlias;
@@ -50,20 +51,36 @@ public class FieldResolverBatchResultTransformer implements BatchResultTransform
   @Override
   public List<DataFetcherResult<Object>> toBatchResult(DataFetcherResult<Map<String, Object>> dataFetcherResult,
       List<DataFetchingEnvironment> dataFetchingEnvironments) {
+    return toBatchResult(dataFetcherResult, dataFetchingEnvironments, null);
+  }
+
+  /**
+   * Splits the result of a batch in which several data fetching environments may share an aliased field. The result
+   * of a shared field is given to each of its data fetching environments.
+   *
+   * @param dataFetcherResult the result of the batch
+   * @param dataFetchingEnvironments the keys of the batch
+   * @param aliasIndexes the alias index of each key, or null if each key has its own alias
+   * @return the results of the keys
+   */
+  public List<DataFetcherResult<Object>> toBatchResult(DataFetcherResult<Map<String, Object>> dataFetcherResult,
+      List<DataFetchingEnvironment> dataFetchingEnvironments, int[] aliasIndexes) {
 
     List<DataFetcherResult<Object>> dataFetcherResults = new ArrayList<>();
 
     for (int i = 0; i < CollectionUtils.size(dataFetchingEnvironments); i++) {
       DataFetchingEnvironment dataFetchingEnvironment = dataFetchingEnvironments.get(i);
+      int aliasCounter = Objects.isNull(aliasIndexes) ? i : aliasIndexes[i];
 
       Object pathData = null;
       if (MapUtils.isNotEmpty(dataFetcherResult.getData())) {
-        pathData = getDataFromBatchResult(dataFetcherResult.getData(), i);
+        pathData = getDataFromBatchResult(dataFetcherResult.getData(), aliasCounter);
       }
 
       List<GraphQLError> pathErrors = Collections.emptyList();
       if (CollectionUtils.isNotEmpty(dataFetcherResult.getErrors())) {
-        pathErrors = getErrorsFromBatchResult(dataFetcherResult.getErrors(), dataFetchingEnvironment, i);
+        pathErrors = getErrorsFromBatchResult(dataFetcherResult.getErrors(), dataFetchingEnvironment, aliasCounter,
+            i == 0);
       }
 
       dataFetcherResults.add(DataFetcherResult.newResult()
@@ -91,7 +108,7 @@ public class FieldResolverBatchResultTransformer implements BatchResultTransform
   }
 
   private List<GraphQLError> getErrorsFromBatchResult(List<GraphQLError> batchErrors,
-      DataFetchingEnvironment dfe, int aliasCounter) {
+      DataFetchingEnvironment dfe, int aliasCounter, boolean firstKey) {
 
     int lastIndex = resolverSelectedFields.length - 1;
     String leafFieldName = resolverSelectedFields[lastIndex];
@@ -100,7 +117,7 @@ public class FieldResolverBatchResultTransformer implements BatchResultTransform
         .replaceSegment(createAlias(leafFieldName, aliasCounter));
 
     List<GraphQLError> errorsWithoutPath = Collections.emptyList();
-    if (aliasCounter == 0) {
+    if (firstKey) {
       errorsWithoutPath = batchErrors
           .stream()
           .filter(graphQLError -> CollectionUtils.isEmpty(graphQLError.getPath()))  // Ideally this shouldn't happen. The specs requires errors to have path if can be associated in the field.
@@ -1,23 +1,18 @@
 package com.intuit.graphql.orchestrator.batch;
 
-import static com.intuit.graphql.orchestrator.schema.transform.DomainTypesTransformer.DELIMITER;
-import static graphql.language.AstPrinter.printAstCompact;
 import static graphql.language.OperationDefinition.Operation.QUERY;
-import static graphql.schema.GraphQLTypeUtil.unwrapAll;
 import static java.util.Objects.requireNonNull;
 
 import com.intuit.graphql.orchestrator.authorization.BatchFieldAuthorization;
 import com.intuit.graphql.orchestrator.authorization.DefaultBatchFieldAuthorization;
-import com.intuit.graphql.orchestrator.batch.MergedFieldModifier.MergedFieldModifierResult;
 import com.intuit.graphql.orchestrator.schema.GraphQLObjects;
 import com.intuit.graphql.orchestrator.schema.ServiceMetadata;
+import com.intuit.graphql.orchestrator.utils.CompactAstPrinter;
 import graphql.ExecutionInput;
 import graphql.GraphQLContext;
-import graphql.VisibleForTesting;
 import graphql.execution.DataFetcherResult;
 import graphql.execution.ExecutionStepInfo;
 import graphql.execution.MergedField;
-import graphql.language.AstTransformer;
 import graphql.language.Definition;
 import graphql.language.Directive;
 import graphql.language.Document;
@@ -27,12 +22,9 @@ import graphql.language.OperationDefinition;
 import graphql.language.OperationDefinition.Operation;
 import graphql.language.Selection;
 import graphql.language.SelectionSet;
-import graphql.language.TypeName;
 import graphql.language.VariableDefinition;
 import graphql.schema.DataFetchingEnvironment;
 import graphql.schema.GraphQLFieldDefinition;
-import graphql.schema.GraphQLFieldsContainer;
-import graphql.schema.GraphQLObjectType;
 import graphql.schema.GraphQLSchema;
 import graphql.schema.GraphQLType;
 import java.util.ArrayList;
@@ -47,23 +39,20 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 import org.apache.commons.collections4.MapUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.dataloader.BatchLoader;
 
 public class GraphQLServiceBatchLoader implements BatchLoader<DataFetchingEnvironment, DataFetcherResult<Object>> {
 
   private final BatchFieldAuthorization DEFAULT_FIELD_AUTHORIZATION = new DefaultBatchFieldAuthorization();
   private final QueryExecutor queryExecutor;
+  private final QueryExecutor sharedQueryExecutor;
   private final QueryResponseModifier queryResponseModifier;
   private final BatchResultTransformer batchResultTransformer;
   private final QueryOperationModifier queryOperationModifier;
   private final ServiceMetadata serviceMetadata;
   private final BatchLoaderExecutionHooks<DataFetchingEnvironment, DataFetcherResult<Object>> hooks;
-
-  private static final AstTransformer AST_TRANSFORMER = new AstTransformer();
-
-  @VisibleForTesting
-  VariableDefinitionFilter variableDefinitionFilter = new VariableDefinitionFilter();
+  private final DownstreamQueryPlanCache downstreamQueryPlanCache;
+  private final BatchLoaderOptions batchLoaderOptions;
 
   private GraphQLServiceBatchLoader(Builder builder) {
     this.queryExecutor = builder.queryExecutor;
@@ -72,6 +61,11 @@ public class GraphQLServiceBatchLoader implements BatchLoader<DataFetchingEnviro
     this.queryOperationModifier = builder.queryOperationModifier;
     this.serviceMetadata = builder.serviceMetadata;
     this.hooks = builder.hooks;
+    this.downstreamQueryPlanCache = builder.downstreamQueryPlanCache;
+    this.batchLoaderOptions = builder.batchLoaderOptions;
+    this.sharedQueryExecutor = Objects.isNull(batchLoaderOptions.getSingleFlightPartitionKey())
+        ? queryExecutor
+        : new SingleFlightQueryExecutor(getNamespace(), queryExecutor, batchLoaderOptions.getSingleFlightPartitionKey());
   }
 
   @Override
@@ -95,34 +89,80 @@ public class GraphQLServiceBatchLoader implements BatchLoader<DataFetchingEnviro
     batchFieldAuthorization.batchAuthorizeOrThrowGraphQLError(authData, keys);
     hooks.onBatchLoadStart(context, keys);
 
+    return PartitionedDispatch.dispatch(
+        PartitionedDispatch.partition(keys, batchLoaderOptions.getMaxBatchSize()),
+        partition -> loadPartition(partition, context), batchLoaderOptions.isParallelDispatch())
+        .thenApply(batchResult -> {
+          hooks.onBatchLoadEnd(context, batchResult);
+          return batchResult;
+        });
+  }
+
+  private CompletableFuture<List<DataFetcherResult<Object>>> loadPartition(List<DataFetchingEnvironment> keys,
+      GraphQLContext context) {
+    Map<String, Object> mergedVariables = new HashMap<>();
+    keys.stream()
+        .flatMap(dataFetchingEnvironment -> dataFetchingEnvironment.getVariables().entrySet().stream())
+        .distinct()
+        .forEach(entry -> mergedVariables.put(entry.getKey(), entry.getValue()));
+
     Optional<OperationDefinition> operation = getFirstOperation(keys);
     Operation operationType = operation.map(OperationDefinition::getOperation).orElse(QUERY);
     String operationName = operation.map(OperationDefinition::getName).orElse(operationType.toString());
 
+    // plans are shared by the batch loaders of a schema, so they are only cached under the namespace of a service
+    String namespace = getNamespace();
+    DownstreamQueryPlan plan = Objects.isNull(downstreamQueryPlanCache) || Objects.isNull(namespace)
+        ? createDownstreamQueryPlan(keys, operation, mergedVariables)
+        : downstreamQueryPlanCache.get(namespace, operationName, keys, mergedVariables,
+            () -> createDownstreamQueryPlan(keys, operation, mergedVariables));
+
+    if (keys.size() > 1 && batchLoaderOptions.exceedsMaxDocumentSize(plan.getQuery())) {
+      return PartitionedDispatch.dispatch(PartitionedDispatch.halves(keys),
+          partition -> loadPartition(partition, context), batchLoaderOptions.isParallelDispatch());
+    }
+
+    return execute(context, plan, plan.filterVariables(mergedVariables), keys)
+        .thenApply(queryResponseModifier::modify)
+        .thenApply(result -> batchResultTransformer.toBatchResult(result, keys));
+  }
+
+  private DownstreamQueryPlan createDownstreamQueryPlan(List<DataFetchingEnvironment> keys,
+      Optional<OperationDefinition> operation, Map<String, Object> mergedVariables) {
+    Operation operationType = operation.map(OperationDefinition::getOperation).orElse(QUERY);
+    String operationName = operation.map(OperationDefinition::getName).orElse(operationType.toString());
+
     GraphQLSchema graphQLSchema = getSchema(keys);
 
     List<Directive> operationDirectives = operation.map(OperationDefinition::getDirectives)
         .orElse(Collections.emptyList());
-    GraphQLObjectType operationObjectType =
-        operationType == QUERY ? graphQLSchema.getQueryType() : graphQLSchema.getMutationType();
 
     SelectionSet.Builder selectionSetBuilder = SelectionSet.newSelectionSet();
 
     Map<String, FragmentDefinition> mergedFragmentDefinitions = new HashMap<>();
 
+    // a custom QueryOperationModifier replaces the __typename injection of the rewriter
+    boolean injectTypename = serviceMetadata.requiresTypenameInjection() && Objects.isNull(queryOperationModifier);
+    boolean modifyFields = serviceMetadata.shouldModifyDownStreamQuery();
+    DownstreamQueryRewriter downstreamQueryRewriter = new DownstreamQueryRewriter(graphQLSchema, serviceMetadata,
+        mergedVariables);
+
     for (final DataFetchingEnvironment key : keys) {
-      MergedFieldModifierResult result = new MergedFieldModifier(key).getFilteredRootField();
-      MergedField filteredRootField = result.getMergedField();
-      if (filteredRootField != null) {
-        filteredRootField.getFields().stream()
-          .map(field -> (serviceMetadata.shouldModifyDownStreamQuery())
-            ? removeFieldsWithExternalTypes(field, getRootFieldDefinition(key.getExecutionStepInfo()).getType(),
-                key.getFragmentsByName(), graphQLSchema)
-            : field)
-          .forEach(selectionSetBuilder::selection);
+      ExecutionStepInfo executionStepInfo = key.getExecutionStepInfo();
+      GraphQLType rootFieldType = modifyFields || injectTypename
+          ? getRootFieldDefinition(executionStepInfo).getType() : null;
+      Map<String, FragmentDefinition> filteredFragmentDefinitions = new HashMap<>();
+
+      for (final Field rootField : getRootField(executionStepInfo).getFields()) {
+        Field rewrittenRootField = downstreamQueryRewriter.rewriteField(rootField, rootFieldType,
+            key.getFragmentsByName(), modifyFields, injectTypename, executionStepInfo.getPath(),
+            filteredFragmentDefinitions);
+        if (rewrittenRootField != null) {
+          selectionSetBuilder.selection(rewrittenRootField);
+        }
       }
 
-      for (final FragmentDefinition fragmentDefinition : result.getFragmentDefinitions().values()) {
+      for (final FragmentDefinition fragmentDefinition : filteredFragmentDefinitions.values()) {
         if (mergedFragmentDefinitions.containsKey(fragmentDefinition.getName())) {
           FragmentDefinition old = mergedFragmentDefinitions.get(fragmentDefinition.getName());
 
@@ -142,15 +182,9 @@ public class GraphQLServiceBatchLoader implements BatchLoader<DataFetchingEnviro
       Map<String, FragmentDefinition> svcFragmentDefinitions = filterFragmentDefinitionByService(
           key.getFragmentsByName());
       if (serviceMetadata.hasFieldResolverDirective() || serviceMetadata.isFederationService()) {
-        Map<String, FragmentDefinition> finalServiceFragmentDefinitions = new HashMap<>();
-        svcFragmentDefinitions.forEach((fragmentName, fragmentDefinition) -> {
-          String typeConditionName = fragmentDefinition.getTypeCondition().getName();
-          GraphQLFieldsContainer parentType = (GraphQLFieldsContainer) graphQLSchema.getType(typeConditionName);
-          FragmentDefinition transformedFragment = removeFieldsWithExternalTypes(fragmentDefinition,
-              parentType, key.getFragmentsByName(), graphQLSchema);
-          finalServiceFragmentDefinitions.put(fragmentName, removeDomainTypeFromFragment(transformedFragment));
-        });
-        mergedFragmentDefinitions.putAll(finalServiceFragmentDefinitions);
+        svcFragmentDefinitions.forEach((fragmentName, fragmentDefinition) -> mergedFragmentDefinitions.put(
+            fragmentName, downstreamQueryRewriter.rewriteFragmentDefinition(fragmentDefinition,
+                key.getFragmentsByName())));
       } else {
         mergedFragmentDefinitions.putAll(svcFragmentDefinitions);
       }
@@ -158,12 +192,6 @@ public class GraphQLServiceBatchLoader implements BatchLoader<DataFetchingEnviro
 
     final SelectionSet filteredSelection = selectionSetBuilder.build();
 
-    Map<String, Object> mergedVariables = new HashMap<>();
-    keys.stream()
-        .flatMap(dataFetchingEnvironment -> dataFetchingEnvironment.getVariables().entrySet().stream())
-        .distinct()
-        .forEach(entry -> mergedVariables.put(entry.getKey(), entry.getValue()));
-
     List<VariableDefinition> variableDefinitions = keys.stream()
         .map(DataFetchingEnvironment::getOperationDefinition)
         .filter(Objects::nonNull)
@@ -171,7 +199,9 @@ public class GraphQLServiceBatchLoader implements BatchLoader<DataFetchingEnviro
         .distinct()
         .collect(Collectors.toList());
 
-    List<Definition> fragmentsAsDefinitions = mergedFragmentDefinitions.values().stream()
+    // only the fragments spread by the query, so that the downstream query has no unused fragments
+    List<Definition> fragmentsAsDefinitions = downstreamQueryRewriter
+        .getUsedFragmentDefinitions(mergedFragmentDefinitions.values()).stream()
         .map(GraphQLObjects::<Definition>cast).collect(Collectors.toList());
 
     OperationDefinition query = OperationDefinition.newOperationDefinition()
@@ -183,36 +213,34 @@ public class GraphQLServiceBatchLoader implements BatchLoader<DataFetchingEnviro
         .build();
 
     Map<String, Object> filteredVariables = mergedVariables;
+    List<String> variablesToKeep = null;
 
     if (!variableDefinitions.isEmpty()) {
-      final Set<String> foundVariableReferences = variableDefinitionFilter.getVariableReferencesFromNode(
-          graphQLSchema,
-          operationObjectType,
-          mergedFragmentDefinitions,
-          mergedVariables,
-          query
-      );
+      final Set<String> foundVariableReferences = downstreamQueryRewriter.getVariableReferences(operationDirectives);
 
       List<VariableDefinition> filteredVariableDefinitions = variableDefinitions.stream()
           .filter(variableDefinition -> foundVariableReferences.contains(variableDefinition.getName()))
           .collect(Collectors.toList());
 
+      variablesToKeep = filteredVariableDefinitions.stream()
+          .map(VariableDefinition::getName)
+          .collect(Collectors.toList());
       filteredVariables = filterVariables(filteredVariableDefinitions, mergedVariables);
 
       query = query.transform(builder -> builder.variableDefinitions(filteredVariableDefinitions));
     }
 
-    if (serviceMetadata.requiresTypenameInjection()) {
+    if (serviceMetadata.requiresTypenameInjection() && Objects.nonNull(queryOperationModifier)) {
       query = queryOperationModifier.modifyQuery(graphQLSchema, query, mergedFragmentDefinitions, filteredVariables);
     }
 
-    return execute(context, query, filteredVariables, fragmentsAsDefinitions)
-        .thenApply(queryResponseModifier::modify)
-        .thenApply(result -> batchResultTransformer.toBatchResult(result, keys))
-        .thenApply(batchResult -> {
-          hooks.onBatchLoadEnd(context, batchResult);
-          return batchResult;
-        });
+    Document document = Document.newDocument()
+        .definitions(fragmentsAsDefinitions)
+        .definition(query)
+        .build();
+
+    return new DownstreamQueryPlan(document, CompactAstPrinter.print(document), query.getName(),
+        query.getSelectionSet().getSelections().isEmpty(), variablesToKeep);
   }
 
   private Map<String, Object> filterVariables(List<VariableDefinition> filteredVariableDefinitions,
@@ -240,6 +268,14 @@ public class GraphQLServiceBatchLoader implements BatchLoader<DataFetchingEnviro
     return currExecutionStepInfo.getFieldDefinition();
   }
 
+  private MergedField getRootField(ExecutionStepInfo executionStepInfo) {
+    ExecutionStepInfo currExecutionStepInfo = executionStepInfo;
+    while (currExecutionStepInfo.getPath().getLevel() != 1) {
+      currExecutionStepInfo = currExecutionStepInfo.getParent();
+    }
+    return currExecutionStepInfo.getField();
+  }
+
   private Map<String, FragmentDefinition> filterFragmentDefinitionByService(
       Map<String, FragmentDefinition> fragmentsByName) {
 
@@ -254,82 +290,49 @@ public class GraphQLServiceBatchLoader implements BatchLoader<DataFetchingEnviro
     return map;
   }
 
-  private CompletableFuture<Map<String, Object>> execute(GraphQLContext context, OperationDefinition queryOp,
-      final Map<String, Object> variables, List<Definition> fragmentDefinitions) {
-    Document document = Document.newDocument()
-        .definitions(fragmentDefinitions)
-        .definition(queryOp)
-        .build();
-
+  private CompletableFuture<Map<String, Object>> execute(GraphQLContext context, DownstreamQueryPlan plan,
+      final Map<String, Object> variables, List<DataFetchingEnvironment> keys) {
     ExecutionInput i = ExecutionInput.newExecutionInput()
         .context(context)
-        .root(document)
-        .query(printAstCompact(document))
-        .operationName(queryOp.getName())
+        .root(plan.getDocument())
+        .query(plan.getQuery())
+        .operationName(plan.getOperationName())
         .variables(variables)
         .build();
 
     hooks.onExecutionInput(context, i);
 
-    if (queryOp.getSelectionSet().getSelections().isEmpty()) {
+    if (plan.isEmptySelectionSet()) {
       return CompletableFuture.completedFuture(new HashMap<>());
     }
 
-    return this.queryExecutor.query(i, context)
+    return query(i, context, keys)
         .thenApply(result -> {
           hooks.onQueryResult(context, result);
           return result;
         });
   }
 
-  /**
-   * remove fields with external type from a fragment definition.
-   *
-   * @param origFragmentDefinition original fragment definition
-   * @param typeCondition type condition of the original fragment definition.  This will be used as
-   *                      the root type for {@link DownstreamQueryModifier}
-   * @return a modified fragment definition
-   */
-  private FragmentDefinition removeFieldsWithExternalTypes(final FragmentDefinition origFragmentDefinition,
-      GraphQLType typeCondition, Map<String, FragmentDefinition> fragmentsByName, GraphQLSchema graphQLSchema) {
-    // call serviceMetadata.hasFieldResolverDirective() before calling this method
-    return (FragmentDefinition) AST_TRANSFORMER.transform(origFragmentDefinition,
-        new DownstreamQueryModifier(unwrapAll(typeCondition), serviceMetadata, fragmentsByName, graphQLSchema));
-
-  }
-
-  /**
-   * remove domain prefix from fragment definition.
-   *
-   * @param origFragmentDefinition original fragment definition
-   *
-   * @return a modified fragment definition
-   */
-  private FragmentDefinition removeDomainTypeFromFragment(final FragmentDefinition origFragmentDefinition) {
-    TypeName typeCondition = origFragmentDefinition.getTypeCondition();
-    String typeConditionName = typeCondition.getName();
-    final String domainPrefix = serviceMetadata.getServiceProvider().getNameSpace() + DELIMITER;
-    if (StringUtils.startsWith(typeConditionName, domainPrefix)) {
-      return origFragmentDefinition.transform(builder -> builder.typeCondition(
-          typeCondition.transform(bdr -> bdr.name(StringUtils.removeStart(typeConditionName, domainPrefix)))
-      ));
+  private CompletableFuture<Map<String, Object>> query(ExecutionInput executionInput, GraphQLContext context,
+      List<DataFetchingEnvironment> keys) {
+    if (queryExecutor instanceof ByteQueryExecutor) {
+      // only materialize the parts of the response the batched keys read
+      FieldPathTrie selection = FieldPathTrie.of(keys);
+      return ((ByteQueryExecutor) queryExecutor).queryBytes(executionInput, context)
+          .thenApply(response -> StreamingResponseParser.parse(response, selection));
     }
-    return origFragmentDefinition;
+    DownstreamResponseCache responseCache = batchLoaderOptions.getResponseCache();
+    if (Objects.isNull(responseCache) || Objects.isNull(serviceMetadata)) {
+      return DownstreamQueryDeduplicator.query(getNamespace(), sharedQueryExecutor, executionInput, context);
+    }
+    return responseCache.query(getNamespace(), serviceMetadata.getCacheHintMetadata(),
+        (input, inputContext) -> DownstreamQueryDeduplicator.query(getNamespace(), sharedQueryExecutor, input,
+            inputContext), executionInput, context);
   }
 
-  /**
-   * remove fields with external type from selections of a given field.
-   *
-   * @param origField field to be processed.
-   * @param fieldType the type of origField.  This will be used as the root type for {@link
-   * DownstreamQueryModifier}
-   * @return a modified field
-   */
-  private Field removeFieldsWithExternalTypes(Field origField, GraphQLType fieldType, Map<String, FragmentDefinition> fragmentsByName,
-      GraphQLSchema graphQLSchema) {
-    // call serviceMetadata.hasFieldResolverDirective() before calling this method
-    return (Field) AST_TRANSFORMER.transform(origField,
-        new DownstreamQueryModifier(unwrapAll(fieldType), serviceMetadata, fragmentsByName, graphQLSchema));
+  private String getNamespace() {
+    return Objects.isNull(serviceMetadata) || Objects.isNull(serviceMetadata.getServiceProvider())
+        ? null : serviceMetadata.getServiceProvider().getNameSpace();
   }
 
   private GraphQLSchema getSchema(List<DataFetchingEnvironment> environments) {
@@ -372,8 +375,10 @@ public class GraphQLServiceBatchLoader implements BatchLoader<DataFetchingEnviro
     private ServiceMetadata serviceMetadata;
     private QueryResponseModifier queryResponseModifier = defaultQueryResponseModifier;
     private BatchResultTransformer batchResultTransformer = defaultBatchResultTransformer;
-    private QueryOperationModifier queryOperationModifier = new QueryOperationModifier();
+    private QueryOperationModifier queryOperationModifier;
     private BatchLoaderExecutionHooks<DataFetchingEnvironment, DataFetcherResult<Object>> hooks = defaultHooks;
+    private DownstreamQueryPlanCache downstreamQueryPlanCache;
+    private BatchLoaderOptions batchLoaderOptions = BatchLoaderOptions.DEFAULT;
 
     public Builder queryExecutor(final QueryExecutor queryExecutor) {
       this.queryExecutor = requireNonNull(queryExecutor);
@@ -395,6 +400,12 @@ public class GraphQLServiceBatchLoader implements BatchLoader<DataFetchingEnviro
       return this;
     }
 
+    /**
+     * Replace the {@code __typename} injection of {@link DownstreamQueryRewriter} for providers that require it.
+     *
+     * @param queryOperationModifier the modifier applied to the downstream operation
+     * @return the builder
+     */
     public Builder queryOperationModifier(final QueryOperationModifier queryOperationModifier) {
       this.queryOperationModifier = requireNonNull(queryOperationModifier);
       return this;
@@ -406,6 +417,22 @@ public class GraphQLServiceBatchLoader implements BatchLoader<DataFetchingEnviro
       return this;
     }
 
+    /**
+     * Reuse downstream query plans for batches of the same shape. Disabled unless a cache is set.
+     *
+     * @param downstreamQueryPlanCache the cache, possibly shared with other batch loaders
+     * @return the builder
+     */
+    public Builder downstreamQueryPlanCache(final DownstreamQueryPlanCache downstreamQueryPlanCache) {
+      this.downstreamQueryPlanCache = requireNonNull(downstreamQueryPlanCache);
+      return this;
+    }
+
+    public Builder batchLoaderOptions(final BatchLoaderOptions batchLoaderOptions) {
+      this.batchLoaderOptions = requireNonNull(batchLoaderOptions);
+      return this;
+    }
+
     public GraphQLServiceBatchLoader build() {
       return new GraphQLServiceBatchLoader(this);
     }
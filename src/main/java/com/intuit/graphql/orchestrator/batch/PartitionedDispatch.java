@@ -0,0 +1,58 @@
+package com.intuit.graphql.orchestrator.batch;
+
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Loads the partitions of a batch and concatenates their results, so that results stay in key order.
+ */
+final class PartitionedDispatch {
+
+  private PartitionedDispatch() {
+  }
+
+  static <K> List<List<K>> partition(List<K> keys, int maxBatchSize) {
+    if (maxBatchSize <= 0 || keys.size() <= maxBatchSize) {
+      return Collections.singletonList(keys);
+    }
+    return Lists.partition(keys, maxBatchSize);
+  }
+
+  static <K> List<List<K>> halves(List<K> keys) {
+    return Lists.partition(keys, (keys.size() + 1) / 2);
+  }
+
+  static <K, V> CompletableFuture<List<V>> dispatch(List<List<K>> partitions,
+      Function<List<K>, CompletableFuture<List<V>>> loadFunction, boolean parallel) {
+    if (partitions.size() == 1) {
+      return loadFunction.apply(partitions.get(0));
+    }
+
+    if (parallel) {
+      List<CompletableFuture<List<V>>> futures = partitions.stream()
+          .map(loadFunction)
+          .collect(Collectors.toList());
+      return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+          .thenApply(ignored -> {
+            List<V> results = new ArrayList<>();
+            futures.forEach(future -> results.addAll(future.join()));
+            return results;
+          });
+    }
+
+    CompletableFuture<List<V>> results = CompletableFuture.completedFuture(new ArrayList<>());
+    for (List<K> partition : partitions) {
+      results = results.thenCompose(loaded -> loadFunction.apply(partition)
+          .thenApply(partitionResults -> {
+            loaded.addAll(partitionResults);
+            return loaded;
+          }));
+    }
+    return results;
+  }
+}
@@ -0,0 +1,26 @@
+package com.intuit.graphql.orchestrator.batch;
+
+import com.intuit.graphql.orchestrator.batch.DownstreamResponseCache.CachedResponse;
+
+/**
+ * An external store for the responses cached by a {@link DownstreamResponseCache}, e.g. a cache shared by several
+ * instances of the orchestrator. The store is consulted when a response is not in the in-process cache, and receives
+ * every response that is cached. Both methods are called on the thread of the downstream call and should not block
+ * for long.
+ */
+public interface ResponseCacheStore {
+
+  /**
+   * @param key the key of the downstream query
+   * @return the cached response, or null if the store has none
+   */
+  CachedResponse get(String key);
+
+  /**
+   * Stores a response. The store may drop it once {@link CachedResponse#getStaleUntil()} has passed.
+   *
+   * @param key the key of the downstream query
+   * @param cachedResponse the response and its expiry
+   */
+  void put(String key, CachedResponse cachedResponse);
+}
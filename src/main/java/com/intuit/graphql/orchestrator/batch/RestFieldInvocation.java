@@ -0,0 +1,95 @@
+package com.intuit.graphql.orchestrator.batch;
+
+import com.intuit.graphql.orchestrator.utils.CompactAstPrinter;
+import graphql.ExecutionInput;
+import graphql.GraphQLContext;
+import graphql.execution.ResultPath;
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.OperationDefinition;
+import graphql.language.SelectionSet;
+import graphql.schema.DataFetchingEnvironment;
+import java.util.Map;
+import java.util.Objects;
+import lombok.Getter;
+
+/**
+ * One invocation of a field of a REST service: the field with its arguments and path, and the single field query
+ * a {@link QueryExecutor} is given for it.
+ *
+ * <p>Each invocation has its own context, a copy of the context of the request that also holds the {@link Document}
+ * and the {@link DataFetchingEnvironment} of the invocation under their classes. Invocations of the same request
+ * therefore never overwrite each other's entries. Entries a query executor puts in the context of an invocation are
+ * not visible to the rest of the request.
+ */
+@Getter
+public class RestFieldInvocation {
+
+  private final Field field;
+  private final Map<String, Object> arguments;
+  private final ExecutionInput executionInput;
+  private final GraphQLContext context;
+  private final DataFetchingEnvironment dataFetchingEnvironment;
+
+  private RestFieldInvocation(DataFetchingEnvironment dataFetchingEnvironment, ExecutionInput executionInput,
+      GraphQLContext context) {
+    this.field = dataFetchingEnvironment.getField();
+    this.arguments = dataFetchingEnvironment.getArguments();
+    this.executionInput = executionInput;
+    this.context = context;
+    this.dataFetchingEnvironment = dataFetchingEnvironment;
+  }
+
+  /**
+   * @param dataFetchingEnvironment the environment of the field
+   * @return the invocation of the field
+   */
+  public static RestFieldInvocation from(DataFetchingEnvironment dataFetchingEnvironment) {
+    OperationDefinition operationDefinition = dataFetchingEnvironment.getOperationDefinition();
+
+    OperationDefinition query = OperationDefinition.newOperationDefinition()
+        .name(operationDefinition.getName())
+        .variableDefinitions(operationDefinition.getVariableDefinitions())
+        .selectionSet(SelectionSet.newSelectionSet().selection(dataFetchingEnvironment.getField()).build())
+        .operation(operationDefinition.getOperation())
+        .build();
+
+    Document document = Document.newDocument()
+        .definition(query)
+        .build();
+
+    GraphQLContext requestContext = dataFetchingEnvironment.getContext();
+    GraphQLContext.Builder contextBuilder = GraphQLContext.newContext();
+    if (Objects.nonNull(requestContext)) {
+      contextBuilder.of(requestContext);
+    }
+    GraphQLContext context = contextBuilder
+        .put(Document.class, document)
+        .put(DataFetchingEnvironment.class, dataFetchingEnvironment)
+        .build();
+
+    ExecutionInput executionInput = ExecutionInput.newExecutionInput()
+        .context(context)
+        .root(document)
+        .query(CompactAstPrinter.print(document)) // No need to stringify query for REST
+        .operationName(query.getName())
+        .variables(dataFetchingEnvironment.getVariables())
+        .build();
+
+    return new RestFieldInvocation(dataFetchingEnvironment, executionInput, context);
+  }
+
+  /**
+   * @return the path of the field in the result of the request
+   */
+  public ResultPath getPath() {
+    return dataFetchingEnvironment.getExecutionStepInfo().getPath();
+  }
+
+  /**
+   * @return the single field query of the invocation
+   */
+  public Document getDocument() {
+    return (Document) executionInput.getRoot();
+  }
+}
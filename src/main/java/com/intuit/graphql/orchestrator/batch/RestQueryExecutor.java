@@ -0,0 +1,27 @@
+package com.intuit.graphql.orchestrator.batch;
+
+import graphql.GraphQLContext;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link QueryExecutor} of a REST service that executes the field invocations of a batch together, e.g. with one
+ * bulk call for the items of a list.
+ *
+ * <p>{@link RestServiceBatchLoader} hands it the invocations of the REST fields of a request that are loaded at the
+ * same time. Service providers opt in by implementing this interface next to {@code ServiceProvider}; the fields of
+ * other REST services are executed with one {@link #query} call each.
+ */
+public interface RestQueryExecutor extends QueryExecutor {
+
+  /**
+   * Executes the field invocations of a batch.
+   *
+   * @param invocations the field invocations, each with its own context
+   * @param context the graphql context of the request
+   * @return the response of each invocation, in the order of the invocations, in the format {@link #query} returns
+   */
+  CompletableFuture<List<Map<String, Object>>> queryBatch(List<RestFieldInvocation> invocations,
+      GraphQLContext context);
+}
@@ -0,0 +1,147 @@
+package com.intuit.graphql.orchestrator.batch;
+
+import static com.intuit.graphql.orchestrator.batch.DefaultBatchResultTransformer.toSingleResult;
+import static java.util.Objects.requireNonNull;
+
+import graphql.GraphQLContext;
+import graphql.execution.DataFetcherResult;
+import graphql.schema.DataFetchingEnvironment;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Collectors;
+import org.dataloader.BatchLoader;
+
+/**
+ * Loads the fields of a REST service. The invocations of a batch are sent to a {@link RestQueryExecutor} in one
+ * call, or to any other {@link QueryExecutor} with one call each.
+ */
+public class RestServiceBatchLoader implements BatchLoader<DataFetchingEnvironment, DataFetcherResult<Object>> {
+
+  private final QueryExecutor queryExecutor;
+  private final QueryResponseModifier queryResponseModifier;
+  private final BatchLoaderExecutionHooks<DataFetchingEnvironment, DataFetcherResult<Object>> hooks;
+  private final BatchLoaderOptions batchLoaderOptions;
+
+  private RestServiceBatchLoader(Builder builder) {
+    this.queryExecutor = builder.queryExecutor;
+    this.queryResponseModifier = builder.queryResponseModifier;
+    this.hooks = builder.hooks;
+    this.batchLoaderOptions = builder.batchLoaderOptions;
+  }
+
+  @Override
+  public CompletionStage<List<DataFetcherResult<Object>>> load(final List<DataFetchingEnvironment> keys) {
+    GraphQLContext context = getContext(keys);
+    hooks.onBatchLoadStart(context, keys);
+
+    List<RestFieldInvocation> invocations = keys.stream()
+        .map(RestFieldInvocation::from)
+        .collect(Collectors.toList());
+
+    return PartitionedDispatch.dispatch(
+        PartitionedDispatch.partition(invocations, batchLoaderOptions.getMaxBatchSize()),
+        partition -> loadPartition(partition, context), batchLoaderOptions.isParallelDispatch())
+        .thenApply(batchResult -> {
+          hooks.onBatchLoadEnd(context, batchResult);
+          return batchResult;
+        });
+  }
+
+  private CompletableFuture<List<DataFetcherResult<Object>>> loadPartition(List<RestFieldInvocation> invocations,
+      GraphQLContext context) {
+    invocations.forEach(invocation -> hooks.onExecutionInput(invocation.getContext(), invocation.getExecutionInput()));
+
+    return query(invocations, context)
+        .thenApply(responses -> {
+          if (responses.size() != invocations.size()) {
+            throw new IllegalStateException(String.format("Expected %d responses for the REST field invocations but "
+                + "received %d", invocations.size(), responses.size()));
+          }
+
+          List<DataFetcherResult<Object>> results = new ArrayList<>(invocations.size());
+          for (int i = 0; i < invocations.size(); i++) {
+            RestFieldInvocation invocation = invocations.get(i);
+            Map<String, Object> response = responses.get(i);
+            hooks.onQueryResult(invocation.getContext(), response);
+            results.add(toSingleResult(queryResponseModifier.modify(response),
+                invocation.getDataFetchingEnvironment()));
+          }
+          return results;
+        });
+  }
+
+  private CompletableFuture<List<Map<String, Object>>> query(List<RestFieldInvocation> invocations,
+      GraphQLContext context) {
+    if (queryExecutor instanceof RestQueryExecutor) {
+      return ((RestQueryExecutor) queryExecutor).queryBatch(invocations, context);
+    }
+
+    List<CompletableFuture<Map<String, Object>>> futures = invocations.stream()
+        .map(invocation -> queryExecutor.query(invocation.getExecutionInput(), invocation.getContext()))
+        .collect(Collectors.toList());
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+        .thenApply(ignored -> futures.stream()
+            .map(CompletableFuture::join)
+            .collect(Collectors.toList()));
+  }
+
+  private GraphQLContext getContext(List<DataFetchingEnvironment> environments) {
+    return environments.stream()
+        .map(DataFetchingEnvironment::<GraphQLContext>getContext)
+        .filter(Objects::nonNull)
+        .findFirst()
+        .orElse(null);
+  }
+
+  public static Builder newRestServiceBatchLoader() {
+    return new Builder();
+  }
+
+  public static class Builder {
+
+    private QueryExecutor queryExecutor;
+    private QueryResponseModifier queryResponseModifier = GraphQLServiceBatchLoader.Builder.defaultQueryResponseModifier;
+    private BatchLoaderExecutionHooks<DataFetchingEnvironment, DataFetcherResult<Object>> hooks =
+        BatchLoaderExecutionHooks.DEFAULT_HOOKS;
+    private BatchLoaderOptions batchLoaderOptions = BatchLoaderOptions.DEFAULT;
+
+    private Builder() {
+
+    }
+
+    public Builder queryExecutor(final QueryExecutor queryExecutor) {
+      this.queryExecutor = requireNonNull(queryExecutor);
+      return this;
+    }
+
+    public Builder queryResponseModifier(final QueryResponseModifier queryResponseModifier) {
+      this.queryResponseModifier = requireNonNull(queryResponseModifier);
+      return this;
+    }
+
+    public Builder batchLoaderExecutionHooks(
+        BatchLoaderExecutionHooks<DataFetchingEnvironment, DataFetcherResult<Object>> hooks) {
+      this.hooks = requireNonNull(hooks);
+      return this;
+    }
+
+    /**
+     * Only the maximum batch size and parallel dispatch apply to REST services.
+     *
+     * @param batchLoaderOptions the batch loader options of the service
+     * @return the builder
+     */
+    public Builder batchLoaderOptions(final BatchLoaderOptions batchLoaderOptions) {
+      this.batchLoaderOptions = requireNonNull(batchLoaderOptions);
+      return this;
+    }
+
+    public RestServiceBatchLoader build() {
+      return new RestServiceBatchLoader(this);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package com.intuit.graphql.orchestrator.batch;
+
+import graphql.ExecutionInput;
+import graphql.GraphQLContext;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Coalesces identical queries to a downstream service that are in flight at the same time, across requests. A query
+ * is identified by the namespace, query text, operation name, canonical variables and the partition key of its
+ * request. While a query is in flight, identical queries receive its {@link CompletableFuture} instead of calling the
+ * service. Nothing is kept once the query completes, so this protects the service from stampedes without caching its
+ * responses.
+ *
+ * <p>The shared call is sent with the GraphQLContext of the first request, so the partition key must separate
+ * requests that the service may answer differently, e.g. by tenant or auth scope. Mutations are never coalesced.
+ */
+public class SingleFlightQueryExecutor implements QueryExecutor {
+
+  private final String namespace;
+  private final QueryExecutor queryExecutor;
+  private final Function<GraphQLContext, Object> partitionKey;
+
+  private final Map<List<Object>, CompletableFuture<Map<String, Object>>> inFlightQueries = new ConcurrentHashMap<>();
+  private final AtomicLong coalescedCount = new AtomicLong();
+
+  public SingleFlightQueryExecutor(String namespace, QueryExecutor queryExecutor,
+      Function<GraphQLContext, Object> partitionKey) {
+    this.namespace = namespace;
+    this.queryExecutor = Objects.requireNonNull(queryExecutor);
+    this.partitionKey = Objects.requireNonNull(partitionKey);
+  }
+
+  @Override
+  public CompletableFuture<Map<String, Object>> query(ExecutionInput executionInput, GraphQLContext context) {
+    if (DownstreamQueryDeduplicator.isMutation(executionInput)) {
+      return queryExecutor.query(executionInput, context);
+    }
+
+    List<Object> queryKey = Arrays.asList(namespace, executionInput.getQuery(), executionInput.getOperationName(),
+        canonicalize(executionInput.getVariables()), partitionKey.apply(context));
+
+    CompletableFuture<Map<String, Object>> newQuery = new CompletableFuture<>();
+    CompletableFuture<Map<String, Object>> inFlightQuery = inFlightQueries.putIfAbsent(queryKey, newQuery);
+    if (Objects.nonNull(inFlightQuery)) {
+      coalescedCount.incrementAndGet();
+      return inFlightQuery;
+    }
+
+    CompletableFuture<Map<String, Object>> response;
+    try {
+      response = queryExecutor.query(executionInput, context);
+    } catch (RuntimeException e) {
+      inFlightQueries.remove(queryKey, newQuery);
+      newQuery.completeExceptionally(e);
+      throw e;
+    }
+
+    response.whenComplete((result, throwable) -> {
+      // queries sent from now on call the service again
+      inFlightQueries.remove(queryKey, newQuery);
+      if (Objects.nonNull(throwable)) {
+        newQuery.completeExceptionally(throwable);
+      } else {
+        newQuery.complete(result);
+      }
+    });
+    return newQuery;
+  }
+
+  /**
+   * @return the number of queries that were given the response of an identical in-flight query
+   */
+  public long getCoalescedCount() {
+    return coalescedCount.get();
+  }
+
+  /**
+   * @return the number of distinct queries currently in flight
+   */
+  public int getInFlightCount() {
+    return inFlightQueries.size();
+  }
+
+  /*
+   * Variables equal as JSON are equal after canonicalization: maps are sorted by key and numbers are compared by
+   * value, so 1, 1L and 1.0 are the same variable.
+   */
+  static Object canonicalize(Object value) {
+    if (value instanceof Map) {
+      Map<String, Object> canonicalMap = new TreeMap<>();
+      ((Map<?, ?>) value).forEach((key, entryValue) -> canonicalMap.put(String.valueOf(key), canonicalize(entryValue)));
+      return canonicalMap;
+    }
+    if (value instanceof Collection) {
+      List<Object> canonicalList = new ArrayList<>(((Collection<?>) value).size());
+      ((Collection<?>) value).forEach(element -> canonicalList.add(canonicalize(element)));
+      return canonicalList;
+    }
+    if (value instanceof BigDecimal) {
+      return ((BigDecimal) value).stripTrailingZeros();
+    }
+    if (value instanceof Number) {
+      double doubleValue = ((Number) value).doubleValue();
+      return Double.isFinite(doubleValue) ? new BigDecimal(value.toString()).stripTrailingZeros() : value;
+    }
+    return value;
+  }
+}
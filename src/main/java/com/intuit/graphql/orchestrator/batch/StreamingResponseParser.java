@@ -0,0 +1,132 @@
+package com.intuit.graphql.orchestrator.batch;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses the JSON response of a {@link ByteQueryExecutor} token by token into the maps and lists the batch result
+ * transformers work on. Given the {@link FieldPathTrie} of a batch, fields of {@code data} that are not on the path of
+ * any batched key are skipped without being materialized. {@code errors} and {@code extensions} are always read in
+ * full.
+ *
+ * <p>Values are read like Jackson's default {@code Map} binding: integers become the smallest of {@code Integer},
+ * {@code Long} and {@code BigInteger} that fits and decimals become {@code Double}.
+ */
+final class StreamingResponseParser {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private StreamingResponseParser() {
+  }
+
+  static Map<String, Object> parse(InputStream response) {
+    return parse(response, null);
+  }
+
+  /**
+   * Parses the response and closes the stream.
+   *
+   * @param response the UTF-8 encoded JSON response
+   * @param selection the paths of the batched keys, or null to read all of {@code data}
+   * @return the response as a map
+   */
+  static Map<String, Object> parse(InputStream response, FieldPathTrie selection) {
+    try (JsonParser parser = JSON_FACTORY.createParser(response)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("Downstream response is not a JSON object");
+      }
+
+      Map<String, Object> result = new LinkedHashMap<>();
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String fieldName = parser.getCurrentName();
+        parser.nextToken();
+        result.put(fieldName, "data".equals(fieldName) ? readSelected(parser, selection) : readValue(parser));
+      }
+      return result;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to parse downstream response", e);
+    }
+  }
+
+  private static Object readSelected(JsonParser parser, FieldPathTrie selection) throws IOException {
+    if (selection == null || selection.isLeaf()) {
+      return readValue(parser);
+    }
+
+    switch (parser.currentToken()) {
+      case START_OBJECT:
+        Map<String, Object> object = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String fieldName = parser.getCurrentName();
+          FieldPathTrie child = selection.child(fieldName);
+          parser.nextToken();
+          if (child == null) {
+            parser.skipChildren();
+          } else {
+            object.put(fieldName, readSelected(parser, child));
+          }
+        }
+        return object;
+      case START_ARRAY:
+        List<Object> array = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          if (!selection.hasListChildren()) {
+            array.add(readSelected(parser, selection));
+            continue;
+          }
+          // keep the positions of unselected elements so the indexes of the keys still match
+          FieldPathTrie child = selection.child(array.size());
+          if (child == null) {
+            parser.skipChildren();
+            array.add(null);
+          } else {
+            array.add(readSelected(parser, child));
+          }
+        }
+        return array;
+      default:
+        return readValue(parser);
+    }
+  }
+
+  private static Object readValue(JsonParser parser) throws IOException {
+    switch (parser.currentToken()) {
+      case START_OBJECT:
+        Map<String, Object> object = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String fieldName = parser.getCurrentName();
+          parser.nextToken();
+          object.put(fieldName, readValue(parser));
+        }
+        return object;
+      case START_ARRAY:
+        List<Object> array = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          array.add(readValue(parser));
+        }
+        return array;
+      case VALUE_STRING:
+        return parser.getText();
+      case VALUE_NUMBER_INT:
+        return parser.getNumberValue();
+      case VALUE_NUMBER_FLOAT:
+        return parser.getDoubleValue();
+      case VALUE_TRUE:
+        return Boolean.TRUE;
+      case VALUE_FALSE:
+        return Boolean.FALSE;
+      case VALUE_NULL:
+        return null;
+      default:
+        throw new IOException("Unexpected token " + parser.currentToken() + " in downstream response");
+    }
+  }
+}
@@ -4,77 +4,53 @@ import static graphql.execution.DataFetcherResult.newResult;
 
 import graphql.GraphQLError;
 import graphql.execution.DataFetcherResult;
-import graphql.execution.ExecutionStepInfo;
-import graphql.language.Field;
 import graphql.schema.DataFetchingEnvironment;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Stack;
 
+/**
+ * Splits the response of a batched downstream query into the subtrees of the batched fields. The result paths of all
+ * keys are merged into a {@link FieldPathTrie}, so the response is walked once for the whole batch, and fields nested
+ * in lists are found by their list index.
+ */
 public class SubtreeBatchResultTransformer implements BatchResultTransformer {
 
   @Override
   public List<DataFetcherResult<Object>> toBatchResult(final DataFetcherResult<Map<String, Object>> result,
       final List<DataFetchingEnvironment> keys) {
 
-    List<DataFetcherResult<Object>> results = new ArrayList<>();
-    final Map<String, Object> data = result.getData();
+    if (keys.isEmpty()) {
+      return new ArrayList<>();
+    }
 
-    for (int i = 0; i < keys.size(); i++) {
+    FieldPathTrie fieldPathTrie = FieldPathTrie.of(keys);
 
-      final DataFetchingEnvironment key = keys.get(i);
-      Stack<String> dataFetchingPath = buildDataFetchingPath(key.getExecutionStepInfo());
+    Object[] partitionedResults = new Object[keys.size()];
+    fieldPathTrie.partition(result.getData(), partitionedResults);
 
-      Object partitionedResult = data;
-      while (!dataFetchingPath.isEmpty()) {
-        final String step = dataFetchingPath.pop();
-        partitionedResult = get(partitionedResult, step);
-        if (partitionedResult == null) {
-          break;
-        }
+    /*  Add every error only once, to the key whose path it matches, or to the first key if it matches none.
+     *  Since this is per service graphql-java will collect this properly.
+     */
+    List<List<GraphQLError>> errorsByKey = new ArrayList<>(Collections.nCopies(keys.size(), null));
+    for (GraphQLError error : result.getErrors()) {
+      int keyIndex = Math.max(fieldPathTrie.keyIndexOf(error.getPath()), 0);
+      if (errorsByKey.get(keyIndex) == null) {
+        errorsByKey.set(keyIndex, new ArrayList<>());
       }
+      errorsByKey.get(keyIndex).add(error);
+    }
 
-      /*  Add all errors only once to any of the DataFetcherResult.
-       *  Since this is per service graphql-java will collect this properly.
-       */
-      List<GraphQLError> errors = i == 0 ? result.getErrors() : Collections.emptyList();
-
+    List<DataFetcherResult<Object>> results = new ArrayList<>(keys.size());
+    for (int i = 0; i < keys.size(); i++) {
+      List<GraphQLError> errors = errorsByKey.get(i);
       results.add(newResult()
-          .data(partitionedResult)
-          .errors(errors)
+          .data(partitionedResults[i])
+          .errors(errors == null ? Collections.emptyList() : errors)
           .build());
     }
 
     return results;
   }
-
-  private Object get(Object data, String fieldName) {
-    if (data == null) {
-      return null;
-    }
-
-    if (data instanceof Map) {
-      return ((Map) data).get(fieldName);
-    }
-
-    //todo handle arrays
-    return null;
-  }
-
-  private Stack<String> buildDataFetchingPath(ExecutionStepInfo leafInfo) {
-    Stack<String> hierarchy = new Stack<>();
-
-    ExecutionStepInfo curr = leafInfo;
-
-    //ignore Query/Mutation
-    while (curr != null && curr.getPath().getLevel() != 0) {
-      final Field field = curr.getField().getSingleField();
-      hierarchy.push(field.getAlias() != null ? field.getAlias() : field.getName());
-      curr = curr.getParent();
-    }
-
-    return hierarchy;
-  }
 }
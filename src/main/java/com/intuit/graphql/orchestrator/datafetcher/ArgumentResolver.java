@@ -2,6 +2,9 @@ package com.intuit.graphql.orchestrator.datafetcher;
 
 import static com.intuit.graphql.orchestrator.GraphQLOrchestrator.DATA_LOADER_REGISTRY_CONTEXT_KEY;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.intuit.graphql.orchestrator.resolverdirective.ResolverArgumentDirective;
 import graphql.ExecutionInput;
 import graphql.ExecutionResult;
@@ -16,7 +19,9 @@ import graphql.schema.GraphQLSchema;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
 import org.dataloader.DataLoaderRegistry;
 
@@ -32,6 +37,11 @@ public class ArgumentResolver {
 
   private Function<GraphQLSchema, GraphQL> graphQLBuilder;
 
+  // the GraphQL built for a schema is reused by every resolveArguments call on that schema
+  private final Cache<GraphQLSchema, GraphQL> graphQLBySchema = CacheBuilder.newBuilder()
+      .weakKeys()
+      .build();
+
   private ArgumentResolver(final Builder builder) {
     graphQLBuilder = builder.graphQLBuilder;
   }
@@ -39,7 +49,7 @@ public class ArgumentResolver {
   /**
    * Returns an ExecutionResult for each resolver argument query.
    * <p>
-   * A new GraphQL is created and the queries are executed against the new GraphQL instance, using the
+   * A GraphQL is created once per schema and the queries are executed against that GraphQL instance, using the
    * DataLoaderRegistry of the previous GraphQL instance (passed along through the GraphQLContext with key {@link
    * com.intuit.graphql.orchestrator.GraphQLOrchestrator#DATA_LOADER_REGISTRY_CONTEXT_KEY}).
    *
@@ -70,7 +80,7 @@ public class ArgumentResolver {
     GraphQLContext graphQLContext = env.getContext();
     final DataLoaderRegistry originalDataLoaderRegistry = graphQLContext.get(DATA_LOADER_REGISTRY_CONTEXT_KEY);
 
-    GraphQL graphQL = graphQLBuilder.apply(env.getGraphQLSchema());
+    GraphQL graphQL = getGraphQL(env.getGraphQLSchema());
 
     Map<ResolverArgumentDirective, CompletableFuture<ExecutionResult>> resolverServiceFuturesByArgument = new HashMap<>();
 
@@ -92,6 +102,17 @@ public class ArgumentResolver {
     return resolverServiceFuturesByArgument;
   }
 
+  private GraphQL getGraphQL(GraphQLSchema graphQLSchema) {
+    if (Objects.isNull(graphQLSchema)) {
+      return graphQLBuilder.apply(null);
+    }
+    try {
+      return graphQLBySchema.get(graphQLSchema, () -> graphQLBuilder.apply(graphQLSchema));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      throw new IllegalStateException("Failed to build GraphQL for resolver arguments", e.getCause());
+    }
+  }
+
   public static Builder newBuilder() {
     return new Builder();
   }
@@ -1,7 +1,11 @@
 package com.intuit.graphql.orchestrator.datafetcher;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.intuit.graphql.orchestrator.LevelDispatcher;
 import com.intuit.graphql.orchestrator.resolverdirective.ResolverArgumentDirective;
 import graphql.ExecutionResult;
+import graphql.GraphQLContext;
 import graphql.GraphQLError;
 import graphql.VisibleForTesting;
 import graphql.execution.Async;
@@ -16,12 +20,18 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
  * This class is responsible for executing data fetching for resolver arguments by querying downstream resovler services
  * for argument data, injecting the data as arguments to the original query, and sending it to the downstream service
  * that needs the data.
+ *
+ * <p>The resolver queries do not depend on the parent, so within a request they are executed once per field and
+ * their results are shared by every instance of the field. Instances fetched while the queries are in flight are
+ * loaded together once the results arrive, followed by a single dispatch of the downstream data loader.
  */
 public class ResolverArgumentDataFetcher implements DataFetcher<CompletableFuture<DataFetcherResult<Object>>> {
 
@@ -34,6 +44,10 @@ public class ResolverArgumentDataFetcher implements DataFetcher<CompletableFutur
   @VisibleForTesting
   ArgumentResolver argumentResolver;
 
+  private final Cache<GraphQLContext, ArgumentResolution> argumentResolutionsByRequest = CacheBuilder.newBuilder()
+      .weakKeys()
+      .build();
+
   private ResolverArgumentDataFetcher(final Builder builder) {
     resolverQueryByDirective = builder.resolverQueryByDirective;
     namespace = builder.namespace;
@@ -47,6 +61,14 @@ public class ResolverArgumentDataFetcher implements DataFetcher<CompletableFutur
 
   @Override
   public CompletableFuture<DataFetcherResult<Object>> get(final DataFetchingEnvironment environment) {
+    GraphQLContext context = environment.getContext();
+    if (Objects.nonNull(context)) {
+      try {
+        return argumentResolutionsByRequest.get(context, ArgumentResolution::new).fetch(environment);
+      } catch (ExecutionException e) {
+        throw new IllegalStateException(e.getCause());
+      }
+    }
 
     Map<ResolverArgumentDirective, CompletableFuture<ExecutionResult>> serviceFuturesByArgument = argumentResolver
         .resolveArguments(environment, resolverQueryByDirective);
@@ -58,15 +80,8 @@ public class ResolverArgumentDataFetcher implements DataFetcher<CompletableFutur
   private CompletionStage<DataFetcherResult<Object>> handleResolverArguments(DataFetchingEnvironment env,
       List<ExecutionResult> results,
       Map<ResolverArgumentDirective, CompletableFuture<ExecutionResult>> completedResults) {
-    List<GraphQLError> aggregatedErrors = results.stream()
-        .flatMap(result -> result.getErrors().stream())
-        .collect(Collectors.toList());
-
-    if (!aggregatedErrors.isEmpty()) {
-      DataFetcherResult<Object> executionResultWithErrors = DataFetcherResult.newResult()
-          .errors(aggregatedErrors)
-          .build();
-
+    DataFetcherResult<Object> executionResultWithErrors = getResultWithErrors(results);
+    if (Objects.nonNull(executionResultWithErrors)) {
       return CompletableFuture.completedFuture(executionResultWithErrors);
     }
 
@@ -83,6 +98,135 @@ public class ResolverArgumentDataFetcher implements DataFetcher<CompletableFutur
     return batchLoaderFuture;
   }
 
+  private DataFetcherResult<Object> getResultWithErrors(List<ExecutionResult> results) {
+    List<GraphQLError> aggregatedErrors = results.stream()
+        .flatMap(result -> result.getErrors().stream())
+        .collect(Collectors.toList());
+
+    if (aggregatedErrors.isEmpty()) {
+      return null;
+    }
+
+    return DataFetcherResult.newResult()
+        .errors(aggregatedErrors)
+        .build();
+  }
+
+  /**
+   * The resolver arguments of this field within one request.
+   */
+  private final class ArgumentResolution {
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private final List<DataFetchingEnvironment> pendingEnvironments = new ArrayList<>();
+    private final List<CompletableFuture<DataFetcherResult<Object>>> pendingResults = new ArrayList<>();
+
+    private Map<ResolverArgumentDirective, CompletableFuture<ExecutionResult>> serviceFuturesByArgument;
+    private List<ExecutionResult> results;
+    private Throwable failure;
+
+    CompletableFuture<DataFetcherResult<Object>> fetch(DataFetchingEnvironment environment) {
+      if (started.compareAndSet(false, true)) {
+        Map<ResolverArgumentDirective, CompletableFuture<ExecutionResult>> futures;
+        try {
+          futures = argumentResolver.resolveArguments(environment, resolverQueryByDirective);
+        } catch (RuntimeException e) {
+          // fail the instances already waiting for the arguments, and release their deferred loads
+          onResolved(null, e);
+          return load(environment);
+        }
+        synchronized (this) {
+          serviceFuturesByArgument = futures;
+        }
+        Async.each(new ArrayList<>(futures.values())).whenComplete(this::onResolved);
+      }
+
+      synchronized (this) {
+        if (Objects.isNull(results) && Objects.isNull(failure)) {
+          CompletableFuture<DataFetcherResult<Object>> result = new CompletableFuture<>();
+          pendingEnvironments.add(environment);
+          pendingResults.add(result);
+          LevelDispatcher levelDispatcher = getLevelDispatcher(environment);
+          if (Objects.nonNull(levelDispatcher)) {
+            levelDispatcher.beginDeferredLoad(namespace);
+          }
+          return result;
+        }
+      }
+
+      // the arguments are known while GraphQL java is fetching this level, so its dispatch loads this instance
+      return load(environment);
+    }
+
+    private void onResolved(List<ExecutionResult> resolvedResults, Throwable throwable) {
+      List<DataFetchingEnvironment> environments;
+      List<CompletableFuture<DataFetcherResult<Object>>> futures;
+      synchronized (this) {
+        results = resolvedResults;
+        failure = throwable;
+        environments = new ArrayList<>(pendingEnvironments);
+        futures = new ArrayList<>(pendingResults);
+        pendingEnvironments.clear();
+        pendingResults.clear();
+      }
+
+      if (environments.isEmpty()) {
+        return;
+      }
+
+      for (int i = 0; i < environments.size(); i++) {
+        CompletableFuture<DataFetcherResult<Object>> future = futures.get(i);
+        load(environments.get(i)).whenComplete((result, error) -> {
+          if (Objects.nonNull(error)) {
+            future.completeExceptionally(error);
+          } else {
+            future.complete(result);
+          }
+        });
+      }
+
+      /*
+      n.b. the instances were fetched before their arguments were known, so the dispatch performed by GraphQL java for
+      their level has already happened. A single dispatch sends all of them to the downstream service. A
+      LevelDispatcher held the data loader back instead, and dispatches it with the keys of the level.
+       */
+      LevelDispatcher levelDispatcher = getLevelDispatcher(environments.get(0));
+      if (Objects.nonNull(levelDispatcher)) {
+        environments.forEach(environment -> levelDispatcher.endDeferredLoad(namespace));
+      } else {
+        environments.get(0).getDataLoader(namespace).dispatch();
+      }
+    }
+
+    private LevelDispatcher getLevelDispatcher(DataFetchingEnvironment environment) {
+      GraphQLContext context = environment.getContext();
+      return context.get(LevelDispatcher.CONTEXT_KEY);
+    }
+
+    private CompletableFuture<DataFetcherResult<Object>> load(DataFetchingEnvironment environment) {
+      Map<ResolverArgumentDirective, CompletableFuture<ExecutionResult>> futures;
+      List<ExecutionResult> resolvedResults;
+      Throwable throwable;
+      synchronized (this) {
+        futures = serviceFuturesByArgument;
+        resolvedResults = results;
+        throwable = failure;
+      }
+
+      if (Objects.nonNull(throwable)) {
+        CompletableFuture<DataFetcherResult<Object>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(throwable);
+        return failed;
+      }
+      DataFetcherResult<Object> executionResultWithErrors = getResultWithErrors(resolvedResults);
+      if (Objects.nonNull(executionResultWithErrors)) {
+        return CompletableFuture.completedFuture(executionResultWithErrors);
+      }
+      return helper.callBatchLoaderWithArguments(environment, extractArguments(futures)).toCompletableFuture();
+    }
+  }
+
 
   private Map<ResolverArgumentDirective, Object> extractArguments(
       Map<ResolverArgumentDirective, CompletableFuture<ExecutionResult>> completedFutures) {
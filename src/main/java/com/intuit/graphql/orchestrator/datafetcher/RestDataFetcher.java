@@ -1,22 +1,21 @@
 package com.intuit.graphql.orchestrator.datafetcher;
 
 import static com.intuit.graphql.orchestrator.batch.DefaultBatchResultTransformer.toSingleResult;
-import static graphql.language.AstPrinter.printAstCompact;
 
 import com.intuit.graphql.orchestrator.batch.DefaultQueryResponseModifier;
 import com.intuit.graphql.orchestrator.batch.QueryResponseModifier;
+import com.intuit.graphql.orchestrator.batch.RestFieldInvocation;
+import com.intuit.graphql.orchestrator.batch.RestServiceBatchLoader;
 import com.intuit.graphql.orchestrator.schema.ServiceMetadata;
-import graphql.ExecutionInput;
-import graphql.GraphQLContext;
-import graphql.language.Document;
-import graphql.language.OperationDefinition;
-import graphql.language.OperationDefinition.Operation;
-import graphql.language.SelectionSet;
-import graphql.language.VariableDefinition;
 import graphql.schema.DataFetcher;
 import graphql.schema.DataFetchingEnvironment;
-import java.util.List;
+import java.util.Objects;
+import org.dataloader.DataLoader;
 
+/**
+ * Fetches the fields of a REST service through the {@link RestServiceBatchLoader} of the service, so that the fields
+ * loaded at the same time are executed together. Without one, each field is executed on its own.
+ */
 public class RestDataFetcher implements DataFetcher {
 
   private final ServiceMetadata serviceMetadata;
@@ -28,46 +27,18 @@ public class RestDataFetcher implements DataFetcher {
 
   @Override
   public Object get(DataFetchingEnvironment dataFetchingEnvironment) {
-
-    GraphQLContext context = dataFetchingEnvironment.getContext();
-
-    OperationDefinition operationDefinition = dataFetchingEnvironment.getOperationDefinition();
-
-    Operation operation = operationDefinition.getOperation();
-
-    String operationName = operationDefinition.getName();
-
-    SelectionSet selectionSet = SelectionSet.newSelectionSet().selection(dataFetchingEnvironment.getField()).build();
-
-    final List<VariableDefinition> variableDefinitions = operationDefinition.getVariableDefinitions();
-
-    OperationDefinition query = OperationDefinition.newOperationDefinition()
-        .name(operationName)
-        .variableDefinitions(variableDefinitions)
-        .selectionSet(selectionSet)
-        .operation(operation)
-        .build();
-
-    Document document = Document.newDocument()
-        .definition(query)
-        .build();
-
-    ExecutionInput i = ExecutionInput.newExecutionInput()
-        .context(context)
-        .root(document)
-        .query(printAstCompact(document)) // No need to stringify query for REST
-        .operationName(query.getName())
-        .variables(dataFetchingEnvironment.getVariables())
-        .build();
-
-    // very important
-    context.put(Document.class, document);
-    context.put(DataFetchingEnvironment.class, dataFetchingEnvironment);
-
+    DataLoader<Object, Object> dataLoader = Objects.isNull(dataFetchingEnvironment.getDataLoaderRegistry())
+        ? null
+        : dataFetchingEnvironment.getDataLoader(this.serviceMetadata.getServiceProvider().getNameSpace());
+    if (Objects.nonNull(dataLoader)) {
+      return dataLoader.load(dataFetchingEnvironment);
+    }
+
+    RestFieldInvocation invocation = RestFieldInvocation.from(dataFetchingEnvironment);
     return this.serviceMetadata.getServiceProvider()
-        .query(i, context)
+        .query(invocation.getExecutionInput(), invocation.getContext())
         .thenApply(queryResponseModifier::modify)
         .thenApply(queryResponse -> toSingleResult(queryResponse, dataFetchingEnvironment));
   }
 
-}
\ No newline at end of file
+}
@@ -1,24 +1,47 @@
 package com.intuit.graphql.orchestrator.federation;
 
+import com.intuit.graphql.orchestrator.federation.metadata.FederationMetadata.EntityExtensionMetadata;
 import graphql.schema.DataFetcher;
 import graphql.schema.DataFetchingEnvironment;
-import lombok.RequiredArgsConstructor;
 
 import java.util.concurrent.CompletableFuture;
 
 import static com.intuit.graphql.orchestrator.batch.DataLoaderKeyUtil.createDataLoaderKey;
+import static com.intuit.graphql.orchestrator.batch.DataLoaderKeyUtil.createDataLoaderKeyFrom;
 
 /**
  * This class is used for resolving fields added to an Entity by making an entity fetch request. To
  * build the entity fetch query, it uses {@link EntityQuery}.
  */
-@RequiredArgsConstructor
 public class EntityDataFetcher implements DataFetcher<CompletableFuture<Object>> {
   private final String entityName;
+  private final String batchLoaderKey;
+
+  /**
+   * Loads every extension field with the batch loader of the field.
+   *
+   * @param entityName the name of the entity
+   */
+  public EntityDataFetcher(final String entityName) {
+    this.entityName = entityName;
+    this.batchLoaderKey = null;
+  }
+
+  /**
+   * Loads every extension field with the batch loader of the extension, so that the fields extended by one subgraph
+   * are fetched together.
+   *
+   * @param entityExtensionMetadata the extension of the entity by its subgraph
+   */
+  public EntityDataFetcher(final EntityExtensionMetadata entityExtensionMetadata) {
+    this.entityName = entityExtensionMetadata.getTypeName();
+    this.batchLoaderKey = createDataLoaderKeyFrom(entityExtensionMetadata);
+  }
 
   @Override
   public CompletableFuture<Object> get(final DataFetchingEnvironment dataFetchingEnvironment) {
-    String batchLoaderKey = createDataLoaderKey(entityName, dataFetchingEnvironment.getField().getName());
+    String batchLoaderKey = this.batchLoaderKey != null
+        ? this.batchLoaderKey : createDataLoaderKey(entityName, dataFetchingEnvironment.getField().getName());
 
     return dataFetchingEnvironment
             .getDataLoader(batchLoaderKey)
@@ -4,8 +4,8 @@ import static com.intuit.graphql.orchestrator.utils.FederationConstants.REPRESEN
 import static com.intuit.graphql.orchestrator.utils.FederationConstants.REPRESENTATIONS_VAR_NAME;
 import static com.intuit.graphql.orchestrator.utils.FederationConstants.VARIABLE_DEFINITION;
 import static com.intuit.graphql.orchestrator.utils.FederationConstants._ENTITIES_FIELD_NAME;
-import static graphql.language.AstPrinter.printAstCompact;
 
+import com.intuit.graphql.orchestrator.utils.CompactAstPrinter;
 import graphql.ExecutionInput;
 import graphql.GraphQLContext;
 import graphql.language.Document;
@@ -67,7 +67,7 @@ public class EntityQuery {
     return ExecutionInput.newExecutionInput()
         .context(graphQLContext)
         .root(document)
-        .query(printAstCompact(document))
+        .query(CompactAstPrinter.print(document))
         .variables(representations) // TODO if not empty or throw exception
         .build();
   }
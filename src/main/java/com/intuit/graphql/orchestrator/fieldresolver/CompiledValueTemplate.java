@@ -0,0 +1,330 @@
+package com.intuit.graphql.orchestrator.fieldresolver;
+
+import static com.intuit.graphql.orchestrator.utils.XtextTypeUtils.isPrimitiveType;
+
+import com.intuit.graphql.orchestrator.resolverdirective.ResolverArgumentDefinition;
+import graphql.Scalars;
+import graphql.language.ArrayValue;
+import graphql.language.BooleanValue;
+import graphql.language.Document;
+import graphql.language.EnumValue;
+import graphql.language.Field;
+import graphql.language.FloatValue;
+import graphql.language.IntValue;
+import graphql.language.NullValue;
+import graphql.language.ObjectField;
+import graphql.language.ObjectValue;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
+import graphql.language.StringValue;
+import graphql.language.Value;
+import graphql.language.VariableReference;
+import graphql.parser.Parser;
+import graphql.util.EscapeUtil;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The value of a {@link ResolverArgumentDefinition} compiled once at stitch time. At runtime the argument value is
+ * built as a {@link Value} directly from the parent source, producing the same value as compiling the template with
+ * {@link ValueTemplate} and parsing the result.
+ *
+ * <p>Templates of object and list values are parsed once with their field references as variables, which are
+ * replaced by literals of the referenced values. Templates of String and ID arguments are interpolated into a
+ * {@link StringValue}. A template made of a single field reference is converted from the referenced value. Other
+ * templates are interpolated from their tokens and parsed.
+ */
+public class CompiledValueTemplate {
+
+  private static final Pattern FIELD_REFERENCE = Pattern.compile("\\$(\\w+)");
+  private static final Pattern NAME = Pattern.compile("[_A-Za-z][_0-9A-Za-z]*");
+  private static final Pattern INT = Pattern.compile("-?(0|[1-9][0-9]*)");
+
+  private enum Kind {
+    CONSTANT, STRING, SINGLE_REFERENCE, OBJECT_OR_LIST, INTERPOLATED
+  }
+
+  private final ResolverArgumentDefinition resolverArgumentDefinition;
+  private final Kind kind;
+  private final boolean formatStringRef;
+  private final boolean stringType;
+
+  // literal text and field reference names, alternating and starting with literal text
+  private final List<String> tokens;
+  private final Value<?> value;
+
+  private CompiledValueTemplate(ResolverArgumentDefinition resolverArgumentDefinition, Kind kind,
+      boolean formatStringRef, boolean stringType, List<String> tokens, Value<?> value) {
+    this.resolverArgumentDefinition = resolverArgumentDefinition;
+    this.kind = kind;
+    this.formatStringRef = formatStringRef;
+    this.stringType = stringType;
+    this.tokens = tokens;
+    this.value = value;
+  }
+
+  /**
+   * Compiles the value of a resolver argument.
+   *
+   * @param resolverArgumentDefinition the resolver argument with its named type
+   * @param requiredFields the names of the parent fields referenced by the resolver directive
+   * @return the compiled template
+   */
+  public static CompiledValueTemplate compile(ResolverArgumentDefinition resolverArgumentDefinition,
+      Set<String> requiredFields) {
+    Objects.requireNonNull(resolverArgumentDefinition.getNamedType(), "namedType for ResolverArgumentDefinition is null");
+
+    String template = resolverArgumentDefinition.getValue();
+    boolean formatStringRef = StringUtils.containsAny(template, "[", "{");
+    boolean stringType = isStringType(resolverArgumentDefinition);
+    List<String> tokens = tokenize(template, requiredFields == null ? Collections.emptySet() : requiredFields);
+
+    Kind kind = Kind.INTERPOLATED;
+    Value<?> value = null;
+    if (tokens.size() == 1) {
+      value = parseOrNull(stringType ? String.format("\"%s\"", template) : template);
+      kind = value != null ? Kind.CONSTANT : Kind.INTERPOLATED;
+    } else if (stringType) {
+      // escapes and quotes in the template are interpreted by the parser
+      kind = StringUtils.containsNone(template, '\\', '"') ? Kind.STRING : Kind.INTERPOLATED;
+    } else if (!formatStringRef && tokens.size() == 3 && tokens.get(0).isEmpty() && tokens.get(2).isEmpty()) {
+      kind = Kind.SINGLE_REFERENCE;
+    } else if (formatStringRef) {
+      value = parseWithVariables(tokens);
+      kind = value != null ? Kind.OBJECT_OR_LIST : Kind.INTERPOLATED;
+    }
+    return new CompiledValueTemplate(resolverArgumentDefinition, kind, formatStringRef, stringType, tokens, value);
+  }
+
+  public ResolverArgumentDefinition getResolverArgumentDefinition() {
+    return resolverArgumentDefinition;
+  }
+
+  /**
+   * Builds the argument value for a parent.
+   *
+   * @param dataSource the parent source
+   * @return the argument value
+   */
+  public Value<?> resolve(Map<String, Object> dataSource) {
+    switch (kind) {
+      case CONSTANT:
+        return value;
+      case STRING:
+        return StringValue.newStringValue(interpolate(dataSource, false)).build();
+      case SINGLE_REFERENCE:
+        return toValue(dataSource.get(tokens.get(1)));
+      case OBJECT_OR_LIST:
+        return substitute(value, dataSource);
+      default:
+        String interpolated = interpolate(dataSource, formatStringRef || stringType);
+        return Parser.parseValue(stringType ? String.format("\"%s\"", interpolated) : interpolated);
+    }
+  }
+
+  private static boolean isStringType(ResolverArgumentDefinition resolverArgumentDefinition) {
+    if (!isPrimitiveType(resolverArgumentDefinition.getNamedType())) {
+      return false;
+    }
+    String typename = com.intuit.graphql.utils.XtextTypeUtils.typeName(resolverArgumentDefinition.getNamedType());
+    return StringUtils.equals(typename, Scalars.GraphQLString.getName()) ||
+        StringUtils.equals(typename, Scalars.GraphQLID.getName());
+  }
+
+  /*
+   * Splits the template into literal text and field references. Like ValueTemplate, a quoted reference "$ref" is
+   * replaced with its quotes, so the quotes are kept out of the literal text.
+   */
+  private static List<String> tokenize(String template, Set<String> requiredFields) {
+    List<String> tokens = new ArrayList<>();
+    StringBuilder literal = new StringBuilder();
+    Matcher matcher = FIELD_REFERENCE.matcher(template);
+    int start = 0;
+    while (matcher.find()) {
+      String reference = matcher.group(1);
+      if (!requiredFields.contains(reference)) {
+        continue;
+      }
+      int end = matcher.end();
+      literal.append(template, start, matcher.start());
+      boolean quoted = literal.length() > 0 && literal.charAt(literal.length() - 1) == '"'
+          && end < template.length() && template.charAt(end) == '"';
+      if (quoted) {
+        literal.setLength(literal.length() - 1);
+        end++;
+      }
+      tokens.add(literal.toString());
+      tokens.add(reference);
+      literal.setLength(0);
+      start = end;
+    }
+    literal.append(template, start, template.length());
+    tokens.add(literal.toString());
+    return tokens;
+  }
+
+  // invalid templates fail at runtime, as they did before being compiled
+  private static Value<?> parseOrNull(String text) {
+    try {
+      return Parser.parseValue(text);
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
+
+  /*
+   * Parses the template with every field reference as a variable. A value on its own is parsed as a constant, so the
+   * template is parsed as the argument of a field. Returns null if a reference is not a whole value, e.g. when it is
+   * part of a string, or if the template does not parse.
+   */
+  private static Value<?> parseWithVariables(List<String> tokens) {
+    StringBuilder text = new StringBuilder("{\nf(a:\n");
+    for (int i = 0; i < tokens.size(); i++) {
+      text.append(i % 2 == 0 ? tokens.get(i) : " $" + tokens.get(i) + " ");
+    }
+    text.append("\n)\n}");
+
+    Document document;
+    try {
+      document = Parser.parse(text.toString());
+    } catch (RuntimeException e) {
+      return null;
+    }
+    if (document.getDefinitions().size() != 1 || !(document.getDefinitions().get(0) instanceof OperationDefinition)) {
+      return null;
+    }
+    List<Selection> selections = ((OperationDefinition) document.getDefinitions().get(0)).getSelectionSet()
+        .getSelections();
+    if (selections.size() != 1 || !(selections.get(0) instanceof Field)
+        || ((Field) selections.get(0)).getArguments().size() != 1) {
+      return null;
+    }
+    Value<?> parsed = ((Field) selections.get(0)).getArguments().get(0).getValue();
+    return countVariables(parsed) == tokens.size() / 2 ? parsed : null;
+  }
+
+  private static int countVariables(Value<?> value) {
+    if (value instanceof VariableReference) {
+      return 1;
+    }
+    int count = 0;
+    if (value instanceof ObjectValue) {
+      for (ObjectField objectField : ((ObjectValue) value).getObjectFields()) {
+        count += countVariables(objectField.getValue());
+      }
+    } else if (value instanceof ArrayValue) {
+      for (Value<?> element : ((ArrayValue) value).getValues()) {
+        count += countVariables(element);
+      }
+    }
+    return count;
+  }
+
+  private Value<?> substitute(Value<?> templateValue, Map<String, Object> dataSource) {
+    if (templateValue instanceof VariableReference) {
+      return toValue(dataSource.get(((VariableReference) templateValue).getName()));
+    }
+    if (templateValue instanceof ObjectValue) {
+      List<ObjectField> objectFields = ((ObjectValue) templateValue).getObjectFields();
+      List<ObjectField> substituted = new ArrayList<>(objectFields.size());
+      for (ObjectField objectField : objectFields) {
+        substituted.add(ObjectField.newObjectField()
+            .name(objectField.getName())
+            .value(substitute(objectField.getValue(), dataSource))
+            .build());
+      }
+      return ObjectValue.newObjectValue().objectFields(substituted).build();
+    }
+    if (templateValue instanceof ArrayValue) {
+      List<Value> values = ((ArrayValue) templateValue).getValues();
+      List<Value> substituted = new ArrayList<>(values.size());
+      for (Value<?> element : values) {
+        substituted.add(substitute(element, dataSource));
+      }
+      return ArrayValue.newArrayValue().values(substituted).build();
+    }
+    return templateValue;
+  }
+
+  /*
+   * The literal ValueTemplate would produce for the value. Strings are written with quotes in object and list
+   * templates only, so elsewhere their text is a literal itself.
+   */
+  private Value<?> toValue(Object resolverValue) {
+    if (resolverValue == null) {
+      return NullValue.newNullValue().build();
+    }
+    if (resolverValue instanceof String) {
+      return formatStringRef
+          ? StringValue.newStringValue((String) resolverValue).build()
+          : parseLiteral((String) resolverValue);
+    }
+    if (resolverValue instanceof Boolean) {
+      return BooleanValue.newBooleanValue((Boolean) resolverValue).build();
+    }
+    if (resolverValue instanceof Integer || resolverValue instanceof Long
+        || resolverValue instanceof Short || resolverValue instanceof Byte) {
+      return IntValue.newIntValue(BigInteger.valueOf(((Number) resolverValue).longValue())).build();
+    }
+    if (resolverValue instanceof BigInteger) {
+      return IntValue.newIntValue((BigInteger) resolverValue).build();
+    }
+    if ((resolverValue instanceof Double || resolverValue instanceof Float)
+        && Double.isFinite(((Number) resolverValue).doubleValue())) {
+      return FloatValue.newFloatValue(new BigDecimal(resolverValue.toString())).build();
+    }
+    return Parser.parseValue(resolverValue.toString());
+  }
+
+  private static Value<?> parseLiteral(String literal) {
+    if (NAME.matcher(literal).matches()) {
+      switch (literal) {
+        case "true":
+          return BooleanValue.newBooleanValue(true).build();
+        case "false":
+          return BooleanValue.newBooleanValue(false).build();
+        case "null":
+          return NullValue.newNullValue().build();
+        default:
+          return EnumValue.newEnumValue(literal).build();
+      }
+    }
+    if (INT.matcher(literal).matches()) {
+      return IntValue.newIntValue(new BigInteger(literal)).build();
+    }
+    return Parser.parseValue(literal);
+  }
+
+  /*
+   * Strings that are written inside a string literal are escaped, unless the text is the string value itself.
+   */
+  private String interpolate(Map<String, Object> dataSource, boolean escapeStrings) {
+    StringBuilder text = new StringBuilder(tokens.get(0));
+    for (int i = 1; i < tokens.size(); i += 2) {
+      Object resolverValue = dataSource.get(tokens.get(i));
+      if (resolverValue == null) {
+        text.append("null");
+      } else if (resolverValue instanceof String) {
+        String string = escapeStrings ? EscapeUtil.escapeJsonString((String) resolverValue) : (String) resolverValue;
+        if (formatStringRef) {
+          text.append('"').append(string).append('"');
+        } else {
+          text.append(string);
+        }
+      } else {
+        text.append(resolverValue);
+      }
+      text.append(tokens.get(i + 1));
+    }
+    return text.toString();
+  }
+}
@@ -1,15 +1,17 @@
 package com.intuit.graphql.orchestrator.fieldresolver;
 
+import static com.intuit.graphql.orchestrator.resolverdirective.FieldResolverDirectiveUtil.createAlias;
 import static com.intuit.graphql.orchestrator.resolverdirective.FieldResolverDirectiveUtil.getNameFromFieldReference;
 import static com.intuit.graphql.orchestrator.resolverdirective.FieldResolverDirectiveUtil.ifInvalidFieldReferenceThrowException;
 import static com.intuit.graphql.orchestrator.resolverdirective.FieldResolverDirectiveUtil.isReferenceToFieldInParentType;
 import static com.intuit.graphql.orchestrator.utils.GraphQLUtil.getFieldType;
 import static com.intuit.graphql.orchestrator.utils.XtextTypeUtils.isPrimitiveType;
+import static graphql.language.AstPrinter.printAstCompact;
 import static graphql.schema.GraphQLTypeUtil.unwrapAll;
 import static graphql.schema.InputValueWithState.newExternalValue;
 
-import com.intuit.graphql.orchestrator.batch.DownstreamQueryModifier;
-import com.intuit.graphql.orchestrator.resolverdirective.FieldResolverDirectiveUtil;
+import com.intuit.graphql.orchestrator.batch.BatchLoaderOptions;
+import com.intuit.graphql.orchestrator.batch.DownstreamQueryRewriter;
 import com.intuit.graphql.orchestrator.resolverdirective.ResolverArgumentDefinition;
 import com.intuit.graphql.orchestrator.resolverdirective.ResolverDirectiveDefinition;
 import com.intuit.graphql.orchestrator.schema.ServiceMetadata;
@@ -17,68 +19,228 @@ import com.intuit.graphql.orchestrator.schema.transform.FieldResolverContext;
 import graphql.Scalars;
 import graphql.execution.ValuesResolver;
 import graphql.language.Argument;
-import graphql.language.AstTransformer;
+import graphql.language.ArrayValue;
+import graphql.language.BooleanValue;
+import graphql.language.EnumValue;
 import graphql.language.Field;
-import graphql.language.FragmentDefinition;
+import graphql.language.FloatValue;
+import graphql.language.IntValue;
+import graphql.language.ListType;
+import graphql.language.NonNullType;
+import graphql.language.ObjectValue;
 import graphql.language.SelectionSet;
+import graphql.language.StringValue;
+import graphql.language.Type;
+import graphql.language.TypeName;
 import graphql.language.Value;
-import graphql.parser.Parser;
+import graphql.language.VariableDefinition;
+import graphql.language.VariableReference;
 import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLArgument;
+import graphql.schema.GraphQLFieldDefinition;
 import graphql.schema.GraphQLFieldsContainer;
+import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLNamedType;
+import graphql.schema.GraphQLNonNull;
 import graphql.schema.GraphQLObjectType;
 import graphql.schema.GraphQLSchema;
 import graphql.schema.GraphQLType;
 import graphql.schema.GraphQLTypeUtil;
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.Supplier;
-import lombok.AllArgsConstructor;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.StringUtils;
 
-@AllArgsConstructor
 public class FieldResolverBatchSelectionSetSupplier implements Supplier<SelectionSet> {
 
-    private static final AstTransformer AST_TRANSFORMER = new AstTransformer();
-
     private final String[] resolverSelectedFields;
     private final List<DataFetchingEnvironment> dataFetchingEnvironments;
     private final FieldResolverContext fieldResolverContext;
     private final ServiceMetadata serviceMetadata;
+    private final BatchLoaderOptions batchLoaderOptions;
+
+    // the alias index queried for each data fetching environment, set by get()
+    private int[] aliasIndexes;
+    private final List<VariableDefinition> variableDefinitions = new ArrayList<>();
+    private final Map<String, Object> variables = new HashMap<>();
+
+    public FieldResolverBatchSelectionSetSupplier(String[] resolverSelectedFields,
+        List<DataFetchingEnvironment> dataFetchingEnvironments, FieldResolverContext fieldResolverContext,
+        ServiceMetadata serviceMetadata) {
+        this(resolverSelectedFields, dataFetchingEnvironments, fieldResolverContext, serviceMetadata,
+            BatchLoaderOptions.DEFAULT);
+    }
+
+    public FieldResolverBatchSelectionSetSupplier(String[] resolverSelectedFields,
+        List<DataFetchingEnvironment> dataFetchingEnvironments, FieldResolverContext fieldResolverContext,
+        ServiceMetadata serviceMetadata, BatchLoaderOptions batchLoaderOptions) {
+        this.resolverSelectedFields = resolverSelectedFields;
+        this.dataFetchingEnvironments = dataFetchingEnvironments;
+        this.fieldResolverContext = fieldResolverContext;
+        this.serviceMetadata = serviceMetadata;
+        this.batchLoaderOptions = batchLoaderOptions;
+    }
 
     @Override
     public SelectionSet get() {
         return createBatchSelectionSet();
     }
 
+    /**
+     * @return for each data fetching environment, the index of the alias its result is queried with
+     */
+    public int[] getAliasIndexes() {
+        return aliasIndexes;
+    }
+
+    /**
+     * @return the variable definitions of the arguments, empty unless arguments are sent as variables
+     */
+    public List<VariableDefinition> getVariableDefinitions() {
+        return variableDefinitions;
+    }
+
+    /**
+     * @return the values of the argument variables, empty unless arguments are sent as variables
+     */
+    public Map<String, Object> getVariables() {
+        return variables;
+    }
+
     private SelectionSet createBatchSelectionSet() {
         ResolverDirectiveDefinition resolverDirectiveDefinition = fieldResolverContext.getResolverDirectiveDefinition();
         SelectionSet.Builder parentSelectionSetBuilder = SelectionSet.newSelectionSet();
 
+        aliasIndexes = new int[dataFetchingEnvironments.size()];
+        variableDefinitions.clear();
+        variables.clear();
+
+        // alias indexes by printed arguments, per selection set of the field
+        Map<SelectionSet, Map<String, Integer>> aliasIndexesByArguments = new IdentityHashMap<>();
+        int aliasCounter = 0;
+        DownstreamQueryRewriter downstreamQueryRewriter = null;
+
         for (int batchCounter = 0; batchCounter < dataFetchingEnvironments.size(); batchCounter++) {
 
             DataFetchingEnvironment dataFetchingEnvironment = dataFetchingEnvironments.get(batchCounter);
 
             List<Argument> queryFieldArguments = createFieldArguments(resolverDirectiveDefinition, dataFetchingEnvironment);
-            Field rootField = createSelectionSetFor(dataFetchingEnvironment, batchCounter, queryFieldArguments);
+
+            if (batchLoaderOptions.isDeduplicateArguments()) {
+                String argumentsKey = printAstCompact(Field.newField("key").arguments(queryFieldArguments).build());
+                Integer aliasIndex = aliasIndexesByArguments
+                    .computeIfAbsent(dataFetchingEnvironment.getField().getSelectionSet(), key -> new HashMap<>())
+                    .putIfAbsent(argumentsKey, aliasCounter);
+                if (aliasIndex != null) {
+                    aliasIndexes[batchCounter] = aliasIndex;
+                    continue;
+                }
+            }
+            aliasIndexes[batchCounter] = aliasCounter;
+
             GraphQLSchema graphQLSchema = dataFetchingEnvironment.getGraphQLSchema();
+            if (batchLoaderOptions.isArgumentsAsVariables()) {
+                queryFieldArguments = bindArgumentsToVariables(queryFieldArguments, aliasCounter, graphQLSchema);
+            }
+
+            if (downstreamQueryRewriter == null) {
+                downstreamQueryRewriter = new DownstreamQueryRewriter(graphQLSchema, serviceMetadata,
+                    dataFetchingEnvironment.getVariables());
+            }
+
+            Field rootField = createSelectionSetFor(dataFetchingEnvironment, aliasCounter, queryFieldArguments);
             GraphQLObjectType rootFieldParentType = graphQLSchema.getQueryType();
             GraphQLType rootFieldType = getFieldType(rootField, rootFieldParentType).get();
-            rootField = removeFieldsWithExternalTypes(rootField, rootFieldType, dataFetchingEnvironment
-                .getFragmentsByName(), graphQLSchema);
+            rootField = downstreamQueryRewriter.rewriteField(rootField, rootFieldType,
+                dataFetchingEnvironment.getFragmentsByName(), true,
+                fieldResolverContext.isRequiresTypeNameInjection());
             parentSelectionSetBuilder.selection(rootField);
+            aliasCounter++;
         }
 
         return parentSelectionSetBuilder.build();
     }
 
-    private Field removeFieldsWithExternalTypes(final Field field,
-        GraphQLType parentType, Map<String, FragmentDefinition> fragmentsByName, GraphQLSchema graphQLSchema) {
-        // call serviceMetadata.hasFieldResolverDirective() before calling this method
-        return (Field) AST_TRANSFORMER.transform(field,
-            new DownstreamQueryModifier(unwrapAll(parentType), serviceMetadata, fragmentsByName, graphQLSchema));
+    /*
+     * Replaces the argument values with variables named after the argument and the alias, typed like the arguments
+     * of the target field in the downstream service.
+     */
+    private List<Argument> bindArgumentsToVariables(List<Argument> arguments, int aliasCounter,
+        GraphQLSchema graphQLSchema) {
+        GraphQLFieldDefinition targetFieldDefinition = getTargetFieldDefinition(graphQLSchema);
+        List<Argument> boundArguments = new ArrayList<>(arguments.size());
+        for (Argument argument : arguments) {
+            String variableName = createAlias(argument.getName(), aliasCounter);
+            GraphQLArgument targetArgument = targetFieldDefinition.getArgument(argument.getName());
+            variableDefinitions.add(VariableDefinition.newVariableDefinition(variableName,
+                toDownstreamType(targetArgument.getType())).build());
+            variables.put(variableName, toVariableValue(argument.getValue()));
+            boundArguments.add(argument.transform(builder -> builder.value(
+                VariableReference.newVariableReference().name(variableName).build())));
+        }
+        return boundArguments;
+    }
+
+    private GraphQLFieldDefinition getTargetFieldDefinition(GraphQLSchema graphQLSchema) {
+        GraphQLFieldsContainer parentType = graphQLSchema.getQueryType();
+        GraphQLFieldDefinition fieldDefinition = null;
+        for (String fieldName : resolverSelectedFields) {
+            if (fieldDefinition != null) {
+                parentType = (GraphQLFieldsContainer) unwrapAll(fieldDefinition.getType());
+            }
+            fieldDefinition = parentType.getFieldDefinition(fieldName);
+        }
+        return fieldDefinition;
+    }
+
+    private Type<?> toDownstreamType(GraphQLType type) {
+        if (type instanceof GraphQLNonNull) {
+            return NonNullType.newNonNullType(toDownstreamType(((GraphQLNonNull) type).getWrappedType())).build();
+        }
+        if (type instanceof GraphQLList) {
+            return ListType.newListType(toDownstreamType(((GraphQLList) type).getWrappedType())).build();
+        }
+        String typeName = ((GraphQLNamedType) type).getName();
+        String originalTypeName = serviceMetadata.getRenamedMetadata().getOriginalTypeNamesByRenamedName()
+            .get(typeName);
+        return TypeName.newTypeName(Objects.nonNull(originalTypeName) ? originalTypeName : typeName).build();
+    }
+
+    private static Object toVariableValue(Value<?> value) {
+        if (value instanceof StringValue) {
+            return ((StringValue) value).getValue();
+        }
+        if (value instanceof IntValue) {
+            BigInteger intValue = ((IntValue) value).getValue();
+            return intValue.bitLength() < Integer.SIZE ? (Object) intValue.intValue() : intValue;
+        }
+        if (value instanceof FloatValue) {
+            return ((FloatValue) value).getValue().doubleValue();
+        }
+        if (value instanceof BooleanValue) {
+            return ((BooleanValue) value).isValue();
+        }
+        if (value instanceof EnumValue) {
+            return ((EnumValue) value).getName();
+        }
+        if (value instanceof ArrayValue) {
+            List<Object> values = new ArrayList<>();
+            ((ArrayValue) value).getValues().forEach(element -> values.add(toVariableValue(element)));
+            return values;
+        }
+        if (value instanceof ObjectValue) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            ((ObjectValue) value).getObjectFields()
+                .forEach(objectField -> values.put(objectField.getName(), toVariableValue(objectField.getValue())));
+            return values;
+        }
+        return null;
     }
 
     private  List<Argument> createFieldArguments(ResolverDirectiveDefinition resolverDirectiveDefinition, DataFetchingEnvironment dataFetchingEnvironment) {
@@ -122,20 +284,9 @@ public class FieldResolverBatchSelectionSetSupplier implements Supplier<Selectio
                 }
                 return ValuesResolver.valueToLiteral(newExternalValue(valueFromSource), fieldReferenceType);
 
-            } else {
-                String typename = com.intuit.graphql.utils.XtextTypeUtils.typeName(resolverArgumentDefinition.getNamedType());
-                String stringLiteralAstValue = compileTemplate(fieldResolverContext, resolverArgumentDefinition.getValue(), parentSource);
-                if (StringUtils.equals(typename, Scalars.GraphQLString.getName()) ||
-                    StringUtils.equals(typename, Scalars.GraphQLID.getName())) {
-                    stringLiteralAstValue = String.format("\"%s\"", stringLiteralAstValue);
-                }
-                return Parser.parseValue(stringLiteralAstValue);
-
             }
-        } else {
-            String stringLiteralAstValue = compileTemplate(fieldResolverContext, resolverArgumentDefinition.getValue(), parentSource);
-            return Parser.parseValue(stringLiteralAstValue);
         }
+        return fieldResolverContext.getArgumentValueTemplate(resolverArgumentDefinition).resolve(parentSource);
     }
 
     private Field createSelectionSetFor(final DataFetchingEnvironment dataFetchingEnvironment,
@@ -152,7 +303,7 @@ public class FieldResolverBatchSelectionSetSupplier implements Supplier<Selectio
             fieldBuilder.arguments(queryFieldArguments);
         }
 
-        String aliasName = FieldResolverDirectiveUtil.createAlias(leafFieldName,dfeBatchPosition);
+        String aliasName = createAlias(leafFieldName,dfeBatchPosition);
         fieldBuilder.alias(aliasName);
         Field leafField = fieldBuilder.build();
 
@@ -172,9 +323,4 @@ public class FieldResolverBatchSelectionSetSupplier implements Supplier<Selectio
         return currField;
     }
 
-    private String compileTemplate(FieldResolverContext fieldResolverContext, String stringTemplate, Map<String, Object> dataSource) {
-        ValueTemplate valueTemplate = new ValueTemplate(fieldResolverContext, stringTemplate);
-        return valueTemplate.compile(dataSource);
-    }
-
 }
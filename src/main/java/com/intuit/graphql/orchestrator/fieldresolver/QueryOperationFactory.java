@@ -3,13 +3,22 @@ package com.intuit.graphql.orchestrator.fieldresolver;
 import graphql.language.OperationDefinition;
 import graphql.language.OperationDefinition.Operation;
 import graphql.language.SelectionSet;
+import graphql.language.VariableDefinition;
+import java.util.Collections;
+import java.util.List;
 
 public class QueryOperationFactory {
 
     public OperationDefinition create(String operationName, SelectionSet selectionSet) {
+        return create(operationName, selectionSet, Collections.emptyList());
+    }
+
+    public OperationDefinition create(String operationName, SelectionSet selectionSet,
+            List<VariableDefinition> variableDefinitions) {
         return OperationDefinition.newOperationDefinition()
                 .name(operationName)
                 .selectionSet(selectionSet)
+                .variableDefinitions(variableDefinitions)
                 .operation(Operation.QUERY)
                 .build();
 
@@ -0,0 +1,147 @@
+package com.intuit.graphql.orchestrator.metadata;
+
+import static com.intuit.graphql.orchestrator.utils.FederationConstants._ENTITIES_FIELD_NAME;
+
+import com.intuit.graphql.orchestrator.ServiceProvider;
+import com.intuit.graphql.orchestrator.schema.Operation;
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.FragmentDefinition;
+import graphql.language.FragmentSpread;
+import graphql.language.InlineFragment;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
+import graphql.schema.FieldCoordinates;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The cache hints a service declares in its SDL with {@code @cacheControl(maxAge: Int)} on field definitions. The
+ * hints are recorded with the type and field names of the service, i.e. before any {@code @rename}, and the fields of
+ * operation types are recorded under the operation name, e.g. {@code Query}. The output type of each field of the
+ * service is recorded the same way, so that the hints of nested fields can be found.
+ */
+@Getter
+public class CacheHintMetadata {
+
+  public static final String CACHE_CONTROL_DIRECTIVE = "cacheControl";
+  public static final String MAX_AGE_ARGUMENT = "maxAge";
+
+  private final ServiceProvider serviceProvider;
+  private final Map<FieldCoordinates, Integer> maxAgeByField;
+  private final Map<FieldCoordinates, String> typeNameByField;
+
+  public CacheHintMetadata(ServiceProvider serviceProvider) {
+    this.serviceProvider = serviceProvider;
+    this.maxAgeByField = new HashMap<>();
+    this.typeNameByField = new HashMap<>();
+  }
+
+  public boolean hasCacheHints() {
+    return !maxAgeByField.isEmpty();
+  }
+
+  /**
+   * @param fieldCoordinates the coordinates of the field in the service
+   * @return the max age of the field in seconds, or null if the field has no cache hint
+   */
+  public Integer getMaxAge(FieldCoordinates fieldCoordinates) {
+    return maxAgeByField.get(fieldCoordinates);
+  }
+
+  /**
+   * The max age of a downstream query is the smallest max age of the fields it selects, where the root fields of an
+   * {@code _entities} query are the fields selected on each entity. A root field without cache hint makes the query
+   * uncacheable, while a nested field without cache hint is covered by the hints of its parents.
+   *
+   * @param document the downstream query
+   * @return the max age of the query in seconds, or 0 if it may not be cached
+   */
+  public int getMaxAge(Document document) {
+    if (!hasCacheHints()) {
+      return 0;
+    }
+    List<OperationDefinition> operationDefinitions = document.getDefinitionsOfType(OperationDefinition.class);
+    if (operationDefinitions.size() != 1
+        || operationDefinitions.get(0).getOperation() != OperationDefinition.Operation.QUERY) {
+      return 0;
+    }
+    Map<String, FragmentDefinition> fragmentsByName = document.getDefinitionsOfType(FragmentDefinition.class).stream()
+        .collect(Collectors.toMap(FragmentDefinition::getName, Function.identity(), (first, second) -> first));
+    int maxAge = getMaxAge(Operation.QUERY.getName(), operationDefinitions.get(0).getSelectionSet().getSelections(),
+        true, fragmentsByName, Integer.MAX_VALUE);
+    return maxAge == Integer.MAX_VALUE ? 0 : maxAge;
+  }
+
+  private int getMaxAge(String typeName, List<Selection> selections, boolean rootFields,
+      Map<String, FragmentDefinition> fragmentsByName, int maxAge) {
+    for (Selection<?> selection : selections) {
+      if (maxAge <= 0) {
+        return 0;
+      }
+      if (selection instanceof Field) {
+        Field field = (Field) selection;
+        if (StringUtils.startsWith(field.getName(), "__")) {
+          continue;
+        }
+        if (rootFields && _ENTITIES_FIELD_NAME.equals(field.getName()) && Objects.nonNull(field.getSelectionSet())) {
+          maxAge = getEntitiesMaxAge(field.getSelectionSet().getSelections(), fragmentsByName, maxAge);
+          continue;
+        }
+        FieldCoordinates fieldCoordinates = FieldCoordinates.coordinates(typeName, field.getName());
+        Integer fieldMaxAge = maxAgeByField.get(fieldCoordinates);
+        if (Objects.nonNull(fieldMaxAge)) {
+          maxAge = Math.min(maxAge, fieldMaxAge);
+        } else if (rootFields) {
+          return 0;
+        }
+        if (Objects.nonNull(field.getSelectionSet())) {
+          String fieldTypeName = typeNameByField.get(fieldCoordinates);
+          if (Objects.isNull(fieldTypeName)) {
+            // the hints of the selection set cannot be found
+            return 0;
+          }
+          maxAge = getMaxAge(fieldTypeName, field.getSelectionSet().getSelections(), false, fragmentsByName, maxAge);
+        }
+      } else if (selection instanceof InlineFragment) {
+        InlineFragment inlineFragment = (InlineFragment) selection;
+        String fragmentTypeName = Objects.isNull(inlineFragment.getTypeCondition()) ? typeName
+            : inlineFragment.getTypeCondition().getName();
+        maxAge = getMaxAge(fragmentTypeName, inlineFragment.getSelectionSet().getSelections(), rootFields,
+            fragmentsByName, maxAge);
+      } else if (selection instanceof FragmentSpread) {
+        FragmentDefinition fragmentDefinition = fragmentsByName.get(((FragmentSpread) selection).getName());
+        if (Objects.isNull(fragmentDefinition)) {
+          return 0;
+        }
+        maxAge = getMaxAge(fragmentDefinition.getTypeCondition().getName(),
+            fragmentDefinition.getSelectionSet().getSelections(), rootFields, fragmentsByName, maxAge);
+      } else {
+        return 0;
+      }
+    }
+    return maxAge;
+  }
+
+  private int getEntitiesMaxAge(List<Selection> selections, Map<String, FragmentDefinition> fragmentsByName,
+      int maxAge) {
+    for (Selection<?> selection : selections) {
+      if (!(selection instanceof InlineFragment) || Objects.isNull(((InlineFragment) selection).getTypeCondition())) {
+        if (selection instanceof Field && StringUtils.startsWith(((Field) selection).getName(), "__")) {
+          continue;
+        }
+        return 0;
+      }
+      InlineFragment inlineFragment = (InlineFragment) selection;
+      maxAge = getMaxAge(inlineFragment.getTypeCondition().getName(),
+          inlineFragment.getSelectionSet().getSelections(), true, fragmentsByName, maxAge);
+    }
+    return maxAge;
+  }
+}
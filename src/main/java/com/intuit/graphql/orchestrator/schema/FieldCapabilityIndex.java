@@ -0,0 +1,296 @@
+package com.intuit.graphql.orchestrator.schema;
+
+import com.intuit.graphql.orchestrator.ServiceProvider;
+import com.intuit.graphql.orchestrator.federation.metadata.FederationMetadata;
+import com.intuit.graphql.orchestrator.federation.metadata.FederationMetadata.EntityMetadata;
+import com.intuit.graphql.orchestrator.federation.metadata.KeyDirectiveMetadata;
+import com.intuit.graphql.orchestrator.metadata.RenamedMetadata;
+import com.intuit.graphql.orchestrator.schema.transform.FieldResolverContext;
+import com.intuit.graphql.orchestrator.utils.RenameDirectiveUtil;
+import graphql.language.Field;
+import graphql.schema.FieldCoordinates;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The capabilities of the fields of a service that matter when its downstream queries are rewritten: whether a field is
+ * external, the fields its {@code @resolver} or {@code @requires} directive needs, and its name in the service. The
+ * index is built once the service is stitched, so that rewriting a selection set takes one lookup for its type and
+ * one per field, instead of rebuilding {@link FieldCoordinates} and walking the metadata maps for every field.
+ *
+ * <p>Types and fields are looked up with their names in the stitched schema.
+ *
+ * <p>{@link #of(ServiceMetadata)} indexes the capabilities of a {@link ServiceMetadata} that does not build an index
+ * lazily, asking the service metadata the first time a type or field is looked up.
+ */
+public class FieldCapabilityIndex {
+
+  public static final FieldCapabilityIndex EMPTY = new FieldCapabilityIndex(Collections.emptyMap(),
+      Collections.emptyMap(), null);
+
+  private final Map<String, String> originalOperationFieldNames;
+  private final Map<String, TypeCapabilities> typeCapabilitiesByName;
+  private final ServiceMetadata serviceMetadata;
+
+  private FieldCapabilityIndex(Map<String, String> originalOperationFieldNames,
+      Map<String, TypeCapabilities> typeCapabilitiesByName, ServiceMetadata serviceMetadata) {
+    this.originalOperationFieldNames = originalOperationFieldNames;
+    this.typeCapabilitiesByName = typeCapabilitiesByName;
+    this.serviceMetadata = serviceMetadata;
+  }
+
+  /**
+   * Indexes the capabilities of a service lazily, with the lookups of its service metadata.
+   *
+   * @param serviceMetadata the metadata of the service
+   * @return the index
+   */
+  public static FieldCapabilityIndex of(ServiceMetadata serviceMetadata) {
+    return new FieldCapabilityIndex(Collections.emptyMap(), new ConcurrentHashMap<>(),
+        Objects.requireNonNull(serviceMetadata));
+  }
+
+  /**
+   * Indexes the metadata of a service. The metadata must be complete, i.e. the post merge transformers must have run.
+   *
+   * @param serviceProvider the service provider
+   * @param typeMetadataMap the type metadata of the service
+   * @param federationMetadata the federation metadata of the service, may be null
+   * @param renamedMetadata the renamed metadata of the service, may be null
+   * @return the index
+   */
+  public static FieldCapabilityIndex newIndex(ServiceProvider serviceProvider, Map<String, TypeMetadata> typeMetadataMap,
+      FederationMetadata federationMetadata, RenamedMetadata renamedMetadata) {
+    Map<String, TypeCapabilities.Builder> builders = new HashMap<>();
+    Map<String, String> originalOperationFieldNames = new HashMap<>();
+
+    if (Objects.nonNull(typeMetadataMap)) {
+      typeMetadataMap.forEach((typeName, typeMetadata) -> typeMetadata.getFieldResolverContextsByFieldName()
+          .forEach((fieldName, fieldResolverContext) -> builders.computeIfAbsent(typeName,
+              key -> new TypeCapabilities.Builder()).field(fieldName).fieldResolverContext = fieldResolverContext));
+    }
+
+    if (Objects.nonNull(federationMetadata) && serviceProvider.isFederationProvider()) {
+      federationMetadata.getEntitiesByTypename().forEach((typeName, entityMetadata) -> {
+        TypeCapabilities.Builder builder = builders.computeIfAbsent(typeName, key -> new TypeCapabilities.Builder());
+        builder.entityMetadata = entityMetadata;
+        entityMetadata.getFields().forEach(builder::field);
+      });
+      federationMetadata.getRequiresFieldSetByCoordinate().forEach((fieldCoordinates, requiredFields) ->
+          builders.computeIfAbsent(fieldCoordinates.getTypeName(), key -> new TypeCapabilities.Builder())
+              .field(fieldCoordinates.getFieldName()).requiredFields = requiredFields);
+    }
+
+    if (Objects.nonNull(renamedMetadata)) {
+      // the rename keys are "<type>-<field>", or the field name for the fields of operation types
+      renamedMetadata.getOriginalFieldNamesByRenamedName().forEach((renameKey, originalName) -> {
+        if (StringUtils.contains(renameKey, "-")) {
+          builders.computeIfAbsent(StringUtils.substringBefore(renameKey, "-"), key -> new TypeCapabilities.Builder())
+              .field(StringUtils.substringAfter(renameKey, "-")).originalName = originalName;
+        } else {
+          originalOperationFieldNames.put(renameKey, originalName);
+        }
+      });
+    }
+
+    Map<String, TypeCapabilities> typeCapabilitiesByName = new HashMap<>();
+    builders.forEach((typeName, builder) -> typeCapabilitiesByName.put(typeName, builder.build()));
+    return new FieldCapabilityIndex(originalOperationFieldNames, typeCapabilitiesByName, null);
+  }
+
+  /**
+   * @param fieldName the name of a field of an operation type
+   * @return the name of the field in the service, or null if the field is not renamed
+   */
+  public String getOriginalOperationFieldName(String fieldName) {
+    if (Objects.nonNull(serviceMetadata)) {
+      return getOriginalName(serviceMetadata.getRenamedMetadata(),
+          RenameDirectiveUtil.getRenameKey(null, fieldName, true));
+    }
+    return originalOperationFieldNames.get(fieldName);
+  }
+
+  /**
+   * @param typeName the name of the type
+   * @return the capabilities of the type, never null
+   */
+  public TypeCapabilities getTypeCapabilities(String typeName) {
+    if (Objects.nonNull(serviceMetadata)) {
+      return typeCapabilitiesByName.computeIfAbsent(typeName,
+          key -> TypeCapabilities.of(serviceMetadata, typeName));
+    }
+    return typeCapabilitiesByName.getOrDefault(typeName, TypeCapabilities.NONE);
+  }
+
+  private static String getOriginalName(RenamedMetadata renamedMetadata, String renameKey) {
+    return Objects.isNull(renamedMetadata) ? null : renamedMetadata.getOriginalFieldNamesByRenamedName().get(renameKey);
+  }
+
+  /**
+   * The capabilities of the fields of a type, and the key fields of the type if it is an entity owned by the service.
+   */
+  public static class TypeCapabilities {
+
+    public static final TypeCapabilities NONE = new TypeCapabilities(Collections.emptyMap(), false,
+        Collections.emptyList(), null);
+
+    private final Map<String, FieldCapabilities> fieldCapabilitiesByName;
+    private final boolean entity;
+    @Getter
+    private final List<Field> keyFields;
+    private final Function<String, FieldCapabilities> fieldCapabilitiesLookup;
+
+    private TypeCapabilities(Map<String, FieldCapabilities> fieldCapabilitiesByName, boolean entity,
+        List<Field> keyFields, Function<String, FieldCapabilities> fieldCapabilitiesLookup) {
+      this.fieldCapabilitiesByName = fieldCapabilitiesByName;
+      this.entity = entity;
+      this.keyFields = keyFields;
+      this.fieldCapabilitiesLookup = fieldCapabilitiesLookup;
+    }
+
+    private static TypeCapabilities of(ServiceMetadata serviceMetadata, String typeName) {
+      List<Field> keyFields = serviceMetadata.isEntity(typeName)
+          ? getKeyFields(serviceMetadata.getFederationServiceMetadata().getEntityMetadataByName(typeName))
+          : Collections.emptyList();
+      return new TypeCapabilities(new ConcurrentHashMap<>(), false, keyFields,
+          fieldName -> FieldCapabilities.of(serviceMetadata, typeName, fieldName));
+    }
+
+    private static List<Field> getKeyFields(EntityMetadata entityMetadata) {
+      return entityMetadata.getKeyDirectives().stream()
+          .map(KeyDirectiveMetadata::getFieldSet)
+          .flatMap(Collection::stream)
+          .collect(Collectors.toList());
+    }
+
+    /**
+     * The fields of an entity that are not owned by the service are external.
+     *
+     * @param fieldName the name of the field
+     * @return the capabilities of the field, never null
+     */
+    public FieldCapabilities getFieldCapabilities(String fieldName) {
+      if (Objects.nonNull(fieldCapabilitiesLookup)) {
+        return fieldCapabilitiesByName.computeIfAbsent(fieldName, fieldCapabilitiesLookup);
+      }
+      FieldCapabilities fieldCapabilities = fieldCapabilitiesByName.get(fieldName);
+      if (Objects.nonNull(fieldCapabilities)) {
+        return fieldCapabilities;
+      }
+      return entity ? FieldCapabilities.EXTERNAL : FieldCapabilities.NONE;
+    }
+
+    private static final class Builder {
+
+      private final Map<String, FieldCapabilities.Builder> fields = new HashMap<>();
+      private EntityMetadata entityMetadata;
+
+      private FieldCapabilities.Builder field(String fieldName) {
+        return fields.computeIfAbsent(fieldName, key -> new FieldCapabilities.Builder());
+      }
+
+      private TypeCapabilities build() {
+        boolean entity = Objects.nonNull(entityMetadata);
+        Map<String, FieldCapabilities> fieldCapabilitiesByName = new HashMap<>();
+        fields.forEach((fieldName, builder) -> fieldCapabilitiesByName.put(fieldName,
+            builder.build(entity && !entityMetadata.getFields().contains(fieldName))));
+
+        List<Field> keyFields = entity ? getKeyFields(entityMetadata) : Collections.emptyList();
+        return new TypeCapabilities(fieldCapabilitiesByName, entity, keyFields, null);
+      }
+    }
+  }
+
+  /**
+   * The capabilities of a field.
+   */
+  @Getter
+  public static class FieldCapabilities {
+
+    public static final FieldCapabilities NONE = new FieldCapabilities(false, Collections.emptySet(), null, null);
+
+    public static final FieldCapabilities EXTERNAL = new FieldCapabilities(true, Collections.emptySet(), null, null);
+
+    /**
+     * whether the field is owned by an extension of the entity in another service
+     */
+    private final boolean external;
+
+    /**
+     * the fields the {@code @requires} directive of an external field needs
+     */
+    private final Set<Field> requiredFields;
+
+    /**
+     * the context of the {@code @resolver} directive of the field, or null
+     */
+    private final FieldResolverContext fieldResolverContext;
+
+    /**
+     * the fields the {@code @resolver} directive of the field needs
+     */
+    private final List<Field> resolverRequiredFields;
+
+    /**
+     * the name of the field in the service, or null if the field is not renamed
+     */
+    private final String originalName;
+
+    private FieldCapabilities(boolean external, Set<Field> requiredFields,
+        FieldResolverContext fieldResolverContext, String originalName) {
+      this.external = external;
+      this.requiredFields = requiredFields;
+      this.fieldResolverContext = fieldResolverContext;
+      this.originalName = originalName;
+
+      List<Field> resolverRequiredFields = new ArrayList<>();
+      if (Objects.nonNull(fieldResolverContext) && CollectionUtils.isNotEmpty(fieldResolverContext.getRequiredFields())) {
+        fieldResolverContext.getRequiredFields()
+            .forEach(fieldName -> resolverRequiredFields.add(Field.newField(fieldName).build()));
+      }
+      this.resolverRequiredFields = resolverRequiredFields;
+    }
+
+    private static FieldCapabilities of(ServiceMetadata serviceMetadata, String typeName, String fieldName) {
+      FieldCoordinates fieldCoordinates = FieldCoordinates.coordinates(typeName, fieldName);
+      boolean external = serviceMetadata.isOwnedByEntityExtension(fieldCoordinates);
+      FederationMetadata federationMetadata = serviceMetadata.getFederationServiceMetadata();
+      Set<Field> requiredFields = external && Objects.nonNull(federationMetadata)
+          && federationMetadata.hasRequiresFieldSet(fieldCoordinates)
+          ? federationMetadata.getRequireFields(fieldCoordinates) : Collections.emptySet();
+      FieldResolverContext fieldResolverContext = serviceMetadata.getFieldResolverContext(fieldCoordinates);
+      String originalName = FieldCapabilityIndex.getOriginalName(serviceMetadata.getRenamedMetadata(),
+          RenameDirectiveUtil.getRenameKey(typeName, fieldName, false));
+
+      if (requiredFields.isEmpty() && Objects.isNull(fieldResolverContext) && Objects.isNull(originalName)) {
+        return external ? EXTERNAL : NONE;
+      }
+      return new FieldCapabilities(external, requiredFields, fieldResolverContext, originalName);
+    }
+
+    private static final class Builder {
+
+      private Set<Field> requiredFields = Collections.emptySet();
+      private FieldResolverContext fieldResolverContext;
+      private String originalName;
+
+      private FieldCapabilities build(boolean external) {
+        // @requires only applies to external fields
+        return new FieldCapabilities(external, external ? requiredFields : Collections.emptySet(),
+            fieldResolverContext, originalName);
+      }
+    }
+  }
+}
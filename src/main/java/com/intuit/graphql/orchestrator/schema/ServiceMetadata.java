@@ -2,6 +2,7 @@ package com.intuit.graphql.orchestrator.schema;
 
 import com.intuit.graphql.orchestrator.ServiceProvider;
 import com.intuit.graphql.orchestrator.federation.metadata.FederationMetadata;
+import com.intuit.graphql.orchestrator.metadata.CacheHintMetadata;
 import com.intuit.graphql.orchestrator.metadata.RenamedMetadata;
 import com.intuit.graphql.orchestrator.schema.transform.FieldResolverContext;
 import graphql.schema.FieldCoordinates;
@@ -41,4 +42,25 @@ public interface ServiceMetadata {
   boolean shouldModifyDownStreamQuery();
 
   RenamedMetadata getRenamedMetadata();
+
+  /**
+   * Get the cache hints the provider declares on its fields with {@code @cacheControl}.
+   *
+   * @return the cache hints, or null if they were not recorded
+   */
+  default CacheHintMetadata getCacheHintMetadata() {
+    return null;
+  }
+
+  /**
+   * Get the index of the field capabilities of the provider, built when the provider is stitched.
+   *
+   * <p>The default index asks this service metadata for the capabilities of each type and field the first time they
+   * are looked up. Implementations should return an index built once, as {@code ServiceMetadataImpl} does.
+   *
+   * @return the field capability index, or null if the fields were not indexed
+   */
+  default FieldCapabilityIndex getFieldCapabilityIndex() {
+    return FieldCapabilityIndex.of(this);
+  }
 }
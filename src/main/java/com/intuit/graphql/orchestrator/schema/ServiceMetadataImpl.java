@@ -2,6 +2,7 @@ package com.intuit.graphql.orchestrator.schema;
 
 import com.intuit.graphql.orchestrator.ServiceProvider;
 import com.intuit.graphql.orchestrator.federation.metadata.FederationMetadata;
+import com.intuit.graphql.orchestrator.metadata.CacheHintMetadata;
 import com.intuit.graphql.orchestrator.metadata.RenamedMetadata;
 import com.intuit.graphql.orchestrator.schema.transform.FieldResolverContext;
 import graphql.schema.FieldCoordinates;
@@ -20,8 +21,10 @@ public class ServiceMetadataImpl implements ServiceMetadata {
   private final ServiceProvider serviceProvider;
   private final FederationMetadata federationMetadata;
   private final RenamedMetadata renamedMetadata;
+  private final CacheHintMetadata cacheHintMetadata;
   private final boolean hasInterfaceOrUnion;
   private final boolean hasFieldResolverDefinition;
+  private final FieldCapabilityIndex fieldCapabilityIndex;
 
   private ServiceMetadataImpl(Builder builder) {
     typeMetadataMap = builder.typeMetadataMap;
@@ -30,6 +33,9 @@ public class ServiceMetadataImpl implements ServiceMetadata {
     hasInterfaceOrUnion = builder.hasInterfaceOrUnion;
     hasFieldResolverDefinition = builder.hasFieldResolverDefinition;
     renamedMetadata = builder.renamedMetadata;
+    cacheHintMetadata = builder.cacheHintMetadata;
+    fieldCapabilityIndex = FieldCapabilityIndex.newIndex(serviceProvider, typeMetadataMap, federationMetadata,
+        renamedMetadata);
   }
 
   public static Builder newBuilder() {
@@ -44,6 +50,7 @@ public class ServiceMetadataImpl implements ServiceMetadata {
     builder.hasInterfaceOrUnion = copy.isHasInterfaceOrUnion();
     builder.hasFieldResolverDefinition = copy.isHasFieldResolverDefinition();
     builder.renamedMetadata = copy.getRenamedMetadata();
+    builder.cacheHintMetadata = copy.getCacheHintMetadata();
     return builder;
   }
 
@@ -105,12 +112,23 @@ public class ServiceMetadataImpl implements ServiceMetadata {
     return this.renamedMetadata;
   }
 
+  @Override
+  public CacheHintMetadata getCacheHintMetadata() {
+    return this.cacheHintMetadata;
+  }
+
+  @Override
+  public FieldCapabilityIndex getFieldCapabilityIndex() {
+    return this.fieldCapabilityIndex;
+  }
+
   public static final class Builder {
 
     private Map<String, TypeMetadata> typeMetadataMap = new HashMap<>();
     private ServiceProvider serviceProvider;
     private FederationMetadata federationMetadata;
     private RenamedMetadata renamedMetadata;
+    private CacheHintMetadata cacheHintMetadata;
     private boolean hasInterfaceOrUnion;
     private boolean hasFieldResolverDefinition;
 
@@ -136,6 +154,11 @@ public class ServiceMetadataImpl implements ServiceMetadata {
       return this;
     }
 
+    public Builder cacheHintMetadata(CacheHintMetadata val) {
+      cacheHintMetadata = val;
+      return this;
+    }
+
     public Builder hasInterfaceOrUnion(boolean val) {
       hasInterfaceOrUnion = val;
       return this;
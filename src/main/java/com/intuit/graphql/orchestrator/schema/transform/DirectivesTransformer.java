@@ -1,10 +1,32 @@
 package com.intuit.graphql.orchestrator.schema.transform;
 
+import static com.intuit.graphql.orchestrator.metadata.CacheHintMetadata.CACHE_CONTROL_DIRECTIVE;
+import static com.intuit.graphql.orchestrator.metadata.CacheHintMetadata.MAX_AGE_ARGUMENT;
+import static com.intuit.graphql.orchestrator.utils.RenameDirectiveUtil.getRenameKey;
+import static com.intuit.graphql.orchestrator.utils.XtextTypeUtils.getFieldDefinitions;
+import static com.intuit.graphql.orchestrator.utils.XtextTypeUtils.getNamedTypeName;
+import static com.intuit.graphql.orchestrator.utils.XtextTypeUtils.isPrimitiveType;
+import static com.intuit.graphql.orchestrator.utils.XtextUtils.getDirectiveWithNameFromDefinition;
+
+import com.intuit.graphql.graphQL.Argument;
 import com.intuit.graphql.graphQL.DirectiveDefinition;
+import com.intuit.graphql.graphQL.FieldDefinition;
+import com.intuit.graphql.graphQL.ValueWithVariable;
+import com.intuit.graphql.orchestrator.metadata.CacheHintMetadata;
+import com.intuit.graphql.orchestrator.metadata.RenamedMetadata;
+import com.intuit.graphql.orchestrator.schema.Operation;
+import com.intuit.graphql.orchestrator.schema.SchemaTransformationException;
 import com.intuit.graphql.orchestrator.utils.XtextUtils;
 import com.intuit.graphql.orchestrator.xtext.XtextGraph;
+import graphql.schema.FieldCoordinates;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
 
 public class DirectivesTransformer implements Transformer<XtextGraph, XtextGraph> {
 
@@ -13,6 +35,87 @@ public class DirectivesTransformer implements Transformer<XtextGraph, XtextGraph
     Set<DirectiveDefinition> directives = XtextUtils
         .getAllContentsOfType(DirectiveDefinition.class, source.getXtextResourceSet())
         .collect(Collectors.toSet());
-    return source.transform(builder -> builder.directives(directives));
+    CacheHintMetadata cacheHintMetadata = createCacheHintMetadata(source);
+    return source.transform(builder -> builder
+        .directives(directives)
+        .cacheHintMetadata(cacheHintMetadata)
+    );
+  }
+
+  private CacheHintMetadata createCacheHintMetadata(XtextGraph source) {
+    CacheHintMetadata cacheHintMetadata = new CacheHintMetadata(source.getServiceProvider());
+    Optional<RenamedMetadata> renamedMetadata = Optional.ofNullable(source.getRenamedMetadataByNamespace())
+        .map(renamedMetadataByNamespace -> renamedMetadataByNamespace.get(source.getServiceProvider().getNameSpace()));
+
+    XtextUtils.getAllTypes(source.getXtextResourceSet()).forEach(typeDefinition ->
+        addCacheHints(source, typeDefinition.getName(), getFieldDefinitions(typeDefinition, true), renamedMetadata,
+            cacheHintMetadata));
+
+    XtextUtils.getAllTypeExtensions(source.getXtextResourceSet()).forEach(typeExtensionDefinition ->
+        addCacheHints(source, typeExtensionDefinition.getName(), getFieldDefinitions(typeExtensionDefinition, true),
+            renamedMetadata, cacheHintMetadata));
+
+    // the output types are only needed to find the hints of nested fields
+    if (!cacheHintMetadata.hasCacheHints()) {
+      cacheHintMetadata.getTypeNameByField().clear();
+    }
+    return cacheHintMetadata;
+  }
+
+  /*
+   * hints and output types are recorded with the names the service knows: operation types under the operation name,
+   * and renamed types and fields under their original name
+   */
+  private void addCacheHints(XtextGraph source, String typeName, List<FieldDefinition> fieldDefinitions,
+      Optional<RenamedMetadata> renamedMetadata, CacheHintMetadata cacheHintMetadata) {
+    Operation operation = source.getOperation(typeName);
+    String serviceTypeName = getServiceTypeName(source, typeName, renamedMetadata);
+    Map<String, String> originalFieldNames = renamedMetadata
+        .map(RenamedMetadata::getOriginalFieldNamesByRenamedName)
+        .orElse(Collections.emptyMap());
+
+    fieldDefinitions.forEach(fieldDefinition -> {
+      String fieldName = originalFieldNames.getOrDefault(
+          getRenameKey(typeName, fieldDefinition.getName(), Objects.nonNull(operation)), fieldDefinition.getName());
+      FieldCoordinates fieldCoordinates = FieldCoordinates.coordinates(serviceTypeName, fieldName);
+
+      if (!isPrimitiveType(fieldDefinition.getNamedType())) {
+        String fieldTypeName = getNamedTypeName(fieldDefinition.getNamedType());
+        if (Objects.nonNull(fieldTypeName)) {
+          cacheHintMetadata.getTypeNameByField()
+              .put(fieldCoordinates, getServiceTypeName(source, fieldTypeName, renamedMetadata));
+        }
+      }
+
+      getDirectiveWithNameFromDefinition(fieldDefinition, CACHE_CONTROL_DIRECTIVE).ifPresent(directive -> {
+        ValueWithVariable maxAge = directive.getArguments().stream()
+            .filter(argument -> MAX_AGE_ARGUMENT.equals(argument.getName()))
+            .map(Argument::getValueWithVariable)
+            .findFirst()
+            .orElse(null);
+        cacheHintMetadata.getMaxAgeByField()
+            .put(fieldCoordinates, toMaxAge(serviceTypeName, fieldName, maxAge));
+      });
+    });
+  }
+
+  private String getServiceTypeName(XtextGraph source, String typeName, Optional<RenamedMetadata> renamedMetadata) {
+    Operation operation = source.getOperation(typeName);
+    return Objects.nonNull(operation) ? operation.getName() : renamedMetadata
+        .map(metadata -> metadata.getOriginalTypeNamesByRenamedName().get(typeName))
+        .orElse(typeName);
+  }
+
+  private int toMaxAge(String typeName, String fieldName, ValueWithVariable maxAge) {
+    if (Objects.nonNull(maxAge) && StringUtils.isNumeric(maxAge.getIntValue())) {
+      try {
+        return Integer.parseInt(maxAge.getIntValue());
+      } catch (NumberFormatException e) {
+        // fall through to the error below
+      }
+    }
+    throw new SchemaTransformationException(String.format(
+        "Invalid %s directive on %s.%s: %s must be a non-negative Int", CACHE_CONTROL_DIRECTIVE, typeName, fieldName,
+        MAX_AGE_ARGUMENT));
   }
 }
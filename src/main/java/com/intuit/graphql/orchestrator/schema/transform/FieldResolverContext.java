@@ -2,12 +2,16 @@ package com.intuit.graphql.orchestrator.schema.transform;
 
 import com.intuit.graphql.graphQL.FieldDefinition;
 import com.intuit.graphql.graphQL.TypeDefinition;
+import com.intuit.graphql.orchestrator.fieldresolver.CompiledValueTemplate;
+import com.intuit.graphql.orchestrator.resolverdirective.ResolverArgumentDefinition;
 import com.intuit.graphql.orchestrator.resolverdirective.ResolverDirectiveDefinition;
 import com.intuit.graphql.orchestrator.xtext.FieldContext;
 import lombok.Getter;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -37,6 +41,9 @@ public class FieldResolverContext {
   private final FieldDefinition targetFieldDefinition;
   private final String targetServiceNamespace;
 
+  // resolver argument values by argument name, compiled once the argument types are known
+  private final Map<String, CompiledValueTemplate> argumentValueTemplates;
+
   public FieldResolverContext(Builder builder) {
     this.fieldDefinition = builder.fieldDefinition;
     this.parentTypeDefinition = builder.parentTypeDefinition;
@@ -48,6 +55,39 @@ public class FieldResolverContext {
     this.targetFieldDefinition = builder.targetFieldDefinition;
     this.requiredFields = builder.requiredFields;
     this.targetServiceNamespace = builder.targetServiceNamespace;
+    this.argumentValueTemplates = compileArgumentValueTemplates(resolverDirectiveDefinition, requiredFields);
+  }
+
+  private static Map<String, CompiledValueTemplate> compileArgumentValueTemplates(
+      ResolverDirectiveDefinition resolverDirectiveDefinition, Set<String> requiredFields) {
+    if (Objects.isNull(resolverDirectiveDefinition) || Objects.isNull(resolverDirectiveDefinition.getArguments())) {
+      return Collections.emptyMap();
+    }
+
+    Map<String, CompiledValueTemplate> argumentValueTemplates = new HashMap<>();
+    for (ResolverArgumentDefinition resolverArgumentDefinition : resolverDirectiveDefinition.getArguments()) {
+      if (Objects.nonNull(resolverArgumentDefinition.getNamedType())) {
+        argumentValueTemplates.put(resolverArgumentDefinition.getName(),
+            CompiledValueTemplate.compile(resolverArgumentDefinition, requiredFields));
+      }
+    }
+    return argumentValueTemplates;
+  }
+
+  /**
+   * Returns the compiled value of a resolver argument of this context, compiling it if it was not compiled with the
+   * context.
+   *
+   * @param resolverArgumentDefinition a resolver argument
+   * @return the compiled argument value
+   */
+  public CompiledValueTemplate getArgumentValueTemplate(ResolverArgumentDefinition resolverArgumentDefinition) {
+    CompiledValueTemplate compiledValueTemplate = argumentValueTemplates.get(resolverArgumentDefinition.getName());
+    if (Objects.nonNull(compiledValueTemplate)
+        && compiledValueTemplate.getResolverArgumentDefinition() == resolverArgumentDefinition) {
+      return compiledValueTemplate;
+    }
+    return CompiledValueTemplate.compile(resolverArgumentDefinition, requiredFields);
   }
 
   public String getFieldName() {
@@ -5,13 +5,17 @@ import static java.util.Objects.requireNonNull;
 import com.intuit.graphql.orchestrator.ServiceProvider;
 import com.intuit.graphql.orchestrator.VirtualOrchestratorProvider;
 import com.intuit.graphql.orchestrator.batch.BatchLoaderExecutionHooks;
+import com.intuit.graphql.orchestrator.batch.DownstreamQueryPlanCache;
 import com.intuit.graphql.orchestrator.schema.RuntimeGraph;
+import com.intuit.graphql.orchestrator.xtext.XtextResourceSetCache;
 import graphql.VisibleForTesting;
 import graphql.execution.DataFetcherResult;
 import graphql.schema.DataFetchingEnvironment;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
 import lombok.Getter;
 
 @Getter
@@ -19,6 +23,7 @@ public class SchemaStitcher {
 
   private final List<ServiceProvider> serviceProviders;
   private final BatchLoaderExecutionHooks<DataFetchingEnvironment, DataFetcherResult<Object>> batchLoaderHooks;
+  private final DownstreamQueryPlanCache downstreamQueryPlanCache;
 
   @VisibleForTesting
   Stitcher stitcher;
@@ -42,9 +47,19 @@ public class SchemaStitcher {
   private SchemaStitcher(Builder builder) {
     this.serviceProviders = requireNonNull(builder.serviceProviders);
     this.batchLoaderHooks = builder.batchLoaderHooks;
-    this.stitcher = XtextStitcher.newBuilder()
-        .batchLoaderHooks(batchLoaderHooks)
-        .build();
+    this.downstreamQueryPlanCache = builder.downstreamQueryPlanCache;
+    XtextStitcher.Builder stitcherBuilder = XtextStitcher.newBuilder()
+        .batchLoaderHooks(batchLoaderHooks);
+    if (Objects.nonNull(downstreamQueryPlanCache)) {
+      stitcherBuilder.downstreamQueryPlanCache(downstreamQueryPlanCache);
+    }
+    if (Objects.nonNull(builder.executor)) {
+      stitcherBuilder.executor(builder.executor);
+    }
+    if (Objects.nonNull(builder.xtextResourceSetCache)) {
+      stitcherBuilder.xtextResourceSetCache(builder.xtextResourceSetCache);
+    }
+    this.stitcher = stitcherBuilder.build();
   }
 
   public static Builder newBuilder() {
@@ -55,6 +70,9 @@ public class SchemaStitcher {
 
     private BatchLoaderExecutionHooks<DataFetchingEnvironment, DataFetcherResult<Object>> batchLoaderHooks = BatchLoaderExecutionHooks.DEFAULT_HOOKS;
     private List<ServiceProvider> serviceProviders = new ArrayList<>(Arrays.asList(VirtualOrchestratorProvider.INSTANCE));
+    private DownstreamQueryPlanCache downstreamQueryPlanCache;
+    private Executor executor;
+    private XtextResourceSetCache xtextResourceSetCache;
 
     private Builder() {
     }
@@ -75,6 +93,40 @@ public class SchemaStitcher {
       return this;
     }
 
+    /**
+     * Reuse downstream query plans across requests that send the same query.
+     *
+     * @param downstreamQueryPlanCache the plan cache shared by all batch loaders of the stitched graph
+     * @return the builder
+     */
+    public Builder downstreamQueryPlanCache(final DownstreamQueryPlanCache downstreamQueryPlanCache) {
+      this.downstreamQueryPlanCache = requireNonNull(downstreamQueryPlanCache);
+      return this;
+    }
+
+    /**
+     * Builds the provider schemas in parallel on the given executor.
+     *
+     * @param executor the executor for the per-provider phase of stitching
+     * @return the builder
+     */
+    public Builder executor(final Executor executor) {
+      this.executor = requireNonNull(executor);
+      return this;
+    }
+
+    /**
+     * Reuses the parsed schemas of unchanged providers across schema reloads. Pass the same cache to the stitcher of
+     * every reload.
+     *
+     * @param xtextResourceSetCache the cache shared by successive stitches
+     * @return the builder
+     */
+    public Builder xtextResourceSetCache(final XtextResourceSetCache xtextResourceSetCache) {
+      this.xtextResourceSetCache = requireNonNull(xtextResourceSetCache);
+      return this;
+    }
+
     public SchemaStitcher build() {
       return new SchemaStitcher(this);
     }
@@ -7,7 +7,10 @@ import com.intuit.graphql.orchestrator.batch.BatchLoaderExecutionHooks;
 import com.intuit.graphql.orchestrator.batch.DataLoaderKeyUtil;
 import com.intuit.graphql.orchestrator.batch.EntityFetcherBatchLoader;
 import com.intuit.graphql.orchestrator.batch.FieldResolverBatchLoader;
+import com.intuit.graphql.orchestrator.batch.BatchLoaderOptions;
+import com.intuit.graphql.orchestrator.batch.DownstreamQueryPlanCache;
 import com.intuit.graphql.orchestrator.batch.GraphQLServiceBatchLoader;
+import com.intuit.graphql.orchestrator.batch.RestServiceBatchLoader;
 import com.intuit.graphql.orchestrator.datafetcher.FieldResolverDirectiveDataFetcher;
 import com.intuit.graphql.orchestrator.datafetcher.ResolverArgumentDataFetcher;
 import com.intuit.graphql.orchestrator.datafetcher.RestDataFetcher;
@@ -38,6 +41,7 @@ import com.intuit.graphql.orchestrator.xtext.DataFetcherContext.DataFetcherType;
 import com.intuit.graphql.orchestrator.xtext.UnifiedXtextGraph;
 import com.intuit.graphql.orchestrator.xtext.XtextGraph;
 import com.intuit.graphql.orchestrator.xtext.XtextGraphBuilder;
+import com.intuit.graphql.orchestrator.xtext.XtextResourceSetCache;
 import graphql.execution.DataFetcherResult;
 import graphql.language.OperationDefinition;
 import graphql.schema.DataFetchingEnvironment;
@@ -50,17 +54,22 @@ import graphql.schema.GraphQLType;
 import graphql.schema.StaticDataFetcher;
 import org.dataloader.BatchLoader;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static com.intuit.graphql.orchestrator.batch.DataLoaderKeyUtil.createDataLoaderKey;
 import static com.intuit.graphql.orchestrator.resolverdirective.FieldResolverDirectiveUtil.RESOLVER_ARGUMENT_INPUT_NAME;
 import static com.intuit.graphql.orchestrator.resolverdirective.FieldResolverDirectiveUtil.RESOLVER_DIRECTIVE_NAME;
 import static com.intuit.graphql.orchestrator.xtext.DataFetcherContext.DataFetcherType.ENTITY_FETCHER;
@@ -81,11 +90,17 @@ public class XtextStitcher implements Stitcher {
   private final List<Transformer<XtextGraph, XtextGraph>> preMergeTransformers;
   private final List<Transformer<UnifiedXtextGraph, UnifiedXtextGraph>> postMergeTransformers;
   private final BatchLoaderExecutionHooks<DataFetchingEnvironment, DataFetcherResult<Object>> batchLoaderHooks;
+  private final DownstreamQueryPlanCache downstreamQueryPlanCache;
+  private final Executor executor;
+  private final XtextResourceSetCache xtextResourceSetCache;
 
   private XtextStitcher(final Builder builder) {
     preMergeTransformers = builder.preMergeTransformers;
     postMergeTransformers = builder.postMergeTransformers;
     batchLoaderHooks = builder.batchLoaderHooks;
+    downstreamQueryPlanCache = builder.downstreamQueryPlanCache;
+    executor = builder.executor;
+    xtextResourceSetCache = builder.xtextResourceSetCache;
   }
 
   public static Builder newBuilder() {
@@ -102,35 +117,43 @@ public class XtextStitcher implements Stitcher {
   @Override
   public RuntimeGraph stitch(List<ServiceProvider> serviceProviders) {
 
+    //Namespaces are checked before building, so collisions are reported the same way in parallel mode
+    Set<String> namespaces = new HashSet<>();
+    serviceProviders.forEach(serviceProvider -> {
+      if (!namespaces.add(serviceProvider.getNameSpace())) {
+        throw new StitchingException(String.format("Duplicate Namespace: %s", serviceProvider.getNameSpace()));
+      }
+    });
+
     //Transform Graphs
-    Map<String, XtextGraph> xtextGraphMap = serviceProviders.stream()
-        .map(XtextGraphBuilder::build)
-        .map(xtextGraph -> transform(xtextGraph, preMergeTransformers))
-        .collect(Collectors.toMap(graph -> graph.getServiceProvider().getNameSpace(), Function.identity(),
-            (g1, g2) -> {
-              throw new StitchingException(
-                  String.format("Duplicate Namespace: %s", g1.getServiceProvider().getNameSpace()));
-            }));
+    Map<String, XtextGraph> xtextGraphMap = buildProviderGraphs(serviceProviders).stream()
+        .collect(Collectors.toMap(graph -> graph.getServiceProvider().getNameSpace(), Function.identity()));
+
+    if (Objects.nonNull(xtextResourceSetCache)) {
+      xtextResourceSetCache.retainAll(namespaces);
+    }
 
     //Stitch Graphs
     UnifiedXtextGraph stitchedGraph = new UnifiedXtextGraphFolder().fold(UnifiedXtextGraph.emptyGraph(), xtextGraphMap.values());
 
-    //Service Metadata
+    //Transform after merge
+    UnifiedXtextGraph stitchedTransformedGraph = transform(stitchedGraph, postMergeTransformers);
+
+    //Service Metadata, after the post merge transformers have completed the metadata it indexes
     final Map<String, ServiceMetadata> serviceMetadataMap = xtextGraphMap.values().stream()
         .map(this::buildServiceMetadata)
         .collect(Collectors.toMap(metadata -> metadata.getServiceProvider().getNameSpace(), Function.identity()));
 
-    //Transform after merge
-    UnifiedXtextGraph stitchedTransformedGraph = transform(stitchedGraph, postMergeTransformers);
-
     //Executable RuntimeGraph with BatchLoaders and DataFetchers
     final Map<String, BatchLoader> batchLoaders = getBatchLoaders(serviceMetadataMap);
 
     stitchedTransformedGraph.getFieldResolverContexts().forEach(fieldResolverContext -> {
+      ServiceMetadata targetServiceMetadata = serviceMetadataMap.get(fieldResolverContext.getTargetServiceNamespace());
       FieldResolverBatchLoader fieldResolverDataLoader = FieldResolverBatchLoader
           .builder()
           .fieldResolverContext(fieldResolverContext)
-          .serviceMetadata(serviceMetadataMap.get(fieldResolverContext.getTargetServiceNamespace()))
+          .serviceMetadata(targetServiceMetadata)
+          .batchLoaderOptions(getBatchLoaderOptions(targetServiceMetadata.getServiceProvider()))
           .build();
 
       String batchLoaderKey = DataLoaderKeyUtil.createDataLoaderKeyFrom(fieldResolverContext);
@@ -138,13 +161,17 @@ public class XtextStitcher implements Stitcher {
 
     });
 
-    stitchedGraph.getEntityExtensionMetadatas().forEach(metadata ->
-      metadata.getRequiredFieldsByFieldName().forEach((fieldName, fields) -> {
-        EntityFetcherBatchLoader entityFetcherBatchLoader = new EntityFetcherBatchLoader(metadata, fieldName);
-        String batchLoaderKey = createDataLoaderKey(metadata.getTypeName(), fieldName);
-        batchLoaders.put(batchLoaderKey, entityFetcherBatchLoader);
-      })
-    );
+    // the extension fields of an entity are fetched from their subgraph together
+    stitchedGraph.getEntityExtensionMetadatas().stream()
+        .filter(metadata -> !metadata.getRequiredFieldsByFieldName().isEmpty())
+        .forEach(metadata -> {
+          ServiceMetadata entityServiceMetadata = serviceMetadataMap.get(metadata.getServiceProvider().getNameSpace());
+          EntityFetcherBatchLoader entityFetcherBatchLoader = new EntityFetcherBatchLoader(metadata,
+              getBatchLoaderOptions(metadata.getServiceProvider()),
+              Objects.isNull(entityServiceMetadata) ? null : entityServiceMetadata.getCacheHintMetadata());
+          String batchLoaderKey = DataLoaderKeyUtil.createDataLoaderKeyFrom(metadata);
+          batchLoaders.put(batchLoaderKey, entityFetcherBatchLoader);
+        });
 
     final GraphQLCodeRegistry.Builder codeRegistryBuilder = getCodeRegistry(stitchedTransformedGraph,
         serviceMetadataMap);
@@ -161,6 +188,55 @@ public class XtextStitcher implements Stitcher {
     return runtimeGraph;
   }
 
+  private XtextGraph buildProviderGraph(ServiceProvider serviceProvider) {
+    XtextGraph xtextGraph = Objects.isNull(xtextResourceSetCache)
+        ? XtextGraphBuilder.build(serviceProvider)
+        : XtextGraphBuilder.build(serviceProvider, xtextResourceSetCache.getResourceSet(serviceProvider));
+    return transform(xtextGraph, preMergeTransformers);
+  }
+
+  /**
+   * Builds and pre-merge transforms the graph of every provider, on the configured executor if there is one. Graphs
+   * are returned in provider order. If several providers fail, the error of the first failing provider is thrown
+   * with the others suppressed, so the reported error doesn't depend on thread scheduling.
+   *
+   * @param serviceProviders the service providers
+   * @return the transformed graph of every provider
+   */
+  private List<XtextGraph> buildProviderGraphs(List<ServiceProvider> serviceProviders) {
+    if (Objects.isNull(executor)) {
+      return serviceProviders.stream()
+          .map(this::buildProviderGraph)
+          .collect(Collectors.toList());
+    }
+
+    List<CompletableFuture<XtextGraph>> futures = serviceProviders.stream()
+        .map(serviceProvider -> CompletableFuture.supplyAsync(() -> buildProviderGraph(serviceProvider), executor))
+        .collect(Collectors.toList());
+
+    List<XtextGraph> xtextGraphs = new ArrayList<>(futures.size());
+    RuntimeException firstError = null;
+    for (CompletableFuture<XtextGraph> future : futures) {
+      try {
+        xtextGraphs.add(future.join());
+      } catch (CompletionException e) {
+        RuntimeException error = e.getCause() instanceof RuntimeException
+            ? (RuntimeException) e.getCause()
+            : new StitchingException("Failed to build provider graph", e.getCause());
+        if (Objects.isNull(firstError)) {
+          firstError = error;
+        } else {
+          firstError.addSuppressed(error);
+        }
+      }
+    }
+
+    if (Objects.nonNull(firstError)) {
+      throw firstError;
+    }
+    return xtextGraphs;
+  }
+
   /**
    * Creates a namespace vs batch loader map for corresponding data providers per graph
    *
@@ -175,18 +251,32 @@ public class XtextStitcher implements Stitcher {
       if (serviceMetadata.getServiceProvider().getSeviceType() == ServiceType.GRAPHQL || serviceMetadata
           .getServiceProvider()
           .isFederationProvider()) {
-        batchLoaderMap.put(namespace,
-            GraphQLServiceBatchLoader
-                .newQueryExecutorBatchLoader()
-                .queryExecutor(serviceMetadata.getServiceProvider())
-                .serviceMetadata(serviceMetadata)
-                .batchLoaderExecutionHooks(batchLoaderHooks)
-                .build());
+        GraphQLServiceBatchLoader.Builder batchLoaderBuilder = GraphQLServiceBatchLoader
+            .newQueryExecutorBatchLoader()
+            .queryExecutor(serviceMetadata.getServiceProvider())
+            .serviceMetadata(serviceMetadata)
+            .batchLoaderExecutionHooks(batchLoaderHooks)
+            .batchLoaderOptions(getBatchLoaderOptions(serviceMetadata.getServiceProvider()));
+        if (Objects.nonNull(downstreamQueryPlanCache)) {
+          batchLoaderBuilder.downstreamQueryPlanCache(downstreamQueryPlanCache);
+        }
+        batchLoaderMap.put(namespace, batchLoaderBuilder.build());
+      } else if (serviceMetadata.getServiceProvider().getSeviceType() == ServiceType.REST) {
+        batchLoaderMap.put(namespace, RestServiceBatchLoader.newRestServiceBatchLoader()
+            .queryExecutor(serviceMetadata.getServiceProvider())
+            .batchLoaderExecutionHooks(batchLoaderHooks)
+            .batchLoaderOptions(getBatchLoaderOptions(serviceMetadata.getServiceProvider()))
+            .build());
       }
     });
     return batchLoaderMap;
   }
 
+  private BatchLoaderOptions getBatchLoaderOptions(ServiceProvider serviceProvider) {
+    BatchLoaderOptions batchLoaderOptions = serviceProvider.batchLoaderOptions();
+    return Objects.isNull(batchLoaderOptions) ? BatchLoaderOptions.DEFAULT : batchLoaderOptions;
+  }
+
   private ServiceMetadata buildServiceMetadata(XtextGraph xtextGraph) {
     return ServiceMetadataImpl.newBuilder()
         .serviceProvider(xtextGraph.getServiceProvider())
@@ -195,6 +285,7 @@ public class XtextStitcher implements Stitcher {
         .hasFieldResolverDefinition(xtextGraph.isHasFieldResolverDefinition())
         .hasInterfaceOrUnion(xtextGraph.isHasInterfaceOrUnion())
         .renamedMetadata(xtextGraph.getRenamedMetadata())
+        .cacheHintMetadata(xtextGraph.getCacheHintMetadata())
         .build();
   }
 
@@ -244,7 +335,7 @@ public class XtextStitcher implements Stitcher {
         builder.dataFetcher(coordinates, FieldResolverDirectiveDataFetcher.from(dataFetcherContext)
         );
       } else if (type == ENTITY_FETCHER && mergedGraph.getType(fieldContext.getParentType()) != null) {
-        builder.dataFetcher(coordinates, new EntityDataFetcher(dataFetcherContext.getEntityExtensionMetadata().getTypeName())
+        builder.dataFetcher(coordinates, new EntityDataFetcher(dataFetcherContext.getEntityExtensionMetadata())
         );
       }
     });
@@ -319,6 +410,9 @@ public class XtextStitcher implements Stitcher {
     private List<Transformer<XtextGraph, XtextGraph>> preMergeTransformers = defaultPreMergeTransformers();
     private List<Transformer<UnifiedXtextGraph, UnifiedXtextGraph>> postMergeTransformers = defaultPostMergeTransformers();
     private BatchLoaderExecutionHooks<DataFetchingEnvironment, DataFetcherResult<Object>> batchLoaderHooks = BatchLoaderExecutionHooks.DEFAULT_HOOKS;
+    private DownstreamQueryPlanCache downstreamQueryPlanCache;
+    private Executor executor;
+    private XtextResourceSetCache xtextResourceSetCache;
 
     /**
      * Provides the default pre-merge transformers that each operate on the individual provider graphs.
@@ -367,6 +461,34 @@ public class XtextStitcher implements Stitcher {
       return this;
     }
 
+    public Builder downstreamQueryPlanCache(final DownstreamQueryPlanCache val) {
+      downstreamQueryPlanCache = requireNonNull(val);
+      return this;
+    }
+
+    /**
+     * Parses, validates and pre-merge transforms the provider schemas in parallel on the given executor. Without an
+     * executor the providers are processed one after the other.
+     *
+     * @param val the executor for the per-provider phase of stitching
+     * @return the builder
+     */
+    public Builder executor(final Executor val) {
+      executor = requireNonNull(val);
+      return this;
+    }
+
+    /**
+     * Reuses the parsed schemas of providers whose SDL did not change since a previous stitch with the same cache.
+     *
+     * @param val the cache shared by successive stitches
+     * @return the builder
+     */
+    public Builder xtextResourceSetCache(final XtextResourceSetCache val) {
+      xtextResourceSetCache = requireNonNull(val);
+      return this;
+    }
+
     public XtextStitcher build() {
       return new XtextStitcher(this);
     }
@@ -0,0 +1,518 @@
+package com.intuit.graphql.orchestrator.utils;
+
+import graphql.language.Argument;
+import graphql.language.ArrayValue;
+import graphql.language.AstPrinter;
+import graphql.language.BooleanValue;
+import graphql.language.Definition;
+import graphql.language.Directive;
+import graphql.language.Document;
+import graphql.language.EnumValue;
+import graphql.language.Field;
+import graphql.language.FloatValue;
+import graphql.language.FragmentDefinition;
+import graphql.language.FragmentSpread;
+import graphql.language.InlineFragment;
+import graphql.language.IntValue;
+import graphql.language.ListType;
+import graphql.language.Node;
+import graphql.language.NonNullType;
+import graphql.language.NullValue;
+import graphql.language.ObjectField;
+import graphql.language.ObjectValue;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
+import graphql.language.SelectionSet;
+import graphql.language.StringValue;
+import graphql.language.TypeName;
+import graphql.language.Value;
+import graphql.language.VariableDefinition;
+import graphql.language.VariableReference;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Prints queries in the compact format of {@link AstPrinter#printAstCompact(Node)}, in one pass and without the
+ * intermediate strings {@code AstPrinter} builds for every node. Besides strings, it writes UTF-8 straight into an
+ * {@link OutputStream} or a reusable {@link ByteBuffer}, for query executors that send the {@link Document} root of
+ * the {@code ExecutionInput} over HTTP.
+ *
+ * <p>Executable definitions are printed by this class. Other nodes, like type system definitions, are printed by
+ * {@code AstPrinter}.
+ */
+public class CompactAstPrinter {
+
+  private static final int OUTPUT_STREAM_BUFFER_SIZE = 8192;
+
+  private CompactAstPrinter() {
+  }
+
+  /**
+   * @param node the node to print
+   * @return the same string as {@link AstPrinter#printAstCompact(Node)}
+   */
+  public static String print(Node<?> node) {
+    StringBuilder stringBuilder = new StringBuilder(256);
+    new Printer(new StringBuilderSink(stringBuilder)).node(node);
+    return stringBuilder.toString();
+  }
+
+  /**
+   * Writes the UTF-8 encoded compact query to the stream. The stream is not flushed or closed.
+   *
+   * @param node the node to print
+   * @param outputStream the stream to write to
+   * @throws IOException if the stream fails
+   */
+  public static void print(Node<?> node, OutputStream outputStream) throws IOException {
+    OutputStreamSink sink = new OutputStreamSink(Objects.requireNonNull(outputStream));
+    try {
+      new Printer(sink).node(node);
+      sink.flush();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Writes the UTF-8 encoded compact query to the buffer, starting at its position. If the buffer is too small, its
+   * content is copied to a new buffer of twice the capacity, which is direct if the given buffer is.
+   *
+   * @param node the node to print
+   * @param buffer the buffer to write to, e.g. one reused across queries
+   * @return the buffer holding the query, positioned after it
+   */
+  public static ByteBuffer print(Node<?> node, ByteBuffer buffer) {
+    ByteBufferSink sink = new ByteBufferSink(Objects.requireNonNull(buffer));
+    new Printer(sink).node(node);
+    return sink.buffer;
+  }
+
+  private static class Printer {
+
+    private final Sink sink;
+
+    private Printer(Sink sink) {
+      this.sink = sink;
+    }
+
+    private void node(Node<?> node) {
+      if (node instanceof Field) {
+        field((Field) node);
+      } else if (node instanceof SelectionSet) {
+        selectionSet((SelectionSet) node);
+      } else if (node instanceof Value) {
+        value((Value<?>) node);
+      } else if (node instanceof Argument) {
+        argument((Argument) node);
+      } else if (node instanceof InlineFragment) {
+        inlineFragment((InlineFragment) node);
+      } else if (node instanceof FragmentSpread) {
+        fragmentSpread((FragmentSpread) node);
+      } else if (node instanceof Directive) {
+        directive((Directive) node);
+      } else if (node instanceof Document) {
+        document((Document) node);
+      } else if (node instanceof OperationDefinition) {
+        operationDefinition((OperationDefinition) node);
+      } else if (node instanceof FragmentDefinition) {
+        fragmentDefinition((FragmentDefinition) node);
+      } else if (node instanceof VariableDefinition) {
+        variableDefinition((VariableDefinition) node);
+      } else if (node instanceof TypeName || node instanceof ListType || node instanceof NonNullType) {
+        type(node);
+      } else if (node instanceof ObjectField) {
+        objectField((ObjectField) node);
+      } else if (Objects.nonNull(node)) {
+        sink.append(AstPrinter.printAstCompact(node));
+      }
+    }
+
+    private void document(Document document) {
+      List<Definition> definitions = document.getDefinitions();
+      for (int i = 0; i < definitions.size(); i++) {
+        if (i > 0) {
+          sink.append(' ');
+        }
+        node(definitions.get(i));
+      }
+    }
+
+    private void operationDefinition(OperationDefinition operationDefinition) {
+      sink.append(operationName(operationDefinition.getOperation()));
+      String name = operationDefinition.getName();
+      List<VariableDefinition> variableDefinitions = operationDefinition.getVariableDefinitions();
+      if (!isEmpty(name) || !variableDefinitions.isEmpty()) {
+        sink.append(' ');
+        if (!isEmpty(name)) {
+          sink.append(name);
+        }
+        if (!variableDefinitions.isEmpty()) {
+          list('(', variableDefinitions, ')');
+        }
+      }
+      if (!operationDefinition.getDirectives().isEmpty()) {
+        sink.append(' ');
+        directives(operationDefinition.getDirectives());
+      }
+      if (Objects.nonNull(operationDefinition.getSelectionSet())) {
+        sink.append(' ');
+        selectionSet(operationDefinition.getSelectionSet());
+      }
+    }
+
+    private void fragmentDefinition(FragmentDefinition fragmentDefinition) {
+      sink.append("fragment ");
+      sink.append(fragmentDefinition.getName());
+      sink.append(" on ");
+      sink.append(fragmentDefinition.getTypeCondition().getName());
+      sink.append(' ');
+      directives(fragmentDefinition.getDirectives());
+      if (Objects.nonNull(fragmentDefinition.getSelectionSet())) {
+        selectionSet(fragmentDefinition.getSelectionSet());
+      }
+    }
+
+    private void variableDefinition(VariableDefinition variableDefinition) {
+      sink.append('$');
+      sink.append(variableDefinition.getName());
+      sink.append(':');
+      type(variableDefinition.getType());
+      if (Objects.nonNull(variableDefinition.getDefaultValue())) {
+        sink.append('=');
+        value(variableDefinition.getDefaultValue());
+      }
+      directives(variableDefinition.getDirectives());
+    }
+
+    private void type(Node<?> type) {
+      if (type instanceof NonNullType) {
+        type(((NonNullType) type).getType());
+        sink.append('!');
+      } else if (type instanceof ListType) {
+        sink.append('[');
+        type(((ListType) type).getType());
+        sink.append(']');
+      } else {
+        sink.append(((TypeName) type).getName());
+      }
+    }
+
+    private void selectionSet(SelectionSet selectionSet) {
+      sink.append('{');
+      List<Selection> selections = selectionSet.getSelections();
+      for (int i = 0; i < selections.size(); i++) {
+        if (i > 0) {
+          sink.append(' ');
+        }
+        node(selections.get(i));
+      }
+      sink.append('}');
+    }
+
+    private void field(Field field) {
+      if (!isEmpty(field.getAlias())) {
+        sink.append(field.getAlias());
+        sink.append(':');
+      }
+      sink.append(field.getName());
+      arguments(field.getArguments());
+      if (!field.getDirectives().isEmpty()) {
+        sink.append(' ');
+        directives(field.getDirectives());
+      }
+      if (Objects.nonNull(field.getSelectionSet())) {
+        sink.append(' ');
+        selectionSet(field.getSelectionSet());
+      }
+    }
+
+    private void inlineFragment(InlineFragment inlineFragment) {
+      sink.append("...");
+      if (Objects.nonNull(inlineFragment.getTypeCondition())) {
+        sink.append(" on ");
+        sink.append(inlineFragment.getTypeCondition().getName());
+      }
+      if (!inlineFragment.getDirectives().isEmpty()) {
+        sink.append(' ');
+        directives(inlineFragment.getDirectives());
+      }
+      if (Objects.nonNull(inlineFragment.getSelectionSet())) {
+        sink.append(' ');
+        selectionSet(inlineFragment.getSelectionSet());
+      }
+    }
+
+    private void fragmentSpread(FragmentSpread fragmentSpread) {
+      sink.append("...");
+      sink.append(fragmentSpread.getName());
+      directives(fragmentSpread.getDirectives());
+    }
+
+    private void directives(List<Directive> directives) {
+      for (int i = 0; i < directives.size(); i++) {
+        if (i > 0) {
+          sink.append(' ');
+        }
+        directive(directives.get(i));
+      }
+    }
+
+    private void directive(Directive directive) {
+      sink.append('@');
+      sink.append(directive.getName());
+      arguments(directive.getArguments());
+    }
+
+    private void argument(Argument argument) {
+      sink.append(argument.getName());
+      sink.append(':');
+      value(argument.getValue());
+    }
+
+    private void value(Value<?> value) {
+      if (value instanceof VariableReference) {
+        sink.append('$');
+        sink.append(((VariableReference) value).getName());
+      } else if (value instanceof StringValue) {
+        string(((StringValue) value).getValue());
+      } else if (value instanceof IntValue) {
+        sink.append(((IntValue) value).getValue().toString());
+      } else if (value instanceof BooleanValue) {
+        sink.append(((BooleanValue) value).isValue() ? "true" : "false");
+      } else if (value instanceof EnumValue) {
+        sink.append(((EnumValue) value).getName());
+      } else if (value instanceof ObjectValue) {
+        list('{', ((ObjectValue) value).getObjectFields(), '}');
+      } else if (value instanceof ArrayValue) {
+        list('[', ((ArrayValue) value).getValues(), ']');
+      } else if (value instanceof FloatValue) {
+        sink.append(((FloatValue) value).getValue().toString());
+      } else if (value instanceof NullValue) {
+        sink.append("null");
+      } else {
+        sink.append(AstPrinter.printAstCompact(value));
+      }
+    }
+
+    private void objectField(ObjectField objectField) {
+      sink.append(objectField.getName());
+      sink.append(':');
+      value(objectField.getValue());
+    }
+
+    private void arguments(List<Argument> arguments) {
+      if (!arguments.isEmpty()) {
+        list('(', arguments, ')');
+      }
+    }
+
+    private void list(char start, List<? extends Node> nodes, char end) {
+      sink.append(start);
+      for (int i = 0; i < nodes.size(); i++) {
+        if (i > 0) {
+          sink.append(',');
+        }
+        node(nodes.get(i));
+      }
+      sink.append(end);
+    }
+
+    /*
+     * Escapes the same characters as AstPrinter; other characters, including control characters, are written as is.
+     * Like AstPrinter, a string that is blank once escaped is printed empty.
+     */
+    private void string(String value) {
+      sink.append('"');
+      if (isBlankWhenEscaped(value)) {
+        sink.append('"');
+        return;
+      }
+      int start = 0;
+      for (int i = 0; i < value.length(); i++) {
+        String escaped = escape(value.charAt(i));
+        if (Objects.nonNull(escaped)) {
+          sink.append(value, start, i);
+          sink.append(escaped);
+          start = i + 1;
+        }
+      }
+      sink.append(value, start, value.length());
+      sink.append('"');
+    }
+
+    private static boolean isBlankWhenEscaped(String value) {
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        if (c > ' ' || Objects.nonNull(escape(c))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static String escape(char c) {
+      switch (c) {
+        case '"':
+          return "\\\"";
+        case '\\':
+          return "\\\\";
+        case '\b':
+          return "\\b";
+        case '\f':
+          return "\\f";
+        case '\n':
+          return "\\n";
+        case '\r':
+          return "\\r";
+        case '\t':
+          return "\\t";
+        default:
+          return null;
+      }
+    }
+
+    private static String operationName(OperationDefinition.Operation operation) {
+      switch (operation) {
+        case QUERY:
+          return "query";
+        case MUTATION:
+          return "mutation";
+        default:
+          return operation.toString().toLowerCase();
+      }
+    }
+
+    /*
+     * AstPrinter leaves out parts that are empty once trimmed
+     */
+    private static boolean isEmpty(String string) {
+      return Objects.isNull(string) || string.trim().isEmpty();
+    }
+  }
+
+  private abstract static class Sink {
+
+    abstract void append(char c);
+
+    void append(String string) {
+      append(string, 0, string.length());
+    }
+
+    abstract void append(String string, int start, int end);
+  }
+
+  private static class StringBuilderSink extends Sink {
+
+    private final StringBuilder stringBuilder;
+
+    private StringBuilderSink(StringBuilder stringBuilder) {
+      this.stringBuilder = stringBuilder;
+    }
+
+    @Override
+    void append(char c) {
+      stringBuilder.append(c);
+    }
+
+    @Override
+    void append(String string, int start, int end) {
+      stringBuilder.append(string, start, end);
+    }
+  }
+
+  /**
+   * Encodes like {@code String.getBytes(StandardCharsets.UTF_8)}, which replaces unpaired surrogates with '?'.
+   */
+  private abstract static class Utf8Sink extends Sink {
+
+    abstract void write(int b);
+
+    @Override
+    void append(char c) {
+      if (c < 0x80) {
+        write(c);
+      } else {
+        append(String.valueOf(c));
+      }
+    }
+
+    @Override
+    void append(String string, int start, int end) {
+      for (int i = start; i < end; i++) {
+        char c = string.charAt(i);
+        if (c < 0x80) {
+          write(c);
+        } else if (c < 0x800) {
+          write(0xC0 | (c >> 6));
+          write(0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(string.charAt(i + 1))) {
+          int codePoint = Character.toCodePoint(c, string.charAt(++i));
+          write(0xF0 | (codePoint >> 18));
+          write(0x80 | ((codePoint >> 12) & 0x3F));
+          write(0x80 | ((codePoint >> 6) & 0x3F));
+          write(0x80 | (codePoint & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+          write('?');
+        } else {
+          write(0xE0 | (c >> 12));
+          write(0x80 | ((c >> 6) & 0x3F));
+          write(0x80 | (c & 0x3F));
+        }
+      }
+    }
+  }
+
+  private static class OutputStreamSink extends Utf8Sink {
+
+    private final OutputStream outputStream;
+    private final byte[] bytes = new byte[OUTPUT_STREAM_BUFFER_SIZE];
+    private int count;
+
+    private OutputStreamSink(OutputStream outputStream) {
+      this.outputStream = outputStream;
+    }
+
+    @Override
+    void write(int b) {
+      if (count == bytes.length) {
+        flush();
+      }
+      bytes[count++] = (byte) b;
+    }
+
+    private void flush() {
+      try {
+        outputStream.write(bytes, 0, count);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      count = 0;
+    }
+  }
+
+  private static class ByteBufferSink extends Utf8Sink {
+
+    private ByteBuffer buffer;
+
+    private ByteBufferSink(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    void write(int b) {
+      if (!buffer.hasRemaining()) {
+        int capacity = Math.max(buffer.capacity() * 2, 256);
+        ByteBuffer grown = buffer.isDirect() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+      }
+      buffer.put((byte) b);
+    }
+  }
+}
@@ -8,6 +8,7 @@ import com.intuit.graphql.graphQL.TypeSystemDefinition;
 import com.intuit.graphql.orchestrator.ServiceProvider;
 import com.intuit.graphql.orchestrator.federation.metadata.FederationMetadata;
 import com.intuit.graphql.orchestrator.federation.metadata.FederationMetadata.EntityExtensionMetadata;
+import com.intuit.graphql.orchestrator.metadata.CacheHintMetadata;
 import com.intuit.graphql.orchestrator.metadata.RenamedMetadata;
 import com.intuit.graphql.orchestrator.schema.Operation;
 import com.intuit.graphql.orchestrator.schema.TypeMetadata;
@@ -54,6 +55,7 @@ public class XtextGraph {
   private final List<EntityExtensionMetadata> entityExtensionMetadatas;
   private final Map<String, FederationMetadata> federationMetadataByNamespace;
   private final Map<String, RenamedMetadata> renamedMetadataByNamespace;
+  private final CacheHintMetadata cacheHintMetadata;
 
   private XtextGraph(Builder builder) {
     serviceProvider = builder.serviceProvider;
@@ -73,6 +75,7 @@ public class XtextGraph {
     entityExtensionMetadatas = builder.entityExtensionMetadatas;
     federationMetadataByNamespace = builder.federationMetadataByNamespace;
     renamedMetadataByNamespace = builder.renamedMetadataByNamespace;
+    cacheHintMetadata = builder.cacheHintMetadata;
   }
 
   /**
@@ -108,6 +111,7 @@ public class XtextGraph {
     builder.entityExtensionMetadatas = copy.entityExtensionMetadatas;
     builder.federationMetadataByNamespace = copy.federationMetadataByNamespace;
     builder.renamedMetadataByNamespace = copy.renamedMetadataByNamespace;
+    builder.cacheHintMetadata = copy.cacheHintMetadata;
     return builder;
   }
 
@@ -219,6 +223,7 @@ public class XtextGraph {
     private List<FieldResolverContext> fieldResolverContexts = new ArrayList<>();
     private Map<String, FederationMetadata> federationMetadataByNamespace = new HashMap<>();
     private Map<String, RenamedMetadata> renamedMetadataByNamespace = new HashMap<>();
+    private CacheHintMetadata cacheHintMetadata = null;
     private boolean hasInterfaceOrUnion = false;
     private boolean hasFieldResolverDefinition = false;
 
@@ -398,6 +403,17 @@ public class XtextGraph {
       return this;
     }
 
+    /**
+     * Cache hints builder.
+     *
+     * @param cacheHintMetadata the cache hints declared by the service
+     * @return the builder
+     */
+    public Builder cacheHintMetadata(CacheHintMetadata cacheHintMetadata) {
+      this.cacheHintMetadata = requireNonNull(cacheHintMetadata);
+      return this;
+    }
+
     /**
      * Build runtime graph.
      *
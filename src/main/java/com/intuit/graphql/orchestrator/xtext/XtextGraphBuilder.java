@@ -23,6 +23,17 @@ public class XtextGraphBuilder {
         .isFederatedResourceSet(serviceProvider.isFederationProvider())
         .build();
 
+    return build(serviceProvider, xtextResourceSet);
+  }
+
+  /**
+   * Builds the graph of a provider from an already parsed and validated resource set.
+   *
+   * @param serviceProvider the service provider
+   * @param xtextResourceSet the parsed schema of the provider
+   * @return the provider graph
+   */
+  public static XtextGraph build(ServiceProvider serviceProvider, XtextResourceSet xtextResourceSet) {
     final Map<Operation, ObjectTypeDefinition> operationMap = new EnumMap<>(Operation.class);
     for (Operation operation : Operation.values()) {
       XtextUtils.findOperationType(operation, xtextResourceSet)
@@ -16,6 +16,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.util.EcoreUtil.Copier;
 import org.eclipse.xtext.EcoreUtil2;
 import org.eclipse.xtext.resource.IResourceFactory;
 import org.eclipse.xtext.resource.XtextResource;
@@ -32,7 +35,10 @@ import org.eclipse.xtext.validation.Issue;
 public class XtextResourceSetBuilder {
 
   private XtextResourceSet graphqlResourceSet;
-  private static Injector GRAPHQL_INJECTOR = new GraphQLStandaloneSetupGenerated().createInjectorAndDoEMFRegistration();
+  // created once during class initialization; the injector and the EMF registrations are safe to share between threads
+  // that build separate resource sets
+  private static final Injector GRAPHQL_INJECTOR =
+      new GraphQLStandaloneSetupGenerated().createInjectorAndDoEMFRegistration();
   private Map<String, String> files = new ConcurrentHashMap<>();
   private boolean isFederatedResourceSet = false;
 
@@ -137,6 +143,28 @@ public class XtextResourceSetBuilder {
     return new XtextResourceSetBuilder();
   }
 
+  /**
+   * Creates a deep copy of a parsed and validated resource set. Cross references between resources point to the copied
+   * objects, so transforming the copy leaves the source untouched. Copying is much cheaper than parsing, linking and
+   * validating the files again.
+   *
+   * @param source the resource set to copy
+   * @return the copied resource set
+   */
+  public static XtextResourceSet copyOf(ResourceSet source) {
+    XtextResourceSet copy = GRAPHQL_INJECTOR.getInstance(XtextResourceSet.class);
+    IResourceFactory resourceFactory = GRAPHQL_INJECTOR.getInstance(IResourceFactory.class);
+    Copier copier = new Copier();
+
+    for (Resource resource : source.getResources()) {
+      Resource resourceCopy = resourceFactory.createResource(resource.getURI());
+      resourceCopy.getContents().addAll(copier.copyAll(resource.getContents()));
+      copy.getResources().add(resourceCopy);
+    }
+    copier.copyReferences();
+    return copy;
+  }
+
   public static XtextResourceSet singletonSet(String fileName, String file) {
     return newBuilder()
             .file(fileName, file)
@@ -0,0 +1,155 @@
+package com.intuit.graphql.orchestrator.xtext;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.intuit.graphql.orchestrator.ServiceProvider;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.xtext.resource.XtextResourceSet;
+
+/**
+ * Keeps the parsed and validated schema of every provider, keyed by namespace and a hash of its SDL files, so that
+ * re-stitching only parses the providers whose SDL changed. Share one instance across stitches, e.g. when hot
+ * reloading schemas.
+ *
+ * <p>Stitching transforms the provider schemas in place, so the cache holds an untouched copy of each schema and
+ * hands out a new copy on every hit.
+ *
+ * <p>With a cache directory, parsed schemas are also written to disk and read back on an in-memory miss, which lets a
+ * new process skip parsing and validating SDL that did not change since the last start. Entries written by another
+ * version of this library, or that cannot be read, fall back to a full parse.
+ */
+public class XtextResourceSetCache {
+
+  private final Map<String, CachedResourceSet> resourceSetsByNamespace = new ConcurrentHashMap<>();
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong fileHitCount = new AtomicLong();
+  private final XtextResourceSetFileStore fileStore;
+
+  public XtextResourceSetCache() {
+    this.fileStore = null;
+  }
+
+  /**
+   * Creates a cache that also keeps parsed schemas in the given directory. The directory is created when the first
+   * schema is written and may be shared by processes running the same version of this library.
+   *
+   * @param cacheDirectory the directory holding the parsed schemas
+   */
+  public XtextResourceSetCache(Path cacheDirectory) {
+    this.fileStore = new XtextResourceSetFileStore(requireNonNull(cacheDirectory));
+  }
+
+  /**
+   * Returns a copy of the cached schema of the provider if its SDL did not change, otherwise parses the SDL and caches
+   * the result.
+   *
+   * @param serviceProvider the service provider
+   * @return a resource set the caller may transform
+   */
+  public XtextResourceSet getResourceSet(ServiceProvider serviceProvider) {
+    String sdlHash = sdlHash(serviceProvider);
+    CachedResourceSet cached = resourceSetsByNamespace.get(serviceProvider.getNameSpace());
+    if (Objects.nonNull(cached) && cached.sdlHash.equals(sdlHash)) {
+      hitCount.incrementAndGet();
+      return XtextResourceSetBuilder.copyOf(cached.resourceSet);
+    }
+
+    missCount.incrementAndGet();
+    XtextResourceSet resourceSet = loadFromFile(sdlHash).orElseGet(() -> parse(serviceProvider, sdlHash));
+    resourceSetsByNamespace.put(serviceProvider.getNameSpace(),
+        new CachedResourceSet(sdlHash, XtextResourceSetBuilder.copyOf(resourceSet)));
+    return resourceSet;
+  }
+
+  private Optional<XtextResourceSet> loadFromFile(String sdlHash) {
+    if (Objects.isNull(fileStore)) {
+      return Optional.empty();
+    }
+    Optional<XtextResourceSet> resourceSet = fileStore.load(sdlHash).map(XtextResourceSetBuilder::copyOf);
+    resourceSet.ifPresent(ignored -> fileHitCount.incrementAndGet());
+    return resourceSet;
+  }
+
+  private XtextResourceSet parse(ServiceProvider serviceProvider, String sdlHash) {
+    XtextResourceSet resourceSet = XtextResourceSetBuilder.newBuilder()
+        .files(serviceProvider.sdlFiles())
+        .isFederatedResourceSet(serviceProvider.isFederationProvider())
+        .build();
+    if (Objects.nonNull(fileStore)) {
+      fileStore.save(sdlHash, resourceSet);
+    }
+    return resourceSet;
+  }
+
+  /**
+   * Drops the schemas of providers that are no longer stitched.
+   *
+   * @param namespaces the namespaces of the stitched providers
+   */
+  public void retainAll(Collection<String> namespaces) {
+    resourceSetsByNamespace.keySet().retainAll(namespaces);
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * Number of in-memory misses that were served from the cache directory instead of parsing the SDL.
+   *
+   * @return the number of schemas read from disk
+   */
+  public long getFileHitCount() {
+    return fileHitCount.get();
+  }
+
+  public int size() {
+    return resourceSetsByNamespace.size();
+  }
+
+  public void invalidateAll() {
+    resourceSetsByNamespace.clear();
+  }
+
+  /**
+   * Hashes the SDL files of a provider in file name order, together with whether the federation directives are added
+   * to the schema.
+   *
+   * @param serviceProvider the service provider
+   * @return the hex encoded SHA-256 hash
+   */
+  static String sdlHash(ServiceProvider serviceProvider) {
+    Hasher hasher = Hashing.sha256().newHasher()
+        .putBoolean(serviceProvider.isFederationProvider());
+    new TreeMap<>(serviceProvider.sdlFiles()).forEach((fileName, content) -> hasher
+        .putInt(fileName.length()).putString(fileName, StandardCharsets.UTF_8)
+        .putInt(content.length()).putString(content, StandardCharsets.UTF_8));
+    return hasher.hash().toString();
+  }
+
+  private static class CachedResourceSet {
+
+    private final String sdlHash;
+    private final XtextResourceSet resourceSet;
+
+    private CachedResourceSet(String sdlHash, XtextResourceSet resourceSet) {
+      this.sdlHash = requireNonNull(sdlHash);
+      this.resourceSet = requireNonNull(resourceSet);
+    }
+  }
+}
@@ -0,0 +1,223 @@
+package com.intuit.graphql.orchestrator.xtext;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.CountingInputStream;
+import com.intuit.graphql.graphQL.GraphQLPackage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.EcoreUtil.Copier;
+import org.eclipse.emf.ecore.util.EcoreUtil.UnresolvedProxyCrossReferencer;
+
+/**
+ * Stores parsed and validated provider schemas in a local directory using the EMF binary format, so that a restart
+ * can skip parsing, linking and validating SDL files that did not change.
+ *
+ * <p>Entries are named after the SDL hash together with the versions of this library and of the GraphQL grammar, so
+ * upgrading either never reads an entry written by another version. Entries that cannot be read are deleted and
+ * reported as missing, and the caller parses the SDL again.
+ */
+@Slf4j
+final class XtextResourceSetFileStore {
+
+  private static final int MAGIC = 0x47514c58;
+
+  // bump when the layout of the file changes
+  private static final int FORMAT_VERSION = 1;
+
+  private static final String FILE_SUFFIX = ".xtextbin";
+
+  static final String VERSION = String.join("/",
+      String.valueOf(FORMAT_VERSION),
+      versionOf(XtextResourceSetFileStore.class, "com.intuit.graphql", "graphql-orchestrator-java"),
+      versionOf(GraphQLPackage.class, "com.intuit.graphql", "com.intuit.graphql"));
+
+  private final Path directory;
+
+  XtextResourceSetFileStore(Path directory) {
+    this.directory = requireNonNull(directory);
+  }
+
+  /**
+   * Reads the stored schema for the given SDL hash.
+   *
+   * @param sdlHash the hash of the SDL files
+   * @return the stored resource set, or empty if there is no usable entry
+   */
+  Optional<ResourceSet> load(String sdlHash) {
+    Path path = pathOf(sdlHash);
+    if (!Files.isRegularFile(path)) {
+      return Optional.empty();
+    }
+
+    try (CountingInputStream counting = new CountingInputStream(Files.newInputStream(path));
+        DataInputStream input = new DataInputStream(counting)) {
+      long size = Files.size(path);
+      return Optional.of(read(input, entryKey(sdlHash), () -> size - counting.getCount()));
+    } catch (IOException | RuntimeException e) {
+      log.warn("Discarding unreadable schema cache entry {}", path, e);
+      delete(path);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Stores the schema for the given SDL hash. Failing to write the entry only costs a parse on the next start, so
+   * errors are logged and not thrown.
+   *
+   * @param sdlHash the hash of the SDL files
+   * @param resourceSet the parsed and validated resource set, which is left untouched
+   */
+  void save(String sdlHash, ResourceSet resourceSet) {
+    Path temporaryFile = null;
+    try {
+      Files.createDirectories(directory);
+      temporaryFile = Files.createTempFile(directory, sdlHash, ".tmp");
+      try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(temporaryFile))) {
+        write(output, entryKey(sdlHash), resourceSet);
+      }
+      move(temporaryFile, pathOf(sdlHash));
+    } catch (IOException | RuntimeException e) {
+      log.warn("Failed to write schema cache entry to {}", directory, e);
+      if (temporaryFile != null) {
+        delete(temporaryFile);
+      }
+    }
+  }
+
+  Path pathOf(String sdlHash) {
+    return directory.resolve(Hashing.sha256().hashString(entryKey(sdlHash), StandardCharsets.UTF_8) + FILE_SUFFIX);
+  }
+
+  private static String entryKey(String sdlHash) {
+    return sdlHash + "/" + VERSION;
+  }
+
+  private static void write(DataOutputStream output, String entryKey, ResourceSet resourceSet) throws IOException {
+    // save a copy so the resources of the caller are not moved into the binary resources
+    ResourceSet binaryResourceSet = new ResourceSetImpl();
+    Copier copier = new Copier();
+    for (Resource resource : resourceSet.getResources()) {
+      Resource binaryResource = new BinaryResourceImpl(resource.getURI());
+      binaryResource.getContents().addAll(copier.copyAll(resource.getContents()));
+      binaryResourceSet.getResources().add(binaryResource);
+    }
+    copier.copyReferences();
+
+    output.writeInt(MAGIC);
+    output.writeUTF(entryKey);
+    output.writeInt(binaryResourceSet.getResources().size());
+    for (Resource binaryResource : binaryResourceSet.getResources()) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      binaryResource.save(bytes, null);
+      output.writeUTF(binaryResource.getURI().toString());
+      output.writeInt(bytes.size());
+      bytes.writeTo(output);
+    }
+  }
+
+  private static ResourceSet read(DataInputStream input, String entryKey, LongSupplier remainingBytes)
+      throws IOException {
+    if (input.readInt() != MAGIC || !entryKey.equals(input.readUTF())) {
+      throw new IOException("Schema cache entry was written for a different schema or version");
+    }
+
+    // the binary format looks up the GraphQL classes by namespace URI in the global package registry
+    GraphQLPackage.eINSTANCE.eClass();
+
+    ResourceSet resourceSet = new ResourceSetImpl();
+    int resourceCount = input.readInt();
+    for (int i = 0; i < resourceCount; i++) {
+      Resource resource = new BinaryResourceImpl(URI.createURI(input.readUTF()));
+      int length = input.readInt();
+      // a corrupt length must not allocate more than the entry holds
+      if (length < 0 || length > remainingBytes.getAsLong()) {
+        throw new IOException("Invalid resource length " + length + " in schema cache entry");
+      }
+      byte[] bytes = new byte[length];
+      input.readFully(bytes);
+      resourceSet.getResources().add(resource);
+      resource.load(new ByteArrayInputStream(bytes), null);
+    }
+    if (input.read() != -1) {
+      throw new IOException("Unexpected data after the last resource");
+    }
+
+    EcoreUtil.resolveAll(resourceSet);
+    if (!UnresolvedProxyCrossReferencer.find(resourceSet).isEmpty()) {
+      throw new IOException("Schema cache entry has unresolved references");
+    }
+    return resourceSet;
+  }
+
+  private static void move(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private static void delete(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      log.warn("Failed to delete {}", path, e);
+    }
+  }
+
+  /**
+   * Reads the version of an artifact from the pom.properties Maven adds to the jar. Classes that are not loaded from a
+   * released jar, e.g. snapshots or a build directory, also use the last modified time of their location, so a rebuild
+   * does not read entries written by the previous build.
+   */
+  private static String versionOf(Class<?> type, String groupId, String artifactId) {
+    String version = null;
+    String resource = String.format("/META-INF/maven/%s/%s/pom.properties", groupId, artifactId);
+    try (InputStream input = type.getResourceAsStream(resource)) {
+      if (input != null) {
+        Properties properties = new Properties();
+        properties.load(input);
+        version = properties.getProperty("version");
+      }
+    } catch (IOException e) {
+      log.warn("Failed to read {}", resource, e);
+    }
+
+    if (StringUtils.isEmpty(version) || version.endsWith("-SNAPSHOT")) {
+      version = StringUtils.defaultString(version, "unknown") + "@" + lastModifiedOf(type);
+    }
+    return version;
+  }
+
+  private static long lastModifiedOf(Class<?> type) {
+    try {
+      return Files.getLastModifiedTime(Paths.get(type.getProtectionDomain().getCodeSource().getLocation().toURI()))
+          .toMillis();
+    } catch (Exception e) {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package com.intuit.graphql.orchestrator
+
+import org.dataloader.BatchLoader
+import org.dataloader.DataLoader
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+
+class LazyDataLoaderRegistrySpec extends Specification {
+
+    List<List<String>> batches = []
+
+    BatchLoader<String, String> sharedBatchLoader = { List<String> keys ->
+        batches.add(new ArrayList<>(keys))
+        return CompletableFuture.completedFuture(keys)
+    }
+
+    BatchLoader<String, String> otherBatchLoader = { List<String> keys ->
+        return CompletableFuture.completedFuture(keys)
+    }
+
+    LazyDataLoaderRegistry registry = new LazyDataLoaderRegistry([
+            "Books"            : sharedBatchLoader,
+            "Books:Book:author": sharedBatchLoader,
+            "Pets"             : otherBatchLoader
+    ] as Map<String, BatchLoader>)
+
+    def "creates no DataLoaders until they are asked for"() {
+        expect:
+        registry.getKeys().isEmpty()
+        registry.getDataLoaders().isEmpty()
+    }
+
+    def "creates the DataLoader of a key the first time it is asked for"() {
+        when:
+        DataLoader<String, String> dataLoader = registry.getDataLoader("Pets")
+
+        then:
+        dataLoader != null
+        registry.getDataLoader("Pets").is(dataLoader)
+        registry.getKeys() == ["Pets"] as Set
+    }
+
+    def "keys sharing a BatchLoader share one DataLoader"() {
+        when:
+        DataLoader<String, String> books = registry.getDataLoader("Books")
+        DataLoader<String, String> author = registry.getDataLoader("Books:Book:author")
+        books.load("book-1")
+        author.load("author-1")
+        registry.dispatchAll()
+
+        then:
+        books.is(author)
+        !books.is(registry.getDataLoader("Pets"))
+        batches == [["book-1", "author-1"]]
+    }
+
+    def "returns null for unknown keys"() {
+        expect:
+        registry.getDataLoader("unknown") == null
+        registry.getKeys().isEmpty()
+    }
+}
@@ -0,0 +1,128 @@
+package com.intuit.graphql.orchestrator
+
+import graphql.ExecutionInput
+import graphql.ExecutionResult
+import graphql.GraphQL
+import graphql.GraphQLContext
+import graphql.schema.DataFetcher
+import graphql.schema.DataFetchingEnvironment
+import graphql.schema.GraphQLSchema
+import graphql.schema.idl.RuntimeWiring
+import graphql.schema.idl.SchemaGenerator
+import graphql.schema.idl.SchemaParser
+import org.dataloader.BatchLoader
+import org.dataloader.DataLoader
+import org.dataloader.DataLoaderRegistry
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+
+class LevelDispatchInstrumentationSpec extends Specification {
+
+    static final String SCHEMA = '''
+        type Query { items: [Item] }
+        type Item { id: ID a: String b: String }
+    '''
+
+    List<List<String>> batches = [].asSynchronized()
+
+    BatchLoader<String, String> batchLoader = { List<String> keys ->
+        batches.add(new ArrayList<>(keys))
+        return CompletableFuture.completedFuture(keys.collect { "v" + it })
+    }
+
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor()
+
+    def cleanup() {
+        scheduler.shutdownNow()
+    }
+
+    static DataFetcher loadLater(boolean deferred) {
+        return { DataFetchingEnvironment environment ->
+            LevelDispatcher levelDispatcher = ((GraphQLContext) environment.getContext()).get(LevelDispatcher.CONTEXT_KEY)
+            if (deferred) {
+                levelDispatcher.beginDeferredLoad("items")
+            }
+            return CompletableFuture.runAsync({ Thread.sleep(5) }).thenCompose({
+                def result = environment.getDataLoader("items").load("b" + environment.getSource().id)
+                if (deferred) {
+                    levelDispatcher.endDeferredLoad("items")
+                }
+                return result
+            })
+        } as DataFetcher
+    }
+
+    Map<String, Object> execute(LevelDispatchInstrumentation instrumentation, DataFetcher bDataFetcher,
+            GraphQLContext context) {
+        RuntimeWiring runtimeWiring = RuntimeWiring.newRuntimeWiring()
+                .type("Query", { it.dataFetcher("items", { [[id: "1"], [id: "2"], [id: "3"]] } as DataFetcher) })
+                .type("Item", {
+                    it.dataFetcher("a", { DataFetchingEnvironment environment ->
+                        environment.getDataLoader("items").load("a" + environment.getSource().id)
+                    } as DataFetcher).dataFetcher("b", bDataFetcher)
+                })
+                .build()
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SCHEMA), runtimeWiring)
+        GraphQL graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(instrumentation)
+                .doNotAddDefaultInstrumentations()
+                .build()
+
+        DataLoaderRegistry dataLoaderRegistry = new DataLoaderRegistry()
+        dataLoaderRegistry.register("items", DataLoader.newDataLoader(batchLoader))
+
+        ExecutionResult executionResult = graphQL.executeAsync(ExecutionInput.newExecutionInput()
+                .query('{ items { id a b } }')
+                .dataLoaderRegistry(dataLoaderRegistry)
+                .context(context)
+                .build()).get(5, TimeUnit.SECONDS)
+        return executionResult.toSpecification()
+    }
+
+    def "deferred loads are dispatched with the keys of their level"() {
+        given:
+        GraphQLContext context = GraphQLContext.newContext().build()
+
+        when:
+        def result = execute(LevelDispatchInstrumentation.newBuilder().build(), loadLater(true), context)
+
+        then:
+        result.data.items == [[id: "1", a: "va1", b: "vb1"], [id: "2", a: "va2", b: "vb2"], [id: "3", a: "va3", b: "vb3"]]
+        batches.size() == 1
+        batches[0] as Set == ["a1", "a2", "a3", "b1", "b2", "b3"] as Set
+
+        LevelDispatcher levelDispatcher = context.get(LevelDispatcher.CONTEXT_KEY)
+        levelDispatcher.getDispatchCount() == 1
+        levelDispatcher.getDispatchedKeyCount() == 6
+    }
+
+    def "keys loaded within the dispatch window are dispatched together"() {
+        given:
+        GraphQLContext context = GraphQLContext.newContext().build()
+        LevelDispatchInstrumentation instrumentation = LevelDispatchInstrumentation.newBuilder()
+                .dispatchWindow(Duration.ofMillis(200), scheduler)
+                .build()
+
+        when:
+        def result = execute(instrumentation, loadLater(false), context)
+
+        then:
+        result.data.items*.b == ["vb1", "vb2", "vb3"]
+        batches.size() == 1
+        batches[0].size() == 6
+        ((LevelDispatcher) context.get(LevelDispatcher.CONTEXT_KEY)).getDispatchCount() == 1
+    }
+
+    def "dispatch window must not be negative"() {
+        when:
+        LevelDispatchInstrumentation.newBuilder().dispatchWindow(Duration.ofMillis(-1), scheduler)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
@@ -0,0 +1,95 @@
+package com.intuit.graphql.orchestrator
+
+import com.intuit.graphql.orchestrator.stitching.SchemaStitcher
+import graphql.ExecutionResult
+import graphql.execution.AsyncExecutionStrategy
+import graphql.execution.ExecutionStrategy
+import graphql.execution.instrumentation.InstrumentationContext
+import graphql.execution.instrumentation.SimpleInstrumentation
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters
+import helpers.BaseIntegrationTestSpecification
+
+class PassthroughExecutionStrategySpec extends BaseIntegrationTestSpecification {
+
+    def testSchema = '''
+        type Query { books: [Book!] book: Book! }
+        type Book { id: ID! name: String genre: Genre author: Author tags: [String] }
+        type Author { id: ID! name: String }
+        enum Genre { FICTION FACT }
+    '''
+
+    def mockServiceResponse = [
+            data: [
+                    books: [
+                            [id: "book-1", name: "Book 1", genre: "FICTION", author: [id: "author-1", name: "A"],
+                             tags: ["x"], title: "Book 1"],
+                            [id: "book-2", name: "Book 2", genre: "FACT", author: null, tags: null, title: "Book 2"]
+                    ],
+                    book : [id: null, name: "Book 3"]
+            ]
+    ]
+
+    List<String> fetchedFields = []
+
+    GraphQLOrchestrator createOrchestrator(ExecutionStrategy queryExecutionStrategy) {
+        return GraphQLOrchestrator.newOrchestrator()
+                .runtimeGraph(SchemaStitcher.newBuilder()
+                        .services([createSimpleMockService(testSchema, mockServiceResponse)])
+                        .build()
+                        .stitchGraph())
+                .instrumentations([new SimpleInstrumentation() {
+                    @Override
+                    InstrumentationContext<Object> beginFieldFetch(InstrumentationFieldFetchParameters parameters) {
+                        fetchedFields.add(parameters.getExecutionStepInfo().getPath().toString())
+                        return super.beginFieldFetch(parameters)
+                    }
+                }])
+                .queryExecutionStrategy(queryExecutionStrategy)
+                .build()
+    }
+
+    Map<String, Object> execute(ExecutionStrategy queryExecutionStrategy, String query) {
+        ExecutionResult executionResult = createOrchestrator(queryExecutionStrategy)
+                .execute(createExecutionInput(query)).get()
+        return executionResult.toSpecification()
+    }
+
+    def "completes subtrees of a single provider without fetching nested fields"() {
+        given:
+        def query = '''
+            {
+                books {
+                    __typename id title: name ...BookFields
+                    author { ... on Author { name } }
+                    tags @skip(if: true)
+                }
+            }
+            fragment BookFields on Book { genre }
+        '''
+
+        when:
+        def result = execute(new PassthroughExecutionStrategy(), query)
+        def passthroughFetchedFields = new ArrayList<>(fetchedFields)
+
+        then:
+        passthroughFetchedFields == ["/books"]
+        result == execute(new AsyncExecutionStrategy(), query)
+        result.data.books == [
+                [__typename: "Book", id: "book-1", title: "Book 1", genre: "FICTION", author: [name: "A"]],
+                [__typename: "Book", id: "book-2", title: "Book 2", genre: "FACT", author: null]
+        ]
+    }
+
+    def "completes subtrees field by field if a non null field is null"() {
+        given:
+        def query = '{ book { id name } }'
+
+        when:
+        def result = execute(new PassthroughExecutionStrategy(), query)
+
+        then:
+        result == execute(new AsyncExecutionStrategy(), query)
+        result.errors.size() == 1
+        result.errors[0].path == ["book", "id"]
+    }
+}
@@ -0,0 +1,84 @@
+package com.intuit.graphql.orchestrator
+
+import graphql.ExecutionInput
+import graphql.Scalars
+import graphql.execution.preparsed.PreparsedDocumentEntry
+import graphql.parser.Parser
+import graphql.schema.GraphQLObjectType
+import graphql.schema.GraphQLSchema
+import spock.lang.Specification
+
+import java.util.function.Function
+
+import static graphql.schema.GraphQLFieldDefinition.newFieldDefinition
+
+class PreparsedDocumentCacheSpec extends Specification {
+
+    static final GraphQLSchema SCHEMA = newSchema()
+
+    static GraphQLSchema newSchema() {
+        return GraphQLSchema.newSchema()
+                .query(GraphQLObjectType.newObject().name("Query")
+                        .field(newFieldDefinition().name("foo").type(Scalars.GraphQLString)))
+                .build()
+    }
+
+    int parseCount = 0
+
+    Function<ExecutionInput, PreparsedDocumentEntry> parseFunction = { ExecutionInput input ->
+        parseCount++
+        return new PreparsedDocumentEntry(Parser.parse(input.getQuery()))
+    }
+
+    def "repeated queries are parsed once"() {
+        given:
+        PreparsedDocumentCache cache = PreparsedDocumentCache.newBuilder().build()
+        ExecutionInput input = ExecutionInput.newExecutionInput().query("{ foo }").build()
+
+        when:
+        PreparsedDocumentEntry first = cache.getDocument(SCHEMA, input, parseFunction)
+        PreparsedDocumentEntry second = cache.getDocument(SCHEMA, input, parseFunction)
+
+        then:
+        parseCount == 1
+        first.is(second)
+        cache.getMissCount() == 1
+        cache.getHitCount() == 1
+    }
+
+    def "same query against a different schema is parsed again"() {
+        given:
+        PreparsedDocumentCache cache = PreparsedDocumentCache.newBuilder().build()
+        ExecutionInput input = ExecutionInput.newExecutionInput().query("{ foo }").build()
+
+        when:
+        cache.getDocument(SCHEMA, input, parseFunction)
+        cache.getDocument(newSchema(), input, parseFunction)
+
+        then:
+        parseCount == 2
+        cache.getMissCount() == 2
+        cache.getHitCount() == 0
+    }
+
+    def "entries are evicted once the total query length exceeds the maximum weight"() {
+        given:
+        PreparsedDocumentCache cache = PreparsedDocumentCache.newBuilder().maximumWeight(10).build()
+
+        when:
+        cache.getDocument(SCHEMA, ExecutionInput.newExecutionInput().query("{ foo }").build(), parseFunction)
+        cache.getDocument(SCHEMA, ExecutionInput.newExecutionInput().query("{foo}").build(), parseFunction)
+
+        then:
+        cache.getEvictionCount() == 1
+        cache.size() == 1
+    }
+
+    def "negative maximum weight is rejected"() {
+        when:
+        PreparsedDocumentCache.newBuilder().maximumWeight(-1)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
@@ -0,0 +1,103 @@
+package com.intuit.graphql.orchestrator.batch
+
+import graphql.ExecutionInput
+import graphql.GraphQLContext
+import graphql.parser.Parser
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+
+class DownstreamQueryDeduplicatorSpec extends Specification {
+
+    int queryCount = 0
+
+    CompletableFuture<Map<String, Object>> response = new CompletableFuture<>()
+
+    QueryExecutor queryExecutor = { executionInput, context ->
+        queryCount++
+        return response
+    }
+
+    GraphQLContext context = GraphQLContext.newContext()
+            .of(DownstreamQueryDeduplicator.CONTEXT_KEY, new DownstreamQueryDeduplicator())
+            .build()
+
+    static ExecutionInput executionInput(String query, Map<String, Object> variables) {
+        return ExecutionInput.newExecutionInput()
+                .query(query)
+                .root(Parser.parse(query))
+                .variables(variables)
+                .build()
+    }
+
+    def "identical executions of a request share one downstream query"() {
+        when:
+        CompletableFuture<Map<String, Object>> first = DownstreamQueryDeduplicator.query("SVC", queryExecutor,
+                executionInput('query Q($id: ID) { a(id: $id) }', [id: "1"]), context)
+        CompletableFuture<Map<String, Object>> second = DownstreamQueryDeduplicator.query("SVC", queryExecutor,
+                executionInput('query Q($id: ID) { a(id: $id) }', [id: "1"]), context)
+        response.complete([data: [a: "value"]])
+
+        then:
+        queryCount == 1
+        first.join() == [data: [a: "value"]]
+        second.join().is(first.join())
+        DownstreamQueryDeduplicator.from(context).getDeduplicatedCount() == 1
+    }
+
+    def "executions differing in service or variables are sent separately"() {
+        when:
+        DownstreamQueryDeduplicator.query("SVC", queryExecutor,
+                executionInput('query Q($id: ID) { a(id: $id) }', [id: "1"]), context)
+        DownstreamQueryDeduplicator.query("SVC", queryExecutor,
+                executionInput('query Q($id: ID) { a(id: $id) }', [id: "2"]), context)
+        DownstreamQueryDeduplicator.query("OTHER", queryExecutor,
+                executionInput('query Q($id: ID) { a(id: $id) }', [id: "1"]), context)
+
+        then:
+        queryCount == 3
+        DownstreamQueryDeduplicator.from(context).getDeduplicatedCount() == 0
+    }
+
+    def "mutations are never shared"() {
+        when:
+        DownstreamQueryDeduplicator.query("SVC", queryExecutor, executionInput('mutation { a }', [:]), context)
+        DownstreamQueryDeduplicator.query("SVC", queryExecutor, executionInput('mutation { a }', [:]), context)
+
+        then:
+        queryCount == 2
+    }
+
+    def "executions are sent directly without a deduplicator in the context"() {
+        when:
+        DownstreamQueryDeduplicator.query("SVC", queryExecutor, executionInput('{ a }', [:]),
+                GraphQLContext.newContext().build())
+        DownstreamQueryDeduplicator.query("SVC", queryExecutor, executionInput('{ a }', [:]),
+                GraphQLContext.newContext().build())
+
+        then:
+        queryCount == 2
+    }
+
+    def "an execution failing to start is retried by the next caller"() {
+        given:
+        QueryExecutor failingOnce = { executionInput, context ->
+            if (queryCount++ == 0) {
+                throw new IllegalStateException("boom")
+            }
+            return response
+        }
+
+        when:
+        DownstreamQueryDeduplicator.query("SVC", failingOnce, executionInput('{ a }', [:]), context)
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        DownstreamQueryDeduplicator.query("SVC", failingOnce, executionInput('{ a }', [:]), context)
+
+        then:
+        queryCount == 2
+    }
+}
@@ -0,0 +1,150 @@
+package com.intuit.graphql.orchestrator.batch
+
+import graphql.Scalars
+import graphql.execution.ExecutionStepInfo
+import graphql.execution.ResultPath
+import graphql.language.Document
+import graphql.parser.Parser
+import graphql.schema.DataFetchingEnvironment
+import graphql.schema.GraphQLFieldDefinition
+import graphql.schema.GraphQLObjectType
+import graphql.schema.GraphQLSchema
+import spock.lang.Specification
+
+import java.util.function.Supplier
+
+import static graphql.schema.DataFetchingEnvironmentImpl.newDataFetchingEnvironment
+
+class DownstreamQueryPlanCacheSpec extends Specification {
+
+    static final String QUERY = 'query Q($flag: Boolean, $id: String) { a { b(id: $id) @include(if: $flag) } c }'
+
+    int planCount = 0
+
+    Supplier<DownstreamQueryPlan> planSupplier = {
+        planCount++
+        Document document = Parser.parse("{ a }")
+        return new DownstreamQueryPlan(document, "{a}", "Q", false, null)
+    }
+
+    static final GraphQLSchema SCHEMA = schema()
+
+    static GraphQLSchema schema() {
+        return GraphQLSchema.newSchema()
+                .query(GraphQLObjectType.newObject()
+                        .name("Query")
+                        .field(GraphQLFieldDefinition.newFieldDefinition().name("a").type(Scalars.GraphQLString)))
+                .build()
+    }
+
+    static DataFetchingEnvironment environment(Document document, String path, GraphQLSchema graphQLSchema = SCHEMA) {
+        return newDataFetchingEnvironment()
+                .graphQLSchema(graphQLSchema)
+                .document(document)
+                .operationDefinition(document.getDefinitions().get(0))
+                .executionStepInfo(ExecutionStepInfo.newExecutionStepInfo()
+                        .type(Scalars.GraphQLString)
+                        .path(ResultPath.parse(path))
+                        .build())
+                .build()
+    }
+
+    def "plans for the same document and paths are created once"() {
+        given:
+        DownstreamQueryPlanCache cache = DownstreamQueryPlanCache.newBuilder().build()
+        Document document = Parser.parse(QUERY)
+        List<DataFetchingEnvironment> keys = [environment(document, "/a"), environment(document, "/c")]
+        List<DataFetchingEnvironment> reordered = [environment(document, "/c"), environment(document, "/a")]
+
+        when:
+        DownstreamQueryPlan first = cache.get("SVC", "Q", keys, [flag: true, id: "1"], planSupplier)
+        DownstreamQueryPlan second = cache.get("SVC", "Q", reordered, [flag: true, id: "2"], planSupplier)
+
+        then:
+        planCount == 1
+        first.is(second)
+        cache.getHitCount() == 1
+        cache.getMissCount() == 1
+    }
+
+    def "plans are not shared across namespaces, paths, documents or conditional variables"() {
+        given:
+        DownstreamQueryPlanCache cache = DownstreamQueryPlanCache.newBuilder().build()
+        Document document = Parser.parse(QUERY)
+
+        when:
+        cache.get("SVC", "Q", [environment(document, "/a")], [flag: true], planSupplier)
+        cache.get("OTHER", "Q", [environment(document, "/a")], [flag: true], planSupplier)
+        cache.get("SVC", "Q", [environment(document, "/c")], [flag: true], planSupplier)
+        cache.get("SVC", "Q", [environment(document, "/a")], [flag: false], planSupplier)
+        cache.get("SVC", "Q", [environment(Parser.parse(QUERY + " query Other { c }"), "/a")], [flag: true], planSupplier)
+
+        then:
+        planCount == 5
+        cache.size() == 5
+    }
+
+    def "plans are shared by documents with the same text"() {
+        given:
+        DownstreamQueryPlanCache cache = DownstreamQueryPlanCache.newBuilder().build()
+
+        when:
+        DownstreamQueryPlan first = cache.get("SVC", "Q", [environment(Parser.parse(QUERY), "/a")], [flag: true],
+                planSupplier)
+        DownstreamQueryPlan second = cache.get("SVC", "Q", [environment(Parser.parse(QUERY), "/a")], [flag: true],
+                planSupplier)
+
+        then:
+        planCount == 1
+        first.is(second)
+    }
+
+    def "plans are not shared across schemas"() {
+        given:
+        DownstreamQueryPlanCache cache = DownstreamQueryPlanCache.newBuilder().build()
+        Document document = Parser.parse(QUERY)
+
+        when:
+        cache.get("SVC", "Q", [environment(document, "/a")], [flag: true], planSupplier)
+        cache.get("SVC", "Q", [environment(document, "/a", schema())], [flag: true], planSupplier)
+        cache.get("SVC", "Q", [environment(document, "/a")], [flag: true], planSupplier)
+
+        then:
+        planCount == 2
+        cache.size() == 2
+    }
+
+    def "environments without a schema or document are never cached"() {
+        given:
+        DownstreamQueryPlanCache cache = DownstreamQueryPlanCache.newBuilder().build()
+        DataFetchingEnvironment key = newDataFetchingEnvironment().graphQLSchema(SCHEMA).build()
+        DataFetchingEnvironment withoutSchema = newDataFetchingEnvironment().document(Parser.parse(QUERY)).build()
+
+        when:
+        cache.get("SVC", "Q", [key], [:], planSupplier)
+        cache.get("SVC", "Q", [key], [:], planSupplier)
+        cache.get("SVC", "Q", [withoutSchema], [:], planSupplier)
+
+        then:
+        planCount == 3
+        cache.size() == 0
+    }
+
+    def "plan forwards only the variables it keeps"() {
+        given:
+        DownstreamQueryPlan plan = new DownstreamQueryPlan(Parser.parse("{ a }"), "{a}", "Q", false, ["id"])
+        DownstreamQueryPlan forwardAll = new DownstreamQueryPlan(Parser.parse("{ a }"), "{a}", "Q", false, null)
+
+        expect:
+        plan.filterVariables([id: "1", other: "2"]) == [id: "1"]
+        forwardAll.filterVariables([id: "1", other: "2"]) == [id: "1", other: "2"]
+    }
+
+    def "negative maximum size is rejected"() {
+        when:
+        DownstreamQueryPlanCache.newBuilder().maximumSize(-1)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
@@ -0,0 +1,239 @@
+package com.intuit.graphql.orchestrator.batch
+
+import com.intuit.graphql.orchestrator.ServiceProvider
+import com.intuit.graphql.orchestrator.TestHelper
+import com.intuit.graphql.orchestrator.metadata.RenamedMetadata
+import com.intuit.graphql.orchestrator.schema.FieldCapabilityIndex
+import com.intuit.graphql.orchestrator.schema.ServiceMetadata
+import graphql.execution.ResultPath
+import graphql.language.Field
+import graphql.language.FragmentDefinition
+import graphql.language.OperationDefinition
+import graphql.schema.GraphQLSchema
+import graphql.schema.idl.RuntimeWiring
+import spock.lang.Specification
+
+import static graphql.language.AstPrinter.printAstCompact
+
+class DownstreamQueryRewriterSpec extends Specification {
+
+    private String schema = '''
+        directive @resolver(field: String) on FIELD_DEFINITION
+
+        type Query {
+          foo: Foo
+          node: Node
+          prefixed: NS_Prefixed
+        }
+
+        type Foo {
+          id: String
+          a: String
+          bar: Bar
+          node: Node
+          resolved: String @resolver(field: "resolved")
+        }
+
+        type Bar {
+          b: String
+          c(arg: String): String
+        }
+
+        interface Node {
+          id: String
+        }
+
+        type Impl implements Node {
+          id: String
+        }
+
+        type NS_Prefixed {
+          id: String
+        }
+    '''
+
+    private GraphQLSchema graphQLSchema
+
+    private ServiceMetadata serviceMetadataMock
+
+    private Map<String, String> originalFieldNamesByRenamedName = [:]
+
+    def setup() {
+        RuntimeWiring runtimeWiring = RuntimeWiring.newRuntimeWiring()
+                .type("Node", { wiring -> wiring.typeResolver({ env -> env.getSchema().getObjectType("Impl") }) })
+                .build()
+        graphQLSchema = TestHelper.schema(schema, runtimeWiring)
+
+        ServiceProvider serviceProviderMock = Mock(ServiceProvider)
+        serviceProviderMock.getNameSpace() >> "NS"
+
+        RenamedMetadata renamedMetadataMock = Mock(RenamedMetadata)
+        renamedMetadataMock.getOriginalFieldNamesByRenamedName() >> { originalFieldNamesByRenamedName }
+
+        serviceMetadataMock = Mock(ServiceMetadata)
+        serviceMetadataMock.getRenamedMetadata() >> renamedMetadataMock
+        serviceMetadataMock.getServiceProvider() >> serviceProviderMock
+        serviceMetadataMock.getFieldCapabilityIndex() >> {
+            FieldCapabilityIndex.newIndex(serviceProviderMock, [:], null, renamedMetadataMock)
+        }
+    }
+
+    private Field rootField(String query) {
+        return (Field) TestHelper.query(query).getSelectionSet().getSelections().get(0)
+    }
+
+    def "keeps only the selections on the execution path"() {
+        given:
+        String query = '''
+            query {
+                foo {
+                    id
+                    bar { b }
+                    ...F
+                }
+            }
+            fragment F on Foo { a bar { c } }
+        '''
+        Map<String, FragmentDefinition> fragmentsByName = TestHelper.fragmentDefinitions(query)
+        Map<String, FragmentDefinition> filteredFragmentDefinitions = [:]
+        DownstreamQueryRewriter rewriter = new DownstreamQueryRewriter(graphQLSchema, serviceMetadataMock, [:])
+
+        when:
+        Field field = rewriter.rewriteField(rootField(query), graphQLSchema.getQueryType().getFieldDefinition("foo").getType(),
+                fragmentsByName, false, false, ResultPath.parse("/foo/bar"), filteredFragmentDefinitions)
+
+        then:
+        printAstCompact(field) == "foo {bar {b} ...F}"
+        printAstCompact(filteredFragmentDefinitions.F) == "fragment F on Foo {bar {c}}"
+    }
+
+    def "returns null for a field that is not on the execution path"() {
+        given:
+        DownstreamQueryRewriter rewriter = new DownstreamQueryRewriter(graphQLSchema, serviceMetadataMock, [:])
+
+        expect:
+        rewriter.rewriteField(rootField("{ foo { id } }"), null, [:], false, false,
+                ResultPath.parse("/node"), [:]) == null
+    }
+
+    def "removes resolver fields and renames fields"() {
+        given:
+        originalFieldNamesByRenamedName = ["Foo-a": "originalA"]
+        serviceMetadataMock.shouldModifyDownStreamQuery() >> true
+        DownstreamQueryRewriter rewriter = new DownstreamQueryRewriter(graphQLSchema, serviceMetadataMock, [:])
+
+        when:
+        Field field = rewriter.rewriteField(rootField("{ foo { a resolved } }"),
+                graphQLSchema.getQueryType().getFieldDefinition("foo").getType(), [:], true, false)
+
+        then:
+        printAstCompact(field) == "foo {a:originalA}"
+    }
+
+    def "adds __typename to interface fields of the operation"() {
+        given:
+        String query = '''
+            query {
+                foo {
+                    node { id ...N }
+                    bar { b }
+                }
+            }
+            fragment N on Node { id node2: id }
+        '''
+        DownstreamQueryRewriter rewriter = new DownstreamQueryRewriter(graphQLSchema, serviceMetadataMock, [:])
+
+        when:
+        Field field = rewriter.rewriteField(rootField(query),
+                graphQLSchema.getQueryType().getFieldDefinition("foo").getType(),
+                TestHelper.fragmentDefinitions(query), false, true)
+
+        then:
+        printAstCompact(field) == "foo {node {id ...N __typename} bar {b}}"
+    }
+
+    def "does not add __typename to excluded fields"() {
+        given:
+        String query = '''
+            query($skip: Boolean!) {
+                foo {
+                    node @skip(if: $skip) { id }
+                }
+            }
+        '''
+        DownstreamQueryRewriter rewriter = new DownstreamQueryRewriter(graphQLSchema, serviceMetadataMock,
+                [skip: true])
+
+        when:
+        Field field = rewriter.rewriteField(rootField(query),
+                graphQLSchema.getQueryType().getFieldDefinition("foo").getType(), [:], false, true)
+
+        then:
+        printAstCompact(field) == "foo {node @skip(if:\$skip) {id}}"
+        rewriter.getVariableReferences([]) == ["skip"] as Set
+    }
+
+    def "collects the variables of the rewritten fields and used fragments"() {
+        given:
+        String query = '''
+            query Q($v: String, $w: String, $x: String, $unused: String) @operationDirective(arg: $x) {
+                foo {
+                    bar { c(arg: $v) }
+                    ...F
+                }
+            }
+            fragment F on Foo { bar { c(arg: $w) } }
+        '''
+        OperationDefinition operationDefinition = TestHelper.query(query)
+        Map<String, FragmentDefinition> fragmentsByName = TestHelper.fragmentDefinitions(query)
+        DownstreamQueryRewriter rewriter = new DownstreamQueryRewriter(graphQLSchema, serviceMetadataMock, [:])
+
+        when:
+        rewriter.rewriteField(rootField(query), null, fragmentsByName, false, false)
+        rewriter.getUsedFragmentDefinitions(fragmentsByName.values())
+
+        then:
+        rewriter.getVariableReferences(operationDefinition.getDirectives()) == ["v", "w", "x"] as Set
+    }
+
+    def "only uses the fragments spread by the rewritten fields"() {
+        given:
+        String query = '''
+            query {
+                foo { ...F }
+            }
+            fragment F on Foo { bar { ...B } }
+            fragment B on Bar { b }
+            fragment Unused on Foo { id }
+        '''
+        Map<String, FragmentDefinition> fragmentsByName = TestHelper.fragmentDefinitions(query)
+        DownstreamQueryRewriter rewriter = new DownstreamQueryRewriter(graphQLSchema, serviceMetadataMock, [:])
+
+        when:
+        rewriter.rewriteField(rootField(query), null, fragmentsByName, false, false)
+        List<FragmentDefinition> usedFragmentDefinitions = rewriter.getUsedFragmentDefinitions(fragmentsByName.values())
+
+        then:
+        usedFragmentDefinitions*.name as Set == ["F", "B"] as Set
+    }
+
+    def "rewrites a fragment definition once and removes its domain prefix"() {
+        given:
+        String query = '''
+            query {
+                prefixed { ...P }
+            }
+            fragment P on NS_Prefixed { id }
+        '''
+        Map<String, FragmentDefinition> fragmentsByName = TestHelper.fragmentDefinitions(query)
+        DownstreamQueryRewriter rewriter = new DownstreamQueryRewriter(graphQLSchema, serviceMetadataMock, [:])
+
+        when:
+        FragmentDefinition first = rewriter.rewriteFragmentDefinition(fragmentsByName.P, fragmentsByName)
+        FragmentDefinition second = rewriter.rewriteFragmentDefinition(fragmentsByName.P, fragmentsByName)
+
+        then:
+        printAstCompact(first) == "fragment P on Prefixed {id}"
+        second.is(first)
+    }
+}
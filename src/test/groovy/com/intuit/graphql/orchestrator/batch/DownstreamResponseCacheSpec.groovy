@@ -0,0 +1,199 @@
+package com.intuit.graphql.orchestrator.batch
+
+import com.intuit.graphql.orchestrator.batch.DownstreamResponseCache.CachedResponse
+import com.intuit.graphql.orchestrator.metadata.CacheHintMetadata
+import graphql.ExecutionInput
+import graphql.GraphQLContext
+import graphql.parser.Parser
+import graphql.schema.FieldCoordinates
+import spock.lang.Specification
+
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+import java.time.ZoneId
+import java.time.ZoneOffset
+import java.util.concurrent.CompletableFuture
+
+class DownstreamResponseCacheSpec extends Specification {
+
+    int queryCount = 0
+
+    QueryExecutor queryExecutor = { executionInput, context ->
+        queryCount++
+        return CompletableFuture.completedFuture([data: [a: queryCount]] as Map<String, Object>)
+    }
+
+    CacheHintMetadata cacheHintMetadata = new CacheHintMetadata(null)
+
+    Instant now = Instant.ofEpochSecond(1000)
+
+    Clock clock = new Clock() {
+        @Override
+        ZoneId getZone() {
+            return ZoneOffset.UTC
+        }
+
+        @Override
+        Clock withZone(ZoneId zone) {
+            return this
+        }
+
+        @Override
+        Instant instant() {
+            return now
+        }
+    }
+
+    def setup() {
+        cacheHintMetadata.getMaxAgeByField().put(FieldCoordinates.coordinates("Query", "a"), 60)
+    }
+
+    static ExecutionInput executionInput(String query, Map<String, Object> variables) {
+        return ExecutionInput.newExecutionInput()
+                .query(query)
+                .root(Parser.parse(query))
+                .variables(variables)
+                .build()
+    }
+
+    static GraphQLContext tenant(String tenant) {
+        return GraphQLContext.newContext().of("tenant", tenant).build()
+    }
+
+    CompletableFuture<Map<String, Object>> query(DownstreamResponseCache responseCache, String query,
+            Map<String, Object> variables = [:], String tenantName = "t1") {
+        return responseCache.query("SVC", cacheHintMetadata, queryExecutor, executionInput(query, variables),
+                tenant(tenantName))
+    }
+
+    def "responses are cached for the max age of the query"() {
+        given:
+        DownstreamResponseCache responseCache = DownstreamResponseCache.newBuilder().clock(clock).build()
+
+        when:
+        def first = query(responseCache, '{ a }')
+        def second = query(responseCache, '{ a }')
+
+        then:
+        queryCount == 1
+        second.join() == first.join()
+        responseCache.getHitCount() == 1
+
+        when:
+        now = now.plusSeconds(61)
+        def third = query(responseCache, '{ a }')
+
+        then:
+        queryCount == 2
+        third.join() == [data: [a: 2]]
+    }
+
+    def "queries without cache hints and mutations are not cached"() {
+        given:
+        DownstreamResponseCache responseCache = DownstreamResponseCache.newBuilder().clock(clock).build()
+
+        when:
+        query(responseCache, '{ b }')
+        query(responseCache, '{ b }')
+        query(responseCache, '{ a b }')
+        query(responseCache, '{ a b }')
+        query(responseCache, 'mutation { a }')
+        query(responseCache, 'mutation { a }')
+
+        then:
+        queryCount == 6
+        responseCache.size() == 0
+    }
+
+    def "responses are cached per scope and variables"() {
+        given:
+        DownstreamResponseCache responseCache = DownstreamResponseCache.newBuilder().clock(clock)
+                .scopeKey({ GraphQLContext context -> context.get("tenant") })
+                .build()
+
+        when:
+        query(responseCache, 'query Q($id: ID) { a(id: $id) }', [id: "1"], "t1")
+        query(responseCache, 'query Q($id: ID) { a(id: $id) }', [id: "1"], "t2")
+        query(responseCache, 'query Q($id: ID) { a(id: $id) }', [id: "2"], "t1")
+        query(responseCache, 'query Q($id: ID) { a(id: $id) }', [id: "1"], "t1")
+
+        then:
+        queryCount == 3
+        responseCache.getHitCount() == 1
+    }
+
+    def "responses with errors are not cached"() {
+        given:
+        DownstreamResponseCache responseCache = DownstreamResponseCache.newBuilder().clock(clock).build()
+        queryExecutor = { executionInput, context ->
+            queryCount++
+            return CompletableFuture.completedFuture([data: [a: null], errors: [[message: "boom"]]] as Map<String, Object>)
+        }
+
+        when:
+        query(responseCache, '{ a }')
+        query(responseCache, '{ a }')
+
+        then:
+        queryCount == 2
+    }
+
+    def "stale responses are returned while they are revalidated"() {
+        given:
+        DownstreamResponseCache responseCache = DownstreamResponseCache.newBuilder().clock(clock)
+                .staleWhileRevalidate(Duration.ofSeconds(30))
+                .build()
+        query(responseCache, '{ a }')
+
+        when:
+        now = now.plusSeconds(70)
+        def stale = query(responseCache, '{ a }')
+        def fresh = query(responseCache, '{ a }')
+
+        then:
+        stale.join() == [data: [a: 1]]
+        fresh.join() == [data: [a: 2]]
+        queryCount == 2
+        responseCache.getStaleHitCount() == 1
+    }
+
+    def "the least recently used responses are evicted"() {
+        given:
+        DownstreamResponseCache responseCache = DownstreamResponseCache.newBuilder().clock(clock).maximumSize(1).build()
+
+        when:
+        query(responseCache, 'query Q($id: ID) { a(id: $id) }', [id: "1"])
+        query(responseCache, 'query Q($id: ID) { a(id: $id) }', [id: "2"])
+        query(responseCache, 'query Q($id: ID) { a(id: $id) }', [id: "1"])
+
+        then:
+        queryCount == 3
+        responseCache.size() == 1
+    }
+
+    def "responses are read from and written to the external store"() {
+        given:
+        Map<String, CachedResponse> entries = [:]
+        ResponseCacheStore store = new ResponseCacheStore() {
+            @Override
+            CachedResponse get(String key) {
+                return entries.get(key)
+            }
+
+            @Override
+            void put(String key, CachedResponse cachedResponse) {
+                entries.put(key, cachedResponse)
+            }
+        }
+
+        when:
+        query(DownstreamResponseCache.newBuilder().clock(clock).store(store).build(), '{ a }')
+        def response = query(DownstreamResponseCache.newBuilder().clock(clock).store(store).build(), '{ a }')
+
+        then:
+        entries.size() == 1
+        queryCount == 1
+        response.join() == [data: [a: 1]]
+    }
+}
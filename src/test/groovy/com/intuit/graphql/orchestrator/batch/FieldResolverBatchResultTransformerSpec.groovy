@@ -104,4 +104,22 @@ class FieldResolverBatchResultTransformerSpec extends Specification {
         actualDataFetcherResult.getErrors().size() == 1
     }
 
+    def "to Batch Result gives the result of a shared alias to each key"() {
+        given:
+        DataFetcherResult<Map<String, Object>> dataFetcherResult =
+                DataFetcherResult.<Map<String, Object>>newResult()
+                        .errors(Collections.singletonList(testGraphQLError))
+                        .data(ImmutableMap.of("a", ImmutableMap.of("b", ImmutableMap.of("c_0", "first", "c_1", "second"))))
+                        .build()
+        int[] aliasIndexes = [0, 1, 0]
+
+        when:
+        List<DataFetcherResult<Object>> actual = subjectUnderTest.toBatchResult(dataFetcherResult,
+                [dataFetchingEnvironmentMock, dataFetchingEnvironmentMock, dataFetchingEnvironmentMock], aliasIndexes)
+
+        then:
+        actual*.getData() == ["first", "second", "first"]
+        actual*.getErrors()*.size() == [1, 0, 0]
+    }
+
 }
@@ -5,6 +5,7 @@ import com.intuit.graphql.orchestrator.ServiceProvider
 import com.intuit.graphql.orchestrator.authorization.BatchFieldAuthorization
 import com.intuit.graphql.orchestrator.batch.GraphQLTestUtil.PassthroughQueryModifier
 import com.intuit.graphql.orchestrator.schema.ServiceMetadataImpl
+import graphql.ExecutionInput
 import graphql.GraphQLContext
 import graphql.Scalars
 import graphql.execution.ExecutionStepInfo
@@ -51,19 +52,14 @@ class GraphQLServiceBatchLoaderSpec extends Specification {
 
     public ServiceMetadataImpl mockServiceMetadata
 
-    public VariableDefinitionFilter mockVariableDefinitionFilter
-
     public BatchFieldAuthorization mockBatchFieldAuthorization
 
     def setup() {
         mockServiceProvider = Mock(ServiceProvider)
         mockServiceMetadata = Mock(ServiceMetadataImpl)
-        mockVariableDefinitionFilter = Mock(VariableDefinitionFilter)
         mockBatchFieldAuthorization = Mock(BatchFieldAuthorization)
 
         mockServiceMetadata.requiresTypenameInjection() >> false
-        mockVariableDefinitionFilter.getVariableReferencesFromNode(
-                _ as GraphQLSchema, _ as GraphQLObjectType, _ as Map, _ as Map, _ as Node) >> Collections.emptySet()
 
         mockBatchFieldAuthorization.getFutureAuthData() >> CompletableFuture.completedFuture("TestFutureAuthData")
 
@@ -131,8 +127,6 @@ class GraphQLServiceBatchLoaderSpec extends Specification {
                 .queryOperationModifier(new PassthroughQueryModifier())
                 .build()
 
-        batchLoader.variableDefinitionFilter = mockVariableDefinitionFilter
-
         when:
         batchLoader.load(asList(dfe1, dfe2))
 
@@ -202,8 +196,6 @@ class GraphQLServiceBatchLoaderSpec extends Specification {
                 .queryOperationModifier(new PassthroughQueryModifier())
                 .build()
 
-        batchLoader.variableDefinitionFilter = mockVariableDefinitionFilter
-
         when:
         batchLoader.load(asList(dfe1, dfe2))
 
@@ -253,8 +245,6 @@ class GraphQLServiceBatchLoaderSpec extends Specification {
                 .queryOperationModifier(new PassthroughQueryModifier())
                 .build()
 
-        batchLoader.variableDefinitionFilter = mockVariableDefinitionFilter
-
         when:
         batchLoader.load(singletonList(dfe1))
 
@@ -307,8 +297,6 @@ class GraphQLServiceBatchLoaderSpec extends Specification {
                 .queryOperationModifier(new PassthroughQueryModifier())
                 .build()
 
-        batchLoader.variableDefinitionFilter = mockVariableDefinitionFilter
-
         when:
         batchLoader.load(singletonList(dfe1))
 
@@ -351,8 +339,6 @@ class GraphQLServiceBatchLoaderSpec extends Specification {
                 .queryOperationModifier(new PassthroughQueryModifier())
                 .build()
 
-        batchLoader.variableDefinitionFilter = mockVariableDefinitionFilter
-
         when:
         batchLoader.load(singletonList(dfe1))
 
@@ -400,8 +386,6 @@ class GraphQLServiceBatchLoaderSpec extends Specification {
                 .queryOperationModifier(new PassthroughQueryModifier())
                 .build()
 
-        batchLoader.variableDefinitionFilter = mockVariableDefinitionFilter
-
         when:
         batchLoader.load(singletonList(dfe1))
 
@@ -457,8 +441,6 @@ class GraphQLServiceBatchLoaderSpec extends Specification {
                 .queryOperationModifier(new PassthroughQueryModifier())
                 .build()
 
-        batchLoader.variableDefinitionFilter = mockVariableDefinitionFilter
-
         when:
         batchLoader.load(singletonList(dfe1))
 
@@ -468,14 +450,9 @@ class GraphQLServiceBatchLoaderSpec extends Specification {
 
     def "propagates Variable Definitions"() {
         given:
-        mockVariableDefinitionFilter.getVariableReferencesFromNode(_ as GraphQLSchema, _ as GraphQLObjectType, _ as Map, _ as Map, _ as Node) >> new HashSet<String>() {{
-            add("TestVariableDefinition")
-            add("TestVariableDefinition2")
-        }}
-
         QueryExecutor validator = { input, context ->
-            assert input.getQuery() ==~ /Bulk_Query(\$TestVariableDefinition:TestType,\$TestVariableDefinition2:TestType2\)/
-            assert input.getQuery() ==~ /fieldWithArgument\(SomeArgument:\$TestVariableDefinition\)/
+            assert input.getQuery().contains('Bulk_Query($TestVariableDefinition:TestType)')
+            assert input.getQuery().contains('fieldWithArgument(SomeArgument:$TestVariableDefinition)')
             return CompletableFuture.completedFuture(new HashMap<>())
         }
 
@@ -530,8 +507,6 @@ class GraphQLServiceBatchLoaderSpec extends Specification {
                 .queryOperationModifier(new PassthroughQueryModifier())
                 .build()
 
-        batchLoader.variableDefinitionFilter = mockVariableDefinitionFilter
-
         when:
         batchLoader.load(singletonList(dfe1))
 
@@ -662,8 +637,6 @@ class GraphQLServiceBatchLoaderSpec extends Specification {
                 .queryOperationModifier(new QueryModifier())
                 .build()
 
-        batchLoader.variableDefinitionFilter = mockVariableDefinitionFilter
-
         when:
         batchLoader.load(singletonList(dfe1))
 
@@ -713,8 +686,6 @@ class GraphQLServiceBatchLoaderSpec extends Specification {
                 .queryOperationModifier(new PassthroughQueryModifier())
                 .build()
 
-        batchLoader.variableDefinitionFilter = mockVariableDefinitionFilter
-
         when:
         batchLoader.load(singletonList(dfe1))
 
@@ -724,7 +695,11 @@ class GraphQLServiceBatchLoaderSpec extends Specification {
 
     def "variable Filter Not Called When Empty"() {
         given:
-        QueryExecutor fn = { environment, context -> CompletableFuture.completedFuture(new HashMap<>()) }
+        ExecutionInput capturedInput = null
+        QueryExecutor fn = { environment, context ->
+            capturedInput = environment
+            return CompletableFuture.completedFuture(new HashMap<>())
+        }
 
         GraphQLObjectType queryType = GraphQLObjectType.newObject().name("query")
                 .field({ builder -> builder.name("first").type(FIRST_TYPE) })
@@ -769,13 +744,12 @@ class GraphQLServiceBatchLoaderSpec extends Specification {
                 .queryOperationModifier(new PassthroughQueryModifier())
                 .build()
 
-        batchLoader.variableDefinitionFilter = mockVariableDefinitionFilter
-
         when:
         batchLoader.load(asList(dfe1, dfe2))
 
         then:
-        0 * mockVariableDefinitionFilter.getVariableReferencesFromNode(_ as GraphQLSchema, _ as GraphQLObjectType, _ as Map, _ as Map, _ as Node)
+        capturedInput.getQuery() == "query QUERY {first second}"
+        capturedInput.getVariables() == ["1": "3", "2": "4"]
     }
 
     def "calls All Hooks"() {
@@ -0,0 +1,76 @@
+package com.intuit.graphql.orchestrator.batch
+
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.function.Function
+
+class PartitionedDispatchSpec extends Specification {
+
+    List<List<Integer>> loadedPartitions = []
+
+    Function<List<Integer>, CompletableFuture<List<String>>> loadFunction = { List<Integer> partition ->
+        loadedPartitions.add(partition)
+        return CompletableFuture.completedFuture(partition.collect { "value" + it })
+    }
+
+    def "batches within the max batch size are not split"() {
+        expect:
+        PartitionedDispatch.partition([1, 2, 3], 0) == [[1, 2, 3]]
+        PartitionedDispatch.partition([1, 2, 3], 3) == [[1, 2, 3]]
+    }
+
+    def "batches are split into partitions of at most the max batch size"() {
+        expect:
+        PartitionedDispatch.partition([1, 2, 3, 4, 5], 2) == [[1, 2], [3, 4], [5]]
+        PartitionedDispatch.halves([1, 2, 3, 4, 5]) == [[1, 2, 3], [4, 5]]
+    }
+
+    def "results of all partitions are reassembled in key order"() {
+        when:
+        List<String> results = PartitionedDispatch.dispatch([[1, 2], [3, 4], [5]], loadFunction, parallel).join()
+
+        then:
+        results == ["value1", "value2", "value3", "value4", "value5"]
+        loadedPartitions == [[1, 2], [3, 4], [5]]
+
+        where:
+        parallel << [true, false]
+    }
+
+    def "sequential dispatch loads a partition only after the previous one completed"() {
+        given:
+        CompletableFuture<List<String>> firstResult = new CompletableFuture<>()
+        Function<List<Integer>, CompletableFuture<List<String>>> pendingLoadFunction = { List<Integer> partition ->
+            loadedPartitions.add(partition)
+            return partition == [1] ? firstResult : CompletableFuture.completedFuture(["value2"])
+        }
+
+        when:
+        CompletableFuture<List<String>> results = PartitionedDispatch.dispatch([[1], [2]], pendingLoadFunction, false)
+
+        then:
+        loadedPartitions == [[1]]
+
+        when:
+        firstResult.complete(["value1"])
+
+        then:
+        loadedPartitions == [[1], [2]]
+        results.join() == ["value1", "value2"]
+    }
+
+    def "negative limits are rejected"() {
+        when:
+        BatchLoaderOptions.newBuilder().maxBatchSize(-1)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        when:
+        BatchLoaderOptions.newBuilder().maxDocumentSize(-1)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
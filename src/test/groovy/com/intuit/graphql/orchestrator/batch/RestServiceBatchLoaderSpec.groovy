@@ -0,0 +1,144 @@
+package com.intuit.graphql.orchestrator.batch
+
+import graphql.ExecutionInput
+import graphql.GraphQLContext
+import graphql.execution.DataFetcherResult
+import graphql.execution.MergedField
+import graphql.language.Document
+import graphql.language.Field
+import graphql.language.OperationDefinition
+import graphql.language.OperationDefinition.Operation
+import graphql.language.StringValue
+import graphql.schema.DataFetchingEnvironment
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+
+import static graphql.language.Argument.newArgument
+import static graphql.schema.DataFetchingEnvironmentImpl.newDataFetchingEnvironment
+
+class RestServiceBatchLoaderSpec extends Specification {
+
+    private GraphQLContext context = GraphQLContext.newContext().of("key", "value").build()
+
+    private DataFetchingEnvironment first = environment("personById", "1")
+
+    private DataFetchingEnvironment second = environment("personById", "2")
+
+    private DataFetchingEnvironment environment(String fieldName, String id) {
+        Field field = Field.newField(fieldName)
+                .alias("p" + id)
+                .arguments([newArgument("id", new StringValue(id)).build()])
+                .build()
+        return newDataFetchingEnvironment()
+                .context(context)
+                .mergedField(MergedField.newMergedField(field).build())
+                .arguments([id: id])
+                .operationDefinition(OperationDefinition.newOperationDefinition()
+                        .name("PersonQuery")
+                        .operation(Operation.QUERY)
+                        .build())
+                .variables([:])
+                .build()
+    }
+
+    private static Map<String, Object> response(RestFieldInvocation invocation) {
+        return [data: [(invocation.getField().getAlias()): [id: invocation.getArguments().id]]]
+    }
+
+    def "executes the invocations of a batch with one call to a RestQueryExecutor"() {
+        given:
+        List<List<RestFieldInvocation>> batches = []
+        RestQueryExecutor restQueryExecutor = [
+                queryBatch: { List<RestFieldInvocation> invocations, GraphQLContext batchContext ->
+                    assert batchContext.is(context)
+                    batches.add(invocations)
+                    return CompletableFuture.completedFuture(invocations.collect { response(it) })
+                }
+        ] as RestQueryExecutor
+
+        RestServiceBatchLoader batchLoader = RestServiceBatchLoader.newRestServiceBatchLoader()
+                .queryExecutor(restQueryExecutor)
+                .build()
+
+        when:
+        List<DataFetcherResult<Object>> results = batchLoader.load([first, second]).toCompletableFuture().join()
+
+        then:
+        results*.data == [[id: "1"], [id: "2"]]
+        batches.size() == 1
+        batches[0]*.arguments == [[id: "1"], [id: "2"]]
+        batches[0]*.dataFetchingEnvironment == [first, second]
+    }
+
+    def "gives each invocation its own context"() {
+        given:
+        List<GraphQLContext> invocationContexts = []
+        QueryExecutor queryExecutor = { ExecutionInput executionInput, GraphQLContext invocationContext ->
+            invocationContexts.add(invocationContext)
+            assert executionInput.getContext().is(invocationContext)
+            assert ((Document) executionInput.getRoot()).is(invocationContext.get(Document.class))
+            DataFetchingEnvironment environment = invocationContext.get(DataFetchingEnvironment.class)
+            return CompletableFuture.completedFuture(
+                    [data: [(environment.getField().getAlias()): [id: environment.getArguments().id]]])
+        }
+
+        RestServiceBatchLoader batchLoader = RestServiceBatchLoader.newRestServiceBatchLoader()
+                .queryExecutor(queryExecutor)
+                .build()
+
+        when:
+        List<DataFetcherResult<Object>> results = batchLoader.load([first, second]).toCompletableFuture().join()
+
+        then:
+        results*.data == [[id: "1"], [id: "2"]]
+        invocationContexts.size() == 2
+        invocationContexts*.get(DataFetchingEnvironment.class) == [first, second]
+        invocationContexts*.get("key") == ["value", "value"]
+        !context.hasKey(Document.class)
+        !context.hasKey(DataFetchingEnvironment.class)
+    }
+
+    def "splits batches larger than the maximum batch size"() {
+        given:
+        int calls = 0
+        RestQueryExecutor restQueryExecutor = [
+                queryBatch: { List<RestFieldInvocation> invocations, GraphQLContext batchContext ->
+                    calls++
+                    return CompletableFuture.completedFuture(invocations.collect { response(it) })
+                }
+        ] as RestQueryExecutor
+
+        RestServiceBatchLoader batchLoader = RestServiceBatchLoader.newRestServiceBatchLoader()
+                .queryExecutor(restQueryExecutor)
+                .batchLoaderOptions(BatchLoaderOptions.newBuilder().maxBatchSize(1).build())
+                .build()
+
+        when:
+        List<DataFetcherResult<Object>> results = batchLoader.load([first, second]).toCompletableFuture().join()
+
+        then:
+        results*.data == [[id: "1"], [id: "2"]]
+        calls == 2
+    }
+
+    def "fails the batch if the RestQueryExecutor does not return a response per invocation"() {
+        given:
+        RestQueryExecutor restQueryExecutor = [
+                queryBatch: { List<RestFieldInvocation> invocations, GraphQLContext batchContext ->
+                    return CompletableFuture.completedFuture([response(invocations[0])])
+                }
+        ] as RestQueryExecutor
+
+        RestServiceBatchLoader batchLoader = RestServiceBatchLoader.newRestServiceBatchLoader()
+                .queryExecutor(restQueryExecutor)
+                .build()
+
+        when:
+        batchLoader.load([first, second]).toCompletableFuture().join()
+
+        then:
+        Exception exception = thrown()
+        exception.getCause() instanceof IllegalStateException
+    }
+}
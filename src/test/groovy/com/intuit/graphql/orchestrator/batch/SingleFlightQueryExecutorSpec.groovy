@@ -0,0 +1,102 @@
+package com.intuit.graphql.orchestrator.batch
+
+import graphql.ExecutionInput
+import graphql.GraphQLContext
+import graphql.parser.Parser
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+
+class SingleFlightQueryExecutorSpec extends Specification {
+
+    List<CompletableFuture<Map<String, Object>>> responses = []
+
+    QueryExecutor queryExecutor = { executionInput, context ->
+        CompletableFuture<Map<String, Object>> response = new CompletableFuture<>()
+        responses.add(response)
+        return response
+    }
+
+    SingleFlightQueryExecutor singleFlightQueryExecutor = new SingleFlightQueryExecutor("SVC", queryExecutor,
+            { GraphQLContext context -> context.get("tenant") })
+
+    static ExecutionInput executionInput(String query, Map<String, Object> variables) {
+        return ExecutionInput.newExecutionInput()
+                .query(query)
+                .root(Parser.parse(query))
+                .variables(variables)
+                .build()
+    }
+
+    static GraphQLContext tenant(String tenant) {
+        return GraphQLContext.newContext().of("tenant", tenant).build()
+    }
+
+    def "identical in-flight queries of different requests share one call"() {
+        when:
+        CompletableFuture<Map<String, Object>> first = singleFlightQueryExecutor.query(
+                executionInput('query Q($v: Input) { a(v: $v) }', [v: [id: 1, name: "x"]]), tenant("t1"))
+        CompletableFuture<Map<String, Object>> second = singleFlightQueryExecutor.query(
+                executionInput('query Q($v: Input) { a(v: $v) }', [v: [name: "x", id: 1.0d]]), tenant("t1"))
+
+        then:
+        responses.size() == 1
+        singleFlightQueryExecutor.getCoalescedCount() == 1
+        singleFlightQueryExecutor.getInFlightCount() == 1
+
+        when:
+        responses.get(0).complete([data: [a: "value"]])
+
+        then:
+        first.join() == [data: [a: "value"]]
+        second.join() == [data: [a: "value"]]
+        singleFlightQueryExecutor.getInFlightCount() == 0
+    }
+
+    def "completed queries are not cached"() {
+        when:
+        singleFlightQueryExecutor.query(executionInput('{ a }', [:]), tenant("t1"))
+        responses.get(0).complete([data: [a: "value"]])
+        singleFlightQueryExecutor.query(executionInput('{ a }', [:]), tenant("t1"))
+
+        then:
+        responses.size() == 2
+        singleFlightQueryExecutor.getCoalescedCount() == 0
+    }
+
+    def "queries of different partitions or variables are not coalesced"() {
+        when:
+        singleFlightQueryExecutor.query(executionInput('query Q($id: ID) { a(id: $id) }', [id: "1"]), tenant("t1"))
+        singleFlightQueryExecutor.query(executionInput('query Q($id: ID) { a(id: $id) }', [id: "1"]), tenant("t2"))
+        singleFlightQueryExecutor.query(executionInput('query Q($id: ID) { a(id: $id) }', [id: "2"]), tenant("t1"))
+
+        then:
+        responses.size() == 3
+        singleFlightQueryExecutor.getCoalescedCount() == 0
+    }
+
+    def "mutations are not coalesced"() {
+        when:
+        singleFlightQueryExecutor.query(executionInput('mutation { a }', [:]), tenant("t1"))
+        singleFlightQueryExecutor.query(executionInput('mutation { a }', [:]), tenant("t1"))
+
+        then:
+        responses.size() == 2
+    }
+
+    def "failures are given to every waiting query"() {
+        given:
+        CompletableFuture<Map<String, Object>> first = singleFlightQueryExecutor.query(executionInput('{ a }', [:]),
+                tenant("t1"))
+        CompletableFuture<Map<String, Object>> second = singleFlightQueryExecutor.query(executionInput('{ a }', [:]),
+                tenant("t1"))
+
+        when:
+        responses.get(0).completeExceptionally(new IllegalStateException("boom"))
+
+        then:
+        first.isCompletedExceptionally()
+        second.isCompletedExceptionally()
+        singleFlightQueryExecutor.getInFlightCount() == 0
+    }
+}
@@ -0,0 +1,101 @@
+package com.intuit.graphql.orchestrator.batch
+
+import graphql.Scalars
+import graphql.execution.ExecutionStepInfo
+import graphql.execution.ResultPath
+import graphql.schema.DataFetchingEnvironment
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+
+import static graphql.execution.MergedField.newMergedField
+import static graphql.language.Field.newField
+import static graphql.schema.DataFetchingEnvironmentImpl.newDataFetchingEnvironment
+
+class StreamingResponseParserSpec extends Specification {
+
+    static final String RESPONSE = '''{
+        "data": {
+            "a": { "b": [ { "c": 1, "d": 2 }, { "c": 3, "d": 4 } ], "e": "skipped" },
+            "f": { "g": [ 1, 2.5, true, null, "h" ], "big": 12345678901 },
+            "unused": { "deep": [ { "x": 1 } ] }
+        },
+        "errors": [ { "message": "boom", "path": [ "a" ] } ],
+        "extensions": { "cost": 1 }
+    }'''
+
+    static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))
+    }
+
+    static ExecutionStepInfo stepInfo(ExecutionStepInfo parent, String path, String name, String alias) {
+        return ExecutionStepInfo.newExecutionStepInfo()
+                .parentInfo(parent)
+                .type(Scalars.GraphQLString)
+                .path(ResultPath.parse(path))
+                .field(newMergedField(newField(name).alias(alias).build()).build())
+                .build()
+    }
+
+    static DataFetchingEnvironment key(ExecutionStepInfo executionStepInfo) {
+        return newDataFetchingEnvironment().executionStepInfo(executionStepInfo).build()
+    }
+
+    def "only the paths of the batched keys are read from data"() {
+        given:
+        ExecutionStepInfo root = ExecutionStepInfo.newExecutionStepInfo()
+                .type(Scalars.GraphQLString).path(ResultPath.rootPath()).build()
+        ExecutionStepInfo a = stepInfo(root, "/a", "a", null)
+        ExecutionStepInfo b = stepInfo(a, "/a/b", "b", null)
+        ExecutionStepInfo c = stepInfo(b, "/a/b/c", "c", null)
+        ExecutionStepInfo f = stepInfo(root, "/f", "field", "f")
+        FieldPathTrie selection = FieldPathTrie.of([key(c), key(f)])
+
+        when:
+        Map<String, Object> result = StreamingResponseParser.parse(stream(RESPONSE), selection)
+
+        then:
+        result.data == [a: [b: [[c: 1], [c: 3]]], f: [g: [1, 2.5d, true, null, "h"], big: 12345678901L]]
+        result.errors == [[message: "boom", path: ["a"]]]
+        result.extensions == [cost: 1]
+    }
+
+    def "whole response is read without a selection"() {
+        when:
+        Map<String, Object> result = StreamingResponseParser.parse(stream(RESPONSE))
+
+        then:
+        result.data.keySet() == ["a", "f", "unused"] as Set
+        result.data.a.e == "skipped"
+    }
+
+    def "null data is kept"() {
+        expect:
+        StreamingResponseParser.parse(stream('{"data": null, "errors": []}'), FieldPathTrie.of([])) ==
+                [data: null, errors: []]
+    }
+
+    def "malformed responses are rejected"() {
+        when:
+        StreamingResponseParser.parse(stream(json))
+
+        then:
+        thrown(UncheckedIOException)
+
+        where:
+        json << ['[1, 2]', '{"data": {"a": ', '']
+    }
+
+    def "byte buffers are read from their position"() {
+        given:
+        byte[] bytes = 'xx{"data":{"a":1}}'.getBytes(StandardCharsets.UTF_8)
+        ByteBuffer heap = ByteBuffer.wrap(bytes).position(2) as ByteBuffer
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes)
+        direct.position(2)
+
+        expect:
+        StreamingResponseParser.parse(ByteQueryExecutor.toInputStream(heap)) == [data: [a: 1]]
+        StreamingResponseParser.parse(ByteQueryExecutor.toInputStream(direct)) == [data: [a: 1]]
+    }
+}
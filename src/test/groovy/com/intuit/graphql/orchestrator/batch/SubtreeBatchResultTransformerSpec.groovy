@@ -2,8 +2,10 @@ package com.intuit.graphql.orchestrator.batch
 
 import graphql.GraphQLError
 import graphql.GraphqlErrorBuilder
+import graphql.Scalars
 import graphql.execution.DataFetcherResult
 import graphql.execution.ExecutionStepInfo
+import graphql.execution.ResultPath
 import graphql.language.Document
 import graphql.schema.DataFetchingEnvironment
 import spock.lang.Specification
@@ -12,6 +14,8 @@ import java.util.stream.Collectors
 
 import static com.intuit.graphql.orchestrator.TestHelper.document
 import static com.intuit.graphql.orchestrator.batch.GraphQLTestUtil.buildCompleteExecutionStepInfo
+import static graphql.execution.MergedField.newMergedField
+import static graphql.language.Field.newField
 import static graphql.schema.DataFetchingEnvironmentImpl.newDataFetchingEnvironment
 
 class SubtreeBatchResultTransformerSpec extends Specification {
@@ -181,4 +185,63 @@ class SubtreeBatchResultTransformerSpec extends Specification {
                 .collect(Collectors.toList()).size() == 1
     }
 
+    static ExecutionStepInfo stepInfo(ExecutionStepInfo parent, String path, String name) {
+        return ExecutionStepInfo.newExecutionStepInfo()
+                .parentInfo(parent)
+                .type(Scalars.GraphQLString)
+                .path(ResultPath.parse(path))
+                .field(newMergedField(newField(name).build()).build())
+                .build()
+    }
+
+    def "fields nested in lists are found by their index"() {
+        given:
+        ExecutionStepInfo root = ExecutionStepInfo.newExecutionStepInfo()
+                .type(Scalars.GraphQLString).path(ResultPath.rootPath()).build()
+        ExecutionStepInfo list = stepInfo(root, "/items", "items")
+        ExecutionStepInfo first = stepInfo(stepInfo(list, "/items[0]", "items"), "/items[0]/detail", "detail")
+        ExecutionStepInfo second = stepInfo(stepInfo(list, "/items[1]", "items"), "/items[1]/detail", "detail")
+        ExecutionStepInfo missing = stepInfo(stepInfo(list, "/items[5]", "items"), "/items[5]/detail", "detail")
+
+        Map<String, Object> data = [items: [[detail: "a"], [detail: "b"]]]
+
+        when:
+        List<DataFetcherResult<Object>> results = new SubtreeBatchResultTransformer().toBatchResult(
+                DataFetcherResult.<Map<String, Object>>newResult().data(data).build(),
+                [second, first, missing].collect { newDataFetchingEnvironment().executionStepInfo(it).build() })
+
+        then:
+        results.collect { it.getData() } == ["b", "a", null]
+    }
+
+    def "errors are added to the keys whose path they match"() {
+        given:
+        Map<String, Object> data = [consumer: [finance: "test", experiences: "test"]]
+
+        GraphQLError financeError = GraphqlErrorBuilder.newError()
+                .message("finance").path(["consumer", "finance", "tax"]).build()
+        GraphQLError experiencesError = GraphqlErrorBuilder.newError()
+                .message("experiences").path(["consumer", "experiences"]).build()
+        GraphQLError parentError = GraphqlErrorBuilder.newError()
+                .message("parent").path(["consumer"]).build()
+        GraphQLError unknownError = GraphqlErrorBuilder.newError()
+                .message("unknown").path(["other"]).build()
+
+        DataFetchingEnvironment finance = newDataFetchingEnvironment()
+                .executionStepInfo(buildCompleteExecutionStepInfo(document, "consumer", "finance")).build()
+        DataFetchingEnvironment experiences = newDataFetchingEnvironment()
+                .executionStepInfo(buildCompleteExecutionStepInfo(document, "consumer", "experiences")).build()
+
+        when:
+        List<DataFetcherResult<Object>> results = new SubtreeBatchResultTransformer().toBatchResult(
+                DataFetcherResult.<Map<String, Object>>newResult()
+                        .data(data)
+                        .errors([financeError, experiencesError, parentError, unknownError])
+                        .build(),
+                [experiences, finance])
+
+        then:
+        results.get(0).getErrors()*.getMessage() == ["experiences", "parent", "unknown"]
+        results.get(1).getErrors()*.getMessage() == ["finance"]
+    }
 }
@@ -60,4 +60,32 @@ class ArgumentResolverSpec extends Specification {
         then:
         results.size() == 2
     }
+
+    def "builds GraphQL once per schema"() {
+        given:
+        int builds = 0
+        ArgumentResolver resolver = ArgumentResolver.newBuilder()
+                .graphQLBuilder({ schema -> builds++; mockedGraphQL })
+                .build()
+
+        mockedGraphQL.executeAsync(_ as ExecutionInput) >> CompletableFuture.completedFuture(
+                ExecutionResultImpl.newExecutionResult().data(Collections.emptyMap()).build())
+
+        Map<ResolverArgumentDirective, OperationDefinition> resolverQueries = new HashMap<>()
+        resolverQueries.put(mock(ResolverArgumentDirective.class), query("{ a }"))
+
+        DataFetchingEnvironment env = DataFetchingEnvironmentImpl
+                .newDataFetchingEnvironment()
+                .context(GraphQLContext.newContext()
+                        .of(DATA_LOADER_REGISTRY_CONTEXT_KEY, Mock(DataLoaderRegistry.class)).build())
+                .graphQLSchema(mock(GraphQLSchema.class))
+                .build()
+
+        when:
+        resolver.resolveArguments(env, resolverQueries)
+        resolver.resolveArguments(env, resolverQueries)
+
+        then:
+        builds == 1
+    }
 }
@@ -4,6 +4,7 @@ import com.intuit.graphql.orchestrator.resolverdirective.ResolverArgumentDirecti
 import com.intuit.graphql.orchestrator.TestHelper
 import graphql.ExecutionResult
 import graphql.ExecutionResultImpl
+import graphql.GraphQLContext
 import graphql.GraphqlErrorBuilder
 import graphql.Scalars
 import graphql.execution.DataFetcherResult
@@ -199,4 +200,76 @@ class ResolverArgumentDataFetcherSpec extends BaseIntegrationTestSpecification {
         then:
         result.getErrors().size() == 1
     }
+
+    def "resolver arguments are resolved once per request"() {
+        given:
+        DataFetcherResult<Object> dataFetcherResult = DataFetcherResult.newResult()
+                .data("test_response").build()
+
+        CompletableFuture<ExecutionResult> debtFuture = new CompletableFuture<>()
+        Map<ResolverArgumentDirective, CompletableFuture<ExecutionResult>> resolvedArguments = new HashMap<>()
+        resolvedArguments.put(debtArgumentResolver, debtFuture)
+
+        Map<ResolverArgumentDirective, OperationDefinition> map = new HashMap<>()
+        map.put(debtArgumentResolver, debtQuery)
+
+        ResolverArgumentDataFetcher resolverArgumentDataFetcher = ResolverArgumentDataFetcher.newBuilder()
+                .queriesByResolverArgument(map)
+                .namespace(namespace).build()
+
+        resolverArgumentDataFetcher.argumentResolver = mockArgumentResolver
+        resolverArgumentDataFetcher.helper = mockHelper
+
+        GraphQLContext graphQLContext = GraphQLContext.newContext().build()
+        DataFetchingEnvironment firstEnvironment = DataFetchingEnvironmentImpl.newDataFetchingEnvironment()
+                .context(graphQLContext)
+                .dataLoaderRegistry(dataLoaderRegistry)
+                .build()
+        DataFetchingEnvironment secondEnvironment = DataFetchingEnvironmentImpl.newDataFetchingEnvironment()
+                .context(graphQLContext)
+                .dataLoaderRegistry(dataLoaderRegistry)
+                .build()
+
+        when:
+        CompletableFuture<DataFetcherResult<Object>> firstResult = resolverArgumentDataFetcher.get(firstEnvironment)
+        CompletableFuture<DataFetcherResult<Object>> secondResult = resolverArgumentDataFetcher.get(secondEnvironment)
+        debtFuture.complete(debtExecutionResult)
+        CompletableFuture<DataFetcherResult<Object>> lateResult = resolverArgumentDataFetcher.get(firstEnvironment)
+
+        then:
+        1 * mockArgumentResolver.resolveArguments(_ as DataFetchingEnvironment, _ as Map) >> resolvedArguments
+        3 * mockHelper.callBatchLoaderWithArguments(_ as DataFetchingEnvironment, { it.get(debtArgumentResolver) == 1_000 }) >>
+                CompletableFuture.completedFuture(dataFetcherResult)
+        firstResult.join().getData() == "test_response"
+        secondResult.join().getData() == "test_response"
+        lateResult.join().getData() == "test_response"
+    }
+
+    def "fails every instance of the request if the resolver arguments cannot be resolved"() {
+        given:
+        ResolverArgumentDataFetcher resolverArgumentDataFetcher = ResolverArgumentDataFetcher.newBuilder()
+                .queriesByResolverArgument([(debtArgumentResolver): debtQuery])
+                .namespace(namespace).build()
+
+        resolverArgumentDataFetcher.argumentResolver = mockArgumentResolver
+        resolverArgumentDataFetcher.helper = mockHelper
+
+        GraphQLContext graphQLContext = GraphQLContext.newContext().build()
+        DataFetchingEnvironment environment = DataFetchingEnvironmentImpl.newDataFetchingEnvironment()
+                .context(graphQLContext)
+                .dataLoaderRegistry(dataLoaderRegistry)
+                .build()
+
+        when:
+        CompletableFuture<DataFetcherResult<Object>> firstResult = resolverArgumentDataFetcher.get(environment)
+        CompletableFuture<DataFetcherResult<Object>> secondResult = resolverArgumentDataFetcher.get(environment)
+
+        then:
+        1 * mockArgumentResolver.resolveArguments(_ as DataFetchingEnvironment, _ as Map) >> {
+            throw new IllegalArgumentException("boom")
+        }
+        0 * mockHelper.callBatchLoaderWithArguments(_, _)
+        firstResult.isCompletedExceptionally()
+        secondResult.isCompletedExceptionally()
+    }
 }
@@ -15,6 +15,9 @@ import graphql.language.OperationDefinition
 import graphql.language.OperationDefinition.Operation
 import graphql.language.SelectionSet
 import graphql.schema.DataFetchingEnvironment
+import org.dataloader.BatchLoader
+import org.dataloader.DataLoader
+import org.dataloader.DataLoaderRegistry
 import spock.lang.Specification
 
 import java.util.concurrent.CompletableFuture
@@ -98,6 +101,34 @@ class RestDataFetcherSpec extends Specification {
         noExceptionThrown()
     }
 
+    def "loads the field through the batch loader of the service"() {
+        given:
+        List<DataFetchingEnvironment> loadedKeys = []
+        DataLoaderRegistry dataLoaderRegistry = new DataLoaderRegistry()
+        dataLoaderRegistry.register("REST_SVC", new DataLoader<DataFetchingEnvironment, Object>({ keys ->
+            loadedKeys.addAll(keys)
+            return CompletableFuture.completedFuture(keys.collect { "result" })
+        } as BatchLoader<DataFetchingEnvironment, Object>))
+
+        DataFetchingEnvironment environment = newDataFetchingEnvironment(dataFetchingEnvironment)
+                .dataLoaderRegistry(dataLoaderRegistry)
+                .build()
+
+        TestServiceProvider testServiceProvider = TestServiceProvider.newBuilder()
+                .namespace("REST_SVC").serviceType(ServiceType.REST).build()
+        ServiceMetadata serviceMetadata = Mock(ServiceMetadataImpl.class)
+        serviceMetadata.getServiceProvider() >> testServiceProvider
+
+        when:
+        CompletableFuture<Object> result = (CompletableFuture<Object>) new RestDataFetcher(serviceMetadata).get(environment)
+        dataLoaderRegistry.dispatchAll()
+
+        then:
+        result.join() == "result"
+        loadedKeys == [environment]
+        !environment.<GraphQLContext>getContext().hasKey(Document.class)
+    }
+
     // TODO see if needed
     // public void canExecuteRequestWithEmptySelectionSet() {
     // }
@@ -1,5 +1,7 @@
 package com.intuit.graphql.orchestrator.federation
 
+import com.intuit.graphql.orchestrator.ServiceProvider
+import com.intuit.graphql.orchestrator.federation.metadata.FederationMetadata
 import graphql.language.Field
 import graphql.schema.DataFetchingEnvironment
 import org.dataloader.DataLoader
@@ -47,4 +49,26 @@ class EntityDataFetcherSpec extends Specification {
         result.isDone()
         result.get() == "Success"
     }
+
+    def "load entityBatchFetcher of the entity extension"() {
+        given:
+        ServiceProvider serviceProviderMock = Mock(ServiceProvider)
+        serviceProviderMock.getNameSpace() >> "MockService"
+
+        FederationMetadata.EntityExtensionMetadata metadataMock = Mock(FederationMetadata.EntityExtensionMetadata)
+        metadataMock.getTypeName() >> entityName
+        metadataMock.getServiceProvider() >> serviceProviderMock
+
+        subjectUnderTest = new EntityDataFetcher(metadataMock)
+
+        dataLoaderMock.load(dataFetchingEnvironmentMock) >> CompletableFuture.completedFuture("Success")
+        dataFetchingEnvironmentMock.getField() >> Field.newField().name("ExtEntityField").build()
+        dataFetchingEnvironmentMock.getDataLoader("MockService:MockEntity:_entities") >> dataLoaderMock
+
+        when:
+        CompletableFuture<Object> result = subjectUnderTest.get(dataFetchingEnvironmentMock)
+
+        then:
+        result.get() == "Success"
+    }
 }
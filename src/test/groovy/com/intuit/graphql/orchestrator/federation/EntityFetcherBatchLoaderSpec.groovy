@@ -7,7 +7,9 @@ import com.intuit.graphql.graphQL.Directive
 import com.intuit.graphql.graphQL.DirectiveDefinition
 import com.intuit.graphql.graphQL.ValueWithVariable
 import com.intuit.graphql.orchestrator.ServiceProvider
+import com.intuit.graphql.orchestrator.batch.BatchLoaderOptions
 import com.intuit.graphql.orchestrator.batch.BatchResultTransformer
+import com.intuit.graphql.orchestrator.batch.EntityCacheOptions
 import com.intuit.graphql.orchestrator.batch.EntityFetcherBatchLoader
 import com.intuit.graphql.orchestrator.federation.metadata.FederationMetadata
 import com.intuit.graphql.orchestrator.federation.metadata.KeyDirectiveMetadata
@@ -324,6 +326,131 @@ class EntityFetcherBatchLoaderSpec extends Specification {
         representationVariables.get(2).get("keyField1") == "dfeKey3"
     }
 
+    def "batchloader sends one representation per distinct entity"() {
+        given:
+        List<KeyDirectiveMetadata> keyDirectives = Arrays.asList(KeyDirectiveMetadata.from(generateKeyDirective("keyField1")))
+        metadataMock.getKeyDirectives() >> keyDirectives
+
+        specUnderTest = new EntityFetcherBatchLoader(metadataMock, extEntityField)
+
+        List<DataFetchingEnvironment> dfes = ["dfeKey1", "dfeKey2", "dfeKey1", "dfeKey1"].collect { String keyValue ->
+            Mock(DataFetchingEnvironment.class) {
+                getSource() >> ImmutableMap.of("keyField1", keyValue)
+                getField() >> Field.newField().name(extEntityField).build()
+                getContext() >> GraphQLContext.newContext().build()
+            }
+        }
+
+        AtomicReference<ExecutionInput> queryToProviderRef = new AtomicReference<>()
+
+        serviceProviderMock.query(_, _) >> ({ invocationOnMock ->
+            queryToProviderRef.set((ExecutionInput) invocationOnMock.get(0))
+
+            List<Map<String, Object>> entities = Arrays.asList(
+                    ImmutableMap.of(extEntityField, "ENTITY1_FIELD"),
+                    ImmutableMap.of(extEntityField, "ENTITY2_FIELD"))
+
+            return CompletableFuture.completedFuture(ImmutableMap.of("data", ImmutableMap.of("_entities", entities)))
+        })
+
+        when:
+        CompletionStage<List<DataFetcherResult<Object>>> resultsFuture = specUnderTest.load(dfes)
+
+        then:
+        List<DataFetcherResult<Object>> entityResults = resultsFuture.toCompletableFuture().get()
+
+        entityResults.collect { it.getData() } == ["ENTITY1_FIELD", "ENTITY2_FIELD", "ENTITY1_FIELD", "ENTITY1_FIELD"]
+
+        List<Map<String, Object>> representationVariables = (List<Map<String, Object>>) queryToProviderRef.get()
+                .getVariables().get("REPRESENTATIONS")
+
+        representationVariables.size() == 2
+        representationVariables.get(0).get("keyField1") == "dfeKey1"
+        representationVariables.get(1).get("keyField1") == "dfeKey2"
+    }
+
+    def "batchloader splits representations by max batch size"() {
+        given:
+        List<KeyDirectiveMetadata> keyDirectives = Arrays.asList(KeyDirectiveMetadata.from(generateKeyDirective("keyField1")))
+        metadataMock.getKeyDirectives() >> keyDirectives
+
+        specUnderTest = new EntityFetcherBatchLoader(metadataMock, extEntityField,
+                BatchLoaderOptions.newBuilder().maxBatchSize(2).build())
+
+        List<DataFetchingEnvironment> dfes = ["dfeKey1", "dfeKey2", "dfeKey3", "dfeKey1"].collect { String keyValue ->
+            Mock(DataFetchingEnvironment.class) {
+                getSource() >> ImmutableMap.of("keyField1", keyValue)
+                getField() >> Field.newField().name(extEntityField).build()
+                getContext() >> GraphQLContext.newContext().build()
+            }
+        }
+
+        List<List<Map<String, Object>>> representationsToProvider = []
+
+        serviceProviderMock.query(_, _) >> ({ invocationOnMock ->
+            List<Map<String, Object>> representations = (List<Map<String, Object>>) ((ExecutionInput) invocationOnMock.get(0))
+                    .getVariables().get("REPRESENTATIONS")
+            representationsToProvider.add(representations)
+
+            List<Map<String, Object>> entities = representations.collect { representation ->
+                ImmutableMap.of(extEntityField, representation.get("keyField1") + "_FIELD")
+            }
+            return CompletableFuture.completedFuture(ImmutableMap.of("data", ImmutableMap.of("_entities", entities)))
+        })
+
+        when:
+        List<DataFetcherResult<Object>> entityResults = specUnderTest.load(dfes).toCompletableFuture().get()
+
+        then:
+        representationsToProvider.collect { it.collect { it.get("keyField1") } } == [["dfeKey1", "dfeKey2"], ["dfeKey3"]]
+        entityResults.collect { it.getData() } == ["dfeKey1_FIELD", "dfeKey2_FIELD", "dfeKey3_FIELD", "dfeKey1_FIELD"]
+    }
+
+    def "batchloader only fetches the entities missing from the entity cache"() {
+        given:
+        List<KeyDirectiveMetadata> keyDirectives = Arrays.asList(KeyDirectiveMetadata.from(generateKeyDirective("keyField1")))
+        metadataMock.getKeyDirectives() >> keyDirectives
+
+        specUnderTest = new EntityFetcherBatchLoader(metadataMock, extEntityField, BatchLoaderOptions.newBuilder()
+                .entityCache("MOCK_ENTITY", EntityCacheOptions.newBuilder().maximumSize(10).build())
+                .build())
+
+        def dfes = { List<String> keyValues ->
+            keyValues.collect { String keyValue ->
+                Mock(DataFetchingEnvironment.class) {
+                    getSource() >> ImmutableMap.of("keyField1", keyValue)
+                    getField() >> Field.newField().name(extEntityField).build()
+                    getContext() >> GraphQLContext.newContext().build()
+                }
+            }
+        }
+
+        List<List<Object>> keysToProvider = []
+
+        serviceProviderMock.query(_, _) >> ({ invocationOnMock ->
+            List<Map<String, Object>> representations = (List<Map<String, Object>>) ((ExecutionInput) invocationOnMock.get(0))
+                    .getVariables().get("REPRESENTATIONS")
+            keysToProvider.add(representations.collect { it.get("keyField1") })
+
+            List<Map<String, Object>> entities = representations.collect { representation ->
+                ImmutableMap.of(extEntityField, representation.get("keyField1") + "_FIELD")
+            }
+            return CompletableFuture.completedFuture(ImmutableMap.of("data", ImmutableMap.of("_entities", entities)))
+        })
+
+        when:
+        specUnderTest.load(dfes(["dfeKey1", "dfeKey2"])).toCompletableFuture().get()
+        List<DataFetcherResult<Object>> partiallyCached = specUnderTest.load(dfes(["dfeKey2", "dfeKey3", "dfeKey1"]))
+                .toCompletableFuture().get()
+        List<DataFetcherResult<Object>> cached = specUnderTest.load(dfes(["dfeKey3", "dfeKey1"]))
+                .toCompletableFuture().get()
+
+        then:
+        keysToProvider == [["dfeKey1", "dfeKey2"], ["dfeKey3"]]
+        partiallyCached.collect { it.getData() } == ["dfeKey2_FIELD", "dfeKey3_FIELD", "dfeKey1_FIELD"]
+        cached.collect { it.getData() } == ["dfeKey3_FIELD", "dfeKey1_FIELD"]
+    }
+
     def "batchloader retrieves entity for multiple dfes one null"() {
         given:
         List<KeyDirectiveMetadata> keyDirectives = Arrays.asList(KeyDirectiveMetadata.from(generateKeyDirective("keyField1")))
@@ -407,6 +534,70 @@ class EntityFetcherBatchLoaderSpec extends Specification {
         representationVariables.get(2).get("keyField1") == "dfeKey3"
     }
 
+    def "batchloader fetches the extension fields of a parent with one query"() {
+        given:
+        List<KeyDirectiveMetadata> keyDirectives = Arrays.asList(KeyDirectiveMetadata.from(generateKeyDirective("keyField1")))
+        metadataMock.getKeyDirectives() >> keyDirectives
+
+        Set<Field> requiredFields = Sets.newHashSet(Field.newField().name("requiredField1").build())
+        Map<String, Set<Field>> requiredFieldsByFieldName = new LinkedHashMap<>()
+        requiredFieldsByFieldName.put("extField1", Collections.emptySet())
+        requiredFieldsByFieldName.put("extField2", requiredFields)
+
+        metadataMock.getRequiredFieldsByFieldName() >> requiredFieldsByFieldName
+        metadataMock.getRequiredFields("extField1") >> Collections.emptySet()
+        metadataMock.getRequiredFields("extField2") >> requiredFields
+
+        specUnderTest = new EntityFetcherBatchLoader(metadataMock, BatchLoaderOptions.DEFAULT)
+
+        Map<String, Object> parent1 = ImmutableMap.of("keyField1", "key1", "requiredField1", "required1")
+        Map<String, Object> parent2 = ImmutableMap.of("keyField1", "key2", "requiredField1", "required2")
+        Map<String, Object> parent3 = ImmutableMap.of("keyField1", "key3")
+
+        List<DataFetchingEnvironment> dfes = [
+                [parent1, "extField1"], [parent1, "extField2"], [parent2, "extField2"], [parent2, "extField1"],
+                [parent3, "extField1"]
+        ].collect { List<Object> key ->
+            Mock(DataFetchingEnvironment.class) {
+                getSource() >> key[0]
+                getField() >> Field.newField().name((String) key[1]).build()
+                getContext() >> GraphQLContext.newContext().build()
+            }
+        }
+
+        List<ExecutionInput> queriesToProvider = []
+
+        serviceProviderMock.query(_, _) >> ({ invocationOnMock ->
+            ExecutionInput executionInput = (ExecutionInput) invocationOnMock.get(0)
+            queriesToProvider.add(executionInput)
+
+            List<Map<String, Object>> entities = ((List<Map<String, Object>>) executionInput.getVariables()
+                    .get("REPRESENTATIONS")).collect { representation ->
+                ImmutableMap.of("extField1", representation.get("keyField1") + "_FIELD1",
+                        "extField2", representation.get("keyField1") + "_FIELD2")
+            }
+            return CompletableFuture.completedFuture(ImmutableMap.of("data", ImmutableMap.of("_entities", entities)))
+        })
+
+        when:
+        List<DataFetcherResult<Object>> entityResults = specUnderTest.load(dfes).toCompletableFuture().get()
+
+        then:
+        entityResults.collect { it.getData() } == ["key1_FIELD1", "key1_FIELD2", "key2_FIELD2", "key2_FIELD1", "key3_FIELD1"]
+
+        queriesToProvider.size() == 2
+        queriesToProvider.get(0).getQuery().contains("extField1")
+        queriesToProvider.get(0).getQuery().contains("extField2")
+        queriesToProvider.get(0).getVariables().get("REPRESENTATIONS") == [
+                [__typename: "MOCK_ENTITY", keyField1: "key1", requiredField1: "required1"],
+                [__typename: "MOCK_ENTITY", keyField1: "key2", requiredField1: "required2"]
+        ]
+        !queriesToProvider.get(1).getQuery().contains("extField2")
+        queriesToProvider.get(1).getVariables().get("REPRESENTATIONS") == [
+                [__typename: "MOCK_ENTITY", keyField1: "key3"]
+        ]
+    }
+
     private Directive generateKeyDirective(String fieldSet) {
         ValueWithVariable fieldsInput = createValueWithVariable()
         fieldsInput.setStringValue(fieldSet)
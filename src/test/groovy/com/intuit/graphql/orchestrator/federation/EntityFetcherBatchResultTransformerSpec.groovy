@@ -182,4 +182,30 @@ class EntityFetcherBatchResultTransformerSpec extends Specification {
         batchResult.get(1).getData() == ("entityFieldResult2")
         batchResult.get(2).getData() == ("entityFieldResult3")
     }
+
+    def "deduplicated entity results are fanned out to every key"() {
+        given:
+        List<Map<String, Object>> _entityData = Arrays.asList(
+                ImmutableMap.of("ExtEntityField", "entityFieldResult1"),
+                ImmutableMap.of("ExtEntityField", "entityFieldResult2")
+        )
+
+        DataFetcherResult<Map<String, Object>> providerResult = DataFetcherResult.<Map<String, Object>>newResult()
+                .data(ImmutableMap.of("_entities", _entityData))
+                .build()
+
+        List<DataFetchingEnvironment> dfeList = Arrays.asList(
+                Mock(DataFetchingEnvironment.class),
+                Mock(DataFetchingEnvironment.class),
+                Mock(DataFetchingEnvironment.class))
+
+        when:
+        List<DataFetcherResult<Object>> batchResult = specUnderTest.toBatchResult(providerResult, dfeList, Arrays.asList(0, 1, 0))
+
+        then:
+        batchResult.size() == 3
+        batchResult.get(0).getData() == "entityFieldResult1"
+        batchResult.get(1).getData() == "entityFieldResult2"
+        batchResult.get(2).getData() == "entityFieldResult1"
+    }
 }
@@ -0,0 +1,114 @@
+package com.intuit.graphql.orchestrator.fieldresolver
+
+import com.intuit.graphql.graphQL.InputObjectTypeDefinition
+import com.intuit.graphql.graphQL.NamedType
+import com.intuit.graphql.graphQL.ObjectType
+import com.intuit.graphql.graphQL.PrimitiveType
+import com.intuit.graphql.orchestrator.resolverdirective.ResolverArgumentDefinition
+import com.intuit.graphql.orchestrator.resolverdirective.ResolverDirectiveDefinition
+import com.intuit.graphql.orchestrator.schema.transform.FieldResolverContext
+import com.intuit.graphql.orchestrator.xtext.GraphQLFactoryDelegate
+import graphql.language.AstPrinter
+import graphql.parser.Parser
+import spock.lang.Specification
+
+class CompiledValueTemplateSpec extends Specification {
+
+    private static final Map<String, Object> DATA_SOURCE = [
+            petId: "pet-901", count: 5, include: true, rating: 2.5d, missing: null, status: "ACTIVE"
+    ]
+
+    private static final Set<String> REQUIRED_FIELDS = DATA_SOURCE.keySet()
+
+    static NamedType primitiveType(String name) {
+        PrimitiveType primitiveType = GraphQLFactoryDelegate.createPrimitiveType()
+        primitiveType.setType(name)
+        return primitiveType
+    }
+
+    static NamedType inputObjectType() {
+        InputObjectTypeDefinition inputObjectTypeDefinition = GraphQLFactoryDelegate.createInputObjectTypeDefinition()
+        inputObjectTypeDefinition.setName("PetInput")
+        ObjectType objectType = GraphQLFactoryDelegate.createObjectType()
+        objectType.setType(inputObjectTypeDefinition)
+        return objectType
+    }
+
+    static String compileWithValueTemplate(ResolverArgumentDefinition resolverArgumentDefinition) {
+        FieldResolverContext fieldResolverContext = FieldResolverContext.builder()
+                .requiredFields(REQUIRED_FIELDS)
+                .build()
+        String value = new ValueTemplate(fieldResolverContext, resolverArgumentDefinition.getValue()).compile(DATA_SOURCE)
+        if (resolverArgumentDefinition.getNamedType() instanceof PrimitiveType &&
+                ((PrimitiveType) resolverArgumentDefinition.getNamedType()).getType() in ["String", "ID"]) {
+            value = "\"${value}\""
+        }
+        return AstPrinter.printAst(Parser.parseValue(value))
+    }
+
+    def "builds the same value as compiling and parsing the template"() {
+        given:
+        ResolverArgumentDefinition resolverArgumentDefinition = new ResolverArgumentDefinition("arg", template, namedType)
+
+        when:
+        CompiledValueTemplate compiledValueTemplate = CompiledValueTemplate.compile(resolverArgumentDefinition, REQUIRED_FIELDS)
+
+        then:
+        AstPrinter.printAst(compiledValueTemplate.resolve(DATA_SOURCE)) == compileWithValueTemplate(resolverArgumentDefinition)
+
+        where:
+        template                                            | namedType
+        '{ id : "$petId" }'                                 | inputObjectType()
+        '{ id : $petId count: $count include: $include }'   | inputObjectType()
+        '{ rating: $rating, other: $missing }'              | inputObjectType()
+        '[$count, "$petId", { nested: [$include] }]'        | inputObjectType()
+        '{ id: "pet-$count", name: "constant" }'            | inputObjectType()
+        '$status'                                           | inputObjectType()
+        '"$status"'                                         | inputObjectType()
+        '$count'                                            | primitiveType("Int")
+        '$missing'                                          | primitiveType("Int")
+        '$count$count'                                      | primitiveType("Int")
+        '123'                                               | primitiveType("Int")
+        '$petId'                                            | primitiveType("String")
+        'prefix-$petId-$count'                              | primitiveType("ID")
+        '123456789'                                         | primitiveType("ID")
+        'ENUM_VALUE_1'                                      | inputObjectType()
+    }
+
+    def "object templates are parsed once and their references substituted"() {
+        given:
+        ResolverArgumentDefinition resolverArgumentDefinition = new ResolverArgumentDefinition("arg",
+                '{ id : "$petId" }', inputObjectType())
+        CompiledValueTemplate compiledValueTemplate = CompiledValueTemplate.compile(resolverArgumentDefinition, REQUIRED_FIELDS)
+
+        expect:
+        AstPrinter.printAst(compiledValueTemplate.resolve([petId: "pet-1"])) == '{id : "pet-1"}'
+        AstPrinter.printAst(compiledValueTemplate.resolve([petId: 'quote"d'])) == '{id : "quote\\"d"}'
+    }
+
+    def "strings interpolated into templates are escaped"() {
+        given:
+        ResolverArgumentDefinition resolverArgumentDefinition = new ResolverArgumentDefinition("arg",
+                '{ id: "pet-$count", name: $petId }', inputObjectType())
+        CompiledValueTemplate compiledValueTemplate = CompiledValueTemplate.compile(resolverArgumentDefinition, REQUIRED_FIELDS)
+
+        expect:
+        AstPrinter.printAst(compiledValueTemplate.resolve([count: 1, petId: 'quote"d'])) ==
+                '{id : "pet-1", name : "quote\\"d"}'
+    }
+
+    def "argument values are compiled with the field resolver context"() {
+        given:
+        ResolverArgumentDefinition resolverArgumentDefinition = new ResolverArgumentDefinition("arg", '$count',
+                primitiveType("Int"))
+        FieldResolverContext fieldResolverContext = FieldResolverContext.builder()
+                .resolverDirectiveDefinition(new ResolverDirectiveDefinition(
+                        "field", [resolverArgumentDefinition]))
+                .requiredFields(["count"] as Set)
+                .build()
+
+        expect:
+        fieldResolverContext.getArgumentValueTemplate(resolverArgumentDefinition).is(
+                fieldResolverContext.getArgumentValueTemplate(resolverArgumentDefinition))
+    }
+}
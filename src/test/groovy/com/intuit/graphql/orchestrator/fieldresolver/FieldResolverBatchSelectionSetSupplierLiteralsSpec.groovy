@@ -1,6 +1,7 @@
 package com.intuit.graphql.orchestrator.fieldresolver
 
 import com.intuit.graphql.graphQL.*
+import com.intuit.graphql.orchestrator.batch.BatchLoaderOptions
 import com.intuit.graphql.orchestrator.metadata.RenamedMetadata
 import com.intuit.graphql.orchestrator.resolverdirective.ResolverArgumentDefinition
 import com.intuit.graphql.orchestrator.resolverdirective.ResolverDirectiveDefinition
@@ -10,6 +11,7 @@ import com.intuit.graphql.orchestrator.xtext.GraphQLFactoryDelegate
 import graphql.Scalars
 import graphql.language.*
 import graphql.schema.DataFetchingEnvironment
+import graphql.schema.GraphQLArgument
 import graphql.schema.GraphQLFieldDefinition
 import graphql.schema.GraphQLObjectType
 import graphql.schema.GraphQLSchema
@@ -53,6 +55,7 @@ class FieldResolverBatchSelectionSetSupplierLiteralsSpec extends Specification {
         renamedMetadataMock = Mock(RenamedMetadata.class)
 
         renamedMetadataMock.getOriginalFieldNamesByRenamedName() >> Collections.emptyMap()
+        renamedMetadataMock.getOriginalTypeNamesByRenamedName() >> Collections.emptyMap()
         serviceMetadataMock.getRenamedMetadata() >> renamedMetadataMock
 
         graphQLSchemaMock.getQueryType() >> GraphQLObjectType.newObject()
@@ -60,6 +63,7 @@ class FieldResolverBatchSelectionSetSupplierLiteralsSpec extends Specification {
                 .field(GraphQLFieldDefinition.newFieldDefinition()
                         .name("targetField")
                         .type(Scalars.GraphQLString)
+                        .argument(GraphQLArgument.newArgument().name("argName").type(Scalars.GraphQLString))
                         .build())
                 .field(GraphQLFieldDefinition.newFieldDefinition()
                         .name("petById")
@@ -371,4 +375,35 @@ class FieldResolverBatchSelectionSetSupplierLiteralsSpec extends Specification {
         actualEnumValue.getName() == "ENUM_VALUE_1"
     }
 
+    def "keys with identical arguments share a field with arguments as variables"() {
+        given:
+        PrimitiveType targetArgumentType = GraphQLFactoryDelegate.createPrimitiveType()
+        targetArgumentType.setType(Scalars.GraphQLString.getName())
+
+        resolverDirectiveDefinitionMock.getArguments() >> singletonList(
+            new ResolverArgumentDefinition("argName", "stringArgumentValue", targetArgumentType))
+        dataFetchingEnvironments.add(dataFetchingEnvironmentMock)
+
+        String[] resolverSelectedFields = [ "targetField" ]
+        BatchLoaderOptions batchLoaderOptions = BatchLoaderOptions.newBuilder()
+            .deduplicateArguments(true)
+            .argumentsAsVariables(true)
+            .build()
+
+        when:
+        subject = new FieldResolverBatchSelectionSetSupplier(resolverSelectedFields, dataFetchingEnvironments,
+            testFieldResolverContext, serviceMetadataMock, batchLoaderOptions)
+        graphql.language.SelectionSet actual = subject.get()
+
+        then:
+        actual.getSelections().size() == 1
+        Field actualField = (Field) actual.getSelections().get(0)
+        actualField.getAlias() == "targetField_0"
+        ((VariableReference) actualField.getArguments().get(0).getValue()).getName() == "argName_0"
+
+        subject.getAliasIndexes() == [0, 0] as int[]
+        AstPrinter.printAst(subject.getVariableDefinitions().get(0)) == '$argName_0: String'
+        subject.getVariables() == [argName_0: "stringArgumentValue"]
+    }
+
 }
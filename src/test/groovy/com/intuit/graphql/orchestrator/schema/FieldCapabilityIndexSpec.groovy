@@ -0,0 +1,148 @@
+package com.intuit.graphql.orchestrator.schema
+
+import com.intuit.graphql.graphQL.TypeDefinition
+import com.intuit.graphql.orchestrator.ServiceProvider
+import com.intuit.graphql.orchestrator.federation.metadata.FederationMetadata
+import com.intuit.graphql.orchestrator.federation.metadata.FederationMetadata.EntityMetadata
+import com.intuit.graphql.orchestrator.federation.metadata.KeyDirectiveMetadata
+import com.intuit.graphql.orchestrator.metadata.RenamedMetadata
+import com.intuit.graphql.orchestrator.schema.FieldCapabilityIndex.FieldCapabilities
+import com.intuit.graphql.orchestrator.schema.FieldCapabilityIndex.TypeCapabilities
+import com.intuit.graphql.orchestrator.schema.transform.FieldResolverContext
+import graphql.language.Field
+import spock.lang.Specification
+
+import static graphql.schema.FieldCoordinates.coordinates
+
+class FieldCapabilityIndexSpec extends Specification {
+
+    ServiceProvider serviceProviderMock
+
+    def setup() {
+        serviceProviderMock = Mock(ServiceProvider.class)
+    }
+
+    def "indexes renamed fields of operation types and object types"() {
+        given:
+        RenamedMetadata renamedMetadata = new RenamedMetadata(serviceProviderMock)
+        renamedMetadata.getOriginalFieldNamesByRenamedName().putAll(["renamedRoot": "root", "Foo-renamedA": "a"])
+
+        when:
+        FieldCapabilityIndex index = FieldCapabilityIndex.newIndex(serviceProviderMock, [:], null, renamedMetadata)
+
+        then:
+        index.getOriginalOperationFieldName("renamedRoot") == "root"
+        index.getOriginalOperationFieldName("root") == null
+        index.getTypeCapabilities("Foo").getFieldCapabilities("renamedA").getOriginalName() == "a"
+        index.getTypeCapabilities("Foo").getFieldCapabilities("b").is(FieldCapabilities.NONE)
+    }
+
+    def "indexes the fields required by resolver fields"() {
+        given:
+        FieldResolverContext fieldResolverContextMock = Mock(FieldResolverContext.class)
+        fieldResolverContextMock.getFieldName() >> "resolved"
+        fieldResolverContextMock.getRequiredFields() >> (["id"] as Set)
+        TypeMetadata typeMetadata = new TypeMetadata(Mock(TypeDefinition.class))
+        typeMetadata.addFieldResolverContext(fieldResolverContextMock)
+
+        when:
+        FieldCapabilities fieldCapabilities = FieldCapabilityIndex
+                .newIndex(serviceProviderMock, ["Foo": typeMetadata], null, null)
+                .getTypeCapabilities("Foo").getFieldCapabilities("resolved")
+
+        then:
+        fieldCapabilities.getFieldResolverContext().is(fieldResolverContextMock)
+        fieldCapabilities.getResolverRequiredFields()*.name == ["id"]
+        !fieldCapabilities.isExternal()
+    }
+
+    def "fields of entities the service does not own are external"() {
+        given:
+        serviceProviderMock.isFederationProvider() >> true
+        Field keyField = Field.newField("id").build()
+        Field requiredField = Field.newField("weight").build()
+        FederationMetadata federationMetadata = new FederationMetadata(serviceProviderMock)
+        federationMetadata.addEntity(EntityMetadata.builder()
+                .typeName("Product")
+                .keyDirectives([new KeyDirectiveMetadata([keyField] as Set)])
+                .fields(["id", "weight"] as Set)
+                .federationMetadata(federationMetadata)
+                .build())
+        federationMetadata.getRequiresFieldSetByCoordinate()
+                .put(coordinates("Product", "shippingCost"), [requiredField] as Set)
+
+        when:
+        TypeCapabilities typeCapabilities = FieldCapabilityIndex
+                .newIndex(serviceProviderMock, [:], federationMetadata, null)
+                .getTypeCapabilities("Product")
+
+        then:
+        typeCapabilities.getKeyFields() == [keyField]
+        !typeCapabilities.getFieldCapabilities("weight").isExternal()
+        typeCapabilities.getFieldCapabilities("shippingCost").isExternal()
+        typeCapabilities.getFieldCapabilities("shippingCost").getRequiredFields() == [requiredField] as Set
+        typeCapabilities.getFieldCapabilities("reviews").is(FieldCapabilities.EXTERNAL)
+    }
+
+    def "entities are ignored for services that are not federation subgraphs"() {
+        given:
+        serviceProviderMock.isFederationProvider() >> false
+        FederationMetadata federationMetadata = new FederationMetadata(serviceProviderMock)
+        federationMetadata.addEntity(EntityMetadata.builder()
+                .typeName("Product")
+                .keyDirectives([])
+                .fields(["id"] as Set)
+                .federationMetadata(federationMetadata)
+                .build())
+
+        expect:
+        FieldCapabilityIndex.newIndex(serviceProviderMock, [:], federationMetadata, null)
+                .getTypeCapabilities("Product").is(TypeCapabilities.NONE)
+    }
+
+    def "indexes the capabilities of service metadata lazily"() {
+        given:
+        Field keyField = Field.newField("id").build()
+        Field requiredField = Field.newField("weight").build()
+        FieldResolverContext fieldResolverContextMock = Mock(FieldResolverContext.class)
+        fieldResolverContextMock.getRequiredFields() >> (["id"] as Set)
+
+        RenamedMetadata renamedMetadata = new RenamedMetadata(serviceProviderMock)
+        renamedMetadata.getOriginalFieldNamesByRenamedName().putAll(["renamedRoot": "root", "Product-renamed": "name"])
+
+        FederationMetadata federationMetadata = Mock(FederationMetadata.class)
+        federationMetadata.getEntityMetadataByName("Product") >> EntityMetadata.builder()
+                .typeName("Product")
+                .keyDirectives([new KeyDirectiveMetadata([keyField] as Set)])
+                .fields(["id", "weight"] as Set)
+                .federationMetadata(federationMetadata)
+                .build()
+        federationMetadata.hasRequiresFieldSet(coordinates("Product", "shippingCost")) >> true
+        federationMetadata.getRequireFields(coordinates("Product", "shippingCost")) >> ([requiredField] as Set)
+
+        ServiceMetadata serviceMetadataMock = Mock(ServiceMetadata.class)
+        serviceMetadataMock.getRenamedMetadata() >> renamedMetadata
+        serviceMetadataMock.getFederationServiceMetadata() >> federationMetadata
+        serviceMetadataMock.isEntity("Product") >> true
+        serviceMetadataMock.isOwnedByEntityExtension(coordinates("Product", "shippingCost")) >> true
+        serviceMetadataMock.isOwnedByEntityExtension(coordinates("Product", "reviews")) >> true
+        serviceMetadataMock.getFieldResolverContext(coordinates("Foo", "resolved")) >> fieldResolverContextMock
+
+        when:
+        FieldCapabilityIndex index = FieldCapabilityIndex.of(serviceMetadataMock)
+        TypeCapabilities product = index.getTypeCapabilities("Product")
+
+        then:
+        index.getOriginalOperationFieldName("renamedRoot") == "root"
+        index.getTypeCapabilities("Product").is(product)
+        product.getKeyFields() == [keyField]
+        product.getFieldCapabilities("renamed").getOriginalName() == "name"
+        !product.getFieldCapabilities("weight").isExternal()
+        product.getFieldCapabilities("shippingCost").isExternal()
+        product.getFieldCapabilities("shippingCost").getRequiredFields() == [requiredField] as Set
+        product.getFieldCapabilities("reviews").is(FieldCapabilities.EXTERNAL)
+        index.getTypeCapabilities("Foo").getKeyFields().isEmpty()
+        index.getTypeCapabilities("Foo").getFieldCapabilities("resolved").getResolverRequiredFields()*.name == ["id"]
+        index.getTypeCapabilities("Foo").getFieldCapabilities("other").is(FieldCapabilities.NONE)
+    }
+}
@@ -0,0 +1,82 @@
+package com.intuit.graphql.orchestrator.schema.transform
+
+import com.google.common.collect.ImmutableMap
+import com.intuit.graphql.orchestrator.ServiceProvider
+import com.intuit.graphql.orchestrator.TestServiceProvider
+import com.intuit.graphql.orchestrator.metadata.CacheHintMetadata
+import com.intuit.graphql.orchestrator.schema.SchemaTransformationException
+import com.intuit.graphql.orchestrator.xtext.XtextGraph
+import com.intuit.graphql.orchestrator.xtext.XtextGraphBuilder
+import graphql.parser.Parser
+import graphql.schema.FieldCoordinates
+import spock.lang.Specification
+
+class DirectivesTransformerSpec extends Specification {
+
+    static XtextGraph build(String schema) {
+        return XtextGraphBuilder
+                .build(TestServiceProvider.newBuilder().namespace("SVC1").serviceType(ServiceProvider.ServiceType.GRAPHQL)
+                        .sdlFiles(ImmutableMap.of("schema.graphqls", schema)).build())
+    }
+
+    def "records the cache hints of fields"() {
+        given:
+        String schema = '''
+            schema { query: QueryType }
+            type QueryType { a: A @cacheControl(maxAge: 30) b: A }
+            type A { id: ID @cacheControl(maxAge: 10) name: String }
+            directive @cacheControl(maxAge: Int) on FIELD_DEFINITION
+        '''
+
+        when:
+        CacheHintMetadata cacheHintMetadata = new DirectivesTransformer().transform(build(schema)).getCacheHintMetadata()
+
+        then:
+        cacheHintMetadata.getMaxAgeByField() == [
+                (FieldCoordinates.coordinates("Query", "a")): 30,
+                (FieldCoordinates.coordinates("A", "id"))   : 10
+        ]
+        cacheHintMetadata.getMaxAge(Parser.parse('{ a { name } }')) == 30
+        cacheHintMetadata.getMaxAge(Parser.parse('{ a { id name } }')) == 10
+        cacheHintMetadata.getMaxAge(Parser.parse('{ a { id } b { id } }')) == 0
+        cacheHintMetadata.getMaxAge(Parser.parse(
+                'query ($r: [_Any!]!) { _entities(representations: $r) { __typename ... on A { id } } }')) == 10
+        cacheHintMetadata.getMaxAge(Parser.parse('mutation { a { id } }')) == 0
+    }
+
+    def "the max age of a query covers the hints of nested fields"() {
+        given:
+        String schema = '''
+            type Query { catalog: Catalog @cacheControl(maxAge: 86400) }
+            type Catalog { products: [Product] name: String }
+            interface Product { price: Int @cacheControl(maxAge: 5) }
+            type Book implements Product { price: Int @cacheControl(maxAge: 5) title: String @cacheControl(maxAge: 60) }
+            directive @cacheControl(maxAge: Int) on FIELD_DEFINITION
+        '''
+
+        when:
+        CacheHintMetadata cacheHintMetadata = new DirectivesTransformer().transform(build(schema)).getCacheHintMetadata()
+
+        then:
+        cacheHintMetadata.getMaxAge(Parser.parse('{ catalog { name } }')) == 86400
+        cacheHintMetadata.getMaxAge(Parser.parse('{ catalog { products { price } } }')) == 5
+        cacheHintMetadata.getMaxAge(Parser.parse('{ catalog { products { ... on Book { title } } } }')) == 60
+        cacheHintMetadata.getMaxAge(Parser.parse(
+                '{ catalog { ...C } } fragment C on Catalog { products { ... on Book { price } } }')) == 5
+    }
+
+    def "throws exception on invalid max age"() {
+        given:
+        String schema = '''
+            type Query { a: Int @cacheControl(maxAge: -1) }
+            directive @cacheControl(maxAge: Int) on FIELD_DEFINITION
+        '''
+
+        when:
+        new DirectivesTransformer().transform(build(schema))
+
+        then:
+        def exception = thrown(SchemaTransformationException)
+        exception.message.contains("Query.a")
+    }
+}
@@ -8,11 +8,13 @@ import com.intuit.graphql.orchestrator.TestHelper
 import com.intuit.graphql.orchestrator.TestHelper.DefaultTestServiceProvider
 import com.intuit.graphql.orchestrator.TestServiceProvider
 import com.intuit.graphql.orchestrator.batch.GraphQLServiceBatchLoader
+import com.intuit.graphql.orchestrator.batch.RestServiceBatchLoader
 import com.intuit.graphql.orchestrator.datafetcher.ResolverArgumentDataFetcher
 import com.intuit.graphql.orchestrator.datafetcher.RestDataFetcher
 import com.intuit.graphql.orchestrator.datafetcher.ServiceDataFetcher
 import com.intuit.graphql.orchestrator.schema.Operation
 import com.intuit.graphql.orchestrator.schema.RuntimeGraph
+import com.intuit.graphql.orchestrator.schema.SchemaParseException
 import com.intuit.graphql.orchestrator.schema.transform.Transformer
 import com.intuit.graphql.orchestrator.utils.XtextUtils
 import com.intuit.graphql.orchestrator.xtext.DataFetcherContext
@@ -22,9 +24,13 @@ import com.intuit.graphql.orchestrator.xtext.XtextResourceSetBuilder
 import graphql.schema.FieldCoordinates
 import graphql.schema.GraphQLFieldDefinition
 import graphql.schema.GraphQLObjectType
+import graphql.schema.idl.SchemaPrinter
 import org.eclipse.xtext.resource.XtextResourceSet
 import spock.lang.Specification
 
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
 import static com.intuit.graphql.orchestrator.xtext.DataFetcherContext.DataFetcherType.RESOLVER_ARGUMENT
 import static graphql.schema.FieldCoordinates.coordinates
 import static java.util.Collections.singletonList
@@ -95,7 +101,7 @@ class XtextStitcherSpec extends Specification {
         GraphQLObjectType mutation = runtimeGraph.getOperation(Operation.MUTATION)
 
         then:
-        runtimeGraph.getBatchLoaderMap().size() == 1
+        runtimeGraph.getBatchLoaderMap().size() == 2
 
         runtimeGraph.getCodeRegistry().getDataFetcher(
                 FieldCoordinates.coordinates("Query", "person"),
@@ -116,7 +122,7 @@ class XtextStitcherSpec extends Specification {
                 FieldCoordinates.coordinates("Mutation", "upsertProfile"),
                         mutation.getFieldDefinition("upsertProfile")) in ServiceDataFetcher.class
 
-        //assertThat(runtimeGraph.getBatchLoaderMap().get("PERSON")).isInstanceOf(RestExecutorBatchLoader.class)
+        runtimeGraph.getBatchLoaderMap().get("PERSON") in RestServiceBatchLoader
         runtimeGraph.getBatchLoaderMap().get("EPS") in GraphQLServiceBatchLoader
     }
 
@@ -143,4 +149,84 @@ class XtextStitcherSpec extends Specification {
         def exception = thrown(StitchingException)
         exception.getMessage() ==~ /^.*Duplicate Namespace.*PERSON.*$/
     }
+
+    def "parallel stitching builds the same schema as sequential stitching"() {
+        given:
+        List<ServiceProvider> serviceProviders = [
+                TestServiceProvider.newBuilder()
+                        .serviceType(ServiceType.REST)
+                        .namespace("PERSON")
+                        .sdlFiles(TestHelper.getFileMapFromList("top_level/person/schema1.graphqls"))
+                        .build(),
+                TestServiceProvider.newBuilder()
+                        .serviceType(ServiceType.GRAPHQL)
+                        .namespace("EPS")
+                        .sdlFiles(TestHelper.getFileMapFromList("top_level/eps/schema2.graphqls"))
+                        .build()
+        ]
+        ExecutorService executor = Executors.newFixedThreadPool(2)
+
+        when:
+        RuntimeGraph sequential = XtextStitcher.newBuilder().build().stitch(serviceProviders)
+        RuntimeGraph parallel = XtextStitcher.newBuilder().executor(executor).build().stitch(serviceProviders)
+
+        then:
+        new SchemaPrinter().print(parallel.getExecutableSchema()) ==
+                new SchemaPrinter().print(sequential.getExecutableSchema())
+        parallel.getBatchLoaderMap().keySet() == sequential.getBatchLoaderMap().keySet()
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "parallel stitching reports the error of the first failing provider"() {
+        given:
+        ServiceProvider invalid1 = TestServiceProvider.newBuilder()
+                .namespace("INVALID1")
+                .sdlFiles(["invalid1.graphqls": "type Query { a: Unknown1 }"])
+                .build()
+        ServiceProvider invalid2 = TestServiceProvider.newBuilder()
+                .namespace("INVALID2")
+                .sdlFiles(["invalid2.graphqls": "type Query { b: Unknown2 }"])
+                .build()
+        ExecutorService executor = Executors.newFixedThreadPool(2)
+
+        when:
+        XtextStitcher.newBuilder().executor(executor).build().stitch([invalid1, invalid2])
+
+        then:
+        def exception = thrown(SchemaParseException)
+        exception.getMessage().contains("Unknown1")
+        exception.getSuppressed().length == 1
+        exception.getSuppressed()[0].getMessage().contains("Unknown2")
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "parallel stitching throws exception on duplicate namespace"() {
+        given:
+        ServiceProvider sp1 = TestServiceProvider.newBuilder()
+                .serviceType(ServiceType.REST)
+                .namespace("PERSON")
+                .sdlFiles(TestHelper.getFileMapFromList("top_level/person/schema1.graphqls"))
+                .build()
+
+        ServiceProvider sp2 = TestServiceProvider.newBuilder()
+                .serviceType(ServiceType.GRAPHQL)
+                .namespace("PERSON")
+                .sdlFiles(TestHelper.getFileMapFromList("top_level/eps/schema2.graphqls"))
+                .build()
+        ExecutorService executor = Executors.newFixedThreadPool(2)
+
+        when:
+        XtextStitcher.newBuilder().executor(executor).build().stitch([sp1, sp2])
+
+        then:
+        def exception = thrown(StitchingException)
+        exception.getMessage() ==~ /^.*Duplicate Namespace.*PERSON.*$/
+
+        cleanup:
+        executor.shutdown()
+    }
 }
@@ -0,0 +1,199 @@
+package com.intuit.graphql.orchestrator.utils
+
+import graphql.language.AstPrinter
+import graphql.language.Document
+import graphql.language.Field
+import graphql.language.FragmentDefinition
+import graphql.language.Node
+import graphql.language.OperationDefinition
+import graphql.language.StringValue
+import graphql.parser.Parser
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.util.regex.Matcher
+import java.util.regex.Pattern
+import java.util.stream.Collectors
+
+class CompactAstPrinterSpec extends Specification {
+
+    private static final String STRINGS_QUERY = '''
+        mutation M {
+            a(s: "q\\"\\\\\\n\\t\\r\\b\\f\\u0001 é 😀 /", blank: " ", empty: "", block: """block
+              string """)
+        }
+    '''
+
+    private static final List<String> TEST_SOURCE_DIRECTORIES = ["src/test/groovy", "src/test/java"]
+
+    // triple quoted strings first, so that the quotes inside them are not matched as strings of their own
+    private static final Pattern STRING_LITERAL = Pattern.compile(
+            /'''([\s\S]*?)'''|"""([\s\S]*?)"""|"((?:[^"\\\n]|\\.)*)"/)
+
+    private static final Pattern ESCAPE = Pattern.compile(/\\(.)/)
+
+    /**
+     * The executable documents among the string literals of the test sources, i.e. the queries of the other specs.
+     */
+    static List<List<String>> testQueries() {
+        Map<String, String> sourcesByQuery = new LinkedHashMap<>()
+        TEST_SOURCE_DIRECTORIES.collect { Paths.get(it) }.findAll { Files.isDirectory(it) }.each { Path root ->
+            List<Path> sources = Files.walk(root).withCloseable { paths ->
+                paths.filter { it.toString().endsWith(".groovy") || it.toString().endsWith(".java") }
+                        .sorted()
+                        .collect(Collectors.toList())
+            }
+            sources.each { Path source ->
+                Matcher matcher = STRING_LITERAL.matcher(new String(Files.readAllBytes(source), StandardCharsets.UTF_8))
+                while (matcher.find()) {
+                    String literal = unescape(matcher.group(1) ?: matcher.group(2) ?: matcher.group(3))
+                    if (isExecutableDocument(literal)) {
+                        sourcesByQuery.putIfAbsent(literal, root.relativize(source).toString())
+                    }
+                }
+            }
+        }
+        return sourcesByQuery.collect { query, source -> [source, query] }
+    }
+
+    private static String unescape(String literal) {
+        Matcher matcher = ESCAPE.matcher(literal)
+        StringBuffer unescaped = new StringBuffer()
+        while (matcher.find()) {
+            String escaped = matcher.group(1)
+            String replacement = escaped == "n" ? "\n" : escaped == "t" ? "\t" : escaped == "r" ? "\r" : escaped
+            matcher.appendReplacement(unescaped, Matcher.quoteReplacement(replacement))
+        }
+        matcher.appendTail(unescaped)
+        return unescaped.toString()
+    }
+
+    private static boolean isExecutableDocument(String text) {
+        if (!text.contains("{")) {
+            return false
+        }
+        try {
+            return Parser.parse(text).getDefinitions()
+                    .any { it instanceof OperationDefinition || it instanceof FragmentDefinition }
+        } catch (Exception ignored) {
+            return false
+        }
+    }
+
+    private static List<Node> descendants(Node node) {
+        List<Node> nodes = []
+        Deque<Node> stack = new ArrayDeque<>(node.getChildren())
+        while (!stack.isEmpty()) {
+            Node child = stack.pop()
+            nodes.add(child)
+            stack.addAll(child.getChildren())
+        }
+        return nodes
+    }
+
+    @Unroll
+    def "prints the query of #source like printAstCompact"() {
+        given:
+        Document document = Parser.parse(query)
+        String expected = AstPrinter.printAstCompact(document)
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream()
+
+        when:
+        String printed = CompactAstPrinter.print(document)
+        CompactAstPrinter.print(document, outputStream)
+        ByteBuffer buffer = CompactAstPrinter.print(document, ByteBuffer.allocate(16))
+
+        then:
+        printed == expected
+        outputStream.toByteArray() == expected.getBytes(StandardCharsets.UTF_8)
+        Arrays.copyOf(buffer.array(), buffer.position()) == expected.getBytes(StandardCharsets.UTF_8)
+        descendants(document).findAll { CompactAstPrinter.print(it) != AstPrinter.printAstCompact(it) } == []
+
+        where:
+        [source, query] << testQueries()
+    }
+
+    def "prints the same query as printAstCompact"() {
+        given:
+        Document document = Parser.parse(query)
+
+        expect:
+        CompactAstPrinter.print(document) == AstPrinter.printAstCompact(document)
+
+        where:
+        query << [
+                '{ a }',
+                'query Q { a b: c d { e } }',
+                'query ($v: [Int!]! = [1, 2] @d(x: 1), $w: String = "x", $n: Int = null) @op(a: $v) { a }',
+                'query Q($s: Boolean!) { a(x: $s, o: {k: 1, m: [true, null, ENUM], e: {}}, l: []) @skip(if: $s) @other { b } }',
+                'query { a { ...F @include(if: true) @other ... on T @d { x } ... @d { y } ... { z } } } fragment F on T { x }',
+                'fragment F on T @d(a: 1.5e3) { x } query { a { ...F } }',
+                'mutation M { a(i: 12345678901234567890, j: -0, f: 1.50, g: 0.0000001, h: 1E10) { id } }',
+                'subscription S($a: [[String]!]) { a(a: $a) }',
+                'query Bulk_Query($r: [_Any!]!) { _entities(representations: $r) { ... on Product { id weight } } }',
+                STRINGS_QUERY,
+                'type Query { a: String } directive @d(x: Int) on FIELD'
+        ]
+    }
+
+    def "prints single nodes like printAstCompact"() {
+        expect:
+        CompactAstPrinter.print(node) == AstPrinter.printAstCompact(node)
+
+        where:
+        node << [
+                Field.newField("a").alias("b").build(),
+                Parser.parse('{ a(x: {y: [1]}) { b } }').getDefinitions().get(0),
+                new StringValue(" "),
+                new StringValue("x\n")
+        ]
+    }
+
+    def "writes UTF-8 to an output stream"() {
+        given:
+        Document document = Parser.parse(STRINGS_QUERY)
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream()
+
+        when:
+        CompactAstPrinter.print(document, outputStream)
+
+        then:
+        outputStream.toByteArray() == AstPrinter.printAstCompact(document).getBytes(StandardCharsets.UTF_8)
+    }
+
+    def "writes UTF-8 to a buffer and grows it when it is too small"() {
+        given:
+        Document document = Parser.parse(STRINGS_QUERY)
+        byte[] expected = AstPrinter.printAstCompact(document).getBytes(StandardCharsets.UTF_8)
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4)
+
+        when:
+        ByteBuffer written = CompactAstPrinter.print(document, buffer)
+
+        then:
+        written.isDirect()
+        written.position() == expected.length
+        byte[] actual = new byte[expected.length]
+        written.flip()
+        written.get(actual)
+        actual == expected
+    }
+
+    def "reuses a buffer that is large enough"() {
+        given:
+        ByteBuffer buffer = ByteBuffer.allocate(1024)
+        buffer.put("prefix ".getBytes(StandardCharsets.UTF_8))
+
+        when:
+        ByteBuffer written = CompactAstPrinter.print(Parser.parse('{ a }'), buffer)
+
+        then:
+        written.is(buffer)
+        new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8) == "prefix query {a}"
+    }
+}
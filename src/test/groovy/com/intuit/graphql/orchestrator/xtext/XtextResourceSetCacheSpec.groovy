@@ -0,0 +1,198 @@
+package com.intuit.graphql.orchestrator.xtext
+
+import com.intuit.graphql.graphQL.ObjectTypeDefinition
+import com.intuit.graphql.orchestrator.ServiceProvider
+import com.intuit.graphql.orchestrator.TestServiceProvider
+import com.intuit.graphql.orchestrator.schema.Operation
+import com.intuit.graphql.orchestrator.utils.XtextUtils
+import com.intuit.graphql.utils.XtextTypeUtils
+import org.eclipse.xtext.resource.XtextResourceSet
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.nio.file.Path
+
+class XtextResourceSetCacheSpec extends Specification {
+
+    static final String SCHEMA = '''
+        type Query { person(id: ID): Person }
+        type Person { id: ID name: String }
+    '''
+
+    static ServiceProvider provider(String namespace, String schema) {
+        return TestServiceProvider.newBuilder()
+                .namespace(namespace)
+                .sdlFiles(["schema.graphqls": schema])
+                .build()
+    }
+
+    def "unchanged schemas are parsed once and handed out as copies"() {
+        given:
+        XtextResourceSetCache cache = new XtextResourceSetCache()
+        ServiceProvider serviceProvider = provider("PERSON", SCHEMA)
+
+        when:
+        XtextResourceSet first = cache.getResourceSet(serviceProvider)
+        XtextUtils.getObjectType("Person", first).setName("Renamed")
+        XtextResourceSet second = cache.getResourceSet(serviceProvider)
+
+        then:
+        cache.getMissCount() == 1
+        cache.getHitCount() == 1
+        !first.is(second)
+        XtextUtils.getObjectType("Person", second) != null
+    }
+
+    def "copies keep references between types"() {
+        given:
+        XtextResourceSetCache cache = new XtextResourceSetCache()
+        ServiceProvider serviceProvider = provider("PERSON", SCHEMA)
+        cache.getResourceSet(serviceProvider)
+
+        when:
+        XtextResourceSet copy = cache.getResourceSet(serviceProvider)
+        ObjectTypeDefinition query = XtextUtils.findOperationType(Operation.QUERY, copy).get()
+        ObjectTypeDefinition person = XtextUtils.getObjectType("Person", copy)
+
+        then:
+        XtextTypeUtils.getObjectType(query.getFieldDefinition().get(0).getNamedType()).is(person)
+    }
+
+    def "changed schemas are parsed again"() {
+        given:
+        XtextResourceSetCache cache = new XtextResourceSetCache()
+
+        when:
+        cache.getResourceSet(provider("PERSON", SCHEMA))
+        cache.getResourceSet(provider("PERSON", SCHEMA + " type Address { street: String }"))
+        XtextResourceSet resourceSet = cache.getResourceSet(provider("PERSON", SCHEMA + " type Address { street: String }"))
+
+        then:
+        cache.getMissCount() == 2
+        cache.getHitCount() == 1
+        cache.size() == 1
+        XtextUtils.getObjectType("Address", resourceSet) != null
+    }
+
+    def "schemas of providers that are no longer stitched are dropped"() {
+        given:
+        XtextResourceSetCache cache = new XtextResourceSetCache()
+        cache.getResourceSet(provider("PERSON", SCHEMA))
+        cache.getResourceSet(provider("OTHER", SCHEMA))
+
+        when:
+        cache.retainAll(["PERSON"])
+
+        then:
+        cache.size() == 1
+    }
+
+    def "sdl hash depends on file names, contents and federation"() {
+        given:
+        ServiceProvider federated = TestServiceProvider.newBuilder()
+                .namespace("PERSON")
+                .serviceType(ServiceProvider.ServiceType.FEDERATION_SUBGRAPH)
+                .sdlFiles(["schema.graphqls": SCHEMA])
+                .build()
+        ServiceProvider renamed = TestServiceProvider.newBuilder()
+                .namespace("PERSON")
+                .sdlFiles(["other.graphqls": SCHEMA])
+                .build()
+
+        expect:
+        XtextResourceSetCache.sdlHash(provider("PERSON", SCHEMA)) == XtextResourceSetCache.sdlHash(provider("OTHER", SCHEMA))
+        XtextResourceSetCache.sdlHash(provider("PERSON", SCHEMA)) != XtextResourceSetCache.sdlHash(federated)
+        XtextResourceSetCache.sdlHash(provider("PERSON", SCHEMA)) != XtextResourceSetCache.sdlHash(renamed)
+    }
+
+    def "schemas written to the cache directory are read by a new cache"() {
+        given:
+        Path cacheDirectory = Files.createTempDirectory("xtext-cache")
+        ServiceProvider serviceProvider = provider("PERSON", SCHEMA)
+        new XtextResourceSetCache(cacheDirectory).getResourceSet(serviceProvider)
+        XtextResourceSetCache cache = new XtextResourceSetCache(cacheDirectory)
+
+        when:
+        XtextResourceSet resourceSet = cache.getResourceSet(serviceProvider)
+        ObjectTypeDefinition query = XtextUtils.findOperationType(Operation.QUERY, resourceSet).get()
+
+        then:
+        cache.getMissCount() == 1
+        cache.getFileHitCount() == 1
+        XtextTypeUtils.getObjectType(query.getFieldDefinition().get(0).getNamedType())
+                .is(XtextUtils.getObjectType("Person", resourceSet))
+
+        cleanup:
+        cacheDirectory.toFile().deleteDir()
+    }
+
+    def "corrupt cache entries are parsed again and replaced"() {
+        given:
+        Path cacheDirectory = Files.createTempDirectory("xtext-cache")
+        ServiceProvider serviceProvider = provider("PERSON", SCHEMA)
+        new XtextResourceSetCache(cacheDirectory).getResourceSet(serviceProvider)
+        Path entry = new XtextResourceSetFileStore(cacheDirectory).pathOf(XtextResourceSetCache.sdlHash(serviceProvider))
+        Files.write(entry, [1, 2, 3, 4] as byte[])
+
+        when:
+        XtextResourceSetCache cache = new XtextResourceSetCache(cacheDirectory)
+        XtextResourceSet resourceSet = cache.getResourceSet(serviceProvider)
+        XtextResourceSetCache next = new XtextResourceSetCache(cacheDirectory)
+        next.getResourceSet(serviceProvider)
+
+        then:
+        cache.getFileHitCount() == 0
+        XtextUtils.getObjectType("Person", resourceSet) != null
+        next.getFileHitCount() == 1
+
+        cleanup:
+        cacheDirectory.toFile().deleteDir()
+    }
+
+    def "entries with a corrupt resource length are parsed again"() {
+        given:
+        Path cacheDirectory = Files.createTempDirectory("xtext-cache")
+        ServiceProvider serviceProvider = provider("PERSON", SCHEMA)
+        new XtextResourceSetCache(cacheDirectory).getResourceSet(serviceProvider)
+        Path entry = new XtextResourceSetFileStore(cacheDirectory).pathOf(XtextResourceSetCache.sdlHash(serviceProvider))
+
+        byte[] bytes = Files.readAllBytes(entry)
+        ByteArrayInputStream remaining = new ByteArrayInputStream(bytes)
+        DataInputStream input = new DataInputStream(remaining)
+        input.readInt()
+        input.readUTF()
+        input.readInt()
+        input.readUTF()
+        ByteBuffer.wrap(bytes, bytes.length - remaining.available(), 4).putInt(Integer.MAX_VALUE)
+        Files.write(entry, bytes)
+
+        when:
+        XtextResourceSetCache cache = new XtextResourceSetCache(cacheDirectory)
+        XtextResourceSet resourceSet = cache.getResourceSet(serviceProvider)
+
+        then:
+        cache.getFileHitCount() == 0
+        XtextUtils.getObjectType("Person", resourceSet) != null
+
+        cleanup:
+        cacheDirectory.toFile().deleteDir()
+    }
+
+    def "entries of other schemas are not read"() {
+        given:
+        Path cacheDirectory = Files.createTempDirectory("xtext-cache")
+        new XtextResourceSetCache(cacheDirectory).getResourceSet(provider("PERSON", SCHEMA))
+        XtextResourceSetCache cache = new XtextResourceSetCache(cacheDirectory)
+
+        when:
+        XtextResourceSet resourceSet = cache.getResourceSet(provider("PERSON", SCHEMA + " type Address { street: String }"))
+
+        then:
+        cache.getFileHitCount() == 0
+        XtextUtils.getObjectType("Address", resourceSet) != null
+
+        cleanup:
+        cacheDirectory.toFile().deleteDir()
+    }
+}
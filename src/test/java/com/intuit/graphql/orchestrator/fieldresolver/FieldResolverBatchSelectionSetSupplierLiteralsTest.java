@@ -13,9 +13,9 @@ import com.intuit.graphql.graphQL.InputObjectTypeDefinition;
 import com.intuit.graphql.graphQL.ObjectType;
 import com.intuit.graphql.graphQL.ObjectTypeDefinition;
 import com.intuit.graphql.graphQL.PrimitiveType;
-import com.intuit.graphql.orchestrator.metadata.RenamedMetadata;
 import com.intuit.graphql.orchestrator.resolverdirective.ResolverArgumentDefinition;
 import com.intuit.graphql.orchestrator.resolverdirective.ResolverDirectiveDefinition;
+import com.intuit.graphql.orchestrator.schema.FieldCapabilityIndex;
 import com.intuit.graphql.orchestrator.schema.ServiceMetadata;
 import com.intuit.graphql.orchestrator.schema.transform.FieldResolverContext;
 import com.intuit.graphql.orchestrator.xtext.GraphQLFactoryDelegate;
@@ -33,7 +33,6 @@ import graphql.schema.GraphQLFieldDefinition;
 import graphql.schema.GraphQLObjectType;
 import graphql.schema.GraphQLSchema;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -64,9 +63,6 @@ public class FieldResolverBatchSelectionSetSupplierLiteralsTest {
     @Mock
     private GraphQLSchema graphQLSchemaMock;
 
-    @Mock
-    private RenamedMetadata renamedMetadataMock;
-
     private final Map<String, Object> testDFEDataSource = new HashMap<>();
 
     private FieldResolverContext testFieldResolverContext;
@@ -77,8 +73,7 @@ public class FieldResolverBatchSelectionSetSupplierLiteralsTest {
 
     @Before
     public void setup() {
-        when(renamedMetadataMock.getOriginalFieldNamesByRenamedName()).thenReturn(Collections.emptyMap());
-        when(serviceMetadataMock.getRenamedMetadata()).thenReturn(renamedMetadataMock);
+        when(serviceMetadataMock.getFieldCapabilityIndex()).thenReturn(FieldCapabilityIndex.EMPTY);
 
         when(graphQLSchemaMock.getQueryType()).thenReturn(GraphQLObjectType.newObject()
             .name("Query")